@@ -19,16 +19,34 @@ import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.createKeysp
 import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.dropKeyspace;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import dev.cassandraguide.repository.CompositeRequestTracker;
+import dev.cassandraguide.repository.LatencyPercentileTracker;
+import dev.cassandraguide.repository.PercentileSpeculativeExecutionPolicy;
 import dev.cassandraguide.repository.ReservationRepository;
+import dev.cassandraguide.repository.SlowQueryLogger;
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.CqlSessionBuilder;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBuilder;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import com.datastax.oss.driver.internal.core.specex.NoSpeculativeExecutionPolicy;
 
 /**
  * Import Configuration from Configuration File
@@ -49,6 +67,10 @@ public class CassandraConfiguration {
     @Value("${cassandra.port:9042}")
     protected int cassandraPort;
     
+    // Contact points as host:port (port defaults to 'cassandra.port'), replace 'cassandra.contactPoint' when set
+    @Value("${cassandra.contactPoints:}")
+    protected List<String> contactPoints = new ArrayList<>();
+    
     // DataCenter name, required from v2.
     @Value("${cassandra.localDataCenterName:datacenter1}")
     protected String localDataCenterName = "datacenter1";
@@ -60,6 +82,78 @@ public class CassandraConfiguration {
     // Option to drop schema and generate table again at startup
     @Value("${cassandra.dropSchema:true}")
     public boolean dropSchema;
+    
+    // Reuse a single session at startup and skip DDL when the schema is already there
+    @Value("${cassandra.fastStartup:false}")
+    protected boolean fastStartup = false;
+    
+    // Hedge idempotent reads to another replica when they are slower than usual
+    @Value("${cassandra.speculativeExecution.enabled:true}")
+    protected boolean speculativeExecutionEnabled = true;
+    
+    // Executions of a request, including the initial one
+    @Value("${cassandra.speculativeExecution.maxExecutions:2}")
+    protected int speculativeExecutionMax = 2;
+    
+    // Percentile of observed latencies used as delay before the next execution
+    @Value("${cassandra.speculativeExecution.percentile:99.0}")
+    protected double speculativeExecutionPercentile = 99.0;
+    
+    // Lower bound for the delay
+    @Value("${cassandra.speculativeExecution.minDelayMillis:2}")
+    protected int speculativeExecutionMinDelayMillis = 2;
+    
+    // Delay used until enough latencies have been observed
+    @Value("${cassandra.speculativeExecution.defaultDelayMillis:50}")
+    protected int speculativeExecutionDefaultDelayMillis = 50;
+    
+    // Duration of the window used to compute percentiles
+    @Value("${cassandra.speculativeExecution.windowSeconds:30}")
+    protected int speculativeExecutionWindowSeconds = 30;
+    
+    // Connections per node in the local datacenter
+    @Value("${cassandra.pool.localSize:1}")
+    protected int poolLocalSize = 1;
+    
+    // Connections per node in remote datacenters
+    @Value("${cassandra.pool.remoteSize:1}")
+    protected int poolRemoteSize = 1;
+    
+    // In-flight requests per connection (protocol v3+ allows up to 32768)
+    @Value("${cassandra.pool.maxRequestsPerConnection:1024}")
+    protected int poolMaxRequestsPerConnection = 1024;
+    
+    // Protocol compression: none, lz4 or snappy (the library must be on the classpath)
+    @Value("${cassandra.protocol.compression:none}")
+    protected String protocolCompression = "none";
+    
+    // Writes are flushed to the socket in batches, runs of the coalescer without work before it stops
+    @Value("${cassandra.coalescer.maxRunsWithNoWork:5}")
+    protected int coalescerMaxRunsWithNoWork = 5;
+    
+    // Interval between two runs of the coalescer
+    @Value("${cassandra.coalescer.rescheduleIntervalMicros:10}")
+    protected int coalescerRescheduleIntervalMicros = 10;
+    
+    // Load balancing policy, the default one is token aware (replicas first) for statements with a routing key
+    @Value("${cassandra.loadBalancing.policyClass:DefaultLoadBalancingPolicy}")
+    protected String loadBalancingPolicyClass = "DefaultLoadBalancingPolicy";
+    
+    // Deprioritize replicas that look unhealthy (many in-flight requests, slow to answer)
+    @Value("${cassandra.loadBalancing.slowReplicaAvoidance:true}")
+    protected boolean loadBalancingSlowReplicaAvoidance = true;
+    
+    // Log requests slower than the threshold of their operation ('cassandra.profiles.<operation>.slowQueryMillis')
+    @Value("${cassandra.slowQuery.enabled:true}")
+    protected boolean slowQueryEnabled = true;
+    
+    // Threshold of operations without one
+    @Value("${cassandra.slowQuery.thresholdMillis:500}")
+    protected long slowQueryThresholdMillis = 500;
+    
+    // Execution profiles of the repository operations ('cassandra.profiles.*')
+    @Autowired(required = false)
+    protected ExecutionProfilesProperties executionProfiles = new ExecutionProfilesProperties();
 
     /**
      * Default configuration.
@@ -98,9 +192,12 @@ public class CassandraConfiguration {
     
     @Bean
     public CqlSession cqlSession() {
+        if (isFastStartup()) {
+            return fastStartupSession();
+        }
         logger.info("Creating Keyspace and expected table in Cassandra if not present.");
         try(CqlSession tmpSession = CqlSession.builder()
-                               .addContactPoint(new InetSocketAddress(getCassandraHost(), getCassandraPort()))
+                               .addContactPoints(contactPoints())
                                .withLocalDatacenter(getLocalDataCenterName())
                                .build()) {
             if (isDropSchema()) {
@@ -110,11 +207,139 @@ public class CassandraConfiguration {
             tmpSession.execute(createKeyspace(keyspace()).ifNotExists().withSimpleStrategy(1).build());
             logger.debug("+ Keyspace '{}' has been created (if needed)", keyspace());
         }
+        return sessionBuilder().withKeyspace(keyspace()).build();
+    }
+    
+    /**
+     * Fast startup: a single session is opened and the keyspace is only created when the driver metadata does
+     * not know it. The session is not bound to the keyspace, statements of the repository are fully qualified.
+     *
+     * @return
+     *      session to use in the application
+     */
+    private CqlSession fastStartupSession() {
+        long start = System.nanoTime();
+        CqlSession session = sessionBuilder().build();
+        long connected = System.nanoTime();
+        if (isDropSchema()) {
+            session.execute(dropKeyspace(keyspace()).ifExists().build());
+            logger.debug("+ Keyspace '{}' has been dropped (if existed)", keyspace());
+        }
+        if (isDropSchema() || !session.getMetadata().getKeyspace(keyspace()).isPresent()) {
+            session.execute(createKeyspace(keyspace()).ifNotExists().withSimpleStrategy(1).build());
+            logger.debug("+ Keyspace '{}' has been created", keyspace());
+        } else {
+            logger.debug("+ Keyspace '{}' already exists, skipping DDL", keyspace());
+        }
+        long keyspaceReady = System.nanoTime();
+        logger.info("Startup phases: connect={}ms, keyspace={}ms", 
+                TimeUnit.NANOSECONDS.toMillis(connected - start),
+                TimeUnit.NANOSECONDS.toMillis(keyspaceReady - connected));
+        return session;
+    }
+    
+    /**
+     * Session settings shared by all sessions of the application.
+     *
+     * @return
+     *      builder to be completed
+     */
+    private CqlSessionBuilder sessionBuilder() {
         return CqlSession.builder()
-                .addContactPoint(new InetSocketAddress(getCassandraHost(), getCassandraPort()))
-                .withKeyspace(keyspace())
+                .addContactPoints(contactPoints())
                 .withLocalDatacenter(getLocalDataCenterName())
-                .build();
+                .withConfigLoader(driverConfigLoader())
+                .withRequestTracker(requestTracker());
+    }
+    
+    /**
+     * Latencies for speculative executions, and the slow-query log when enabled.
+     *
+     * @return
+     *      tracker of the session
+     */
+    private RequestTracker requestTracker() {
+        LatencyPercentileTracker latencies = new LatencyPercentileTracker(getSpeculativeExecutionWindowSeconds(), 100);
+        if (!isSlowQueryEnabled()) {
+            return latencies;
+        }
+        Map<String, Long> thresholds = new HashMap<>();
+        getExecutionProfiles().getProfiles().forEach((name, profile) -> {
+            if (profile.getSlowQueryMillis() != null) {
+                thresholds.put(name, profile.getSlowQueryMillis().longValue());
+            }
+        });
+        return new CompositeRequestTracker(List.of(latencies, 
+                new SlowQueryLogger(thresholds, getSlowQueryThresholdMillis())));
+    }
+    
+    /**
+     * Contact points from 'cassandra.contactPoints' or the single 'cassandra.contactPoint'.
+     *
+     * @return
+     *      addresses of contact points
+     */
+    public List<InetSocketAddress> contactPoints() {
+        if (getContactPoints() == null || getContactPoints().isEmpty()) {
+            return List.of(new InetSocketAddress(getCassandraHost(), getCassandraPort()));
+        }
+        return getContactPoints().stream()
+                .map(String::trim)
+                .filter(cp -> !cp.isEmpty())
+                .map(cp -> {
+                    int idx = cp.lastIndexOf(':');
+                    return (idx < 0) ? new InetSocketAddress(cp, getCassandraPort()) :
+                        new InetSocketAddress(cp.substring(0, idx), Integer.parseInt(cp.substring(idx + 1)));
+                })
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Driver configuration: values of 'application.conf' overridden with the Spring properties.
+     *
+     * @return
+     *      configuration loader for the session
+     */
+    public DriverConfigLoader driverConfigLoader() {
+        ProgrammaticDriverConfigLoaderBuilder config = DriverConfigLoader.programmaticBuilder()
+                .withInt(DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE, getPoolLocalSize())
+                .withInt(DefaultDriverOption.CONNECTION_POOL_REMOTE_SIZE, getPoolRemoteSize())
+                .withInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS, getPoolMaxRequestsPerConnection())
+                .withString(DefaultDriverOption.PROTOCOL_COMPRESSION, getProtocolCompression())
+                .withInt(DefaultDriverOption.COALESCER_MAX_RUNS, getCoalescerMaxRunsWithNoWork())
+                // withDuration() truncates to milliseconds, typesafe syntax keeps the microseconds
+                .withString(DefaultDriverOption.COALESCER_INTERVAL, getCoalescerRescheduleIntervalMicros() + " microseconds")
+                .withString(DefaultDriverOption.LOAD_BALANCING_POLICY_CLASS, getLoadBalancingPolicyClass())
+                .withBoolean(DefaultDriverOption.LOAD_BALANCING_POLICY_SLOW_AVOIDANCE, isLoadBalancingSlowReplicaAvoidance());
+        if (isSpeculativeExecutionEnabled()) {
+            config.withClass(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, PercentileSpeculativeExecutionPolicy.class)
+                  .withInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX, getSpeculativeExecutionMax())
+                  .withDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY, 
+                          Duration.ofMillis(getSpeculativeExecutionDefaultDelayMillis()))
+                  .withDouble(PercentileSpeculativeExecutionPolicy.Option.PERCENTILE, getSpeculativeExecutionPercentile())
+                  .withDuration(PercentileSpeculativeExecutionPolicy.Option.MIN_DELAY, 
+                          Duration.ofMillis(getSpeculativeExecutionMinDelayMillis()));
+        } else {
+            config.withClass(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, NoSpeculativeExecutionPolicy.class);
+        }
+        getExecutionProfiles().getProfiles().forEach((name, profile) -> {
+            config.startProfile(name);
+            if (profile.getConsistency() != null) {
+                config.withString(DefaultDriverOption.REQUEST_CONSISTENCY, profile.getConsistency());
+            }
+            if (profile.getSerialConsistency() != null) {
+                config.withString(DefaultDriverOption.REQUEST_SERIAL_CONSISTENCY, profile.getSerialConsistency());
+            }
+            if (profile.getTimeoutMillis() != null) {
+                config.withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofMillis(profile.getTimeoutMillis()));
+            }
+            if (profile.getPageSize() != null) {
+                config.withInt(DefaultDriverOption.REQUEST_PAGE_SIZE, profile.getPageSize());
+            }
+            config.endProfile();
+            logger.debug("+ Execution profile '{}' defined", name);
+        });
+        return config.build();
     }
 
     /**
@@ -211,7 +436,365 @@ public class CassandraConfiguration {
     public void setDropSchema(boolean dropSchema) {
         this.dropSchema = dropSchema;
     }
-    
-    
 
+    /**
+     * Getter accessor for attribute 'speculativeExecutionEnabled'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionEnabled'
+     */
+    public boolean isSpeculativeExecutionEnabled() {
+        return speculativeExecutionEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionEnabled'.
+     * @param speculativeExecutionEnabled
+     * 		new value for 'speculativeExecutionEnabled '
+     */
+    public void setSpeculativeExecutionEnabled(boolean speculativeExecutionEnabled) {
+        this.speculativeExecutionEnabled = speculativeExecutionEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'speculativeExecutionMax'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionMax'
+     */
+    public int getSpeculativeExecutionMax() {
+        return speculativeExecutionMax;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionMax'.
+     * @param speculativeExecutionMax
+     * 		new value for 'speculativeExecutionMax '
+     */
+    public void setSpeculativeExecutionMax(int speculativeExecutionMax) {
+        this.speculativeExecutionMax = speculativeExecutionMax;
+    }
+
+    /**
+     * Getter accessor for attribute 'speculativeExecutionPercentile'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionPercentile'
+     */
+    public double getSpeculativeExecutionPercentile() {
+        return speculativeExecutionPercentile;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionPercentile'.
+     * @param speculativeExecutionPercentile
+     * 		new value for 'speculativeExecutionPercentile '
+     */
+    public void setSpeculativeExecutionPercentile(double speculativeExecutionPercentile) {
+        this.speculativeExecutionPercentile = speculativeExecutionPercentile;
+    }
+
+    /**
+     * Getter accessor for attribute 'speculativeExecutionMinDelayMillis'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionMinDelayMillis'
+     */
+    public int getSpeculativeExecutionMinDelayMillis() {
+        return speculativeExecutionMinDelayMillis;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionMinDelayMillis'.
+     * @param speculativeExecutionMinDelayMillis
+     * 		new value for 'speculativeExecutionMinDelayMillis '
+     */
+    public void setSpeculativeExecutionMinDelayMillis(int speculativeExecutionMinDelayMillis) {
+        this.speculativeExecutionMinDelayMillis = speculativeExecutionMinDelayMillis;
+    }
+
+    /**
+     * Getter accessor for attribute 'speculativeExecutionDefaultDelayMillis'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionDefaultDelayMillis'
+     */
+    public int getSpeculativeExecutionDefaultDelayMillis() {
+        return speculativeExecutionDefaultDelayMillis;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionDefaultDelayMillis'.
+     * @param speculativeExecutionDefaultDelayMillis
+     * 		new value for 'speculativeExecutionDefaultDelayMillis '
+     */
+    public void setSpeculativeExecutionDefaultDelayMillis(int speculativeExecutionDefaultDelayMillis) {
+        this.speculativeExecutionDefaultDelayMillis = speculativeExecutionDefaultDelayMillis;
+    }
+
+    /**
+     * Getter accessor for attribute 'speculativeExecutionWindowSeconds'.
+     *
+     * @return
+     *       current value of 'speculativeExecutionWindowSeconds'
+     */
+    public int getSpeculativeExecutionWindowSeconds() {
+        return speculativeExecutionWindowSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'speculativeExecutionWindowSeconds'.
+     * @param speculativeExecutionWindowSeconds
+     * 		new value for 'speculativeExecutionWindowSeconds '
+     */
+    public void setSpeculativeExecutionWindowSeconds(int speculativeExecutionWindowSeconds) {
+        this.speculativeExecutionWindowSeconds = speculativeExecutionWindowSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'contactPoints'.
+     *
+     * @return
+     *       current value of 'contactPoints'
+     */
+    public List<String> getContactPoints() {
+        return contactPoints;
+    }
+
+    /**
+     * Setter accessor for attribute 'contactPoints'.
+     * @param contactPoints
+     * 		new value for 'contactPoints '
+     */
+    public void setContactPoints(List<String> contactPoints) {
+        this.contactPoints = contactPoints;
+    }
+
+    /**
+     * Getter accessor for attribute 'poolLocalSize'.
+     *
+     * @return
+     *       current value of 'poolLocalSize'
+     */
+    public int getPoolLocalSize() {
+        return poolLocalSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'poolLocalSize'.
+     * @param poolLocalSize
+     * 		new value for 'poolLocalSize '
+     */
+    public void setPoolLocalSize(int poolLocalSize) {
+        this.poolLocalSize = poolLocalSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'poolRemoteSize'.
+     *
+     * @return
+     *       current value of 'poolRemoteSize'
+     */
+    public int getPoolRemoteSize() {
+        return poolRemoteSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'poolRemoteSize'.
+     * @param poolRemoteSize
+     * 		new value for 'poolRemoteSize '
+     */
+    public void setPoolRemoteSize(int poolRemoteSize) {
+        this.poolRemoteSize = poolRemoteSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'poolMaxRequestsPerConnection'.
+     *
+     * @return
+     *       current value of 'poolMaxRequestsPerConnection'
+     */
+    public int getPoolMaxRequestsPerConnection() {
+        return poolMaxRequestsPerConnection;
+    }
+
+    /**
+     * Setter accessor for attribute 'poolMaxRequestsPerConnection'.
+     * @param poolMaxRequestsPerConnection
+     * 		new value for 'poolMaxRequestsPerConnection '
+     */
+    public void setPoolMaxRequestsPerConnection(int poolMaxRequestsPerConnection) {
+        this.poolMaxRequestsPerConnection = poolMaxRequestsPerConnection;
+    }
+
+    /**
+     * Getter accessor for attribute 'protocolCompression'.
+     *
+     * @return
+     *       current value of 'protocolCompression'
+     */
+    public String getProtocolCompression() {
+        return protocolCompression;
+    }
+
+    /**
+     * Setter accessor for attribute 'protocolCompression'.
+     * @param protocolCompression
+     * 		new value for 'protocolCompression '
+     */
+    public void setProtocolCompression(String protocolCompression) {
+        this.protocolCompression = protocolCompression;
+    }
+
+    /**
+     * Getter accessor for attribute 'coalescerMaxRunsWithNoWork'.
+     *
+     * @return
+     *       current value of 'coalescerMaxRunsWithNoWork'
+     */
+    public int getCoalescerMaxRunsWithNoWork() {
+        return coalescerMaxRunsWithNoWork;
+    }
+
+    /**
+     * Setter accessor for attribute 'coalescerMaxRunsWithNoWork'.
+     * @param coalescerMaxRunsWithNoWork
+     * 		new value for 'coalescerMaxRunsWithNoWork '
+     */
+    public void setCoalescerMaxRunsWithNoWork(int coalescerMaxRunsWithNoWork) {
+        this.coalescerMaxRunsWithNoWork = coalescerMaxRunsWithNoWork;
+    }
+
+    /**
+     * Getter accessor for attribute 'coalescerRescheduleIntervalMicros'.
+     *
+     * @return
+     *       current value of 'coalescerRescheduleIntervalMicros'
+     */
+    public int getCoalescerRescheduleIntervalMicros() {
+        return coalescerRescheduleIntervalMicros;
+    }
+
+    /**
+     * Setter accessor for attribute 'coalescerRescheduleIntervalMicros'.
+     * @param coalescerRescheduleIntervalMicros
+     * 		new value for 'coalescerRescheduleIntervalMicros '
+     */
+    public void setCoalescerRescheduleIntervalMicros(int coalescerRescheduleIntervalMicros) {
+        this.coalescerRescheduleIntervalMicros = coalescerRescheduleIntervalMicros;
+    }
+
+    /**
+     * Getter accessor for attribute 'loadBalancingPolicyClass'.
+     *
+     * @return
+     *       current value of 'loadBalancingPolicyClass'
+     */
+    public String getLoadBalancingPolicyClass() {
+        return loadBalancingPolicyClass;
+    }
+
+    /**
+     * Setter accessor for attribute 'loadBalancingPolicyClass'.
+     * @param loadBalancingPolicyClass
+     * 		new value for 'loadBalancingPolicyClass '
+     */
+    public void setLoadBalancingPolicyClass(String loadBalancingPolicyClass) {
+        this.loadBalancingPolicyClass = loadBalancingPolicyClass;
+    }
+
+    /**
+     * Getter accessor for attribute 'loadBalancingSlowReplicaAvoidance'.
+     *
+     * @return
+     *       current value of 'loadBalancingSlowReplicaAvoidance'
+     */
+    public boolean isLoadBalancingSlowReplicaAvoidance() {
+        return loadBalancingSlowReplicaAvoidance;
+    }
+
+    /**
+     * Setter accessor for attribute 'loadBalancingSlowReplicaAvoidance'.
+     * @param loadBalancingSlowReplicaAvoidance
+     * 		new value for 'loadBalancingSlowReplicaAvoidance '
+     */
+    public void setLoadBalancingSlowReplicaAvoidance(boolean loadBalancingSlowReplicaAvoidance) {
+        this.loadBalancingSlowReplicaAvoidance = loadBalancingSlowReplicaAvoidance;
+    }
+
+    /**
+     * Getter accessor for attribute 'slowQueryEnabled'.
+     *
+     * @return
+     *       current value of 'slowQueryEnabled'
+     */
+    public boolean isSlowQueryEnabled() {
+        return slowQueryEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'slowQueryEnabled'.
+     * @param slowQueryEnabled
+     * 		new value for 'slowQueryEnabled '
+     */
+    public void setSlowQueryEnabled(boolean slowQueryEnabled) {
+        this.slowQueryEnabled = slowQueryEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'slowQueryThresholdMillis'.
+     *
+     * @return
+     *       current value of 'slowQueryThresholdMillis'
+     */
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    /**
+     * Setter accessor for attribute 'slowQueryThresholdMillis'.
+     * @param slowQueryThresholdMillis
+     * 		new value for 'slowQueryThresholdMillis '
+     */
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    /**
+     * Getter accessor for attribute 'fastStartup'.
+     *
+     * @return
+     *       current value of 'fastStartup'
+     */
+    public boolean isFastStartup() {
+        return fastStartup;
+    }
+
+    /**
+     * Setter accessor for attribute 'fastStartup'.
+     * @param fastStartup
+     * 		new value for 'fastStartup '
+     */
+    public void setFastStartup(boolean fastStartup) {
+        this.fastStartup = fastStartup;
+    }
+
+    /**
+     * Getter accessor for attribute 'executionProfiles'.
+     *
+     * @return
+     *       current value of 'executionProfiles'
+     */
+    public ExecutionProfilesProperties getExecutionProfiles() {
+        return executionProfiles;
+    }
+
+    /**
+     * Setter accessor for attribute 'executionProfiles'.
+     * @param executionProfiles
+     * 		new value for 'executionProfiles '
+     */
+    public void setExecutionProfiles(ExecutionProfilesProperties executionProfiles) {
+        this.executionProfiles = executionProfiles;
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.conf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Driver execution profiles, one per repository operation ('cassandra.profiles.&lt;operation&gt;.*'). Operations
+ * without a profile, and unset options, use the defaults of 'application.conf'. 'slowQueryMillis' is not a driver
+ * option, it is the threshold of the slow-query log for the operation.
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+@ConfigurationProperties(prefix = "cassandra")
+public class ExecutionProfilesProperties {
+
+    /** Profiles by name, the name of the operation. */
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    /**
+     * Options of a profile, null to keep the default.
+     */
+    public static class Profile {
+
+        // ONE, LOCAL_ONE, LOCAL_QUORUM, QUORUM...
+        private String consistency;
+
+        // SERIAL or LOCAL_SERIAL, for lightweight transactions
+        private String serialConsistency;
+
+        private Integer timeoutMillis;
+
+        private Integer pageSize;
+
+        // Requests of the operation slower than this are logged (see SlowQueryLogger)
+        private Integer slowQueryMillis;
+
+        /**
+         * Getter accessor for attribute 'consistency'.
+         *
+         * @return
+         *       current value of 'consistency'
+         */
+        public String getConsistency() {
+            return consistency;
+        }
+
+        /**
+         * Setter accessor for attribute 'consistency'.
+         * @param consistency
+         *      new value for 'consistency '
+         */
+        public void setConsistency(String consistency) {
+            this.consistency = consistency;
+        }
+
+        /**
+         * Getter accessor for attribute 'serialConsistency'.
+         *
+         * @return
+         *       current value of 'serialConsistency'
+         */
+        public String getSerialConsistency() {
+            return serialConsistency;
+        }
+
+        /**
+         * Setter accessor for attribute 'serialConsistency'.
+         * @param serialConsistency
+         *      new value for 'serialConsistency '
+         */
+        public void setSerialConsistency(String serialConsistency) {
+            this.serialConsistency = serialConsistency;
+        }
+
+        /**
+         * Getter accessor for attribute 'timeoutMillis'.
+         *
+         * @return
+         *       current value of 'timeoutMillis'
+         */
+        public Integer getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        /**
+         * Setter accessor for attribute 'timeoutMillis'.
+         * @param timeoutMillis
+         *      new value for 'timeoutMillis '
+         */
+        public void setTimeoutMillis(Integer timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * Getter accessor for attribute 'pageSize'.
+         *
+         * @return
+         *       current value of 'pageSize'
+         */
+        public Integer getPageSize() {
+            return pageSize;
+        }
+
+        /**
+         * Setter accessor for attribute 'pageSize'.
+         * @param pageSize
+         *      new value for 'pageSize '
+         */
+        public void setPageSize(Integer pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        /**
+         * Getter accessor for attribute 'slowQueryMillis'.
+         *
+         * @return
+         *       current value of 'slowQueryMillis'
+         */
+        public Integer getSlowQueryMillis() {
+            return slowQueryMillis;
+        }
+
+        /**
+         * Setter accessor for attribute 'slowQueryMillis'.
+         * @param slowQueryMillis
+         *      new value for 'slowQueryMillis '
+         */
+        public void setSlowQueryMillis(Integer slowQueryMillis) {
+            this.slowQueryMillis = slowQueryMillis;
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'profiles'.
+     *
+     * @return
+     *       current value of 'profiles'
+     */
+    public Map<String, Profile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Setter accessor for attribute 'profiles'.
+     * @param profiles
+     *      new value for 'profiles '
+     */
+    public void setProfiles(Map<String, Profile> profiles) {
+        this.profiles = profiles;
+    }
+}
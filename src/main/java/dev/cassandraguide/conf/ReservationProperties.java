@@ -0,0 +1,1603 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.conf;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning of the reservation repository, imported from configuration file (keys 'reservation.*').
+ * 
+ * <p>Default values are set on fields as well so that the repository can be created without Spring (tests).
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+public class ReservationProperties {
+    
+    // Skip DDL when the schema is present, prepare statements concurrently and warm up connections
+    @Value("${cassandra.fastStartup:false}")
+    protected boolean fastStartup = false;
+    
+    // Reject calls to Cassandra over the adaptive limits
+    @Value("${reservation.limiter.enabled:true}")
+    protected boolean limiterEnabled = true;
+    
+    // Limits for reads (exists, find, search)
+    @Value("${reservation.limiter.read.initialLimit:20}")
+    protected int readInitialLimit = 20;
+    
+    @Value("${reservation.limiter.read.minLimit:4}")
+    protected int readMinLimit = 4;
+    
+    @Value("${reservation.limiter.read.maxLimit:200}")
+    protected int readMaxLimit = 200;
+    
+    // Limits for writes (upsert, delete)
+    @Value("${reservation.limiter.write.initialLimit:10}")
+    protected int writeInitialLimit = 10;
+    
+    @Value("${reservation.limiter.write.minLimit:2}")
+    protected int writeMinLimit = 2;
+    
+    @Value("${reservation.limiter.write.maxLimit:100}")
+    protected int writeMaxLimit = 100;
+    
+    // Tolerated ratio between latest and long term latency before reducing the limit
+    @Value("${reservation.limiter.rttTolerance:1.5}")
+    protected double limiterRttTolerance = 1.5;
+    
+    // Weight of a new estimation of the limit
+    @Value("${reservation.limiter.smoothing:0.2}")
+    protected double limiterSmoothing = 0.2;
+    
+    // Value of 'Retry-After' when a request is shed
+    @Value("${reservation.limiter.retryAfterSeconds:1}")
+    protected int retryAfterSeconds = 1;
+    
+    // Coalesce concurrent writes to the same 'reservations_by_hotel_date' partition into UNLOGGED batches
+    @Value("${reservation.coalescer.enabled:false}")
+    protected boolean coalescerEnabled = false;
+    
+    // How long writes are collected before a group is flushed
+    @Value("${reservation.coalescer.windowMicros:300}")
+    protected int coalescerWindowMicros = 300;
+    
+    // A group is flushed as soon as it reaches this size
+    @Value("${reservation.coalescer.maxBatchSize:32}")
+    protected int coalescerMaxBatchSize = 32;
+    
+    // Generator of confirmation numbers: 'random' (UUID v4) or 'time-ordered' (per-thread SecureRandom, no contention)
+    @Value("${reservation.confirmationNumber.generator:random}")
+    protected String confirmationNumberGenerator = "random";
+
+    // Storage of confirmation numbers: 'text' (schema v1), 'uuid' (schema v2) or 'migration' (both)
+    @Value("${reservation.schema.confirmationNumberStorage:text}")
+    protected String confirmationNumberStorage = "text";
+
+    // Cache recent confirmation lookups and upcoming hotel/date partitions (compact records)
+    @Value("${reservation.cache.enabled:false}")
+    protected boolean cacheEnabled = false;
+
+    // Maximum number of cached reservations and partitions
+    @Value("${reservation.cache.maxConfirmations:100000}")
+    protected int cacheMaxConfirmations = 100000;
+    
+    @Value("${reservation.cache.maxPartitions:10000}")
+    protected int cacheMaxPartitions = 10000;
+
+    // Entries older than this are ignored, snapshots included
+    @Value("${reservation.cache.ttlSeconds:600}")
+    protected int cacheTtlSeconds = 600;
+
+    // Memory-mapped snapshot of the cache for warm restarts, disabled when empty
+    @Value("${reservation.cache.snapshot.path:}")
+    protected String cacheSnapshotPath = "";
+    
+    @Value("${reservation.cache.snapshot.intervalSeconds:60}")
+    protected int cacheSnapshotIntervalSeconds = 60;
+
+    // Single-partition API reads at LOCAL_ONE, retried at LOCAL_QUORUM when nothing is found (not before writes)
+    @Value("${reservation.read.localOne:false}")
+    protected boolean localOneReads = false;
+
+    // Multi-get (POST /_mget): keys per call, concurrent single-partition reads per call
+    @Value("${reservation.mget.maxKeys:1000}")
+    protected int multiGetMaxKeys = 1000;
+
+    @Value("${reservation.mget.maxConcurrency:16}")
+    protected int multiGetMaxConcurrency = 16;
+
+    // Query tables written in the background from a local journal, 'reservations_by_confirmation' stays synchronous
+    @Value("${reservation.writeBehind.enabled:false}")
+    protected boolean writeBehindEnabled = false;
+
+    @Value("${reservation.writeBehind.journal.path:reservation-write-behind.journal}")
+    protected String writeBehindJournalPath = "reservation-write-behind.journal";
+
+    // Writes are synchronous while the journal is full
+    @Value("${reservation.writeBehind.journal.sizeMb:64}")
+    protected int writeBehindJournalSizeMb = 64;
+
+    @Value("${reservation.writeBehind.batchSize:128}")
+    protected int writeBehindBatchSize = 128;
+
+    // Changes made by this instance, published to SSE subscribers
+    @Value("${reservation.changeStream.enabled:true}")
+    protected boolean changeStreamEnabled = true;
+
+    // Number of changes kept for slow or resuming subscribers (rounded to a power of 2)
+    @Value("${reservation.changeStream.capacity:8192}")
+    protected int changeStreamCapacity = 8192;
+
+    @Value("${reservation.changeStream.heartbeatSeconds:15}")
+    protected int changeStreamHeartbeatSeconds = 15;
+
+    // A subscriber whose send blocks longer is dropped (client not reading), 0 to never drop
+    @Value("${reservation.changeStream.sendTimeoutSeconds:10}")
+    protected int changeStreamSendTimeoutSeconds = 10;
+
+    // Counters of reservations per hotel and night, updated by upserts and deletes (one more read per update)
+    @Value("${reservation.occupancy.enabled:true}")
+    protected boolean occupancyEnabled = true;
+
+    // Reservations by hotel and month (calendar view), maintained by upserts and deletes
+    @Value("${reservation.calendar.enabled:true}")
+    protected boolean calendarEnabled = true;
+
+    // Largest page of the calendar endpoint
+    @Value("${reservation.calendar.maxPageSize:1000}")
+    protected int calendarMaxPageSize = 1000;
+
+    // Claim each night of the room with a lightweight transaction before writing, conflicting writes are rejected
+    // (nights of existing reservations are claimed by the backfill 'room_night_claims')
+    @Value("${reservation.claims.enabled:false}")
+    protected boolean claimsEnabled = false;
+
+    // Claims of a stay in flight at once
+    @Value("${reservation.claims.maxConcurrency:32}")
+    protected int claimsMaxConcurrency = 32;
+
+    // Honor the 'X-Trace-Cassandra' request header (statements of the request traced by Cassandra)
+    @Value("${reservation.tracing.enabled:false}")
+    protected boolean tracingEnabled = false;
+
+    // Value the 'X-Trace-Cassandra' header must carry when set, 'true' is enough otherwise (trusted callers only)
+    @Value("${reservation.tracing.token:}")
+    protected String tracingToken = "";
+
+    // Concurrent identical reads (by confirmation number, by hotel and date) share a single execution
+    @Value("${reservation.singleFlight.enabled:true}")
+    protected boolean singleFlightEnabled = true;
+
+    // Longest wait of a read joining an identical read in flight
+    @Value("${reservation.singleFlight.timeoutMillis:5000}")
+    protected long singleFlightTimeoutMillis = 5000;
+
+    // Token-bucket rate limits of the reservation API, 429 with Retry-After when exceeded
+    @Value("${reservation.rateLimit.enabled:true}")
+    protected boolean rateLimitEnabled = true;
+
+    // Header identifying the client
+    @Value("${reservation.rateLimit.clientHeader:X-Client-Id}")
+    protected String rateLimitClientHeader = "X-Client-Id";
+
+    // Requests without the client header: 'skip' (no per-client budget), 'remote-address' (clients connect
+    // directly) or 'forwarded-for' (last address of X-Forwarded-For, appended by a trusted load balancer)
+    @Value("${reservation.rateLimit.anonymous:skip}")
+    protected String rateLimitAnonymous = "skip";
+
+    // Buckets of each budget (fixed memory), keys hashed to the same bucket share it
+    @Value("${reservation.rateLimit.buckets:4096}")
+    protected int rateLimitBuckets = 4096;
+
+    // Requests per second and burst per client
+    @Value("${reservation.rateLimit.client.permitsPerSecond:200}")
+    protected double rateLimitClientPermitsPerSecond = 200;
+    @Value("${reservation.rateLimit.client.burst:400}")
+    protected int rateLimitClientBurst = 400;
+
+    // Requests per second and burst per hotel (requests with a 'hotelId' parameter)
+    @Value("${reservation.rateLimit.hotel.permitsPerSecond:100}")
+    protected double rateLimitHotelPermitsPerSecond = 100;
+    @Value("${reservation.rateLimit.hotel.burst:200}")
+    protected int rateLimitHotelBurst = 200;
+
+    // Full-table listings (GET /api/v1/reservations/) per second and burst per client, on top of the client budget
+    @Value("${reservation.rateLimit.findAll.permitsPerSecond:0.5}")
+    protected double rateLimitFindAllPermitsPerSecond = 0.5;
+    @Value("${reservation.rateLimit.findAll.burst:2}")
+    protected int rateLimitFindAllBurst = 2;
+
+    // Background jobs scanning a table by token range (backfills), progress saved in backfill_checkpoints
+    @Value("${reservation.backfill.enabled:true}")
+    protected boolean backfillEnabled = true;
+
+    // Ranges of the ring scanned independently, checkpointed separately
+    @Value("${reservation.backfill.splits:256}")
+    protected int backfillSplits = 256;
+
+    // Ranges scanned at the same time by a job
+    @Value("${reservation.backfill.concurrency:2}")
+    protected int backfillConcurrency = 2;
+
+    // Rows read per second by a job, 0 for unlimited
+    @Value("${reservation.backfill.rowsPerSecond:500}")
+    protected double backfillRowsPerSecond = 500;
+
+    // Rows read at once, the position of a range is saved after each page
+    @Value("${reservation.backfill.pageSize:200}")
+    protected int backfillPageSize = 200;
+
+    // Reconciliation of reservations_by_hotel_date against reservations_by_confirmation (backfill jobs)
+    @Value("${reservation.reconciler.enabled:true}")
+    protected boolean reconcilerEnabled = true;
+
+    // Rows checked per second, each one costs a read (and a delete for orphans)
+    @Value("${reservation.reconciler.rowsPerSecond:200}")
+    protected double reconcilerRowsPerSecond = 200;
+
+    // Rows written more recently are not checked, their reservation may not be written yet
+    @Value("${reservation.reconciler.graceSeconds:600}")
+    protected long reconcilerGraceSeconds = 600;
+
+    // Orphans listed in the report
+    @Value("${reservation.reconciler.maxSamples:100}")
+    protected int reconcilerMaxSamples = 100;
+
+    // Cancellations of reservations_by_hotel_date rewrite the row as CANCELLED with a TTL instead of deleting it
+    @Value("${reservation.softCancel.enabled:false}")
+    protected boolean softCancelEnabled = false;
+
+    // Lifetime of a cancelled row
+    @Value("${reservation.softCancel.ttlSeconds:2592000}")
+    protected int softCancelTtlSeconds = 2592000;
+
+    // Purge job deleting cancelled rows of past nights (requires backfills), 0 to start it on demand only
+    @Value("${reservation.softCancel.purgeIntervalMinutes:60}")
+    protected long softCancelPurgeIntervalMinutes = 60;
+
+    // Rows checked per second by the purge
+    @Value("${reservation.softCancel.purgeRowsPerSecond:200}")
+    protected double softCancelPurgeRowsPerSecond = 200;
+
+    // Bulk cancellations of a hotel: partitions of reservations_by_hotel_date read and cancelled at the same time
+    @Value("${reservation.bulkCancel.concurrency:8}")
+    protected int bulkCancelConcurrency = 8;
+
+    // Longest range of dates cancelled at once
+    @Value("${reservation.bulkCancel.maxDays:366}")
+    protected int bulkCancelMaxDays = 366;
+
+    // Completed or failed bulk cancellations are forgotten after this delay
+    @Value("${reservation.bulkCancel.retentionMinutes:1440}")
+    protected int bulkCancelRetentionMinutes = 1440;
+
+    // Completed or failed bulk cancellations kept at most, the oldest are forgotten first
+    @Value("${reservation.bulkCancel.maxRetained:100}")
+    protected int bulkCancelMaxRetained = 100;
+
+    /**
+     * Getter accessor for attribute 'fastStartup'.
+     *
+     * @return
+     *       current value of 'fastStartup'
+     */
+    public boolean isFastStartup() {
+        return fastStartup;
+    }
+
+    /**
+     * Setter accessor for attribute 'fastStartup'.
+     * @param fastStartup
+     *      new value for 'fastStartup '
+     */
+    public void setFastStartup(boolean fastStartup) {
+        this.fastStartup = fastStartup;
+    }
+
+    /**
+     * Getter accessor for attribute 'limiterEnabled'.
+     *
+     * @return
+     *       current value of 'limiterEnabled'
+     */
+    public boolean isLimiterEnabled() {
+        return limiterEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'limiterEnabled'.
+     * @param limiterEnabled
+     *      new value for 'limiterEnabled '
+     */
+    public void setLimiterEnabled(boolean limiterEnabled) {
+        this.limiterEnabled = limiterEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'readInitialLimit'.
+     *
+     * @return
+     *       current value of 'readInitialLimit'
+     */
+    public int getReadInitialLimit() {
+        return readInitialLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'readInitialLimit'.
+     * @param readInitialLimit
+     *      new value for 'readInitialLimit '
+     */
+    public void setReadInitialLimit(int readInitialLimit) {
+        this.readInitialLimit = readInitialLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'readMinLimit'.
+     *
+     * @return
+     *       current value of 'readMinLimit'
+     */
+    public int getReadMinLimit() {
+        return readMinLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'readMinLimit'.
+     * @param readMinLimit
+     *      new value for 'readMinLimit '
+     */
+    public void setReadMinLimit(int readMinLimit) {
+        this.readMinLimit = readMinLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'readMaxLimit'.
+     *
+     * @return
+     *       current value of 'readMaxLimit'
+     */
+    public int getReadMaxLimit() {
+        return readMaxLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'readMaxLimit'.
+     * @param readMaxLimit
+     *      new value for 'readMaxLimit '
+     */
+    public void setReadMaxLimit(int readMaxLimit) {
+        this.readMaxLimit = readMaxLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeInitialLimit'.
+     *
+     * @return
+     *       current value of 'writeInitialLimit'
+     */
+    public int getWriteInitialLimit() {
+        return writeInitialLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeInitialLimit'.
+     * @param writeInitialLimit
+     *      new value for 'writeInitialLimit '
+     */
+    public void setWriteInitialLimit(int writeInitialLimit) {
+        this.writeInitialLimit = writeInitialLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeMinLimit'.
+     *
+     * @return
+     *       current value of 'writeMinLimit'
+     */
+    public int getWriteMinLimit() {
+        return writeMinLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeMinLimit'.
+     * @param writeMinLimit
+     *      new value for 'writeMinLimit '
+     */
+    public void setWriteMinLimit(int writeMinLimit) {
+        this.writeMinLimit = writeMinLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeMaxLimit'.
+     *
+     * @return
+     *       current value of 'writeMaxLimit'
+     */
+    public int getWriteMaxLimit() {
+        return writeMaxLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeMaxLimit'.
+     * @param writeMaxLimit
+     *      new value for 'writeMaxLimit '
+     */
+    public void setWriteMaxLimit(int writeMaxLimit) {
+        this.writeMaxLimit = writeMaxLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'limiterRttTolerance'.
+     *
+     * @return
+     *       current value of 'limiterRttTolerance'
+     */
+    public double getLimiterRttTolerance() {
+        return limiterRttTolerance;
+    }
+
+    /**
+     * Setter accessor for attribute 'limiterRttTolerance'.
+     * @param limiterRttTolerance
+     *      new value for 'limiterRttTolerance '
+     */
+    public void setLimiterRttTolerance(double limiterRttTolerance) {
+        this.limiterRttTolerance = limiterRttTolerance;
+    }
+
+    /**
+     * Getter accessor for attribute 'limiterSmoothing'.
+     *
+     * @return
+     *       current value of 'limiterSmoothing'
+     */
+    public double getLimiterSmoothing() {
+        return limiterSmoothing;
+    }
+
+    /**
+     * Setter accessor for attribute 'limiterSmoothing'.
+     * @param limiterSmoothing
+     *      new value for 'limiterSmoothing '
+     */
+    public void setLimiterSmoothing(double limiterSmoothing) {
+        this.limiterSmoothing = limiterSmoothing;
+    }
+
+    /**
+     * Getter accessor for attribute 'retryAfterSeconds'.
+     *
+     * @return
+     *       current value of 'retryAfterSeconds'
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'retryAfterSeconds'.
+     * @param retryAfterSeconds
+     *      new value for 'retryAfterSeconds '
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'coalescerEnabled'.
+     *
+     * @return
+     *       current value of 'coalescerEnabled'
+     */
+    public boolean isCoalescerEnabled() {
+        return coalescerEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'coalescerEnabled'.
+     * @param coalescerEnabled
+     *      new value for 'coalescerEnabled '
+     */
+    public void setCoalescerEnabled(boolean coalescerEnabled) {
+        this.coalescerEnabled = coalescerEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'coalescerWindowMicros'.
+     *
+     * @return
+     *       current value of 'coalescerWindowMicros'
+     */
+    public int getCoalescerWindowMicros() {
+        return coalescerWindowMicros;
+    }
+
+    /**
+     * Setter accessor for attribute 'coalescerWindowMicros'.
+     * @param coalescerWindowMicros
+     *      new value for 'coalescerWindowMicros '
+     */
+    public void setCoalescerWindowMicros(int coalescerWindowMicros) {
+        this.coalescerWindowMicros = coalescerWindowMicros;
+    }
+
+    /**
+     * Getter accessor for attribute 'coalescerMaxBatchSize'.
+     *
+     * @return
+     *       current value of 'coalescerMaxBatchSize'
+     */
+    public int getCoalescerMaxBatchSize() {
+        return coalescerMaxBatchSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'coalescerMaxBatchSize'.
+     * @param coalescerMaxBatchSize
+     *      new value for 'coalescerMaxBatchSize '
+     */
+    public void setCoalescerMaxBatchSize(int coalescerMaxBatchSize) {
+        this.coalescerMaxBatchSize = coalescerMaxBatchSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'confirmationNumberGenerator'.
+     *
+     * @return
+     *       current value of 'confirmationNumberGenerator'
+     */
+    public String getConfirmationNumberGenerator() {
+        return confirmationNumberGenerator;
+    }
+
+    /**
+     * Setter accessor for attribute 'confirmationNumberGenerator'.
+     * @param confirmationNumberGenerator
+     *      new value for 'confirmationNumberGenerator '
+     */
+    public void setConfirmationNumberGenerator(String confirmationNumberGenerator) {
+        this.confirmationNumberGenerator = confirmationNumberGenerator;
+    }
+
+    /**
+     * Getter accessor for attribute 'confirmationNumberStorage'.
+     *
+     * @return
+     *       current value of 'confirmationNumberStorage'
+     */
+    public String getConfirmationNumberStorage() {
+        return confirmationNumberStorage;
+    }
+
+    /**
+     * Setter accessor for attribute 'confirmationNumberStorage'.
+     * @param confirmationNumberStorage
+     *      new value for 'confirmationNumberStorage '
+     */
+    public void setConfirmationNumberStorage(String confirmationNumberStorage) {
+        this.confirmationNumberStorage = confirmationNumberStorage;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheEnabled'.
+     *
+     * @return
+     *       current value of 'cacheEnabled'
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheEnabled'.
+     * @param cacheEnabled
+     *      new value for 'cacheEnabled '
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheMaxConfirmations'.
+     *
+     * @return
+     *       current value of 'cacheMaxConfirmations'
+     */
+    public int getCacheMaxConfirmations() {
+        return cacheMaxConfirmations;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheMaxConfirmations'.
+     * @param cacheMaxConfirmations
+     *      new value for 'cacheMaxConfirmations '
+     */
+    public void setCacheMaxConfirmations(int cacheMaxConfirmations) {
+        this.cacheMaxConfirmations = cacheMaxConfirmations;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheMaxPartitions'.
+     *
+     * @return
+     *       current value of 'cacheMaxPartitions'
+     */
+    public int getCacheMaxPartitions() {
+        return cacheMaxPartitions;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheMaxPartitions'.
+     * @param cacheMaxPartitions
+     *      new value for 'cacheMaxPartitions '
+     */
+    public void setCacheMaxPartitions(int cacheMaxPartitions) {
+        this.cacheMaxPartitions = cacheMaxPartitions;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheTtlSeconds'.
+     *
+     * @return
+     *       current value of 'cacheTtlSeconds'
+     */
+    public int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheTtlSeconds'.
+     * @param cacheTtlSeconds
+     *      new value for 'cacheTtlSeconds '
+     */
+    public void setCacheTtlSeconds(int cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheSnapshotPath'.
+     *
+     * @return
+     *       current value of 'cacheSnapshotPath'
+     */
+    public String getCacheSnapshotPath() {
+        return cacheSnapshotPath;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheSnapshotPath'.
+     * @param cacheSnapshotPath
+     *      new value for 'cacheSnapshotPath '
+     */
+    public void setCacheSnapshotPath(String cacheSnapshotPath) {
+        this.cacheSnapshotPath = cacheSnapshotPath;
+    }
+
+    /**
+     * Getter accessor for attribute 'cacheSnapshotIntervalSeconds'.
+     *
+     * @return
+     *       current value of 'cacheSnapshotIntervalSeconds'
+     */
+    public int getCacheSnapshotIntervalSeconds() {
+        return cacheSnapshotIntervalSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'cacheSnapshotIntervalSeconds'.
+     * @param cacheSnapshotIntervalSeconds
+     *      new value for 'cacheSnapshotIntervalSeconds '
+     */
+    public void setCacheSnapshotIntervalSeconds(int cacheSnapshotIntervalSeconds) {
+        this.cacheSnapshotIntervalSeconds = cacheSnapshotIntervalSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'changeStreamEnabled'.
+     *
+     * @return
+     *       current value of 'changeStreamEnabled'
+     */
+    public boolean isChangeStreamEnabled() {
+        return changeStreamEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'changeStreamEnabled'.
+     * @param changeStreamEnabled
+     *      new value for 'changeStreamEnabled '
+     */
+    public void setChangeStreamEnabled(boolean changeStreamEnabled) {
+        this.changeStreamEnabled = changeStreamEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'changeStreamCapacity'.
+     *
+     * @return
+     *       current value of 'changeStreamCapacity'
+     */
+    public int getChangeStreamCapacity() {
+        return changeStreamCapacity;
+    }
+
+    /**
+     * Setter accessor for attribute 'changeStreamCapacity'.
+     * @param changeStreamCapacity
+     *      new value for 'changeStreamCapacity '
+     */
+    public void setChangeStreamCapacity(int changeStreamCapacity) {
+        this.changeStreamCapacity = changeStreamCapacity;
+    }
+
+    /**
+     * Getter accessor for attribute 'changeStreamHeartbeatSeconds'.
+     *
+     * @return
+     *       current value of 'changeStreamHeartbeatSeconds'
+     */
+    public int getChangeStreamHeartbeatSeconds() {
+        return changeStreamHeartbeatSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'changeStreamHeartbeatSeconds'.
+     * @param changeStreamHeartbeatSeconds
+     *      new value for 'changeStreamHeartbeatSeconds '
+     */
+    public void setChangeStreamHeartbeatSeconds(int changeStreamHeartbeatSeconds) {
+        this.changeStreamHeartbeatSeconds = changeStreamHeartbeatSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'changeStreamSendTimeoutSeconds'.
+     *
+     * @return
+     *       current value of 'changeStreamSendTimeoutSeconds'
+     */
+    public int getChangeStreamSendTimeoutSeconds() {
+        return changeStreamSendTimeoutSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'changeStreamSendTimeoutSeconds'.
+     * @param changeStreamSendTimeoutSeconds
+     *      new value for 'changeStreamSendTimeoutSeconds '
+     */
+    public void setChangeStreamSendTimeoutSeconds(int changeStreamSendTimeoutSeconds) {
+        this.changeStreamSendTimeoutSeconds = changeStreamSendTimeoutSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeBehindEnabled'.
+     *
+     * @return
+     *       current value of 'writeBehindEnabled'
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeBehindEnabled'.
+     * @param writeBehindEnabled
+     *      new value for 'writeBehindEnabled '
+     */
+    public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+        this.writeBehindEnabled = writeBehindEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeBehindJournalPath'.
+     *
+     * @return
+     *       current value of 'writeBehindJournalPath'
+     */
+    public String getWriteBehindJournalPath() {
+        return writeBehindJournalPath;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeBehindJournalPath'.
+     * @param writeBehindJournalPath
+     *      new value for 'writeBehindJournalPath '
+     */
+    public void setWriteBehindJournalPath(String writeBehindJournalPath) {
+        this.writeBehindJournalPath = writeBehindJournalPath;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeBehindJournalSizeMb'.
+     *
+     * @return
+     *       current value of 'writeBehindJournalSizeMb'
+     */
+    public int getWriteBehindJournalSizeMb() {
+        return writeBehindJournalSizeMb;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeBehindJournalSizeMb'.
+     * @param writeBehindJournalSizeMb
+     *      new value for 'writeBehindJournalSizeMb '
+     */
+    public void setWriteBehindJournalSizeMb(int writeBehindJournalSizeMb) {
+        this.writeBehindJournalSizeMb = writeBehindJournalSizeMb;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeBehindBatchSize'.
+     *
+     * @return
+     *       current value of 'writeBehindBatchSize'
+     */
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'writeBehindBatchSize'.
+     * @param writeBehindBatchSize
+     *      new value for 'writeBehindBatchSize '
+     */
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'localOneReads'.
+     *
+     * @return
+     *       current value of 'localOneReads'
+     */
+    public boolean isLocalOneReads() {
+        return localOneReads;
+    }
+
+    /**
+     * Setter accessor for attribute 'localOneReads'.
+     * @param localOneReads
+     *      new value for 'localOneReads '
+     */
+    public void setLocalOneReads(boolean localOneReads) {
+        this.localOneReads = localOneReads;
+    }
+
+    /**
+     * Getter accessor for attribute 'multiGetMaxKeys'.
+     *
+     * @return
+     *       current value of 'multiGetMaxKeys'
+     */
+    public int getMultiGetMaxKeys() {
+        return multiGetMaxKeys;
+    }
+
+    /**
+     * Setter accessor for attribute 'multiGetMaxKeys'.
+     * @param multiGetMaxKeys
+     *      new value for 'multiGetMaxKeys '
+     */
+    public void setMultiGetMaxKeys(int multiGetMaxKeys) {
+        this.multiGetMaxKeys = multiGetMaxKeys;
+    }
+
+    /**
+     * Getter accessor for attribute 'multiGetMaxConcurrency'.
+     *
+     * @return
+     *       current value of 'multiGetMaxConcurrency'
+     */
+    public int getMultiGetMaxConcurrency() {
+        return multiGetMaxConcurrency;
+    }
+
+    /**
+     * Setter accessor for attribute 'multiGetMaxConcurrency'.
+     * @param multiGetMaxConcurrency
+     *      new value for 'multiGetMaxConcurrency '
+     */
+    public void setMultiGetMaxConcurrency(int multiGetMaxConcurrency) {
+        this.multiGetMaxConcurrency = multiGetMaxConcurrency;
+    }
+
+    /**
+     * Getter accessor for attribute 'occupancyEnabled'.
+     *
+     * @return
+     *       current value of 'occupancyEnabled'
+     */
+    public boolean isOccupancyEnabled() {
+        return occupancyEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'occupancyEnabled'.
+     * @param occupancyEnabled
+     *      new value for 'occupancyEnabled '
+     */
+    public void setOccupancyEnabled(boolean occupancyEnabled) {
+        this.occupancyEnabled = occupancyEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'calendarEnabled'.
+     *
+     * @return
+     *       current value of 'calendarEnabled'
+     */
+    public boolean isCalendarEnabled() {
+        return calendarEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'calendarEnabled'.
+     * @param calendarEnabled
+     *      new value for 'calendarEnabled '
+     */
+    public void setCalendarEnabled(boolean calendarEnabled) {
+        this.calendarEnabled = calendarEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'calendarMaxPageSize'.
+     *
+     * @return
+     *       current value of 'calendarMaxPageSize'
+     */
+    public int getCalendarMaxPageSize() {
+        return calendarMaxPageSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'calendarMaxPageSize'.
+     * @param calendarMaxPageSize
+     *      new value for 'calendarMaxPageSize '
+     */
+    public void setCalendarMaxPageSize(int calendarMaxPageSize) {
+        this.calendarMaxPageSize = calendarMaxPageSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'claimsEnabled'.
+     *
+     * @return
+     *       current value of 'claimsEnabled'
+     */
+    public boolean isClaimsEnabled() {
+        return claimsEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'claimsEnabled'.
+     * @param claimsEnabled
+     *      new value for 'claimsEnabled '
+     */
+    public void setClaimsEnabled(boolean claimsEnabled) {
+        this.claimsEnabled = claimsEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'claimsMaxConcurrency'.
+     *
+     * @return
+     *       current value of 'claimsMaxConcurrency'
+     */
+    public int getClaimsMaxConcurrency() {
+        return claimsMaxConcurrency;
+    }
+
+    /**
+     * Setter accessor for attribute 'claimsMaxConcurrency'.
+     * @param claimsMaxConcurrency
+     *      new value for 'claimsMaxConcurrency '
+     */
+    public void setClaimsMaxConcurrency(int claimsMaxConcurrency) {
+        this.claimsMaxConcurrency = claimsMaxConcurrency;
+    }
+
+    /**
+     * Getter accessor for attribute 'tracingEnabled'.
+     *
+     * @return
+     *       current value of 'tracingEnabled'
+     */
+    public boolean isTracingEnabled() {
+        return tracingEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'tracingEnabled'.
+     * @param tracingEnabled
+     *      new value for 'tracingEnabled '
+     */
+    public void setTracingEnabled(boolean tracingEnabled) {
+        this.tracingEnabled = tracingEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'tracingToken'.
+     *
+     * @return
+     *       current value of 'tracingToken'
+     */
+    public String getTracingToken() {
+        return tracingToken;
+    }
+
+    /**
+     * Setter accessor for attribute 'tracingToken'.
+     * @param tracingToken
+     *      new value for 'tracingToken '
+     */
+    public void setTracingToken(String tracingToken) {
+        this.tracingToken = tracingToken;
+    }
+
+    /**
+     * Getter accessor for attribute 'singleFlightEnabled'.
+     *
+     * @return
+     *       current value of 'singleFlightEnabled'
+     */
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'singleFlightEnabled'.
+     * @param singleFlightEnabled
+     *      new value for 'singleFlightEnabled '
+     */
+    public void setSingleFlightEnabled(boolean singleFlightEnabled) {
+        this.singleFlightEnabled = singleFlightEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'singleFlightTimeoutMillis'.
+     *
+     * @return
+     *       current value of 'singleFlightTimeoutMillis'
+     */
+    public long getSingleFlightTimeoutMillis() {
+        return singleFlightTimeoutMillis;
+    }
+
+    /**
+     * Setter accessor for attribute 'singleFlightTimeoutMillis'.
+     * @param singleFlightTimeoutMillis
+     *      new value for 'singleFlightTimeoutMillis '
+     */
+    public void setSingleFlightTimeoutMillis(long singleFlightTimeoutMillis) {
+        this.singleFlightTimeoutMillis = singleFlightTimeoutMillis;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitEnabled'.
+     *
+     * @return
+     *       current value of 'rateLimitEnabled'
+     */
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitEnabled'.
+     * @param rateLimitEnabled
+     *      new value for 'rateLimitEnabled '
+     */
+    public void setRateLimitEnabled(boolean rateLimitEnabled) {
+        this.rateLimitEnabled = rateLimitEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitClientHeader'.
+     *
+     * @return
+     *       current value of 'rateLimitClientHeader'
+     */
+    public String getRateLimitClientHeader() {
+        return rateLimitClientHeader;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitClientHeader'.
+     * @param rateLimitClientHeader
+     *      new value for 'rateLimitClientHeader '
+     */
+    public void setRateLimitClientHeader(String rateLimitClientHeader) {
+        this.rateLimitClientHeader = rateLimitClientHeader;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitAnonymous'.
+     *
+     * @return
+     *       current value of 'rateLimitAnonymous'
+     */
+    public String getRateLimitAnonymous() {
+        return rateLimitAnonymous;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitAnonymous'.
+     * @param rateLimitAnonymous
+     *      new value for 'rateLimitAnonymous '
+     */
+    public void setRateLimitAnonymous(String rateLimitAnonymous) {
+        this.rateLimitAnonymous = rateLimitAnonymous;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitBuckets'.
+     *
+     * @return
+     *       current value of 'rateLimitBuckets'
+     */
+    public int getRateLimitBuckets() {
+        return rateLimitBuckets;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitBuckets'.
+     * @param rateLimitBuckets
+     *      new value for 'rateLimitBuckets '
+     */
+    public void setRateLimitBuckets(int rateLimitBuckets) {
+        this.rateLimitBuckets = rateLimitBuckets;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitClientPermitsPerSecond'.
+     *
+     * @return
+     *       current value of 'rateLimitClientPermitsPerSecond'
+     */
+    public double getRateLimitClientPermitsPerSecond() {
+        return rateLimitClientPermitsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitClientPermitsPerSecond'.
+     * @param rateLimitClientPermitsPerSecond
+     *      new value for 'rateLimitClientPermitsPerSecond '
+     */
+    public void setRateLimitClientPermitsPerSecond(double rateLimitClientPermitsPerSecond) {
+        this.rateLimitClientPermitsPerSecond = rateLimitClientPermitsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitClientBurst'.
+     *
+     * @return
+     *       current value of 'rateLimitClientBurst'
+     */
+    public int getRateLimitClientBurst() {
+        return rateLimitClientBurst;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitClientBurst'.
+     * @param rateLimitClientBurst
+     *      new value for 'rateLimitClientBurst '
+     */
+    public void setRateLimitClientBurst(int rateLimitClientBurst) {
+        this.rateLimitClientBurst = rateLimitClientBurst;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitHotelPermitsPerSecond'.
+     *
+     * @return
+     *       current value of 'rateLimitHotelPermitsPerSecond'
+     */
+    public double getRateLimitHotelPermitsPerSecond() {
+        return rateLimitHotelPermitsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitHotelPermitsPerSecond'.
+     * @param rateLimitHotelPermitsPerSecond
+     *      new value for 'rateLimitHotelPermitsPerSecond '
+     */
+    public void setRateLimitHotelPermitsPerSecond(double rateLimitHotelPermitsPerSecond) {
+        this.rateLimitHotelPermitsPerSecond = rateLimitHotelPermitsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitHotelBurst'.
+     *
+     * @return
+     *       current value of 'rateLimitHotelBurst'
+     */
+    public int getRateLimitHotelBurst() {
+        return rateLimitHotelBurst;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitHotelBurst'.
+     * @param rateLimitHotelBurst
+     *      new value for 'rateLimitHotelBurst '
+     */
+    public void setRateLimitHotelBurst(int rateLimitHotelBurst) {
+        this.rateLimitHotelBurst = rateLimitHotelBurst;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitFindAllPermitsPerSecond'.
+     *
+     * @return
+     *       current value of 'rateLimitFindAllPermitsPerSecond'
+     */
+    public double getRateLimitFindAllPermitsPerSecond() {
+        return rateLimitFindAllPermitsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitFindAllPermitsPerSecond'.
+     * @param rateLimitFindAllPermitsPerSecond
+     *      new value for 'rateLimitFindAllPermitsPerSecond '
+     */
+    public void setRateLimitFindAllPermitsPerSecond(double rateLimitFindAllPermitsPerSecond) {
+        this.rateLimitFindAllPermitsPerSecond = rateLimitFindAllPermitsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'rateLimitFindAllBurst'.
+     *
+     * @return
+     *       current value of 'rateLimitFindAllBurst'
+     */
+    public int getRateLimitFindAllBurst() {
+        return rateLimitFindAllBurst;
+    }
+
+    /**
+     * Setter accessor for attribute 'rateLimitFindAllBurst'.
+     * @param rateLimitFindAllBurst
+     *      new value for 'rateLimitFindAllBurst '
+     */
+    public void setRateLimitFindAllBurst(int rateLimitFindAllBurst) {
+        this.rateLimitFindAllBurst = rateLimitFindAllBurst;
+    }
+
+    /**
+     * Getter accessor for attribute 'backfillEnabled'.
+     *
+     * @return
+     *       current value of 'backfillEnabled'
+     */
+    public boolean isBackfillEnabled() {
+        return backfillEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'backfillEnabled'.
+     * @param backfillEnabled
+     *      new value for 'backfillEnabled '
+     */
+    public void setBackfillEnabled(boolean backfillEnabled) {
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'backfillSplits'.
+     *
+     * @return
+     *       current value of 'backfillSplits'
+     */
+    public int getBackfillSplits() {
+        return backfillSplits;
+    }
+
+    /**
+     * Setter accessor for attribute 'backfillSplits'.
+     * @param backfillSplits
+     *      new value for 'backfillSplits '
+     */
+    public void setBackfillSplits(int backfillSplits) {
+        this.backfillSplits = backfillSplits;
+    }
+
+    /**
+     * Getter accessor for attribute 'backfillConcurrency'.
+     *
+     * @return
+     *       current value of 'backfillConcurrency'
+     */
+    public int getBackfillConcurrency() {
+        return backfillConcurrency;
+    }
+
+    /**
+     * Setter accessor for attribute 'backfillConcurrency'.
+     * @param backfillConcurrency
+     *      new value for 'backfillConcurrency '
+     */
+    public void setBackfillConcurrency(int backfillConcurrency) {
+        this.backfillConcurrency = backfillConcurrency;
+    }
+
+    /**
+     * Getter accessor for attribute 'backfillRowsPerSecond'.
+     *
+     * @return
+     *       current value of 'backfillRowsPerSecond'
+     */
+    public double getBackfillRowsPerSecond() {
+        return backfillRowsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'backfillRowsPerSecond'.
+     * @param backfillRowsPerSecond
+     *      new value for 'backfillRowsPerSecond '
+     */
+    public void setBackfillRowsPerSecond(double backfillRowsPerSecond) {
+        this.backfillRowsPerSecond = backfillRowsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'backfillPageSize'.
+     *
+     * @return
+     *       current value of 'backfillPageSize'
+     */
+    public int getBackfillPageSize() {
+        return backfillPageSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'backfillPageSize'.
+     * @param backfillPageSize
+     *      new value for 'backfillPageSize '
+     */
+    public void setBackfillPageSize(int backfillPageSize) {
+        this.backfillPageSize = backfillPageSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'reconcilerEnabled'.
+     *
+     * @return
+     *       current value of 'reconcilerEnabled'
+     */
+    public boolean isReconcilerEnabled() {
+        return reconcilerEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'reconcilerEnabled'.
+     * @param reconcilerEnabled
+     *      new value for 'reconcilerEnabled '
+     */
+    public void setReconcilerEnabled(boolean reconcilerEnabled) {
+        this.reconcilerEnabled = reconcilerEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'reconcilerRowsPerSecond'.
+     *
+     * @return
+     *       current value of 'reconcilerRowsPerSecond'
+     */
+    public double getReconcilerRowsPerSecond() {
+        return reconcilerRowsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'reconcilerRowsPerSecond'.
+     * @param reconcilerRowsPerSecond
+     *      new value for 'reconcilerRowsPerSecond '
+     */
+    public void setReconcilerRowsPerSecond(double reconcilerRowsPerSecond) {
+        this.reconcilerRowsPerSecond = reconcilerRowsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'reconcilerGraceSeconds'.
+     *
+     * @return
+     *       current value of 'reconcilerGraceSeconds'
+     */
+    public long getReconcilerGraceSeconds() {
+        return reconcilerGraceSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'reconcilerGraceSeconds'.
+     * @param reconcilerGraceSeconds
+     *      new value for 'reconcilerGraceSeconds '
+     */
+    public void setReconcilerGraceSeconds(long reconcilerGraceSeconds) {
+        this.reconcilerGraceSeconds = reconcilerGraceSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'reconcilerMaxSamples'.
+     *
+     * @return
+     *       current value of 'reconcilerMaxSamples'
+     */
+    public int getReconcilerMaxSamples() {
+        return reconcilerMaxSamples;
+    }
+
+    /**
+     * Setter accessor for attribute 'reconcilerMaxSamples'.
+     * @param reconcilerMaxSamples
+     *      new value for 'reconcilerMaxSamples '
+     */
+    public void setReconcilerMaxSamples(int reconcilerMaxSamples) {
+        this.reconcilerMaxSamples = reconcilerMaxSamples;
+    }
+
+    /**
+     * Getter accessor for attribute 'softCancelEnabled'.
+     *
+     * @return
+     *       current value of 'softCancelEnabled'
+     */
+    public boolean isSoftCancelEnabled() {
+        return softCancelEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'softCancelEnabled'.
+     * @param softCancelEnabled
+     *      new value for 'softCancelEnabled '
+     */
+    public void setSoftCancelEnabled(boolean softCancelEnabled) {
+        this.softCancelEnabled = softCancelEnabled;
+    }
+
+    /**
+     * Getter accessor for attribute 'softCancelTtlSeconds'.
+     *
+     * @return
+     *       current value of 'softCancelTtlSeconds'
+     */
+    public int getSoftCancelTtlSeconds() {
+        return softCancelTtlSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'softCancelTtlSeconds'.
+     * @param softCancelTtlSeconds
+     *      new value for 'softCancelTtlSeconds '
+     */
+    public void setSoftCancelTtlSeconds(int softCancelTtlSeconds) {
+        this.softCancelTtlSeconds = softCancelTtlSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'softCancelPurgeIntervalMinutes'.
+     *
+     * @return
+     *       current value of 'softCancelPurgeIntervalMinutes'
+     */
+    public long getSoftCancelPurgeIntervalMinutes() {
+        return softCancelPurgeIntervalMinutes;
+    }
+
+    /**
+     * Setter accessor for attribute 'softCancelPurgeIntervalMinutes'.
+     * @param softCancelPurgeIntervalMinutes
+     *      new value for 'softCancelPurgeIntervalMinutes '
+     */
+    public void setSoftCancelPurgeIntervalMinutes(long softCancelPurgeIntervalMinutes) {
+        this.softCancelPurgeIntervalMinutes = softCancelPurgeIntervalMinutes;
+    }
+
+    /**
+     * Getter accessor for attribute 'softCancelPurgeRowsPerSecond'.
+     *
+     * @return
+     *       current value of 'softCancelPurgeRowsPerSecond'
+     */
+    public double getSoftCancelPurgeRowsPerSecond() {
+        return softCancelPurgeRowsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'softCancelPurgeRowsPerSecond'.
+     * @param softCancelPurgeRowsPerSecond
+     *      new value for 'softCancelPurgeRowsPerSecond '
+     */
+    public void setSoftCancelPurgeRowsPerSecond(double softCancelPurgeRowsPerSecond) {
+        this.softCancelPurgeRowsPerSecond = softCancelPurgeRowsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'bulkCancelConcurrency'.
+     *
+     * @return
+     *       current value of 'bulkCancelConcurrency'
+     */
+    public int getBulkCancelConcurrency() {
+        return bulkCancelConcurrency;
+    }
+
+    /**
+     * Setter accessor for attribute 'bulkCancelConcurrency'.
+     * @param bulkCancelConcurrency
+     *      new value for 'bulkCancelConcurrency '
+     */
+    public void setBulkCancelConcurrency(int bulkCancelConcurrency) {
+        this.bulkCancelConcurrency = bulkCancelConcurrency;
+    }
+
+    /**
+     * Getter accessor for attribute 'bulkCancelMaxDays'.
+     *
+     * @return
+     *       current value of 'bulkCancelMaxDays'
+     */
+    public int getBulkCancelMaxDays() {
+        return bulkCancelMaxDays;
+    }
+
+    /**
+     * Setter accessor for attribute 'bulkCancelMaxDays'.
+     * @param bulkCancelMaxDays
+     *      new value for 'bulkCancelMaxDays '
+     */
+    public void setBulkCancelMaxDays(int bulkCancelMaxDays) {
+        this.bulkCancelMaxDays = bulkCancelMaxDays;
+    }
+
+    /**
+     * Getter accessor for attribute 'bulkCancelRetentionMinutes'.
+     *
+     * @return
+     *       current value of 'bulkCancelRetentionMinutes'
+     */
+    public int getBulkCancelRetentionMinutes() {
+        return bulkCancelRetentionMinutes;
+    }
+
+    /**
+     * Setter accessor for attribute 'bulkCancelRetentionMinutes'.
+     * @param bulkCancelRetentionMinutes
+     *      new value for 'bulkCancelRetentionMinutes '
+     */
+    public void setBulkCancelRetentionMinutes(int bulkCancelRetentionMinutes) {
+        this.bulkCancelRetentionMinutes = bulkCancelRetentionMinutes;
+    }
+
+    /**
+     * Getter accessor for attribute 'bulkCancelMaxRetained'.
+     *
+     * @return
+     *       current value of 'bulkCancelMaxRetained'
+     */
+    public int getBulkCancelMaxRetained() {
+        return bulkCancelMaxRetained;
+    }
+
+    /**
+     * Setter accessor for attribute 'bulkCancelMaxRetained'.
+     * @param bulkCancelMaxRetained
+     *      new value for 'bulkCancelMaxRetained '
+     */
+    public void setBulkCancelMaxRetained(int bulkCancelMaxRetained) {
+        this.bulkCancelMaxRetained = bulkCancelMaxRetained;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.conf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Options of the tables created by the repository ('reservation.schema.tables.&lt;table&gt;.*'), the name of the
+ * table in kebab case ('reservations-by-hotel-date') applies to both schema versions. Options are set when a table
+ * is created and altered when it exists, unset options keep the defaults of Cassandra.
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+@ConfigurationProperties(prefix = "reservation.schema")
+public class TableOptionsProperties {
+
+    /** Options by table. */
+    private Map<String, TableOptions> tables = new LinkedHashMap<>();
+
+    /**
+     * Options of a table, null to keep the default.
+     */
+    public static class TableOptions {
+        // SizeTieredCompactionStrategy, LeveledCompactionStrategy or TimeWindowCompactionStrategy
+        private String compaction;
+
+        // TimeWindowCompactionStrategy: MINUTES, HOURS or DAYS, and number of units per window
+        private String compactionWindowUnit;
+        private Integer compactionWindowSize;
+
+        // LeveledCompactionStrategy
+        private Integer sstableSizeInMb;
+
+        // LZ4Compressor, SnappyCompressor, DeflateCompressor, ZstdCompressor (Cassandra 4) or none
+        private String compression;
+        private Integer compressionChunkLengthKb;
+
+        // 0.01 by default (0.1 with LeveledCompactionStrategy), higher saves memory, lower saves disk reads
+        private Double bloomFilterFpChance;
+
+        // ALL or NONE, and ALL, NONE or a number of rows
+        private String cachingKeys;
+        private String cachingRowsPerPartition;
+
+        // Seconds, not supported by counter tables
+        private Integer defaultTimeToLive;
+
+        /**
+         * No option is set.
+         *
+         * @return
+         *      true if the table keeps the defaults
+         */
+        public boolean isEmpty() {
+            return compaction == null && compression == null && compressionChunkLengthKb == null
+                    && bloomFilterFpChance == null
+                    && cachingKeys == null && cachingRowsPerPartition == null && defaultTimeToLive == null;
+        }
+
+        /**
+         * Getter accessor for attribute 'compaction'.
+         *
+         * @return
+         *       current value of 'compaction'
+         */
+        public String getCompaction() {
+            return compaction;
+        }
+
+        /**
+         * Setter accessor for attribute 'compaction'.
+         * @param compaction
+         *      new value for 'compaction '
+         */
+        public void setCompaction(String compaction) {
+            this.compaction = compaction;
+        }
+
+        /**
+         * Getter accessor for attribute 'compactionWindowUnit'.
+         *
+         * @return
+         *       current value of 'compactionWindowUnit'
+         */
+        public String getCompactionWindowUnit() {
+            return compactionWindowUnit;
+        }
+
+        /**
+         * Setter accessor for attribute 'compactionWindowUnit'.
+         * @param compactionWindowUnit
+         *      new value for 'compactionWindowUnit '
+         */
+        public void setCompactionWindowUnit(String compactionWindowUnit) {
+            this.compactionWindowUnit = compactionWindowUnit;
+        }
+
+        /**
+         * Getter accessor for attribute 'compactionWindowSize'.
+         *
+         * @return
+         *       current value of 'compactionWindowSize'
+         */
+        public Integer getCompactionWindowSize() {
+            return compactionWindowSize;
+        }
+
+        /**
+         * Setter accessor for attribute 'compactionWindowSize'.
+         * @param compactionWindowSize
+         *      new value for 'compactionWindowSize '
+         */
+        public void setCompactionWindowSize(Integer compactionWindowSize) {
+            this.compactionWindowSize = compactionWindowSize;
+        }
+
+        /**
+         * Getter accessor for attribute 'sstableSizeInMb'.
+         *
+         * @return
+         *       current value of 'sstableSizeInMb'
+         */
+        public Integer getSstableSizeInMb() {
+            return sstableSizeInMb;
+        }
+
+        /**
+         * Setter accessor for attribute 'sstableSizeInMb'.
+         * @param sstableSizeInMb
+         *      new value for 'sstableSizeInMb '
+         */
+        public void setSstableSizeInMb(Integer sstableSizeInMb) {
+            this.sstableSizeInMb = sstableSizeInMb;
+        }
+
+        /**
+         * Getter accessor for attribute 'compression'.
+         *
+         * @return
+         *       current value of 'compression'
+         */
+        public String getCompression() {
+            return compression;
+        }
+
+        /**
+         * Setter accessor for attribute 'compression'.
+         * @param compression
+         *      new value for 'compression '
+         */
+        public void setCompression(String compression) {
+            this.compression = compression;
+        }
+
+        /**
+         * Getter accessor for attribute 'compressionChunkLengthKb'.
+         *
+         * @return
+         *       current value of 'compressionChunkLengthKb'
+         */
+        public Integer getCompressionChunkLengthKb() {
+            return compressionChunkLengthKb;
+        }
+
+        /**
+         * Setter accessor for attribute 'compressionChunkLengthKb'.
+         * @param compressionChunkLengthKb
+         *      new value for 'compressionChunkLengthKb '
+         */
+        public void setCompressionChunkLengthKb(Integer compressionChunkLengthKb) {
+            this.compressionChunkLengthKb = compressionChunkLengthKb;
+        }
+
+        /**
+         * Getter accessor for attribute 'bloomFilterFpChance'.
+         *
+         * @return
+         *       current value of 'bloomFilterFpChance'
+         */
+        public Double getBloomFilterFpChance() {
+            return bloomFilterFpChance;
+        }
+
+        /**
+         * Setter accessor for attribute 'bloomFilterFpChance'.
+         * @param bloomFilterFpChance
+         *      new value for 'bloomFilterFpChance '
+         */
+        public void setBloomFilterFpChance(Double bloomFilterFpChance) {
+            this.bloomFilterFpChance = bloomFilterFpChance;
+        }
+
+        /**
+         * Getter accessor for attribute 'cachingKeys'.
+         *
+         * @return
+         *       current value of 'cachingKeys'
+         */
+        public String getCachingKeys() {
+            return cachingKeys;
+        }
+
+        /**
+         * Setter accessor for attribute 'cachingKeys'.
+         * @param cachingKeys
+         *      new value for 'cachingKeys '
+         */
+        public void setCachingKeys(String cachingKeys) {
+            this.cachingKeys = cachingKeys;
+        }
+
+        /**
+         * Getter accessor for attribute 'cachingRowsPerPartition'.
+         *
+         * @return
+         *       current value of 'cachingRowsPerPartition'
+         */
+        public String getCachingRowsPerPartition() {
+            return cachingRowsPerPartition;
+        }
+
+        /**
+         * Setter accessor for attribute 'cachingRowsPerPartition'.
+         * @param cachingRowsPerPartition
+         *      new value for 'cachingRowsPerPartition '
+         */
+        public void setCachingRowsPerPartition(String cachingRowsPerPartition) {
+            this.cachingRowsPerPartition = cachingRowsPerPartition;
+        }
+
+        /**
+         * Getter accessor for attribute 'defaultTimeToLive'.
+         *
+         * @return
+         *       current value of 'defaultTimeToLive'
+         */
+        public Integer getDefaultTimeToLive() {
+            return defaultTimeToLive;
+        }
+
+        /**
+         * Setter accessor for attribute 'defaultTimeToLive'.
+         * @param defaultTimeToLive
+         *      new value for 'defaultTimeToLive '
+         */
+        public void setDefaultTimeToLive(Integer defaultTimeToLive) {
+            this.defaultTimeToLive = defaultTimeToLive;
+        }
+    }
+
+    /**
+     * Options of a table.
+     *
+     * @param table
+     *      name of the table in schema v1
+     * @return
+     *      options, empty when not configured
+     */
+    public TableOptions of(String table) {
+        TableOptions options = tables.get(table.replace('_', '-'));
+        if (options == null) {
+            // Key in brackets: '[reservations_by_hotel_date]'
+            options = tables.get(table);
+        }
+        return options == null ? new TableOptions() : options;
+    }
+
+    /**
+     * Getter accessor for attribute 'tables'.
+     *
+     * @return
+     *       current value of 'tables'
+     */
+    public Map<String, TableOptions> getTables() {
+        return tables;
+    }
+
+    /**
+     * Setter accessor for attribute 'tables'.
+     * @param tables
+     *      new value for 'tables '
+     */
+    public void setTables(Map<String, TableOptions> tables) {
+        this.tables = tables;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.controller;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.BulkCancellationProgress;
+import dev.cassandraguide.model.ConfirmationNumberStorageReport;
+import dev.cassandraguide.model.OccupancyReport;
+import dev.cassandraguide.model.ReconciliationReport;
+import dev.cassandraguide.repository.BackfillJob;
+import dev.cassandraguide.repository.ReservationRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.datastax.oss.driver.api.core.DriverException;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+/**
+ * Operational resources of the reservation service.
+ *
+ * GET /storage/confirmation-number : Storage saved by confirmation numbers as 'uuid'
+ * GET /backfills                    : Progress of the backfill jobs
+ * GET /backfills/{job}              : Progress and estimated completion of a job
+ * POST /backfills/{job}             : Start a job, or resume it from its checkpoints
+ * POST /backfills/{job}/stop        : Stop a job, it keeps its checkpoints
+ * GET /reconciliations              : Orphan rows found (and deleted) by the reconciliation jobs
+ * POST /cancellations               : Cancel every reservation of a hotel over a range of start dates
+ * GET /cancellations                : Progress of the bulk cancellations
+ * GET /cancellations/{id}           : Progress of a bulk cancellation
+ * POST /occupancy/reconciliations   : Rebuild the occupancy rollup of a hotel for a month from its calendar
+ *
+ * @author Jeff Carpenter
+ */
+@RestController
+@Api(value = "/api/v1/admin",
+     description = "Administration of the Reservation Service")
+@RequestMapping("/api/v1/admin")
+public class AdminResource {
+
+    /** Service implementation injection. */
+    private ReservationRepository reservationService;
+
+    /**
+     * Injection through constructor.
+     *
+     * @param reservationService
+     *      service implementation
+     */
+    public AdminResource(ReservationRepository reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Compare the storage of confirmation numbers as 'text' and as 'uuid' for every table.
+     *
+     * @return
+     *      report with estimated partitions and bytes saved
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/storage/confirmation-number",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Estimate the storage saved by confirmation numbers stored as uuid",
+            response = ConfirmationNumberStorageReport.class)
+    @ApiResponse(
+            code = 200,
+            message = "Storage report per table")
+    public ResponseEntity<ConfirmationNumberStorageReport> confirmationNumberStorage() {
+        return ResponseEntity.ok(reservationService.confirmationNumberStorageReport());
+    }
+
+    /**
+     * Progress of the backfill jobs.
+     *
+     * @return
+     *      progress of every job
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/backfills",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "List the backfill jobs and their progress",
+            response = BackfillProgress.class,
+            responseContainer = "List")
+    @ApiResponse(
+            code = 200,
+            message = "Progress of every job")
+    public ResponseEntity<List<BackfillProgress>> backfills() {
+        return ResponseEntity.ok(reservationService.getBackfills().stream()
+                .map(BackfillJob::getProgress)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Progress of a backfill job.
+     *
+     * @param job
+     *      name of the job
+     * @return
+     *      progress with estimated time to completion
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/backfills/{job}",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Progress and estimated completion of a backfill job",
+            response = BackfillProgress.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Progress of the job"),
+            @ApiResponse(code = 404, message = "No job with this name")
+    })
+    public ResponseEntity<BackfillProgress> backfill(
+            @ApiParam(name="job", value="Name of the job, the table it fills", 
+                      example = "reservations_by_guest", required=true)
+            @PathVariable(value = "job") String job) {
+        return ResponseEntity.of(reservationService.getBackfill(job).map(BackfillJob::getProgress));
+    }
+
+    /**
+     * Start a backfill job in the background, or resume it from its checkpoints.
+     *
+     * @param job
+     *      name of the job
+     * @param restart
+     *      forget the checkpoints and scan from the beginning
+     * @return
+     *      progress of the job
+     */
+    @RequestMapping(
+            method = POST,
+            value = "/backfills/{job}",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Start or resume a backfill job",
+            response = BackfillProgress.class)
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "The job has been started"),
+            @ApiResponse(code = 404, message = "No job with this name"),
+            @ApiResponse(code = 409, message = "The job is running, or completed and not restarted")
+    })
+    public ResponseEntity<BackfillProgress> startBackfill(
+            @ApiParam(name="job", value="Name of the job, the table it fills", 
+                      example = "reservations_by_guest", required=true)
+            @PathVariable(value = "job") String job,
+            @RequestParam(name="restart", required=false, defaultValue="false")
+            @ApiParam(name="restart", value="Scan the whole table again, ignoring checkpoints", required=false)
+            boolean restart) {
+        return reservationService.getBackfill(job)
+                .map(backfill -> ResponseEntity.status(backfill.start(restart) ? HttpStatus.ACCEPTED 
+                        : HttpStatus.CONFLICT).body(backfill.getProgress()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stop a backfill job after the pages in progress.
+     *
+     * @param job
+     *      name of the job
+     * @return
+     *      progress of the job
+     */
+    @RequestMapping(
+            method = POST,
+            value = "/backfills/{job}/stop",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Stop a backfill job, it resumes from its checkpoints when started again",
+            response = BackfillProgress.class)
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "The job is stopping"),
+            @ApiResponse(code = 404, message = "No job with this name")
+    })
+    public ResponseEntity<BackfillProgress> stopBackfill(
+            @ApiParam(name="job", value="Name of the job, the table it fills", 
+                      example = "reservations_by_guest", required=true)
+            @PathVariable(value = "job") String job) {
+        return reservationService.getBackfill(job)
+                .map(backfill -> {
+                    backfill.stop();
+                    return ResponseEntity.accepted().body(backfill.getProgress());
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Reports of the reconciliations of 'reservations_by_hotel_date', started and stopped as backfill jobs.
+     *
+     * @return
+     *      orphans found and deleted by each job
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/reconciliations",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Orphan rows of reservations_by_hotel_date found and deleted (or reported in a dry run)",
+            response = ReconciliationReport.class,
+            responseContainer = "List")
+    @ApiResponse(
+            code = 200,
+            message = "Report of every reconciliation job")
+    public ResponseEntity<List<ReconciliationReport>> reconciliations() {
+        return ResponseEntity.ok(reservationService.getReconciliations());
+    }
+
+    /**
+     * Cancel every reservation of a hotel starting within a range of dates, in the background. Posting the same
+     * hotel and dates again resumes a cancellation that failed.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first start date
+     * @param to
+     *      last start date (included)
+     * @return
+     *      progress of the cancellation
+     */
+    @RequestMapping(
+            method = POST,
+            value = "/cancellations",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Cancel every reservation of a hotel over a range of start dates",
+            response = BulkCancellationProgress.class)
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "The cancellation is running"),
+            @ApiResponse(code = 400, message = "Invalid range of dates")
+    })
+    public ResponseEntity<BulkCancellationProgress> cancelAll(
+            @RequestParam(name="hotelId")
+            @ApiParam(name="hotelId", value="Hotel identifier", example = "NY456", required=true)
+            String hotelId,
+            @RequestParam(name="from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @ApiParam(name="from", value="First start date", example = "2020-06-01", required=true)
+            LocalDate from,
+            @RequestParam(name="to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @ApiParam(name="to", value="Last start date (included)", example = "2020-06-30", required=true)
+            LocalDate to) {
+        if (hotelId.isEmpty()) {
+            throw new IllegalArgumentException("hotelId may not be empty");
+        }
+        return ResponseEntity.accepted().body(reservationService.cancelAll(hotelId, from, to));
+    }
+
+    /**
+     * Progress of the bulk cancellations.
+     *
+     * @return
+     *      progress of every cancellation since startup
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/cancellations",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "List the bulk cancellations and their progress",
+            response = BulkCancellationProgress.class,
+            responseContainer = "List")
+    @ApiResponse(
+            code = 200,
+            message = "Progress of every cancellation")
+    public ResponseEntity<List<BulkCancellationProgress>> cancellations() {
+        return ResponseEntity.ok(reservationService.getBulkCancellations());
+    }
+
+    /**
+     * Progress of a bulk cancellation.
+     *
+     * @param id
+     *      identifier of the cancellation
+     * @return
+     *      progress of the cancellation
+     */
+    @RequestMapping(
+            method = GET,
+            value = "/cancellations/{id}",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Progress of a bulk cancellation",
+            response = BulkCancellationProgress.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Progress of the cancellation"),
+            @ApiResponse(code = 404, message = "No cancellation with this identifier")
+    })
+    public ResponseEntity<BulkCancellationProgress> cancellation(
+            @ApiParam(name="id", value="Identifier of the cancellation", required=true)
+            @PathVariable(value = "id") String id) {
+        return ResponseEntity.of(reservationService.getBulkCancellation(id));
+    }
+
+    /**
+     * Rebuild the occupancy counters of a hotel for a month from its calendar, the counters being approximate.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month as 'yyyy-MM'
+     * @return
+     *      occupancy of the month once rebuilt
+     */
+    @RequestMapping(
+            method = POST,
+            value = "/occupancy/reconciliations",
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Rebuild the occupancy of a hotel for a month from its calendar",
+            response = OccupancyReport.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Occupancy of the month once rebuilt"),
+            @ApiResponse(code = 400, message = "Invalid month"),
+            @ApiResponse(code = 404, message = "The occupancy rollup or the calendar is disabled")
+    })
+    public ResponseEntity<OccupancyReport> reconcileOccupancy(
+            @RequestParam(name="hotelId")
+            @ApiParam(name="hotelId", value="Hotel identifier", example = "NY456", required=true)
+            String hotelId,
+            @RequestParam(name="month")
+            @ApiParam(name="month", value="Month as yyyy-MM", example = "2020-06", required=true)
+            String month) {
+        if (hotelId.isEmpty()) {
+            throw new IllegalArgumentException("hotelId may not be empty");
+        }
+        YearMonth period;
+        try {
+            period = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid month, expecting yyyy-MM");
+        }
+        return ResponseEntity.of(reservationService.reconcileOccupancy(hotelId, period));
+    }
+
+    @ExceptionHandler(value = IllegalArgumentException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public String _errorBadRequestHandler(IllegalArgumentException ex) {
+        return "Invalid Parameter: " + ex.getMessage();
+    }
+
+    /**
+     * Converts {@link DriverException}s into HTTP 500 error codes and outputs the error message as
+     * the response body.
+     *
+     * @param e The {@link DriverException}.
+     * @return The error message to be used as response body.
+     */
+    @ExceptionHandler(DriverException.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public String _errorDriverHandler(DriverException e) {
+      return e.getMessage();
+    }
+}
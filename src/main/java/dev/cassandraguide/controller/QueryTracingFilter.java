@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import dev.cassandraguide.conf.ReservationProperties;
+import dev.cassandraguide.repository.QueryTracing;
+
+/**
+ * Enable Cassandra query tracing for requests sent with 'X-Trace-Cassandra', the traces are added to the response
+ * by {@link QueryTracingResponseAdvice}. Tracing writes to 'system_traces' on every replica involved: it is meant
+ * to diagnose a few requests. It is disabled by default ('reservation.tracing.enabled'), and when a token is
+ * configured ('reservation.tracing.token') the header must carry it, otherwise 'true' is enough.
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+public class QueryTracingFilter extends OncePerRequestFilter {
+
+    /** Request header enabling tracing. */
+    public static final String HEADER_TRACE = "X-Trace-Cassandra";
+
+    private final boolean enabled;
+
+    /** Expected header value, null when 'true' is enough. */
+    private final byte[] token;
+
+    /**
+     * Injection through constructor.
+     *
+     * @param properties
+     *      'reservation.tracing.*'
+     */
+    public QueryTracingFilter(ReservationProperties properties) {
+        this.enabled = properties.isTracingEnabled();
+        String configured = properties.getTracingToken();
+        this.token = configured == null || configured.isEmpty() ? null : configured.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !traced(request.getHeader(HEADER_TRACE));
+    }
+
+    private boolean traced(String header) {
+        if (token == null) {
+            return Boolean.parseBoolean(header);
+        }
+        // Constant time: the comparison does not tell how much of the token matched
+        return header != null && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryTracing.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryTracing.end();
+        }
+    }
+}
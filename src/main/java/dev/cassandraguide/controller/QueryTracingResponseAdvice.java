@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.QueryTrace;
+import com.datastax.oss.driver.api.core.cql.TraceEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.cassandraguide.model.QueryTraceReport;
+import dev.cassandraguide.repository.QueryTracing;
+
+/**
+ * Add the Cassandra traces of a traced request (see {@link QueryTracingFilter}) to its response: tracing ids in the
+ * 'X-Trace-Cassandra-Ids' header and, for JSON bodies, the trace events in a 'debug' field. An object gets a
+ * 'debug' field, any other body is wrapped as '{"data": ..., "debug": ...}'; empty bodies only get the header.
+ *
+ * @author Jeff Carpenter
+ */
+@ControllerAdvice
+public class QueryTracingResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(QueryTracingResponseAdvice.class);
+
+    /** Response header listing the tracing ids. */
+    public static final String HEADER_TRACE_IDS = "X-Trace-Cassandra-Ids";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Injection through constructor.
+     *
+     * @param objectMapper
+     *      mapper of the JSON responses
+     */
+    public QueryTracingResponseAdvice(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        QueryTracing.Context tracing = QueryTracing.current();
+        if (tracing == null || tracing.getExecutions().isEmpty()) {
+            return body;
+        }
+        response.getHeaders().add(HEADER_TRACE_IDS, tracing.getExecutions().stream()
+                .map(execution -> execution.getTracingId().toString())
+                .collect(Collectors.joining(",")));
+        if (body == null || !MappingJackson2HttpMessageConverter.class.isAssignableFrom(selectedConverterType)) {
+            return body;
+        }
+        List<QueryTraceReport> traces = new ArrayList<>();
+        for (ExecutionInfo execution : tracing.getExecutions()) {
+            traces.add(report(execution));
+        }
+        ObjectNode debug = objectMapper.createObjectNode();
+        debug.set("cassandraTraces", objectMapper.valueToTree(traces));
+        JsonNode data = objectMapper.valueToTree(body);
+        if (data instanceof ObjectNode) {
+            return ((ObjectNode) data).set("debug", debug);
+        }
+        ObjectNode wrapper = objectMapper.createObjectNode();
+        wrapper.set("data", data);
+        wrapper.set("debug", debug);
+        return wrapper;
+    }
+
+    /**
+     * Fetch the trace of a statement from 'system_traces' (the driver retries until the trace is complete).
+     */
+    private QueryTraceReport report(ExecutionInfo execution) {
+        QueryTraceReport report = new QueryTraceReport();
+        report.setTracingId(execution.getTracingId().toString());
+        report.setCoordinator(execution.getCoordinator().getEndPoint().toString());
+        try {
+            QueryTrace trace = execution.getQueryTrace();
+            report.setRequestType(trace.getRequestType());
+            report.setDurationMicros(trace.getDurationMicros());
+            report.setStartedAt(trace.getStartedAt());
+            // Bound values are not returned, like in the slow-query log
+            trace.getParameters().forEach((name, value) -> {
+                if (!name.startsWith("bound_var")) {
+                    report.getParameters().put(name, value);
+                }
+            });
+            for (TraceEvent traceEvent : trace.getEvents()) {
+                QueryTraceReport.Event event = new QueryTraceReport.Event();
+                event.setActivity(traceEvent.getActivity());
+                event.setSource(String.valueOf(traceEvent.getSource()));
+                event.setSourceElapsedMicros(traceEvent.getSourceElapsedMicros());
+                event.setThread(traceEvent.getThreadName());
+                report.getEvents().add(event);
+            }
+        } catch (RuntimeException e) {
+            // The trace can still be read later from 'system_traces' with its id
+            logger.debug("Unable to fetch trace {}: {}", execution.getTracingId(), e.getMessage());
+        }
+        return report;
+    }
+}
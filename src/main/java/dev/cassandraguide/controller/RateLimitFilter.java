@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import dev.cassandraguide.conf.ReservationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Rate limits of the reservation API, checked before any work is done: a budget per client (request header), a
+ * budget per hotel for requests with a 'hotelId' parameter, and a separate budget per client for full-table
+ * listings. A request over budget gets a 429 with a 'Retry-After' header.
+ *
+ * <p>Requests without the client header are not limited per client by default: behind a load balancer the remote
+ * address is the one of the balancer, every client would share one budget. The remote address, or the address
+ * appended to 'X-Forwarded-For' by a trusted load balancer, can be used instead ('reservation.rateLimit.anonymous').
+ *
+ * <p>Unlike the adaptive limiter, which protects Cassandra from the total load, these limits keep one client or one
+ * hotel from taking the capacity of the others.
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /** Path of the rate-limited resource. */
+    private static final String RESOURCE = "/api/v1/reservations";
+
+    /** Values of 'reservation.rateLimit.anonymous'. */
+    static final String ANONYMOUS_SKIP           = "skip";
+    static final String ANONYMOUS_REMOTE_ADDRESS = "remote-address";
+    static final String ANONYMOUS_FORWARDED_FOR  = "forwarded-for";
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final boolean enabled;
+    private final String clientHeader;
+    private final String anonymous;
+
+    private final TokenBucketTable clients;
+    private final TokenBucketTable hotels;
+    private final TokenBucketTable findAll;
+
+    /**
+     * Injection through constructor.
+     *
+     * @param properties
+     *      'reservation.rateLimit.*'
+     */
+    public RateLimitFilter(ReservationProperties properties) {
+        this.enabled      = properties.isRateLimitEnabled();
+        this.clientHeader = properties.getRateLimitClientHeader();
+        this.anonymous    = properties.getRateLimitAnonymous();
+        if (!List.of(ANONYMOUS_SKIP, ANONYMOUS_REMOTE_ADDRESS, ANONYMOUS_FORWARDED_FOR).contains(anonymous)) {
+            throw new IllegalArgumentException("Unknown rate limit of anonymous clients '" + anonymous
+                    + "' expecting 'skip', 'remote-address' or 'forwarded-for'");
+        }
+        this.clients = new TokenBucketTable("client", properties.getRateLimitClientPermitsPerSecond(), 
+                properties.getRateLimitClientBurst(), properties.getRateLimitBuckets());
+        this.hotels  = new TokenBucketTable("hotel", properties.getRateLimitHotelPermitsPerSecond(), 
+                properties.getRateLimitHotelBurst(), properties.getRateLimitBuckets());
+        this.findAll = new TokenBucketTable("findAll", properties.getRateLimitFindAllPermitsPerSecond(), 
+                properties.getRateLimitFindAllBurst(), properties.getRateLimitBuckets());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !path(request).startsWith(RESOURCE);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = client(request);
+        if (client != null) {
+            String path = path(request);
+            if (HttpMethod.GET.matches(request.getMethod()) 
+                    && (path.equals(RESOURCE) || path.equals(RESOURCE + "/"))
+                    && rejected(findAll, client, response)) {
+                return;
+            }
+            if (rejected(clients, client, response)) {
+                return;
+            }
+        }
+        String hotelId = request.getParameter("hotelId");
+        if (hotelId != null && rejected(hotels, hotelId, response)) {
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Key of the client budgets: the client header, else the fallback configured for anonymous clients (null when
+     * they are skipped).
+     */
+    private String client(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        if (client != null && !client.isBlank()) {
+            return client;
+        }
+        switch (anonymous) {
+            case ANONYMOUS_REMOTE_ADDRESS:
+                return request.getRemoteAddr();
+            case ANONYMOUS_FORWARDED_FOR:
+                // Addresses before the last one are sent by the client itself and cannot be trusted
+                String forwardedFor = request.getHeader(FORWARDED_FOR);
+                if (forwardedFor == null || forwardedFor.isBlank()) {
+                    return request.getRemoteAddr();
+                }
+                return forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Take a token, or answer 429 when the budget is exhausted.
+     */
+    private boolean rejected(TokenBucketTable budget, String key, HttpServletResponse response) throws IOException {
+        long waitMillis = budget.tryAcquire(key);
+        if (waitMillis == 0) {
+            return false;
+        }
+        long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+        logger.debug("Rate limit of {} '{}' exceeded, retry after {}s", budget.getName(), key, retryAfterSeconds);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Rate limit per " + budget.getName() + " exceeded, retry after " 
+                + retryAfterSeconds + "s");
+        return true;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (TokenBucketTable budget : List.of(clients, hotels, findAll)) {
+            FunctionCounter.builder("reservation.rateLimit.rejected", budget, TokenBucketTable::getRejected)
+                 .tag("budget", budget.getName())
+                 .description("Requests rejected with a 429 because the budget was exhausted")
+                 .register(registry);
+        }
+    }
+}
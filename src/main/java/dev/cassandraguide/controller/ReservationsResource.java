@@ -15,40 +15,62 @@
  */
 package dev.cassandraguide.controller;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
 
 import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.PATCH;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 
+import dev.cassandraguide.model.CalendarPage;
+import dev.cassandraguide.model.MultiGetRequest;
+import dev.cassandraguide.model.MultiGetResult;
+import dev.cassandraguide.model.OccupancyReport;
 import dev.cassandraguide.model.Reservation;
+import dev.cassandraguide.model.ReservationChange;
+import dev.cassandraguide.model.ReservationPatch;
 import dev.cassandraguide.model.ReservationRequest;
+import dev.cassandraguide.repository.LoadSheddingException;
+import dev.cassandraguide.repository.RoomConflictException;
+import dev.cassandraguide.repository.ReservationChangeStream;
 import dev.cassandraguide.repository.ReservationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.datastax.oss.driver.api.core.DriverException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
@@ -67,7 +89,15 @@ import io.swagger.annotations.ApiResponses;
  * GET    /{confirmationNumber} : Will get the reservation if it exists or send not found
  * DELETE /{confirmationNumber} : Will delete the reservation if exists or send not found
  * PUT    /{confirmationNumber} : Will update a reservation
+ * PATCH  /{confirmationNumber} : Will change some attributes of a reservation (JSON merge patch)
  * GET    /findByHotelAndDate   : Search a list of reservations 
+ * POST   /_mget                : Retrieve many reservations in one call
+ * GET    /changes              : Stream of changes (server-sent events), filtered by hotel, resumable
+ * GET    /occupancy            : Reservations per night of a hotel over a month or a quarter
+ * GET    /calendar             : Reservations of a hotel during a month, paged
+ *
+ * When tracing is enabled, a request sent with 'X-Trace-Cassandra: &lt;token&gt;' gets the Cassandra traces of its
+ * statements in the response (see {@link QueryTracingResponseAdvice}).
  *
  * @author Jeff Carpenter, Cedrick Lunven
  */
@@ -80,6 +110,9 @@ public class ReservationsResource {
     /** Logger for the class. */
     private static final Logger logger = LoggerFactory.getLogger(ReservationsResource.class);
     
+    /** Quarter parameter of the occupancy, yyyy-Qn. */
+    private static final Pattern QUARTER = Pattern.compile("(\\d{4})-Q([1-4])");
+    
     /** Service implementation injection. */
     private ReservationRepository reservationService;
 
@@ -127,7 +160,8 @@ public class ReservationsResource {
     @ApiOperation(value = "Create a Reservation and generate confirmation number", response = String.class)
     @ApiResponses({
             @ApiResponse(code = 201, message = "Reservation has been created"),
-            @ApiResponse(code = 400, message = "Invalid ReservationRequest provided")
+            @ApiResponse(code = 400, message = "Invalid ReservationRequest provided"),
+            @ApiResponse(code = 409, message = "The room is already reserved for one of the nights")
     })
     @ApiImplicitParams({
         @ApiImplicitParam(
@@ -191,6 +225,35 @@ public class ReservationsResource {
         return ResponseEntity.ok(reservation.get());
     }
     
+    /**
+     * Retrieve many reservations in one call, replaces one GET per reservation.
+     *
+     * @param request
+     *      confirmation numbers
+     * @return
+     *      reservations found and confirmation numbers without reservation
+     */
+    @RequestMapping(
+            value = "/_mget",
+            method = POST,
+            consumes = APPLICATION_JSON_VALUE,
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Access many reservations in one call",
+            response = MultiGetResult.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Returning reservations found and confirmation numbers missing"),
+            @ApiResponse(code = 400, message = "A confirmation number is blank or invalid, or too many of them")
+    })
+    public ResponseEntity<MultiGetResult> findByConfirmationNumbers(@RequestBody MultiGetRequest request) {
+        if (null == request.getConfirmationNumbers()) {
+            throw new IllegalArgumentException("confirmationNumbers should not be null");
+        }
+        request.getConfirmationNumbers().forEach(this::validateConfirmationNumber);
+        logger.debug("Fetching {} reservations", request.getConfirmationNumbers().size());
+        return ResponseEntity.ok(reservationService.findByConfirmationNumbers(request.getConfirmationNumbers()));
+    }
+    
     /**
      * Update reservation when confirmation number is provided (specify with PUT HTTP Verb)
      *
@@ -209,7 +272,8 @@ public class ReservationsResource {
     @ApiResponses({
         @ApiResponse(code = 201, message = "Reservation has been created"),
         @ApiResponse(code = 204, message = "No content, reservation has been updated"),
-        @ApiResponse(code = 400, message = "Confirmation number is blank or contains invalid characters (expecting alphanumeric)")
+        @ApiResponse(code = 400, message = "Confirmation number is blank or contains invalid characters (expecting alphanumeric)"),
+        @ApiResponse(code = 409, message = "The room is already reserved for one of the nights")
     })
     public ResponseEntity<Void> upsert(
             @ApiParam(name="confirmationNumber", 
@@ -226,6 +290,44 @@ public class ReservationsResource {
         return new ResponseEntity<>(returnedStatus);
     }
 
+    /**
+     * Change some attributes of a reservation with a JSON merge patch (RFC 7396), for instance
+     * <code>{"endDate": "2020-06-28"}</code> to extend a stay. Only the changed columns are written.
+     *
+     * @param confirmationNumber
+     *      unique confirmation number
+     * @param patch
+     *      attributes to set, null to remove an optional one
+     * @return
+     *      the reservation after the change, or not found
+     */
+    @RequestMapping(
+            method = PATCH,
+            value = "/{confirmationNumber}",
+            consumes = {ReservationPatch.MEDIA_TYPE, APPLICATION_JSON_VALUE},
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Change some attributes of a reservation (JSON merge patch)",
+            response = Reservation.class)
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Reservation has been changed"),
+        @ApiResponse(code = 400, message = "Confirmation number or patch is invalid, or removes a required attribute"),
+        @ApiResponse(code = 404, message = "The reservation does not exist"),
+        @ApiResponse(code = 409, message = "The room is already reserved for one of the nights")
+    })
+    public ResponseEntity<Reservation> patch(
+            @ApiParam(name="confirmationNumber", 
+                    example = "b9c5a9d8-9781-4de8-a00a-601a9cd6b366",
+                    value="Confirmation number for a reservation",
+                    required=true )
+            @PathVariable(value = "confirmationNumber") String confirmationNumber,
+            @RequestBody JsonNode patch) {
+        validateConfirmationNumber(confirmationNumber);
+        logger.debug("Request to patch reservation {}", confirmationNumber);
+        return ResponseEntity.of(reservationService.patch(confirmationNumber, 
+                reservation -> ReservationPatch.apply(reservation, patch)));
+    }
+
     @RequestMapping(
             method = DELETE,
             value = "/{confirmationNumber}")
@@ -291,6 +393,202 @@ public class ReservationsResource {
         logger.debug("Receive request for hotelId:{}, {}", hotelId, date);
         return ResponseEntity.ok(reservationService.findByHotelAndDate(hotelId, date));
     }
+
+    /**
+     * Occupancy of a hotel over a month or a quarter, read from the rollup of reservations per night.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month as yyyy-MM
+     * @param quarter
+     *      quarter as yyyy-Qn, when no month is provided
+     * @param rooms
+     *      rooms of the hotel, to compute the occupancy rate
+     * @return
+     *      statistics of the period
+     */
+    @RequestMapping(
+            value = "/occupancy",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Occupancy of a hotel over a month or a quarter",
+            response = OccupancyReport.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Returning occupancy"),
+            @ApiResponse(code = 400, message = "Hotel id is blank, or not exactly one of month (yyyy-MM) and "
+                    + "quarter (yyyy-Qn)"),
+            @ApiResponse(code = 404, message = "The occupancy rollup is disabled")
+    })
+    public ResponseEntity<OccupancyReport> occupancy(
+            @RequestParam("hotelId")
+            @ApiParam(name="hotelId", value="Unique hotel identifier", required=true)
+            String hotelId,
+            @RequestParam(name="month", required=false)
+            @ApiParam(name="month", value="Month yyyy-MM", example = "2020-06", required=false)
+            String month,
+            @RequestParam(name="quarter", required=false)
+            @ApiParam(name="quarter", value="Quarter yyyy-Qn", example = "2020-Q2", required=false)
+            String quarter,
+            @RequestParam(name="rooms", required=false)
+            @ApiParam(name="rooms", value="Rooms of the hotel, for the occupancy rate", required=false)
+            Integer rooms) {
+        if (null == hotelId || hotelId.isEmpty()) {
+            throw new IllegalArgumentException("hotelId may not be null nor empty");
+        }
+        if ((month == null) == (quarter == null)) {
+            throw new IllegalArgumentException("expecting either month or quarter");
+        }
+        LocalDate from;
+        LocalDate to;
+        try {
+            if (month != null) {
+                YearMonth period = YearMonth.parse(month);
+                from = period.atDay(1);
+                to   = period.atEndOfMonth();
+            } else {
+                Matcher period = QUARTER.matcher(quarter);
+                if (!period.matches()) {
+                    throw new IllegalArgumentException("invalid quarter, expecting yyyy-Qn");
+                }
+                from = YearMonth.of(Integer.parseInt(period.group(1)), 
+                        Integer.parseInt(period.group(2)) * 3 - 2).atDay(1);
+                to   = from.plusMonths(3).minusDays(1);
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid month, expecting yyyy-MM");
+        }
+        logger.debug("Receive occupancy request for hotelId:{}, {} to {}", hotelId, from, to);
+        return ResponseEntity.of(reservationService.occupancy(hotelId, from, to, rooms));
+    }
+
+    /**
+     * Calendar of a hotel: reservations in house during a month, by start date and room number.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month as yyyy-MM
+     * @param pageSize
+     *      reservations per page
+     * @param pagingState
+     *      returned with the previous page
+     * @return
+     *      a page of the calendar
+     */
+    @RequestMapping(
+            value = "/calendar",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE)
+    @ApiOperation(
+            value = "Reservations of a hotel during a month",
+            response = CalendarPage.class)
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Returning a page of the calendar"),
+            @ApiResponse(code = 400, message = "Hotel id is blank, invalid month (expecting yyyy-MM), page size or "
+                    + "paging state"),
+            @ApiResponse(code = 404, message = "The calendar is disabled")
+    })
+    public ResponseEntity<CalendarPage> calendar(
+            @RequestParam("hotelId")
+            @ApiParam(name="hotelId", value="Unique hotel identifier", required=true)
+            String hotelId,
+            @RequestParam("month")
+            @ApiParam(name="month", value="Month yyyy-MM", example = "2020-06", required=true)
+            String month,
+            @RequestParam(name="pageSize", defaultValue = "500")
+            @ApiParam(name="pageSize", value="Reservations per page", required=false)
+            int pageSize,
+            @RequestParam(name="pagingState", required=false)
+            @ApiParam(name="pagingState", value="Paging state of the previous page", required=false)
+            String pagingState) {
+        if (null == hotelId || hotelId.isEmpty()) {
+            throw new IllegalArgumentException("hotelId may not be null nor empty");
+        }
+        YearMonth period;
+        try {
+            period = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid month, expecting yyyy-MM");
+        }
+        logger.debug("Receive calendar request for hotelId:{}, {}", hotelId, period);
+        return ResponseEntity.of(reservationService.calendar(hotelId, period, pageSize, pagingState));
+    }
+
+    /**
+     * Changes made through this instance as server-sent events: the id of an event is its sequence, its name the
+     * type of change ('UPSERT', 'DELETE') and its data the {@link ReservationChange}. A 'gap' event reports changes
+     * no longer available (subscriber too slow or resumed too late).
+     *
+     * @param hotelIds
+     *      hotels of interest, all when not provided
+     * @param fromSequence
+     *      first sequence to receive, only new changes when not provided
+     * @param lastEventId
+     *      sent by browsers when reconnecting, resumes after this sequence
+     * @return
+     *      event stream
+     */
+    @RequestMapping(
+            value = "/changes",
+            method = GET,
+            produces = TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Subscribe to reservation changes (server-sent events)")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Stream of changes"),
+            @ApiResponse(code = 404, message = "The change stream is disabled")
+    })
+    public ResponseEntity<SseEmitter> changes(
+            @RequestParam(name = "hotelId", required = false)
+            @ApiParam(name = "hotelId", value = "Hotel identifier, repeat for several hotels", required = false)
+            List<String> hotelIds,
+            @RequestParam(name = "fromSequence", required = false)
+            @ApiParam(name = "fromSequence", value = "First sequence to receive", required = false)
+            Long fromSequence,
+            @RequestHeader(name = "Last-Event-ID", required = false) 
+            Long lastEventId) {
+        ReservationChangeStream changeStream = reservationService.getChangeStream();
+        if (changeStream == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Long start = lastEventId != null ? Long.valueOf(lastEventId + 1) : fromSequence;
+        // No timeout, the subscription ends when the client disconnects
+        SseEmitter emitter = new SseEmitter(0L);
+        ReservationChangeStream.Subscription subscription = changeStream.subscribe(start, 
+                hotelIds == null ? new HashSet<>() : new HashSet<>(hotelIds), 
+                new ReservationChangeStream.Listener() {
+            
+            @Override
+            public void onChange(ReservationChange change) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSequence()))
+                        .name(change.getType().name())
+                        .data(change, APPLICATION_JSON));
+            }
+            
+            @Override
+            public void onGap(long expected, long oldest) throws IOException {
+                emitter.send(SseEmitter.event().name("gap").data("{\"expected\":" + expected 
+                        + ",\"oldest\":" + oldest + "}", APPLICATION_JSON));
+            }
+            
+            @Override
+            public void onHeartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            
+            @Override
+            public void onTimeout() {
+                // Client no longer reading: end the response
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onError(e -> subscription.close());
+        logger.debug("New subscriber for changes of {} from sequence {}", hotelIds, start);
+        return ResponseEntity.ok(emitter);
+    }
     
     @ExceptionHandler(value = IllegalArgumentException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
@@ -311,6 +609,34 @@ public class ReservationsResource {
       return e.getMessage();
     }
     
+    /**
+     * Converts {@link RoomConflictException}s into HTTP 409 error codes, the reservation has not been written.
+     *
+     * @param e The {@link RoomConflictException}.
+     * @return The error message to be used as response body.
+     */
+    @ExceptionHandler(RoomConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String _errorRoomConflictHandler(RoomConflictException e) {
+      logger.debug(e.getMessage());
+      return e.getMessage();
+    }
+    
+    /**
+     * Converts {@link LoadSheddingException}s into HTTP 503 error codes with a 'Retry-After' header, the request
+     * has been rejected before reaching Cassandra.
+     *
+     * @param e The {@link LoadSheddingException}.
+     * @return The error message to be used as response body.
+     */
+    @ExceptionHandler(LoadSheddingException.class)
+    public ResponseEntity<String> _errorLoadSheddingHandler(LoadSheddingException e) {
+      logger.debug(e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                           .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                           .body(e.getMessage());
+    }
+    
     /**
      * Utility to validate confirmation number.
      * 
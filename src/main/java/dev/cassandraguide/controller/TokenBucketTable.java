@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets in a fixed-size table: a key (client id, hotel id) is hashed to a slot, each slot is a bucket
+ * refilled at 'permitsPerSecond' up to 'burst' tokens.
+ *
+ * <p>The state of a bucket is packed in a single long (last refill in milliseconds, then tokens in thousandths)
+ * updated with a compare-and-set: no lock and no allocation per call, and memory does not grow with the number
+ * of keys. Keys sharing a slot share a budget, the table is sized so that this stays rare.
+ *
+ * @author Jeff Carpenter
+ */
+public class TokenBucketTable {
+
+    /** Low bits of a slot: tokens in thousandths, up to 16777 tokens. */
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    /** One token. */
+    private static final long PERMIT = 1000;
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final long capacity;
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /** Milliseconds since the creation of the table, starting at 1 (0 is an unused slot). */
+    private final LongSupplier clock;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Initialization of the table.
+     *
+     * @param name
+     *      name of the budget, used as metric tag
+     * @param permitsPerSecond
+     *      refill rate of a bucket
+     * @param burst
+     *      tokens of a full bucket
+     * @param buckets
+     *      slots of the table, rounded up to a power of two
+     */
+    public TokenBucketTable(String name, double permitsPerSecond, int burst, int buckets) {
+        this(name, permitsPerSecond, burst, buckets, monotonicMillis());
+    }
+
+    /**
+     * Initialization with a given clock.
+     */
+    TokenBucketTable(String name, double permitsPerSecond, int burst, int buckets, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || burst < 1 || burst * PERMIT > TOKEN_MASK) {
+            throw new IllegalArgumentException("Rate must be positive and burst between 1 and " 
+                    + TOKEN_MASK / PERMIT);
+        }
+        int size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+        this.name             = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity         = burst * PERMIT;
+        this.slots            = new AtomicLongArray(size);
+        this.mask             = size - 1;
+        this.clock            = clock;
+    }
+
+    private static LongSupplier monotonicMillis() {
+        long origin = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1);
+        return () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+
+    /**
+     * Take a token from the bucket of a key.
+     *
+     * @param key
+     *      client or hotel
+     * @return
+     *      0 if a token was taken, otherwise the milliseconds until the next token
+     */
+    public long tryAcquire(Object key) {
+        int slot = index(key);
+        while (true) {
+            long state = slots.get(slot);
+            long now   = clock.getAsLong();
+            long tokens;
+            if (state == 0) {
+                tokens = capacity;
+            } else {
+                long last = state >>> TOKEN_BITS;
+                // Thousandths of tokens per millisecond = tokens per second
+                long refill = (long) (Math.max(0, now - last) * permitsPerSecond);
+                tokens = Math.min(capacity, (state & TOKEN_MASK) + refill);
+                now = Math.max(now, last);
+            }
+            if (tokens < PERMIT) {
+                rejected.increment();
+                return Math.max(1, (long) Math.ceil((PERMIT - tokens) / permitsPerSecond));
+            }
+            if (slots.compareAndSet(slot, state, (now << TOKEN_BITS) | (tokens - PERMIT))) {
+                return 0;
+            }
+        }
+    }
+
+    private int index(Object key) {
+        int h = key.hashCode();
+        // Spread the bits, hash codes of similar strings differ in low bits only
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & mask;
+    }
+
+    /**
+     * Getter accessor for attribute 'name'.
+     *
+     * @return
+     *       current value of 'name'
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Calls rejected since startup.
+     *
+     * @return
+     *      number of calls
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
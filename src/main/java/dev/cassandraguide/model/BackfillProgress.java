@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Progress of a background job scanning a table by token range (backfill of a new table, reconciliation).
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="BackfillProgress", description="Progress and estimated completion of a background job")
+public class BackfillProgress implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 6218436713820457931L;
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum Status {
+        /** Never run, no checkpoint. */
+        NOT_STARTED,
+        /** Scanning. */
+        RUNNING,
+        /** Stopped before the end, resumes from its checkpoints when started. */
+        STOPPED,
+        /** Every range has been scanned. */
+        COMPLETED,
+        /** Stopped by an error, resumes from its checkpoints when started. */
+        FAILED
+    }
+
+    @ApiModelProperty(value = "Name of the job")
+    private String job;
+
+    @ApiModelProperty(value = "What the job writes")
+    private String description;
+
+    @ApiModelProperty(value = "NOT_STARTED, RUNNING, STOPPED, COMPLETED or FAILED")
+    private Status status;
+
+    @ApiModelProperty(value = "Token ranges of the ring scanned independently")
+    private int ranges;
+
+    @ApiModelProperty(value = "Token ranges entirely scanned")
+    private int rangesCompleted;
+
+    @ApiModelProperty(value = "Fraction of the ring scanned, from 0 to 1")
+    private double fractionScanned;
+
+    @ApiModelProperty(value = "Rows read since the job was first started (rows of an interrupted page are read again)")
+    private long rowsScanned;
+
+    @ApiModelProperty(value = "Rows written by the current or last run")
+    private long rowsWritten;
+
+    @ApiModelProperty(value = "Rows read per second by the current or last run")
+    private double rowsPerSecond;
+
+    @ApiModelProperty(value = "Throttle of the job, 0 when unlimited")
+    private double rowsPerSecondLimit;
+
+    @ApiModelProperty(value = "Start of the current or last run, null if the job has not run since startup")
+    private Instant startedAt;
+
+    @ApiModelProperty(value = "Estimated seconds to completion while running, null when unknown")
+    private Long etaSeconds;
+
+    @ApiModelProperty(value = "Error that stopped the last run")
+    private String lastError;
+
+    /**
+     * Default constructor
+     */
+    public BackfillProgress() {
+    }
+
+    /**
+     * Getter accessor for attribute 'job'.
+     *
+     * @return
+     *       current value of 'job'
+     */
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * Setter accessor for attribute 'job'.
+     * @param job
+     *      new value for 'job '
+     */
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    /**
+     * Getter accessor for attribute 'description'.
+     *
+     * @return
+     *       current value of 'description'
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Setter accessor for attribute 'description'.
+     * @param description
+     *      new value for 'description '
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Getter accessor for attribute 'status'.
+     *
+     * @return
+     *       current value of 'status'
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Setter accessor for attribute 'status'.
+     * @param status
+     *      new value for 'status '
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Getter accessor for attribute 'ranges'.
+     *
+     * @return
+     *       current value of 'ranges'
+     */
+    public int getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Setter accessor for attribute 'ranges'.
+     * @param ranges
+     *      new value for 'ranges '
+     */
+    public void setRanges(int ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Getter accessor for attribute 'rangesCompleted'.
+     *
+     * @return
+     *       current value of 'rangesCompleted'
+     */
+    public int getRangesCompleted() {
+        return rangesCompleted;
+    }
+
+    /**
+     * Setter accessor for attribute 'rangesCompleted'.
+     * @param rangesCompleted
+     *      new value for 'rangesCompleted '
+     */
+    public void setRangesCompleted(int rangesCompleted) {
+        this.rangesCompleted = rangesCompleted;
+    }
+
+    /**
+     * Getter accessor for attribute 'fractionScanned'.
+     *
+     * @return
+     *       current value of 'fractionScanned'
+     */
+    public double getFractionScanned() {
+        return fractionScanned;
+    }
+
+    /**
+     * Setter accessor for attribute 'fractionScanned'.
+     * @param fractionScanned
+     *      new value for 'fractionScanned '
+     */
+    public void setFractionScanned(double fractionScanned) {
+        this.fractionScanned = fractionScanned;
+    }
+
+    /**
+     * Getter accessor for attribute 'rowsScanned'.
+     *
+     * @return
+     *       current value of 'rowsScanned'
+     */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * Setter accessor for attribute 'rowsScanned'.
+     * @param rowsScanned
+     *      new value for 'rowsScanned '
+     */
+    public void setRowsScanned(long rowsScanned) {
+        this.rowsScanned = rowsScanned;
+    }
+
+    /**
+     * Getter accessor for attribute 'rowsWritten'.
+     *
+     * @return
+     *       current value of 'rowsWritten'
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Setter accessor for attribute 'rowsWritten'.
+     * @param rowsWritten
+     *      new value for 'rowsWritten '
+     */
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    /**
+     * Getter accessor for attribute 'rowsPerSecond'.
+     *
+     * @return
+     *       current value of 'rowsPerSecond'
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * Setter accessor for attribute 'rowsPerSecond'.
+     * @param rowsPerSecond
+     *      new value for 'rowsPerSecond '
+     */
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Getter accessor for attribute 'rowsPerSecondLimit'.
+     *
+     * @return
+     *       current value of 'rowsPerSecondLimit'
+     */
+    public double getRowsPerSecondLimit() {
+        return rowsPerSecondLimit;
+    }
+
+    /**
+     * Setter accessor for attribute 'rowsPerSecondLimit'.
+     * @param rowsPerSecondLimit
+     *      new value for 'rowsPerSecondLimit '
+     */
+    public void setRowsPerSecondLimit(double rowsPerSecondLimit) {
+        this.rowsPerSecondLimit = rowsPerSecondLimit;
+    }
+
+    /**
+     * Getter accessor for attribute 'startedAt'.
+     *
+     * @return
+     *       current value of 'startedAt'
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Setter accessor for attribute 'startedAt'.
+     * @param startedAt
+     *      new value for 'startedAt '
+     */
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Getter accessor for attribute 'etaSeconds'.
+     *
+     * @return
+     *       current value of 'etaSeconds'
+     */
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    /**
+     * Setter accessor for attribute 'etaSeconds'.
+     * @param etaSeconds
+     *      new value for 'etaSeconds '
+     */
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'lastError'.
+     *
+     * @return
+     *       current value of 'lastError'
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Setter accessor for attribute 'lastError'.
+     * @param lastError
+     *      new value for 'lastError '
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Progress of the bulk cancellation of the reservations of a hotel over a range of dates.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="BulkCancellationProgress", description="Progress of the cancellation of a hotel over a date range")
+public class BulkCancellationProgress implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 3871046220918375518L;
+
+    /**
+     * Lifecycle of a bulk cancellation.
+     */
+    public enum Status {
+        /** Reading and cancelling partitions. */
+        RUNNING,
+        /** Every partition has been read and its reservations cancelled. */
+        COMPLETED,
+        /** Stopped by an error, starting it again cancels the reservations left. */
+        FAILED
+    }
+
+    @ApiModelProperty(value = "Identifier of the cancellation, the same for the same hotel and dates")
+    private String id;
+
+    @ApiModelProperty(value = "Hotel identifier")
+    private String hotelId;
+
+    @ApiModelProperty(value = "First start date cancelled")
+    private LocalDate from;
+
+    @ApiModelProperty(value = "Last start date cancelled (included)")
+    private LocalDate to;
+
+    @ApiModelProperty(value = "RUNNING, COMPLETED or FAILED")
+    private Status status;
+
+    @ApiModelProperty(value = "Days of the range, one partition of reservations_by_hotel_date each")
+    private int partitions;
+
+    @ApiModelProperty(value = "Partitions read and cancelled by the current or last run")
+    private int partitionsCompleted;
+
+    @ApiModelProperty(value = "Reservations found by the current or last run")
+    private long reservationsFound;
+
+    @ApiModelProperty(value = "Reservations cancelled by the current or last run")
+    private long reservationsCancelled;
+
+    @ApiModelProperty(value = "Start of the current or last run")
+    private Instant startedAt;
+
+    @ApiModelProperty(value = "End of the last run, null while running")
+    private Instant completedAt;
+
+    @ApiModelProperty(value = "Error that stopped the last run")
+    private String lastError;
+
+    /**
+     * Default constructor
+     */
+    public BulkCancellationProgress() {
+    }
+
+    /**
+     * Getter accessor for attribute 'id'.
+     *
+     * @return
+     *       current value of 'id'
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Setter accessor for attribute 'id'.
+     * @param id
+     *      new value for 'id '
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter accessor for attribute 'hotelId'.
+     *
+     * @return
+     *       current value of 'hotelId'
+     */
+    public String getHotelId() {
+        return hotelId;
+    }
+
+    /**
+     * Setter accessor for attribute 'hotelId'.
+     * @param hotelId
+     *      new value for 'hotelId '
+     */
+    public void setHotelId(String hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    /**
+     * Getter accessor for attribute 'from'.
+     *
+     * @return
+     *       current value of 'from'
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Setter accessor for attribute 'from'.
+     * @param from
+     *      new value for 'from '
+     */
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Getter accessor for attribute 'to'.
+     *
+     * @return
+     *       current value of 'to'
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Setter accessor for attribute 'to'.
+     * @param to
+     *      new value for 'to '
+     */
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    /**
+     * Getter accessor for attribute 'status'.
+     *
+     * @return
+     *       current value of 'status'
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Setter accessor for attribute 'status'.
+     * @param status
+     *      new value for 'status '
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Getter accessor for attribute 'partitions'.
+     *
+     * @return
+     *       current value of 'partitions'
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Setter accessor for attribute 'partitions'.
+     * @param partitions
+     *      new value for 'partitions '
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Getter accessor for attribute 'partitionsCompleted'.
+     *
+     * @return
+     *       current value of 'partitionsCompleted'
+     */
+    public int getPartitionsCompleted() {
+        return partitionsCompleted;
+    }
+
+    /**
+     * Setter accessor for attribute 'partitionsCompleted'.
+     * @param partitionsCompleted
+     *      new value for 'partitionsCompleted '
+     */
+    public void setPartitionsCompleted(int partitionsCompleted) {
+        this.partitionsCompleted = partitionsCompleted;
+    }
+
+    /**
+     * Getter accessor for attribute 'reservationsFound'.
+     *
+     * @return
+     *       current value of 'reservationsFound'
+     */
+    public long getReservationsFound() {
+        return reservationsFound;
+    }
+
+    /**
+     * Setter accessor for attribute 'reservationsFound'.
+     * @param reservationsFound
+     *      new value for 'reservationsFound '
+     */
+    public void setReservationsFound(long reservationsFound) {
+        this.reservationsFound = reservationsFound;
+    }
+
+    /**
+     * Getter accessor for attribute 'reservationsCancelled'.
+     *
+     * @return
+     *       current value of 'reservationsCancelled'
+     */
+    public long getReservationsCancelled() {
+        return reservationsCancelled;
+    }
+
+    /**
+     * Setter accessor for attribute 'reservationsCancelled'.
+     * @param reservationsCancelled
+     *      new value for 'reservationsCancelled '
+     */
+    public void setReservationsCancelled(long reservationsCancelled) {
+        this.reservationsCancelled = reservationsCancelled;
+    }
+
+    /**
+     * Getter accessor for attribute 'startedAt'.
+     *
+     * @return
+     *       current value of 'startedAt'
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Setter accessor for attribute 'startedAt'.
+     * @param startedAt
+     *      new value for 'startedAt '
+     */
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Getter accessor for attribute 'completedAt'.
+     *
+     * @return
+     *       current value of 'completedAt'
+     */
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Setter accessor for attribute 'completedAt'.
+     * @param completedAt
+     *      new value for 'completedAt '
+     */
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * Getter accessor for attribute 'lastError'.
+     *
+     * @return
+     *       current value of 'lastError'
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Setter accessor for attribute 'lastError'.
+     * @param lastError
+     *      new value for 'lastError '
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * A page of the calendar of a hotel: reservations in house during a month, by start date and room number.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="CalendarPage", description="Reservations of a hotel during a month, one page")
+public class CalendarPage implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 6324187715032975541L;
+
+    @ApiModelProperty(value = "Hotel identifier")
+    private String hotelId;
+
+    @ApiModelProperty(value = "Month yyyy-MM")
+    private String month;
+
+    @ApiModelProperty(value = "Reservations of the page")
+    private List<Reservation> reservations = new ArrayList<>();
+
+    @ApiModelProperty(value = "Pass as 'pagingState' to get the next page, null on the last page")
+    private String pagingState;
+
+    /**
+     * Default constructor
+     */
+    public CalendarPage() {
+    }
+
+    /**
+     * Full constructor
+     */
+    public CalendarPage(String hotelId, String month, List<Reservation> reservations, String pagingState) {
+        this.hotelId      = hotelId;
+        this.month        = month;
+        this.reservations = reservations;
+        this.pagingState  = pagingState;
+    }
+
+    /**
+     * Getter accessor for attribute 'hotelId'.
+     *
+     * @return
+     *       current value of 'hotelId'
+     */
+    public String getHotelId() {
+        return hotelId;
+    }
+
+    /**
+     * Setter accessor for attribute 'hotelId'.
+     * @param hotelId
+     *      new value for 'hotelId '
+     */
+    public void setHotelId(String hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    /**
+     * Getter accessor for attribute 'month'.
+     *
+     * @return
+     *       current value of 'month'
+     */
+    public String getMonth() {
+        return month;
+    }
+
+    /**
+     * Setter accessor for attribute 'month'.
+     * @param month
+     *      new value for 'month '
+     */
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    /**
+     * Getter accessor for attribute 'reservations'.
+     *
+     * @return
+     *       current value of 'reservations'
+     */
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Setter accessor for attribute 'reservations'.
+     * @param reservations
+     *      new value for 'reservations '
+     */
+    public void setReservations(List<Reservation> reservations) {
+        this.reservations = reservations;
+    }
+
+    /**
+     * Getter accessor for attribute 'pagingState'.
+     *
+     * @return
+     *       current value of 'pagingState'
+     */
+    public String getPagingState() {
+        return pagingState;
+    }
+
+    /**
+     * Setter accessor for attribute 'pagingState'.
+     * @param pagingState
+     *      new value for 'pagingState '
+     */
+    public void setPagingState(String pagingState) {
+        this.pagingState = pagingState;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Immutable and compact representation of a {@link Reservation} for in-memory structures: a single object
+ * with primitive fields (64 bytes) instead of eight objects, strings and their arrays included (about 250 bytes).
+ *
+ * <ul>
+ *  <li>hotel id: code in a {@link HotelIdDictionary}</li>
+ *  <li>dates: epoch days ({@link #NULL_DATE} when missing)</li>
+ *  <li>guest id and confirmation number: two longs each, the nil UUID (0, 0) stands for a missing value</li>
+ * </ul>
+ *
+ * <p>The binary form ({@link #writeTo(ByteBuffer)}) is fixed-width, {@link #BYTES} bytes.
+ *
+ * @author Jeff Carpenter
+ */
+public final class CompactReservation {
+
+    /** Size of the binary form. */
+    public static final int BYTES = 48;
+
+    /** Epoch day of a missing date. */
+    public static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private final int hotelCode;
+    private final int startEpochDay;
+    private final int endEpochDay;
+    private final short roomNumber;
+    private final long guestIdMsb;
+    private final long guestIdLsb;
+    private final long confirmationMsb;
+    private final long confirmationLsb;
+
+    /**
+     * Full constructor.
+     */
+    public CompactReservation(int hotelCode, int startEpochDay, int endEpochDay, short roomNumber,
+            long guestIdMsb, long guestIdLsb, long confirmationMsb, long confirmationLsb) {
+        this.hotelCode       = hotelCode;
+        this.startEpochDay   = startEpochDay;
+        this.endEpochDay     = endEpochDay;
+        this.roomNumber      = roomNumber;
+        this.guestIdMsb      = guestIdMsb;
+        this.guestIdLsb      = guestIdLsb;
+        this.confirmationMsb = confirmationMsb;
+        this.confirmationLsb = confirmationLsb;
+    }
+
+    /**
+     * Encode a reservation, the confirmation number (if any) must be a UUID.
+     *
+     * @param reservation
+     *      reservation
+     * @param dictionary
+     *      dictionary of hotel ids
+     * @return
+     *      compact reservation
+     */
+    public static CompactReservation of(Reservation reservation, HotelIdDictionary dictionary) {
+        UUID guestId      = reservation.getGuestId();
+        UUID confirmation = reservation.getConfirmationNumber() == null ? null
+                : UUID.fromString(reservation.getConfirmationNumber());
+        return new CompactReservation(
+                dictionary.encode(reservation.getHotelId()),
+                toEpochDay(reservation.getStartDate()),
+                toEpochDay(reservation.getEndDate()),
+                reservation.getRoomNumber(),
+                guestId == null ? 0 : guestId.getMostSignificantBits(),
+                guestId == null ? 0 : guestId.getLeastSignificantBits(),
+                confirmation == null ? 0 : confirmation.getMostSignificantBits(),
+                confirmation == null ? 0 : confirmation.getLeastSignificantBits());
+    }
+
+    /**
+     * Decode as a reservation.
+     *
+     * @param dictionary
+     *      dictionary used for encoding
+     * @return
+     *      new reservation
+     */
+    public Reservation toReservation(HotelIdDictionary dictionary) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(dictionary.decode(hotelCode));
+        reservation.setStartDate(toLocalDate(startEpochDay));
+        reservation.setEndDate(toLocalDate(endEpochDay));
+        reservation.setRoomNumber(roomNumber);
+        reservation.setGuestId(toUuid(guestIdMsb, guestIdLsb));
+        UUID confirmation = toUuid(confirmationMsb, confirmationLsb);
+        reservation.setConfirmationNumber(confirmation == null ? null : confirmation.toString());
+        return reservation;
+    }
+
+    /**
+     * Write the binary form at the current position of the buffer.
+     *
+     * @param buffer
+     *      target buffer, at least {@link #BYTES} remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(confirmationMsb)
+              .putLong(confirmationLsb)
+              .putLong(guestIdMsb)
+              .putLong(guestIdLsb)
+              .putInt(hotelCode)
+              .putInt(startEpochDay)
+              .putInt(endEpochDay)
+              .putShort(roomNumber)
+              .putShort((short) 0);
+    }
+
+    /**
+     * Read the binary form at the current position of the buffer.
+     *
+     * @param buffer
+     *      source buffer, at least {@link #BYTES} remaining
+     * @return
+     *      compact reservation
+     */
+    public static CompactReservation readFrom(ByteBuffer buffer) {
+        long confirmationMsb = buffer.getLong();
+        long confirmationLsb = buffer.getLong();
+        long guestIdMsb      = buffer.getLong();
+        long guestIdLsb      = buffer.getLong();
+        int  hotelCode       = buffer.getInt();
+        int  startEpochDay   = buffer.getInt();
+        int  endEpochDay     = buffer.getInt();
+        short roomNumber     = buffer.getShort();
+        buffer.getShort();
+        return new CompactReservation(hotelCode, startEpochDay, endEpochDay, roomNumber,
+                guestIdMsb, guestIdLsb, confirmationMsb, confirmationLsb);
+    }
+
+    static int toEpochDay(LocalDate date) {
+        return date == null ? NULL_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    static LocalDate toLocalDate(int epochDay) {
+        return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    static UUID toUuid(long msb, long lsb) {
+        return (msb == 0 && lsb == 0) ? null : new UUID(msb, lsb);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CompactReservation)) {
+            return false;
+        }
+        CompactReservation other = (CompactReservation) obj;
+        return hotelCode == other.hotelCode
+                && startEpochDay == other.startEpochDay
+                && endEpochDay == other.endEpochDay
+                && roomNumber == other.roomNumber
+                && guestIdMsb == other.guestIdMsb
+                && guestIdLsb == other.guestIdLsb
+                && confirmationMsb == other.confirmationMsb
+                && confirmationLsb == other.confirmationLsb;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(confirmationMsb ^ confirmationLsb);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Confirmation Number = " + toUuid(confirmationMsb, confirmationLsb) +
+                ", Hotel Code: " + hotelCode +
+                ", Start Date = " + toLocalDate(startEpochDay) +
+                ", End Date = " + toLocalDate(endEpochDay) +
+                ", Room Number = " + roomNumber +
+                ", Guest ID = " + toUuid(guestIdMsb, guestIdLsb);
+    }
+
+    /**
+     * Getter accessor for attribute 'hotelCode'.
+     *
+     * @return
+     *       current value of 'hotelCode'
+     */
+    public int getHotelCode() {
+        return hotelCode;
+    }
+
+    /**
+     * Getter accessor for attribute 'startEpochDay'.
+     *
+     * @return
+     *       current value of 'startEpochDay'
+     */
+    public int getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    /**
+     * Getter accessor for attribute 'endEpochDay'.
+     *
+     * @return
+     *       current value of 'endEpochDay'
+     */
+    public int getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    /**
+     * Getter accessor for attribute 'roomNumber'.
+     *
+     * @return
+     *       current value of 'roomNumber'
+     */
+    public short getRoomNumber() {
+        return roomNumber;
+    }
+
+    /**
+     * Getter accessor for attribute 'guestIdMsb'.
+     *
+     * @return
+     *       current value of 'guestIdMsb'
+     */
+    public long getGuestIdMsb() {
+        return guestIdMsb;
+    }
+
+    /**
+     * Getter accessor for attribute 'guestIdLsb'.
+     *
+     * @return
+     *       current value of 'guestIdLsb'
+     */
+    public long getGuestIdLsb() {
+        return guestIdLsb;
+    }
+
+    /**
+     * Getter accessor for attribute 'confirmationMsb'.
+     *
+     * @return
+     *       current value of 'confirmationMsb'
+     */
+    public long getConfirmationMsb() {
+        return confirmationMsb;
+    }
+
+    /**
+     * Getter accessor for attribute 'confirmationLsb'.
+     *
+     * @return
+     *       current value of 'confirmationLsb'
+     */
+    public long getConfirmationLsb() {
+        return confirmationLsb;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Container for millions of reservations without an object per reservation: records are stored side by side in
+ * a single {@code long[]} ({@link #LONGS_PER_RECORD} longs, 48 bytes each) and indexed by confirmation number
+ * with an open addressing table ({@code int[]}, linear probing). The garbage collector sees two arrays.
+ *
+ * <p>Records can be added or replaced (same confirmation number) but not removed, the store is meant to be
+ * rebuilt. Not thread-safe: confine to a thread or guard externally.
+ *
+ * @author Jeff Carpenter
+ */
+public class CompactReservationStore {
+
+    /** Longs per record: confirmation (2), guest id (2), hotel code and room, start and end days. */
+    public static final int LONGS_PER_RECORD = 6;
+
+    /** Records side by side. */
+    private long[] records;
+
+    /** Open addressing: record index + 1, 0 is an empty slot. */
+    private int[] index;
+
+    /** Number of records. */
+    private int size;
+
+    /**
+     * Create a store for an expected number of records (it grows when needed).
+     *
+     * @param expectedSize
+     *      expected number of records
+     */
+    public CompactReservationStore(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        this.records = new long[capacity * LONGS_PER_RECORD];
+        this.index   = new int[tableSizeFor(capacity * 2)];
+    }
+
+    /**
+     * Add a reservation or replace the reservation with the same confirmation number.
+     *
+     * @param reservation
+     *      reservation with a confirmation number
+     * @return
+     *      position of the record
+     */
+    public int put(CompactReservation reservation) {
+        long msb = reservation.getConfirmationMsb();
+        long lsb = reservation.getConfirmationLsb();
+        if (msb == 0 && lsb == 0) {
+            throw new IllegalArgumentException("Confirmation number is required");
+        }
+        int slot = slot(msb, lsb);
+        int position = index[slot] - 1;
+        if (position < 0) {
+            if (size == records.length / LONGS_PER_RECORD) {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            position = size++;
+            index[slot] = position + 1;
+        }
+        write(position, reservation);
+        if (size * 2 > index.length) {
+            rehash(index.length * 2);
+        }
+        return position;
+    }
+
+    /**
+     * Find a reservation by confirmation number.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     * @return
+     *      reservation or null
+     */
+    public CompactReservation get(UUID confirmationNumber) {
+        int position = index[slot(confirmationNumber.getMostSignificantBits(),
+                                  confirmationNumber.getLeastSignificantBits())] - 1;
+        return position < 0 ? null : get(position);
+    }
+
+    /**
+     * Read a record.
+     *
+     * @param position
+     *      position returned by {@link #put(CompactReservation)}, from 0 to size - 1
+     * @return
+     *      reservation
+     */
+    public CompactReservation get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " for size " + size);
+        }
+        int offset = position * LONGS_PER_RECORD;
+        long hotelAndRoom = records[offset + 4];
+        long dates        = records[offset + 5];
+        return new CompactReservation((int) (hotelAndRoom >>> 32), (int) (dates >>> 32), (int) dates,
+                (short) hotelAndRoom, records[offset + 2], records[offset + 3], records[offset], records[offset + 1]);
+    }
+
+    /**
+     * Number of records.
+     *
+     * @return
+     *      number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap used by the arrays of the store (headers included, compressed oops), allocated capacity included.
+     *
+     * @return
+     *      bytes
+     */
+    public long footprintBytes() {
+        return 16L + 8L * records.length + 16L + 4L * index.length;
+    }
+
+    private void write(int position, CompactReservation reservation) {
+        int offset = position * LONGS_PER_RECORD;
+        records[offset]     = reservation.getConfirmationMsb();
+        records[offset + 1] = reservation.getConfirmationLsb();
+        records[offset + 2] = reservation.getGuestIdMsb();
+        records[offset + 3] = reservation.getGuestIdLsb();
+        records[offset + 4] = ((long) reservation.getHotelCode() << 32) | (reservation.getRoomNumber() & 0xFFFFL);
+        records[offset + 5] = ((long) reservation.getStartEpochDay() << 32) | (reservation.getEndEpochDay() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Slot of a confirmation number: either the slot holding it or the empty slot where it belongs.
+     */
+    private int slot(long msb, long lsb) {
+        int mask = index.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int position = index[slot] - 1;
+            if (position < 0) {
+                return slot;
+            }
+            int offset = position * LONGS_PER_RECORD;
+            if (records[offset] == msb && records[offset + 1] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int newSize) {
+        index = new int[newSize];
+        int mask = newSize - 1;
+        for (int position = 0; position < size; position++) {
+            int offset = position * LONGS_PER_RECORD;
+            int slot = hash(records[offset], records[offset + 1]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = position + 1;
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+    }
+}
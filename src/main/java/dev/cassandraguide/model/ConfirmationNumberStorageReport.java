@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage saved by keeping confirmation numbers as 'uuid' (16 bytes) instead of 'text' (36 bytes).
+ *
+ * <p>Partition counts and sizes are the estimates of 'system.size_estimates' on the coordinator (local token
+ * ranges only). Where 'confirm_number' is the partition key the saving also applies to the partition index,
+ * the index summary and every entry of the key cache (the bloom filter size only depends on the number of keys).
+ *
+ * @author Jeff Carpenter
+ */
+public class ConfirmationNumberStorageReport implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 4913406217417707521L;
+
+    /** Current storage: 'text', 'uuid' or 'migration'. */
+    private String storage;
+
+    /** Size of a confirmation number as 'text'. */
+    private int textValueBytes;
+
+    /** Size of a confirmation number as 'uuid'. */
+    private int uuidValueBytes;
+
+    /** Sum of the savings of all tables. */
+    private long estimatedBytesSaved;
+
+    /** One entry per table. */
+    private List<TableStorage> tables = new ArrayList<>();
+
+    /**
+     * Storage of one table in both schema versions.
+     */
+    public static class TableStorage implements Serializable {
+
+        /** Serial. */
+        private static final long serialVersionUID = -2290826960931051180L;
+
+        /** Name of the table in schema v1. */
+        private String table;
+
+        /** 'confirm_number' is the partition key. */
+        private boolean confirmNumberInKey;
+
+        /** Estimated partitions of schema v1, -1 when the table does not exist. */
+        private long textPartitions = -1;
+
+        /** Mean partition size (bytes) of schema v1, -1 when the table does not exist. */
+        private long textMeanPartitionSize = -1;
+
+        /** Estimated partitions of schema v2, -1 when the table does not exist. */
+        private long uuidPartitions = -1;
+
+        /** Mean partition size (bytes) of schema v2, -1 when the table does not exist. */
+        private long uuidMeanPartitionSize = -1;
+
+        /** Saving on the data files (one value per partition at least). */
+        private long dataBytesSaved;
+
+        /** Saving on the partition index, also the saving per key on the key cache. */
+        private long indexBytesSaved;
+
+        /**
+         * Getter accessor for attribute 'table'.
+         *
+         * @return
+         *       current value of 'table'
+         */
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Setter accessor for attribute 'table'.
+         * @param table
+         *      new value for 'table '
+         */
+        public void setTable(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Getter accessor for attribute 'confirmNumberInKey'.
+         *
+         * @return
+         *       current value of 'confirmNumberInKey'
+         */
+        public boolean isConfirmNumberInKey() {
+            return confirmNumberInKey;
+        }
+
+        /**
+         * Setter accessor for attribute 'confirmNumberInKey'.
+         * @param confirmNumberInKey
+         *      new value for 'confirmNumberInKey '
+         */
+        public void setConfirmNumberInKey(boolean confirmNumberInKey) {
+            this.confirmNumberInKey = confirmNumberInKey;
+        }
+
+        /**
+         * Getter accessor for attribute 'textPartitions'.
+         *
+         * @return
+         *       current value of 'textPartitions'
+         */
+        public long getTextPartitions() {
+            return textPartitions;
+        }
+
+        /**
+         * Setter accessor for attribute 'textPartitions'.
+         * @param textPartitions
+         *      new value for 'textPartitions '
+         */
+        public void setTextPartitions(long textPartitions) {
+            this.textPartitions = textPartitions;
+        }
+
+        /**
+         * Getter accessor for attribute 'textMeanPartitionSize'.
+         *
+         * @return
+         *       current value of 'textMeanPartitionSize'
+         */
+        public long getTextMeanPartitionSize() {
+            return textMeanPartitionSize;
+        }
+
+        /**
+         * Setter accessor for attribute 'textMeanPartitionSize'.
+         * @param textMeanPartitionSize
+         *      new value for 'textMeanPartitionSize '
+         */
+        public void setTextMeanPartitionSize(long textMeanPartitionSize) {
+            this.textMeanPartitionSize = textMeanPartitionSize;
+        }
+
+        /**
+         * Getter accessor for attribute 'uuidPartitions'.
+         *
+         * @return
+         *       current value of 'uuidPartitions'
+         */
+        public long getUuidPartitions() {
+            return uuidPartitions;
+        }
+
+        /**
+         * Setter accessor for attribute 'uuidPartitions'.
+         * @param uuidPartitions
+         *      new value for 'uuidPartitions '
+         */
+        public void setUuidPartitions(long uuidPartitions) {
+            this.uuidPartitions = uuidPartitions;
+        }
+
+        /**
+         * Getter accessor for attribute 'uuidMeanPartitionSize'.
+         *
+         * @return
+         *       current value of 'uuidMeanPartitionSize'
+         */
+        public long getUuidMeanPartitionSize() {
+            return uuidMeanPartitionSize;
+        }
+
+        /**
+         * Setter accessor for attribute 'uuidMeanPartitionSize'.
+         * @param uuidMeanPartitionSize
+         *      new value for 'uuidMeanPartitionSize '
+         */
+        public void setUuidMeanPartitionSize(long uuidMeanPartitionSize) {
+            this.uuidMeanPartitionSize = uuidMeanPartitionSize;
+        }
+
+        /**
+         * Getter accessor for attribute 'dataBytesSaved'.
+         *
+         * @return
+         *       current value of 'dataBytesSaved'
+         */
+        public long getDataBytesSaved() {
+            return dataBytesSaved;
+        }
+
+        /**
+         * Setter accessor for attribute 'dataBytesSaved'.
+         * @param dataBytesSaved
+         *      new value for 'dataBytesSaved '
+         */
+        public void setDataBytesSaved(long dataBytesSaved) {
+            this.dataBytesSaved = dataBytesSaved;
+        }
+
+        /**
+         * Getter accessor for attribute 'indexBytesSaved'.
+         *
+         * @return
+         *       current value of 'indexBytesSaved'
+         */
+        public long getIndexBytesSaved() {
+            return indexBytesSaved;
+        }
+
+        /**
+         * Setter accessor for attribute 'indexBytesSaved'.
+         * @param indexBytesSaved
+         *      new value for 'indexBytesSaved '
+         */
+        public void setIndexBytesSaved(long indexBytesSaved) {
+            this.indexBytesSaved = indexBytesSaved;
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'storage'.
+     *
+     * @return
+     *       current value of 'storage'
+     */
+    public String getStorage() {
+        return storage;
+    }
+
+    /**
+     * Setter accessor for attribute 'storage'.
+     * @param storage
+     *      new value for 'storage '
+     */
+    public void setStorage(String storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Getter accessor for attribute 'textValueBytes'.
+     *
+     * @return
+     *       current value of 'textValueBytes'
+     */
+    public int getTextValueBytes() {
+        return textValueBytes;
+    }
+
+    /**
+     * Setter accessor for attribute 'textValueBytes'.
+     * @param textValueBytes
+     *      new value for 'textValueBytes '
+     */
+    public void setTextValueBytes(int textValueBytes) {
+        this.textValueBytes = textValueBytes;
+    }
+
+    /**
+     * Getter accessor for attribute 'uuidValueBytes'.
+     *
+     * @return
+     *       current value of 'uuidValueBytes'
+     */
+    public int getUuidValueBytes() {
+        return uuidValueBytes;
+    }
+
+    /**
+     * Setter accessor for attribute 'uuidValueBytes'.
+     * @param uuidValueBytes
+     *      new value for 'uuidValueBytes '
+     */
+    public void setUuidValueBytes(int uuidValueBytes) {
+        this.uuidValueBytes = uuidValueBytes;
+    }
+
+    /**
+     * Getter accessor for attribute 'estimatedBytesSaved'.
+     *
+     * @return
+     *       current value of 'estimatedBytesSaved'
+     */
+    public long getEstimatedBytesSaved() {
+        return estimatedBytesSaved;
+    }
+
+    /**
+     * Setter accessor for attribute 'estimatedBytesSaved'.
+     * @param estimatedBytesSaved
+     *      new value for 'estimatedBytesSaved '
+     */
+    public void setEstimatedBytesSaved(long estimatedBytesSaved) {
+        this.estimatedBytesSaved = estimatedBytesSaved;
+    }
+
+    /**
+     * Getter accessor for attribute 'tables'.
+     *
+     * @return
+     *       current value of 'tables'
+     */
+    public List<TableStorage> getTables() {
+        return tables;
+    }
+
+    /**
+     * Setter accessor for attribute 'tables'.
+     * @param tables
+     *      new value for 'tables '
+     */
+    public void setTables(List<TableStorage> tables) {
+        this.tables = tables;
+    }
+}
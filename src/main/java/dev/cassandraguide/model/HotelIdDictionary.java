@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding of hotel identifiers: there are few hotels and many reservations, each hotel id is stored
+ * once and reservations hold its code (an int). Codes are dense (0, 1, 2...) and never reused.
+ *
+ * <p>Encoding is thread-safe, lookups of existing codes are lock-free.
+ *
+ * @author Jeff Carpenter
+ */
+public class HotelIdDictionary {
+
+    /** Code of a missing hotel id. */
+    public static final int NULL_CODE = -1;
+
+    /** Hotel id to code. */
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /** Code to hotel id, replaced when growing (readers see a consistent array). */
+    private volatile String[] hotelIds = new String[16];
+
+    /** Next code to assign, guarded by 'this'. */
+    private int size;
+
+    /**
+     * Code of a hotel id, a new code is assigned on first use.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @return
+     *      code of the hotel id or {@link #NULL_CODE}
+     */
+    public int encode(String hotelId) {
+        if (hotelId == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(hotelId);
+        return code != null ? code : codes.computeIfAbsent(hotelId, this::assign);
+    }
+
+    /**
+     * Code of a hotel id without assigning a new code (lookups of user input must not grow the dictionary).
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @return
+     *      code of the hotel id or {@link #NULL_CODE} if unknown
+     */
+    public int codeOf(String hotelId) {
+        Integer code = hotelId == null ? null : codes.get(hotelId);
+        return code == null ? NULL_CODE : code;
+    }
+
+    /**
+     * Hotel id of a code.
+     *
+     * @param code
+     *      code returned by {@link #encode(String)}
+     * @return
+     *      hotel id, null for {@link #NULL_CODE}
+     */
+    public String decode(int code) {
+        if (code == NULL_CODE) {
+            return null;
+        }
+        String[] current = hotelIds;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IllegalArgumentException("Unknown hotel code " + code);
+        }
+        return current[code];
+    }
+
+    /**
+     * Number of hotel ids in the dictionary.
+     *
+     * @return
+     *      number of codes assigned
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized Integer assign(String hotelId) {
+        String[] current = hotelIds;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        // Interned: the dictionary and the reservations decoded from it share a single instance
+        current[size] = hotelId.intern();
+        hotelIds = current;
+        return size++;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Confirmation numbers of the reservations to retrieve in a single call.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="MultiGetRequest", description="Reservations to retrieve in a single call")
+public class MultiGetRequest implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 3581947320556102218L;
+
+    /** Confirmation numbers, duplicates are ignored. */
+    @ApiModelProperty(value = "Confirmation numbers", example = "[\"b9c5a9d8-9781-4de8-a00a-601a9cd6b366\"]")
+    private List<String> confirmationNumbers = new ArrayList<>();
+
+    /**
+     * Getter accessor for attribute 'confirmationNumbers'.
+     *
+     * @return
+     *       current value of 'confirmationNumbers'
+     */
+    public List<String> getConfirmationNumbers() {
+        return confirmationNumbers;
+    }
+
+    /**
+     * Setter accessor for attribute 'confirmationNumbers'.
+     * @param confirmationNumbers
+     *      new value for 'confirmationNumbers '
+     */
+    public void setConfirmationNumbers(List<String> confirmationNumbers) {
+        this.confirmationNumbers = confirmationNumbers;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Reservations found and confirmation numbers without reservation, in the order of the request.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="MultiGetResult", description="Reservations found and confirmation numbers missing")
+public class MultiGetResult implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = -2470218763450917306L;
+
+    @ApiModelProperty(value = "Reservations found")
+    private List<Reservation> found = new ArrayList<>();
+
+    @ApiModelProperty(value = "Confirmation numbers without reservation")
+    private List<String> missing = new ArrayList<>();
+
+    /**
+     * Default constructor
+     */
+    public MultiGetResult() {
+    }
+
+    /**
+     * Full constructor
+     */
+    public MultiGetResult(List<Reservation> found, List<String> missing) {
+        this.found   = found;
+        this.missing = missing;
+    }
+
+    /**
+     * Getter accessor for attribute 'found'.
+     *
+     * @return
+     *       current value of 'found'
+     */
+    public List<Reservation> getFound() {
+        return found;
+    }
+
+    /**
+     * Setter accessor for attribute 'found'.
+     * @param found
+     *      new value for 'found '
+     */
+    public void setFound(List<Reservation> found) {
+        this.found = found;
+    }
+
+    /**
+     * Getter accessor for attribute 'missing'.
+     *
+     * @return
+     *       current value of 'missing'
+     */
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    /**
+     * Setter accessor for attribute 'missing'.
+     * @param missing
+     *      new value for 'missing '
+     */
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
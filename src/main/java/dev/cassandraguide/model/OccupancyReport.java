@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Occupancy of a hotel over a period (a month or a quarter), computed from the rollup of reservations per night.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="OccupancyReport", description="Reservations in house per night over a period")
+public class OccupancyReport implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 4187592663082254711L;
+
+    @ApiModelProperty(value = "Hotel identifier")
+    private String hotelId;
+
+    @ApiModelProperty(value = "First night of the period")
+    private LocalDate from;
+
+    @ApiModelProperty(value = "Last night of the period (included)")
+    private LocalDate to;
+
+    @ApiModelProperty(value = "Reservations in house for each night of the period")
+    private Map<LocalDate, Long> reservationsPerNight = new LinkedHashMap<>();
+
+    @ApiModelProperty(value = "Sum of reservations over the nights of the period")
+    private long roomNights;
+
+    @ApiModelProperty(value = "Average reservations per night")
+    private double averagePerNight;
+
+    @ApiModelProperty(value = "Night with the most reservations, null without reservation")
+    private LocalDate peakNight;
+
+    @ApiModelProperty(value = "Reservations of the peak night")
+    private long peakReservations;
+
+    @ApiModelProperty(value = "Rooms of the hotel when provided")
+    private Integer rooms;
+
+    @ApiModelProperty(value = "Room nights divided by available room nights, when rooms are provided")
+    private Double occupancyRate;
+
+    /**
+     * Default constructor
+     */
+    public OccupancyReport() {
+    }
+
+    /**
+     * Compute the statistics of a period.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first night
+     * @param to
+     *      last night (included)
+     * @param reservationsPerNight
+     *      reservations per night, every night of the period in chronological order
+     * @param rooms
+     *      rooms of the hotel, may be null
+     */
+    public OccupancyReport(String hotelId, LocalDate from, LocalDate to,
+            Map<LocalDate, Long> reservationsPerNight, Integer rooms) {
+        this.hotelId              = hotelId;
+        this.from                 = from;
+        this.to                   = to;
+        this.reservationsPerNight = reservationsPerNight;
+        this.rooms                = rooms;
+        reservationsPerNight.forEach((night, reservations) -> {
+            roomNights += reservations;
+            if (reservations > peakReservations) {
+                peakReservations = reservations;
+                peakNight        = night;
+            }
+        });
+        if (!reservationsPerNight.isEmpty()) {
+            averagePerNight = (double) roomNights / reservationsPerNight.size();
+        }
+        if (rooms != null && rooms > 0 && !reservationsPerNight.isEmpty()) {
+            occupancyRate = (double) roomNights / ((long) rooms * reservationsPerNight.size());
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'hotelId'.
+     *
+     * @return
+     *       current value of 'hotelId'
+     */
+    public String getHotelId() {
+        return hotelId;
+    }
+
+    /**
+     * Setter accessor for attribute 'hotelId'.
+     * @param hotelId
+     *      new value for 'hotelId '
+     */
+    public void setHotelId(String hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    /**
+     * Getter accessor for attribute 'from'.
+     *
+     * @return
+     *       current value of 'from'
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Setter accessor for attribute 'from'.
+     * @param from
+     *      new value for 'from '
+     */
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Getter accessor for attribute 'to'.
+     *
+     * @return
+     *       current value of 'to'
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Setter accessor for attribute 'to'.
+     * @param to
+     *      new value for 'to '
+     */
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    /**
+     * Getter accessor for attribute 'reservationsPerNight'.
+     *
+     * @return
+     *       current value of 'reservationsPerNight'
+     */
+    public Map<LocalDate, Long> getReservationsPerNight() {
+        return reservationsPerNight;
+    }
+
+    /**
+     * Setter accessor for attribute 'reservationsPerNight'.
+     * @param reservationsPerNight
+     *      new value for 'reservationsPerNight '
+     */
+    public void setReservationsPerNight(Map<LocalDate, Long> reservationsPerNight) {
+        this.reservationsPerNight = reservationsPerNight;
+    }
+
+    /**
+     * Getter accessor for attribute 'roomNights'.
+     *
+     * @return
+     *       current value of 'roomNights'
+     */
+    public long getRoomNights() {
+        return roomNights;
+    }
+
+    /**
+     * Setter accessor for attribute 'roomNights'.
+     * @param roomNights
+     *      new value for 'roomNights '
+     */
+    public void setRoomNights(long roomNights) {
+        this.roomNights = roomNights;
+    }
+
+    /**
+     * Getter accessor for attribute 'averagePerNight'.
+     *
+     * @return
+     *       current value of 'averagePerNight'
+     */
+    public double getAveragePerNight() {
+        return averagePerNight;
+    }
+
+    /**
+     * Setter accessor for attribute 'averagePerNight'.
+     * @param averagePerNight
+     *      new value for 'averagePerNight '
+     */
+    public void setAveragePerNight(double averagePerNight) {
+        this.averagePerNight = averagePerNight;
+    }
+
+    /**
+     * Getter accessor for attribute 'peakNight'.
+     *
+     * @return
+     *       current value of 'peakNight'
+     */
+    public LocalDate getPeakNight() {
+        return peakNight;
+    }
+
+    /**
+     * Setter accessor for attribute 'peakNight'.
+     * @param peakNight
+     *      new value for 'peakNight '
+     */
+    public void setPeakNight(LocalDate peakNight) {
+        this.peakNight = peakNight;
+    }
+
+    /**
+     * Getter accessor for attribute 'peakReservations'.
+     *
+     * @return
+     *       current value of 'peakReservations'
+     */
+    public long getPeakReservations() {
+        return peakReservations;
+    }
+
+    /**
+     * Setter accessor for attribute 'peakReservations'.
+     * @param peakReservations
+     *      new value for 'peakReservations '
+     */
+    public void setPeakReservations(long peakReservations) {
+        this.peakReservations = peakReservations;
+    }
+
+    /**
+     * Getter accessor for attribute 'rooms'.
+     *
+     * @return
+     *       current value of 'rooms'
+     */
+    public Integer getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Setter accessor for attribute 'rooms'.
+     * @param rooms
+     *      new value for 'rooms '
+     */
+    public void setRooms(Integer rooms) {
+        this.rooms = rooms;
+    }
+
+    /**
+     * Getter accessor for attribute 'occupancyRate'.
+     *
+     * @return
+     *       current value of 'occupancyRate'
+     */
+    public Double getOccupancyRate() {
+        return occupancyRate;
+    }
+
+    /**
+     * Setter accessor for attribute 'occupancyRate'.
+     * @param occupancyRate
+     *      new value for 'occupancyRate '
+     */
+    public void setOccupancyRate(Double occupancyRate) {
+        this.occupancyRate = occupancyRate;
+    }
+}
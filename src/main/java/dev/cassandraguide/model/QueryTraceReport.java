@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Cassandra trace of a statement executed while serving a request sent with 'X-Trace-Cassandra'.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="QueryTraceReport", description="Cassandra query trace of a statement")
+public class QueryTraceReport implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 2894503166273081467L;
+
+    @ApiModelProperty(value = "Tracing session identifier (system_traces.sessions)")
+    private String tracingId;
+
+    @ApiModelProperty(value = "Coordinator of the request")
+    private String coordinator;
+
+    @ApiModelProperty(value = "Type of request, for instance 'Execute CQL3 prepared query'")
+    private String requestType;
+
+    @ApiModelProperty(value = "Duration of the request on the coordinator")
+    private int durationMicros;
+
+    @ApiModelProperty(value = "Start of the request, epoch milliseconds")
+    private long startedAt;
+
+    @ApiModelProperty(value = "Query, consistency level, page size (bound values are removed)")
+    private Map<String, String> parameters = new LinkedHashMap<>();
+
+    @ApiModelProperty(value = "Trace events in chronological order")
+    private List<Event> events = new ArrayList<>();
+
+    /**
+     * An event of the trace.
+     */
+    @ApiModel(value="QueryTraceEvent", description="Event of a Cassandra query trace")
+    public static class Event implements Serializable {
+
+        /** Serial. */
+        private static final long serialVersionUID = -7061952294418733850L;
+
+        @ApiModelProperty(value = "What the node was doing")
+        private String activity;
+
+        @ApiModelProperty(value = "Node that recorded the event")
+        private String source;
+
+        @ApiModelProperty(value = "Microseconds elapsed on the source node since the start of the request")
+        private int sourceElapsedMicros;
+
+        @ApiModelProperty(value = "Thread that recorded the event")
+        private String thread;
+
+        /**
+         * Getter accessor for attribute 'activity'.
+         *
+         * @return
+         *       current value of 'activity'
+         */
+        public String getActivity() {
+            return activity;
+        }
+
+        /**
+         * Setter accessor for attribute 'activity'.
+         * @param activity
+         *      new value for 'activity '
+         */
+        public void setActivity(String activity) {
+            this.activity = activity;
+        }
+
+        /**
+         * Getter accessor for attribute 'source'.
+         *
+         * @return
+         *       current value of 'source'
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Setter accessor for attribute 'source'.
+         * @param source
+         *      new value for 'source '
+         */
+        public void setSource(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Getter accessor for attribute 'sourceElapsedMicros'.
+         *
+         * @return
+         *       current value of 'sourceElapsedMicros'
+         */
+        public int getSourceElapsedMicros() {
+            return sourceElapsedMicros;
+        }
+
+        /**
+         * Setter accessor for attribute 'sourceElapsedMicros'.
+         * @param sourceElapsedMicros
+         *      new value for 'sourceElapsedMicros '
+         */
+        public void setSourceElapsedMicros(int sourceElapsedMicros) {
+            this.sourceElapsedMicros = sourceElapsedMicros;
+        }
+
+        /**
+         * Getter accessor for attribute 'thread'.
+         *
+         * @return
+         *       current value of 'thread'
+         */
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * Setter accessor for attribute 'thread'.
+         * @param thread
+         *      new value for 'thread '
+         */
+        public void setThread(String thread) {
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'tracingId'.
+     *
+     * @return
+     *       current value of 'tracingId'
+     */
+    public String getTracingId() {
+        return tracingId;
+    }
+
+    /**
+     * Setter accessor for attribute 'tracingId'.
+     * @param tracingId
+     *      new value for 'tracingId '
+     */
+    public void setTracingId(String tracingId) {
+        this.tracingId = tracingId;
+    }
+
+    /**
+     * Getter accessor for attribute 'coordinator'.
+     *
+     * @return
+     *       current value of 'coordinator'
+     */
+    public String getCoordinator() {
+        return coordinator;
+    }
+
+    /**
+     * Setter accessor for attribute 'coordinator'.
+     * @param coordinator
+     *      new value for 'coordinator '
+     */
+    public void setCoordinator(String coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Getter accessor for attribute 'requestType'.
+     *
+     * @return
+     *       current value of 'requestType'
+     */
+    public String getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * Setter accessor for attribute 'requestType'.
+     * @param requestType
+     *      new value for 'requestType '
+     */
+    public void setRequestType(String requestType) {
+        this.requestType = requestType;
+    }
+
+    /**
+     * Getter accessor for attribute 'durationMicros'.
+     *
+     * @return
+     *       current value of 'durationMicros'
+     */
+    public int getDurationMicros() {
+        return durationMicros;
+    }
+
+    /**
+     * Setter accessor for attribute 'durationMicros'.
+     * @param durationMicros
+     *      new value for 'durationMicros '
+     */
+    public void setDurationMicros(int durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    /**
+     * Getter accessor for attribute 'startedAt'.
+     *
+     * @return
+     *       current value of 'startedAt'
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Setter accessor for attribute 'startedAt'.
+     * @param startedAt
+     *      new value for 'startedAt '
+     */
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Getter accessor for attribute 'parameters'.
+     *
+     * @return
+     *       current value of 'parameters'
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Setter accessor for attribute 'parameters'.
+     * @param parameters
+     *      new value for 'parameters '
+     */
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Getter accessor for attribute 'events'.
+     *
+     * @return
+     *       current value of 'events'
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * Setter accessor for attribute 'events'.
+     * @param events
+     *      new value for 'events '
+     */
+    public void setEvents(List<Event> events) {
+        this.events = events;
+    }
+}
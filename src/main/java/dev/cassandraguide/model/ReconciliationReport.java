@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Result of a reconciliation of 'reservations_by_hotel_date' against 'reservations_by_confirmation': rows of
+ * 'reservations_by_hotel_date' whose reservation does not exist anymore, or has moved to another hotel, date or
+ * room, are orphans.
+ *
+ * @author Jeff Carpenter
+ */
+@ApiModel(value="ReconciliationReport", description="Orphan rows found (and deleted) by a reconciliation")
+public class ReconciliationReport implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = -2583167412305969718L;
+
+    @ApiModelProperty(value = "Name of the job")
+    private String job;
+
+    @ApiModelProperty(value = "Orphans are reported, not deleted")
+    private boolean dryRun;
+
+    @ApiModelProperty(value = "Progress of the scan")
+    private BackfillProgress progress;
+
+    @ApiModelProperty(value = "Rows checked against 'reservations_by_confirmation' by the current or last run")
+    private long rowsChecked;
+
+    @ApiModelProperty(value = "Rows written within the grace period, not checked (writes may be in flight)")
+    private long skippedRecent;
+
+    @ApiModelProperty(value = "Rows without a matching reservation")
+    private long orphansFound;
+
+    @ApiModelProperty(value = "Orphan rows deleted, 0 in a dry run")
+    private long orphansDeleted;
+
+    @ApiModelProperty(value = "First orphans found: hotel, start date, room, confirmation number and reason")
+    private List<String> orphans = new ArrayList<>();
+
+    /**
+     * Default constructor
+     */
+    public ReconciliationReport() {
+    }
+
+    /**
+     * Getter accessor for attribute 'job'.
+     *
+     * @return
+     *       current value of 'job'
+     */
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * Setter accessor for attribute 'job'.
+     * @param job
+     *      new value for 'job '
+     */
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    /**
+     * Getter accessor for attribute 'dryRun'.
+     *
+     * @return
+     *       current value of 'dryRun'
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Setter accessor for attribute 'dryRun'.
+     * @param dryRun
+     *      new value for 'dryRun '
+     */
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Getter accessor for attribute 'progress'.
+     *
+     * @return
+     *       current value of 'progress'
+     */
+    public BackfillProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Setter accessor for attribute 'progress'.
+     * @param progress
+     *      new value for 'progress '
+     */
+    public void setProgress(BackfillProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Getter accessor for attribute 'rowsChecked'.
+     *
+     * @return
+     *       current value of 'rowsChecked'
+     */
+    public long getRowsChecked() {
+        return rowsChecked;
+    }
+
+    /**
+     * Setter accessor for attribute 'rowsChecked'.
+     * @param rowsChecked
+     *      new value for 'rowsChecked '
+     */
+    public void setRowsChecked(long rowsChecked) {
+        this.rowsChecked = rowsChecked;
+    }
+
+    /**
+     * Getter accessor for attribute 'skippedRecent'.
+     *
+     * @return
+     *       current value of 'skippedRecent'
+     */
+    public long getSkippedRecent() {
+        return skippedRecent;
+    }
+
+    /**
+     * Setter accessor for attribute 'skippedRecent'.
+     * @param skippedRecent
+     *      new value for 'skippedRecent '
+     */
+    public void setSkippedRecent(long skippedRecent) {
+        this.skippedRecent = skippedRecent;
+    }
+
+    /**
+     * Getter accessor for attribute 'orphansFound'.
+     *
+     * @return
+     *       current value of 'orphansFound'
+     */
+    public long getOrphansFound() {
+        return orphansFound;
+    }
+
+    /**
+     * Setter accessor for attribute 'orphansFound'.
+     * @param orphansFound
+     *      new value for 'orphansFound '
+     */
+    public void setOrphansFound(long orphansFound) {
+        this.orphansFound = orphansFound;
+    }
+
+    /**
+     * Getter accessor for attribute 'orphansDeleted'.
+     *
+     * @return
+     *       current value of 'orphansDeleted'
+     */
+    public long getOrphansDeleted() {
+        return orphansDeleted;
+    }
+
+    /**
+     * Setter accessor for attribute 'orphansDeleted'.
+     * @param orphansDeleted
+     *      new value for 'orphansDeleted '
+     */
+    public void setOrphansDeleted(long orphansDeleted) {
+        this.orphansDeleted = orphansDeleted;
+    }
+
+    /**
+     * Getter accessor for attribute 'orphans'.
+     *
+     * @return
+     *       current value of 'orphans'
+     */
+    public List<String> getOrphans() {
+        return orphans;
+    }
+
+    /**
+     * Setter accessor for attribute 'orphans'.
+     * @param orphans
+     *      new value for 'orphans '
+     */
+    public void setOrphans(List<String> orphans) {
+        this.orphans = orphans;
+    }
+}
@@ -71,6 +71,21 @@ public class Reservation implements Serializable {
         this(form);
         this.confirmationNumber = confirmationNumber;
     }
+    
+    /**
+     * Copy constructor.
+     *
+     * @param other
+     *      reservation to copy
+     */
+    public Reservation(Reservation other) {
+        this.hotelId            = other.hotelId;
+        this.startDate          = other.startDate;
+        this.endDate            = other.endDate;
+        this.roomNumber         = other.roomNumber;
+        this.guestId            = other.guestId;
+        this.confirmationNumber = other.confirmationNumber;
+    }
 
     /**
      * Getter accessor for attribute 'hotelId'.
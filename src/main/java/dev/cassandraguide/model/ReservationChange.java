@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.io.Serializable;
+
+/**
+ * A reservation has been created, updated or deleted by this instance of the service.
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationChange implements Serializable {
+
+    /** Serial. */
+    private static final long serialVersionUID = 6094713384417310284L;
+
+    /** Kind of change. */
+    public enum Type { UPSERT, DELETE }
+
+    /** Position in the change stream, resume with the next one. */
+    private long sequence;
+
+    /** Kind of change. */
+    private Type type;
+
+    /** Time of the change (epoch milliseconds). */
+    private long timestamp;
+
+    /** Reservation after the change (before for a delete). */
+    private Reservation reservation;
+
+    /**
+     * Default constructor
+     */
+    public ReservationChange() {
+    }
+
+    /**
+     * Full constructor
+     */
+    public ReservationChange(long sequence, Type type, long timestamp, Reservation reservation) {
+        this.sequence    = sequence;
+        this.type        = type;
+        this.timestamp   = timestamp;
+        this.reservation = reservation;
+    }
+
+    /**
+     * Getter accessor for attribute 'sequence'.
+     *
+     * @return
+     *       current value of 'sequence'
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Setter accessor for attribute 'sequence'.
+     * @param sequence
+     *      new value for 'sequence '
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Getter accessor for attribute 'type'.
+     *
+     * @return
+     *       current value of 'type'
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Setter accessor for attribute 'type'.
+     * @param type
+     *      new value for 'type '
+     */
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Getter accessor for attribute 'timestamp'.
+     *
+     * @return
+     *       current value of 'timestamp'
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Setter accessor for attribute 'timestamp'.
+     * @param timestamp
+     *      new value for 'timestamp '
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Getter accessor for attribute 'reservation'.
+     *
+     * @return
+     *       current value of 'reservation'
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * Setter accessor for attribute 'reservation'.
+     * @param reservation
+     *      new value for 'reservation '
+     */
+    public void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * JSON merge patch (RFC 7396) of a reservation: a member sets an attribute, a null member removes it and an absent
+ * member leaves it unchanged. The confirmation number cannot change, neither can the hotel, the start date nor the
+ * room be removed (they key the tables).
+ *
+ * @author Jeff Carpenter
+ */
+public final class ReservationPatch {
+
+    /** Content type of merge patches. */
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private ReservationPatch() {
+    }
+
+    /**
+     * Apply a merge patch.
+     *
+     * @param reservation
+     *      stored version, not modified
+     * @param patch
+     *      JSON object
+     * @return
+     *      patched copy
+     * @throws IllegalArgumentException
+     *      when the patch is not an object, has an unknown member or an invalid value
+     */
+    public static Reservation apply(Reservation reservation, JsonNode patch) {
+        Objects.requireNonNull(reservation);
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Merge patch must be a JSON object");
+        }
+        Reservation patched = new Reservation(reservation);
+        Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+            JsonNode value = member.getValue();
+            switch (member.getKey()) {
+                case "hotelId":
+                    patched.setHotelId(required(member.getKey(), value).asText());
+                    break;
+                case "startDate":
+                    patched.setStartDate(date(member.getKey(), required(member.getKey(), value)));
+                    break;
+                case "endDate":
+                    patched.setEndDate(value.isNull() ? null : date(member.getKey(), value));
+                    break;
+                case "roomNumber":
+                    JsonNode room = required(member.getKey(), value);
+                    if (!room.canConvertToInt() || !room.isIntegralNumber()
+                            || room.asInt() < Short.MIN_VALUE || room.asInt() > Short.MAX_VALUE) {
+                        throw new IllegalArgumentException("'roomNumber' must be a short integer");
+                    }
+                    patched.setRoomNumber((short) room.asInt());
+                    break;
+                case "guestId":
+                    patched.setGuestId(value.isNull() ? null : uuid(member.getKey(), value));
+                    break;
+                case "confirmationNumber":
+                    if (!value.isTextual() || !value.asText().equals(reservation.getConfirmationNumber())) {
+                        throw new IllegalArgumentException("'confirmationNumber' cannot be changed");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown attribute '" + member.getKey() + "'");
+            }
+        }
+        return patched;
+    }
+
+    private static JsonNode required(String name, JsonNode value) {
+        if (value.isNull()) {
+            throw new IllegalArgumentException("'" + name + "' cannot be removed");
+        }
+        if (value.isContainerNode()) {
+            throw new IllegalArgumentException("'" + name + "' must be a single value");
+        }
+        return value;
+    }
+
+    private static LocalDate date(String name, JsonNode value) {
+        try {
+            return LocalDate.parse(value.asText());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + name + "' must be formatted as YYYY-MM-DD");
+        }
+    }
+
+    private static UUID uuid(String name, JsonNode value) {
+        try {
+            return UUID.fromString(value.asText());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("'" + name + "' must be a UUID");
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Gradient based concurrency limiter guarding in-flight calls to Cassandra.
+ * 
+ * <p>The limit follows the ratio between a long term (smoothed) round trip time and the latest sample:
+ * when Cassandra slows down (compaction, GC) the samples grow, the gradient drops below 1 and the limit
+ * shrinks; when latencies recover the limit grows again by a queue allowance of sqrt(limit).
+ * <p>Acquiring a permit is lock-free. Calls over the limit are rejected immediately so that the caller
+ * can shed the request instead of queuing it into the driver until it times out.
+ * <p>Completing a call is lock-free as well: samples are added to the current sampling window, and the limit is
+ * recomputed from the average RTT once per window by the thread that closes it. Dropped calls shrink the limit
+ * right away with a compare-and-set.
+ *
+ * @author Jeff Carpenter
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Name of the limiter (read, write) used in logs and metrics. */
+    private final String name;
+    
+    /** Bounds for the limit. */
+    private final int minLimit;
+    private final int maxLimit;
+    
+    /** How much the short RTT may exceed the long RTT before the limit is reduced. */
+    private final double rttTolerance;
+    
+    /** Weight of a new estimation when updating the limit. */
+    private final double smoothing;
+    
+    /** Disabled limiters only count in-flight calls. */
+    private final boolean enabled;
+    
+    /** Delay suggested to rejected clients. */
+    private final int retryAfterSeconds;
+    
+    /** Current estimation (bits of a double), read without locking on the hot path. */
+    private final AtomicLong estimatedLimit;
+    
+    /** Default duration of a sampling window. */
+    private static final long DEFAULT_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    /** Samples of the current window, the limit is recomputed when it closes. */
+    private final long windowNanos;
+    private final AtomicLong windowStartNanos;
+    private final LongAdder windowRttNanos   = new LongAdder();
+    private final LongAdder windowSamples    = new LongAdder();
+    private final AtomicInteger windowInflight = new AtomicInteger();
+    
+    /** Exponentially weighted long term RTT (nanos), updated by the thread closing a window. */
+    private volatile double longRttNanos;
+    private volatile long   longRttSamples;
+    private static final int LONG_WINDOW = 100;
+    
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong    rejected = new AtomicLong();
+    
+    /**
+     * Initialization of the limiter.
+     *
+     * @param name
+     *      limiter name
+     * @param initialLimit
+     *      limit before any sample has been taken
+     * @param minLimit
+     *      the limit never goes below this value
+     * @param maxLimit
+     *      the limit never goes above this value
+     * @param rttTolerance
+     *      tolerated ratio between latest and long term RTT
+     * @param smoothing
+     *      weight of a new estimation (0..1)
+     * @param enabled
+     *      when false permits are always granted
+     * @param retryAfterSeconds
+     *      delay suggested to rejected clients
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            double rttTolerance, double smoothing, boolean enabled, int retryAfterSeconds) {
+        this(name, initialLimit, minLimit, maxLimit, rttTolerance, smoothing, enabled, retryAfterSeconds,
+                DEFAULT_WINDOW_NANOS);
+    }
+    
+    /**
+     * Initialization of the limiter with a given sampling window.
+     *
+     * @param windowNanos
+     *      minimum duration of a sampling window, 0 to update the limit on every sample
+     * @see #AdaptiveConcurrencyLimiter(String, int, int, int, double, double, boolean, int)
+     */
+    AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            double rttTolerance, double smoothing, boolean enabled, int retryAfterSeconds, long windowNanos) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits for '" + name + "' expecting 1 <= min <= initial <= max");
+        }
+        this.name           = name;
+        this.minLimit       = minLimit;
+        this.maxLimit       = maxLimit;
+        this.rttTolerance   = rttTolerance;
+        this.smoothing      = smoothing;
+        this.enabled        = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.estimatedLimit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.windowNanos    = windowNanos;
+        this.windowStartNanos = new AtomicLong(System.nanoTime());
+    }
+    
+    /**
+     * Try to obtain a permit for a new in-flight call.
+     *
+     * @return
+     *      a permit to be completed when the call ends
+     * @throws LoadSheddingException
+     *      when the limit has been reached
+     */
+    public Permit acquire() {
+        for (;;) {
+            int current = inflight.get();
+            if (enabled && current >= getLimit()) {
+                rejected.incrementAndGet();
+                throw new LoadSheddingException(name, current, retryAfterSeconds);
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+    
+    /**
+     * Add a sample to the current window, the thread closing the window updates the limit.
+     */
+    private void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+        if (dropped) {
+            // Timeouts and overloaded errors are the strongest signal, back off right away.
+            updateLimit(limit -> Math.max(minLimit, limit * 0.9));
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        windowInflight.accumulateAndGet(inflightAtStart, Math::max);
+        long now   = System.nanoTime();
+        long start = windowStartNanos.get();
+        if (now - start >= windowNanos && windowStartNanos.compareAndSet(start, now)) {
+            long samples = windowSamples.sumThenReset();
+            long rtt     = windowRttNanos.sumThenReset();
+            int inflight = windowInflight.getAndSet(0);
+            if (samples > 0) {
+                onWindow((double) rtt / samples, inflight);
+            }
+        }
+    }
+    
+    /**
+     * Update the limit from the average RTT of a window, a single thread at a time.
+     */
+    private void onWindow(double rttNanos, int maxInflight) {
+        // Long term RTT, exponentially weighted after the warmup windows
+        double longRtt = longRttNanos;
+        if (longRttSamples < LONG_WINDOW) {
+            longRttSamples++;
+            longRtt += (rttNanos - longRtt) / longRttSamples;
+        } else {
+            longRtt += (rttNanos - longRtt) * 2.0 / (LONG_WINDOW + 1);
+        }
+        // Let the long term RTT drift down faster when latency has recovered
+        if (longRtt / rttNanos > 2.0) {
+            longRtt *= 0.95;
+        }
+        longRttNanos = longRtt;
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / rttNanos));
+        updateLimit(limit -> {
+            // The service is application limited, nothing can be learned from the window
+            if (maxInflight < limit / 2) {
+                return limit;
+            }
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+            return Math.max(minLimit, Math.min(maxLimit, newLimit));
+        });
+    }
+    
+    private void updateLimit(DoubleUnaryOperator update) {
+        estimatedLimit.updateAndGet(bits -> 
+            Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+    
+    /**
+     * Getter accessor for attribute 'name'.
+     *
+     * @return
+     *       current value of 'name'
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Current limit.
+     *
+     * @return
+     *      current limit
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(estimatedLimit.get());
+    }
+    
+    /**
+     * Calls in progress.
+     *
+     * @return
+     *      number of in-flight calls
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+    
+    /**
+     * Calls rejected since startup.
+     *
+     * @return
+     *      number of rejected calls
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    /**
+     * A granted slot, must be completed exactly once.
+     */
+    public final class Permit {
+        
+        private final long startNanos;
+        private final int  inflightAtStart;
+        
+        private Permit(long startNanos, int inflightAtStart) {
+            this.startNanos      = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+        
+        /** Call completed, latency is used as a sample. */
+        public void success() {
+            inflight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inflightAtStart, false);
+        }
+        
+        /** Call timed out or the coordinator was overloaded. */
+        public void dropped() {
+            inflight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inflightAtStart, true);
+        }
+        
+        /** Call failed for a reason unrelated to load, no sample is taken. */
+        public void ignore() {
+            inflight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.deleteFrom;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+import static com.datastax.oss.driver.api.querybuilder.relation.Relation.column;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_BACKFILL_CHECKPOINTS;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+
+/**
+ * Progress of background jobs in 'backfill_checkpoints', one partition per job and one row per token range: a
+ * restarted job resumes each range after the last token it processed.
+ *
+ * @author Jeff Carpenter
+ */
+final class BackfillCheckpoints {
+
+    // Columns of 'backfill_checkpoints'
+    static final CqlIdentifier JOB         = CqlIdentifier.fromCql("job");
+    static final CqlIdentifier RANGE_START = CqlIdentifier.fromCql("range_start");
+    static final CqlIdentifier RANGE_END   = CqlIdentifier.fromCql("range_end");
+    static final CqlIdentifier POSITION    = CqlIdentifier.fromCql("position");
+    static final CqlIdentifier ROWS        = CqlIdentifier.fromCql("rows");
+    static final CqlIdentifier COMPLETED   = CqlIdentifier.fromCql("completed");
+    static final CqlIdentifier UPDATED_AT  = CqlIdentifier.fromCql("updated_at");
+
+    /**
+     * Progress of a token range.
+     */
+    static final class Range {
+
+        final long start;
+        final long end;
+        volatile long position;
+        volatile long rows;
+        volatile boolean completed;
+
+        Range(long start, long end, long position, long rows, boolean completed) {
+            this.start     = start;
+            this.end       = end;
+            this.position  = position;
+            this.rows      = rows;
+            this.completed = completed;
+        }
+
+        double fraction() {
+            return completed ? 1 : TokenRangeScanner.fraction(start, end, position);
+        }
+    }
+
+    private final CqlSession cqlSession;
+    private final PreparedStatement psSave;
+    private final PreparedStatement psLoad;
+    private final PreparedStatement psClear;
+
+    /**
+     * Prepare the statements.
+     *
+     * @param cqlSession
+     *      session
+     * @param keyspaceName
+     *      keyspace of the table
+     * @param preparer
+     *      prepare a statement
+     */
+    BackfillCheckpoints(CqlSession cqlSession, CqlIdentifier keyspaceName,
+            Function<SimpleStatement, CompletableFuture<PreparedStatement>> preparer) {
+        this.cqlSession = cqlSession;
+        CompletableFuture<PreparedStatement> save = preparer.apply(
+                insertInto(keyspaceName, TABLE_BACKFILL_CHECKPOINTS)
+                .value(JOB, bindMarker(JOB))
+                .value(RANGE_START, bindMarker(RANGE_START))
+                .value(RANGE_END, bindMarker(RANGE_END))
+                .value(POSITION, bindMarker(POSITION))
+                .value(ROWS, bindMarker(ROWS))
+                .value(COMPLETED, bindMarker(COMPLETED))
+                .value(UPDATED_AT, bindMarker(UPDATED_AT))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> load = preparer.apply(
+                selectFrom(keyspaceName, TABLE_BACKFILL_CHECKPOINTS).all()
+                .where(column(JOB).isEqualTo(bindMarker(JOB)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> clear = preparer.apply(
+                deleteFrom(keyspaceName, TABLE_BACKFILL_CHECKPOINTS)
+                .where(column(JOB).isEqualTo(bindMarker(JOB)))
+                .build().setIdempotent(true));
+        psSave  = save.join();
+        psLoad  = load.join();
+        psClear = clear.join();
+    }
+
+    /**
+     * Ranges of a job, as saved or new ones when the job has never run (or has been split differently).
+     *
+     * @param job
+     *      name of the job
+     * @param splits
+     *      number of ranges of a new job
+     * @return
+     *      ranges in token order
+     */
+    List<Range> load(String job, int splits) {
+        List<Range> ranges = new ArrayList<>();
+        for (Row row : cqlSession.execute(psLoad.bind(job))) {
+            ranges.add(new Range(row.getLong(RANGE_START), row.getLong(RANGE_END), row.getLong(POSITION),
+                    row.getLong(ROWS), row.getBoolean(COMPLETED)));
+        }
+        if (ranges.isEmpty()) {
+            for (long[] split : TokenRangeScanner.splits(splits)) {
+                ranges.add(new Range(split[0], split[1], split[0], 0, false));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Save the progress of a range.
+     *
+     * @param job
+     *      name of the job
+     * @param range
+     *      range
+     */
+    void save(String job, Range range) {
+        cqlSession.execute(psSave.bind(job, range.start, range.end, range.position, range.rows, range.completed,
+                Instant.now()));
+    }
+
+    /**
+     * Forget the progress of a job, its next run starts over.
+     *
+     * @param job
+     *      name of the job
+     */
+    void clear(String job) {
+        cqlSession.execute(psClear.bind(job));
+    }
+}
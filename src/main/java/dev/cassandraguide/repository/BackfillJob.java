@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.BackfillProgress.Status;
+
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+
+/**
+ * Background job reading every row of a table by token range and handing each row to a writer (backfill of a new
+ * query table, rebuild of a derived structure).
+ *
+ * <p>The ring is split into ranges scanned by 'concurrency' threads, a page at a time. Reads are throttled to
+ * 'rowsPerSecond' for the whole job so that foreground requests keep their latency, and the writes of a page
+ * complete before the next page is read. The position of a range is saved in 'backfill_checkpoints' after each
+ * page: a job stopped, failed or interrupted by a restart resumes where it stopped. Rows of the last partition of
+ * a page may be read twice, writers must be idempotent.
+ *
+ * @author Jeff Carpenter
+ */
+public class BackfillJob {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(BackfillJob.class);
+
+    private final String name;
+    private final String description;
+    private final TokenRangeScanner scanner;
+    private final BackfillCheckpoints checkpoints;
+    private final Function<Row, CompletionStage<?>> writer;
+    private final int splits;
+    private final int concurrency;
+    private final int pageSize;
+    private final double rowsPerSecond;
+    private final String executionProfile;
+
+    /** Called when a run starts, to reset the state of the writer. */
+    private volatile Runnable onStart;
+
+    /** Ranges of the ring with their progress, replaced when the job is restarted from scratch. */
+    private volatile List<BackfillCheckpoints.Range> ranges;
+
+    private volatile Status status;
+    private volatile String lastError;
+    private volatile boolean running;
+    private ExecutorService workers;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    /** Current or last run: start, fraction scanned before, rows. */
+    private volatile Instant startedAt;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile double startFraction;
+    private final LongAdder rowsRead    = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+
+    /** Throttle: time at which the next rows may be read. */
+    private final AtomicLong nextReadNanos = new AtomicLong();
+
+    /**
+     * Load the progress of the job, nothing runs until {@link #start(boolean)}.
+     *
+     * @param name
+     *      name of the job, key of its checkpoints
+     * @param description
+     *      what the job writes
+     * @param scanner
+     *      scan of the source table
+     * @param checkpoints
+     *      progress of the jobs
+     * @param writer
+     *      write of a row, null if the row is skipped; must be idempotent
+     * @param splits
+     *      ranges of a job that has never run
+     * @param concurrency
+     *      ranges scanned at the same time
+     * @param pageSize
+     *      rows read at once
+     * @param rowsPerSecond
+     *      rows read per second by the whole job, 0 for unlimited
+     * @param executionProfile
+     *      profile of the reads, null for the default one
+     */
+    BackfillJob(String name, String description, TokenRangeScanner scanner, BackfillCheckpoints checkpoints,
+            Function<Row, CompletionStage<?>> writer, int splits, int concurrency, int pageSize, 
+            double rowsPerSecond, String executionProfile) {
+        this.name             = name;
+        this.description      = description;
+        this.scanner          = scanner;
+        this.checkpoints      = checkpoints;
+        this.writer           = writer;
+        this.splits           = splits;
+        this.concurrency      = Math.max(1, concurrency);
+        this.pageSize         = pageSize;
+        this.rowsPerSecond    = rowsPerSecond;
+        this.executionProfile = executionProfile;
+        this.ranges           = checkpoints.load(name, splits);
+        this.status           = ranges.stream().allMatch(range -> range.completed) ? Status.COMPLETED
+                              : ranges.stream().anyMatch(range -> range.rows > 0 || range.position != range.start) 
+                                      ? Status.STOPPED : Status.NOT_STARTED;
+    }
+
+    /**
+     * Start the job, or resume it from its checkpoints.
+     *
+     * @param restart
+     *      forget the checkpoints and scan the whole table again
+     * @return
+     *      false if the job is running, or completed and not restarted
+     */
+    public synchronized boolean start(boolean restart) {
+        if (status == Status.RUNNING) {
+            return false;
+        }
+        if (restart) {
+            checkpoints.clear(name);
+        }
+        ranges = checkpoints.load(name, splits);
+        Queue<BackfillCheckpoints.Range> pending = new ConcurrentLinkedQueue<>();
+        ranges.stream().filter(range -> !range.completed).forEach(pending::add);
+        if (pending.isEmpty()) {
+            status = Status.COMPLETED;
+            return false;
+        }
+        status        = Status.RUNNING;
+        lastError     = null;
+        running       = true;
+        startedAt     = Instant.now();
+        startNanos    = System.nanoTime();
+        startFraction = fractionScanned();
+        rowsRead.reset();
+        rowsWritten.reset();
+        if (onStart != null) {
+            onStart.run();
+        }
+        nextReadNanos.set(startNanos);
+        int threads = Math.min(concurrency, pending.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "backfill-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        activeWorkers.set(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> work(pending));
+        }
+        logger.info("Backfill '{}' started: {} ranges left, {} threads, {} rows/s", name, pending.size(), 
+                threads, rowsPerSecond > 0 ? rowsPerSecond : "unlimited");
+        return true;
+    }
+
+    /**
+     * Stop the job after the pages being processed, its checkpoints are kept.
+     */
+    public synchronized void stop() {
+        running = false;
+    }
+
+    /**
+     * Stop the job and wait for the pages being processed (a few seconds at most).
+     */
+    public void close() {
+        stop();
+        ExecutorService current;
+        synchronized (this) {
+            current = workers;
+        }
+        if (current != null) {
+            try {
+                current.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void work(Queue<BackfillCheckpoints.Range> pending) {
+        try {
+            BackfillCheckpoints.Range range;
+            while (running && (range = pending.poll()) != null) {
+                scan(range);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            running   = false;
+            logger.warn("Backfill '{}' failed, it will resume from its checkpoints: {}", name, e.getMessage());
+        } finally {
+            if (activeWorkers.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+    }
+
+    private synchronized void finish() {
+        running  = false;
+        endNanos = System.nanoTime();
+        status   = lastError != null ? Status.FAILED
+                 : ranges.stream().allMatch(range -> range.completed) ? Status.COMPLETED : Status.STOPPED;
+        workers.shutdown();
+        logger.info("Backfill '{}' {}: {} rows read, {} written", name, status.name().toLowerCase(), 
+                rowsRead.sum(), rowsWritten.sum());
+    }
+
+    /**
+     * Scan a range from its position to its end, saving the position after each page.
+     */
+    private void scan(BackfillCheckpoints.Range range) throws InterruptedException {
+        ByteBuffer pagingState = null;
+        long from = range.position;
+        while (running) {
+            ResultSet page = scanner.page(from, range.end, pageSize, pagingState, executionProfile);
+            int rows = page.getAvailableWithoutFetching();
+            throttle(rows);
+            List<CompletableFuture<?>> writes = new ArrayList<>(rows);
+            long lastToken = range.position;
+            for (int i = 0; i < rows; i++) {
+                Row row = page.one();
+                lastToken = TokenRangeScanner.token(row);
+                CompletionStage<?> write = writer.apply(row);
+                if (write != null) {
+                    writes.add(write.toCompletableFuture());
+                }
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+            rowsRead.add(rows);
+            rowsWritten.add(writes.size());
+            range.rows += rows;
+            pagingState = page.getExecutionInfo().getPagingState();
+            if (pagingState == null) {
+                range.position  = range.end;
+                range.completed = true;
+            } else if (lastToken - 1 > range.position) {
+                // Rows of the last partition may continue on the next page: resume at its token
+                range.position = lastToken - 1;
+            }
+            checkpoints.save(name, range);
+            if (range.completed) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait for the rows just read to fit in the rate of the job (rows of all threads).
+     */
+    private void throttle(int rows) throws InterruptedException {
+        if (rowsPerSecond <= 0 || rows == 0) {
+            return;
+        }
+        long cost = (long) (rows * TimeUnit.SECONDS.toNanos(1) / rowsPerSecond);
+        long now  = System.nanoTime();
+        long slot = nextReadNanos.getAndAccumulate(cost, (next, c) -> Math.max(next, now) + c);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private double fractionScanned() {
+        double scanned = 0;
+        double width   = 0;
+        for (BackfillCheckpoints.Range range : ranges) {
+            double rangeWidth = (double) range.end - range.start;
+            scanned += range.fraction() * rangeWidth;
+            width   += rangeWidth;
+        }
+        return width == 0 ? 0 : scanned / width;
+    }
+
+    /**
+     * Estimated time to completion, from the speed of the current run.
+     *
+     * @param startFraction
+     *      fraction scanned when the run started
+     * @param fraction
+     *      fraction scanned now
+     * @param elapsedNanos
+     *      duration of the run
+     * @return
+     *      seconds, null before any progress
+     */
+    static Long eta(double startFraction, double fraction, long elapsedNanos) {
+        double progress = fraction - startFraction;
+        if (progress <= 0 || elapsedNanos <= 0) {
+            return null;
+        }
+        return Math.round((1 - fraction) / progress * elapsedNanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Current progress.
+     *
+     * @return
+     *      progress, with rate and estimated time to completion while running
+     */
+    public BackfillProgress getProgress() {
+        List<BackfillCheckpoints.Range> current = ranges;
+        Status currentStatus = status;
+        double fraction = fractionScanned();
+        BackfillProgress progress = new BackfillProgress();
+        progress.setJob(name);
+        progress.setDescription(description);
+        progress.setStatus(currentStatus);
+        progress.setRanges(current.size());
+        progress.setRangesCompleted((int) current.stream().filter(range -> range.completed).count());
+        progress.setFractionScanned(fraction);
+        progress.setRowsScanned(current.stream().mapToLong(range -> range.rows).sum());
+        progress.setRowsWritten(rowsWritten.sum());
+        progress.setRowsPerSecondLimit(Math.max(0, rowsPerSecond));
+        progress.setLastError(lastError);
+        progress.setStartedAt(startedAt);
+        if (startedAt != null) {
+            long elapsed = (currentStatus == Status.RUNNING ? System.nanoTime() : endNanos) - startNanos;
+            progress.setRowsPerSecond(elapsed > 0 ? rowsRead.sum() * 1e9 / elapsed : 0);
+            if (currentStatus == Status.RUNNING) {
+                progress.setEtaSeconds(eta(startFraction, fraction, elapsed));
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Setter accessor for attribute 'onStart'.
+     * @param onStart
+     *      new value for 'onStart '
+     */
+    void setOnStart(Runnable onStart) {
+        this.onStart = onStart;
+    }
+
+    /**
+     * Getter accessor for attribute 'name'.
+     *
+     * @return
+     *       current value of 'name'
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Rows read since the job was first started.
+     *
+     * @return
+     *      number of rows
+     */
+    public long getRowsScanned() {
+        return ranges.stream().mapToLong(range -> range.rows).sum();
+    }
+
+    /**
+     * Fraction of the ring scanned.
+     *
+     * @return
+     *      value from 0 to 1
+     */
+    public double getFractionScanned() {
+        return fractionScanned();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.cassandraguide.model.BulkCancellationProgress;
+import dev.cassandraguide.model.BulkCancellationProgress.Status;
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Cancel every reservation of a hotel starting within a range of dates: the partitions of
+ * 'reservations_by_hotel_date' (one per day) are read and cancelled by a fixed number of workers, which bounds both
+ * the concurrent reads and the concurrent deletes.
+ *
+ * <p>A partition is read again by every run and only lists the reservations not cancelled yet, so that a failed or
+ * repeated cancellation is simply started again. The identifier only depends on the hotel and the dates.
+ *
+ * @author Jeff Carpenter
+ */
+final class BulkCancellation {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(BulkCancellation.class);
+
+    private final String id;
+    private final String hotelId;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int concurrency;
+    private final Function<LocalDate, List<Reservation>> reader;
+    private final Consumer<List<Reservation>> canceller;
+
+    private final AtomicInteger partitionsCompleted = new AtomicInteger();
+    private final LongAdder reservationsFound       = new LongAdder();
+    private final LongAdder reservationsCancelled   = new LongAdder();
+
+    private volatile Status status;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile String lastError;
+    private ExecutorService workers;
+
+    /**
+     * Create a cancellation, not started.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first start date
+     * @param to
+     *      last start date (included)
+     * @param concurrency
+     *      partitions read and cancelled at the same time
+     * @param reader
+     *      reservations of a partition not cancelled yet
+     * @param canceller
+     *      cancel the reservations of a partition
+     */
+    BulkCancellation(String hotelId, LocalDate from, LocalDate to, int concurrency,
+            Function<LocalDate, List<Reservation>> reader, Consumer<List<Reservation>> canceller) {
+        this.id          = id(hotelId, from, to);
+        this.hotelId     = hotelId;
+        this.from        = from;
+        this.to          = to;
+        this.concurrency = Math.max(1, concurrency);
+        this.reader      = reader;
+        this.canceller   = canceller;
+    }
+
+    /**
+     * Identifier of the cancellation of a hotel over a range of dates.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first start date
+     * @param to
+     *      last start date (included)
+     * @return
+     *      name-based UUID
+     */
+    static String id(String hotelId, LocalDate from, LocalDate to) {
+        return UUID.nameUUIDFromBytes((hotelId + '|' + from + '|' + to).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Start reading and cancelling the partitions in the background.
+     *
+     * @return
+     *      false if the cancellation is running
+     */
+    synchronized boolean start() {
+        if (status == Status.RUNNING) {
+            return false;
+        }
+        Queue<LocalDate> pending = new ConcurrentLinkedQueue<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            pending.add(day);
+        }
+        status      = Status.RUNNING;
+        startedAt   = Instant.now();
+        completedAt = null;
+        lastError   = null;
+        partitionsCompleted.set(0);
+        reservationsFound.reset();
+        reservationsCancelled.reset();
+        int threads = Math.min(concurrency, pending.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "bulk-cancel-" + hotelId + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CompletableFuture<Void>> runs = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            runs.add(CompletableFuture.runAsync(() -> drain(pending), workers));
+        }
+        CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> finish());
+        return true;
+    }
+
+    /**
+     * Read and cancel partitions until none is left or a worker failed.
+     */
+    private void drain(Queue<LocalDate> pending) {
+        LocalDate day;
+        while (lastError == null && (day = pending.poll()) != null) {
+            try {
+                List<Reservation> reservations = reader.apply(day);
+                reservationsFound.add(reservations.size());
+                if (!reservations.isEmpty()) {
+                    canceller.accept(reservations);
+                    reservationsCancelled.add(reservations.size());
+                }
+                partitionsCompleted.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.warn("Bulk cancellation of {} stopped on {}: {}", hotelId, day, e.getMessage());
+                lastError = day + ": " + e.getMessage();
+            }
+        }
+    }
+
+    private synchronized void finish() {
+        status      = (lastError == null) ? Status.COMPLETED : Status.FAILED;
+        completedAt = Instant.now();
+        workers.shutdown();
+        logger.info("Bulk cancellation of {} from {} to {} {}, {} reservations cancelled", hotelId, from, to,
+                status.name().toLowerCase(), reservationsCancelled.sum());
+    }
+
+    /**
+     * Stop the workers (application shutdown), a new run cancels the reservations left.
+     */
+    synchronized void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Snapshot of the progress.
+     *
+     * @return
+     *      progress
+     */
+    BulkCancellationProgress getProgress() {
+        BulkCancellationProgress progress = new BulkCancellationProgress();
+        progress.setId(id);
+        progress.setHotelId(hotelId);
+        progress.setFrom(from);
+        progress.setTo(to);
+        progress.setStatus(status);
+        progress.setPartitions((int) ChronoUnit.DAYS.between(from, to) + 1);
+        progress.setPartitionsCompleted(partitionsCompleted.get());
+        progress.setReservationsFound(reservationsFound.sum());
+        progress.setReservationsCancelled(reservationsCancelled.sum());
+        progress.setStartedAt(startedAt);
+        progress.setCompletedAt(completedAt);
+        progress.setLastError(lastError);
+        return progress;
+    }
+
+    /**
+     * End of the last run.
+     *
+     * @return
+     *      time the last run completed or failed, null while running or before the first run
+     */
+    Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Getter accessor for attribute 'id'.
+     *
+     * @return
+     *       current value of 'id'
+     */
+    String getId() {
+        return id;
+    }
+}
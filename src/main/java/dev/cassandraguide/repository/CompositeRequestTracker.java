@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+
+/**
+ * The driver accepts a single {@link RequestTracker}: forward every event to several of them (latency percentiles,
+ * slow-query log).
+ *
+ * @author Jeff Carpenter
+ */
+public class CompositeRequestTracker implements RequestTracker {
+
+    private final List<RequestTracker> trackers;
+
+    /**
+     * Initialization of the tracker.
+     *
+     * @param trackers
+     *      trackers notified in order
+     */
+    public CompositeRequestTracker(List<RequestTracker> trackers) {
+        this.trackers = List.copyOf(trackers);
+    }
+
+    /**
+     * Tracker of a given type, the tracker itself when it is not a composite.
+     *
+     * @param tracker
+     *      tracker of the session
+     * @param type
+     *      type searched
+     * @return
+     *      first tracker of this type if any
+     */
+    public static <T extends RequestTracker> Optional<T> find(RequestTracker tracker, Class<T> type) {
+        if (type.isInstance(tracker)) {
+            return Optional.of(type.cast(tracker));
+        }
+        if (tracker instanceof CompositeRequestTracker) {
+            return ((CompositeRequestTracker) tracker).trackers.stream()
+                    .filter(type::isInstance).map(type::cast).findFirst();
+        }
+        return Optional.empty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onSuccess(Request request, long latencyNanos, DriverExecutionProfile profile, Node node, 
+            String logPrefix) {
+        trackers.forEach(t -> t.onSuccess(request, latencyNanos, profile, node, logPrefix));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onError(Request request, Throwable error, long latencyNanos, DriverExecutionProfile profile, 
+            Node node, String logPrefix) {
+        trackers.forEach(t -> t.onError(request, error, latencyNanos, profile, node, logPrefix));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onNodeSuccess(Request request, long latencyNanos, DriverExecutionProfile profile, Node node, 
+            String logPrefix) {
+        trackers.forEach(t -> t.onNodeSuccess(request, latencyNanos, profile, node, logPrefix));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onNodeError(Request request, Throwable error, long latencyNanos, DriverExecutionProfile profile, 
+            Node node, String logPrefix) {
+        trackers.forEach(t -> t.onNodeError(request, error, latencyNanos, profile, node, logPrefix));
+    }
+
+    /**
+     * Close every tracker, even when one of them fails.
+     *
+     * @throws IllegalStateException
+     *      a tracker failed to close (the other failures are suppressed exceptions)
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+        for (RequestTracker tracker : trackers) {
+            try {
+                tracker.close();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure == null) {
+                    failure = new IllegalStateException("Unable to close request tracker", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
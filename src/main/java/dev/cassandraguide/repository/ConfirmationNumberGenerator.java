@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.UUID;
+
+/**
+ * Generate confirmation numbers for new reservations. Generated values must be valid UUIDs
+ * (AAAAAAAA-BBBB-CCCC-DDDD-EEEEEEEEEEEE) as expected by the REST API.
+ *
+ * @author Jeff Carpenter
+ */
+@FunctionalInterface
+public interface ConfirmationNumberGenerator {
+    
+    /** Name of the random generator in configuration. */
+    String RANDOM = "random";
+    
+    /** Name of the time-ordered generator in configuration. */
+    String TIME_ORDERED = "time-ordered";
+    
+    /**
+     * Generate a new confirmation number.
+     *
+     * @return
+     *      unique confirmation number
+     */
+    String next();
+    
+    /**
+     * Random (version 4) UUIDs, unguessable but generated from a shared {@link java.security.SecureRandom}.
+     *
+     * @return
+     *      generator
+     */
+    static ConfirmationNumberGenerator random() {
+        return () -> UUID.randomUUID().toString();
+    }
+    
+    /**
+     * Find a generator from its name in configuration.
+     *
+     * @param name
+     *      'random' or 'time-ordered'
+     * @return
+     *      generator
+     */
+    static ConfirmationNumberGenerator of(String name) {
+        if (RANDOM.equalsIgnoreCase(name)) {
+            return random();
+        }
+        if (TIME_ORDERED.equalsIgnoreCase(name)) {
+            return new TimeOrderedConfirmationNumberGenerator();
+        }
+        throw new IllegalArgumentException("Unknown confirmation number generator '" + name 
+                + "' expecting '" + RANDOM + "' or '" + TIME_ORDERED + "'");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+/**
+ * How confirmation numbers are stored in Cassandra.
+ *
+ * <ul>
+ *  <li>{@link #TEXT}: schema v1, 'confirm_number text' (36 bytes per value), original tables</li>
+ *  <li>{@link #UUID}: schema v2, 'confirm_number uuid' (16 bytes per value), tables suffixed with '_v2'</li>
+ *  <li>{@link #MIGRATION}: writes go to both schemas, reads use v2 and fall back to v1 for rows not yet copied</li>
+ * </ul>
+ *
+ * <p>Cutover from v1 to v2:
+ * <ol>
+ *  <li>restart every instance with {@link #MIGRATION}: new writes reach both schemas</li>
+ *  <li>run the backfill 'copy_reservations_to_v2' to completion (POST /api/v1/admin/backfills/{job}), then the
+ *  backfill 'reservations_by_guest' which reads the v2 reservations</li>
+ *  <li>restart every instance with {@link #UUID}; the v1 tables are no longer read nor written and can be
+ *  dropped. Reservations whose confirmation number is not a UUID are not copied and are lost at this step.</li>
+ * </ol>
+ *
+ * @author Jeff Carpenter
+ */
+public enum ConfirmationNumberStorage {
+
+    TEXT, UUID, MIGRATION;
+
+    /**
+     * Find a storage from its name in configuration.
+     *
+     * @param name
+     *      'text', 'uuid' or 'migration'
+     * @return
+     *      storage
+     */
+    public static ConfirmationNumberStorage of(String name) {
+        for (ConfirmationNumberStorage storage : values()) {
+            if (storage.name().equalsIgnoreCase(name)) {
+                return storage;
+            }
+        }
+        throw new IllegalArgumentException("Unknown confirmation number storage '" + name
+                + "' expecting 'text', 'uuid' or 'migration'");
+    }
+
+    /**
+     * Tables of schema v1 are read or written.
+     *
+     * @return
+     *      true for 'text' and 'migration'
+     */
+    public boolean usesText() {
+        return this != UUID;
+    }
+
+    /**
+     * Tables of schema v2 are read or written.
+     *
+     * @return
+     *      true for 'uuid' and 'migration'
+     */
+    public boolean usesUuid() {
+        return this != TEXT;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+
+/**
+ * Record latencies of idempotent requests (per node attempt) to compute percentiles, used to derive
+ * the delay before a speculative execution is started.
+ * 
+ * <p>Samples are accumulated in an HdrHistogram {@link Recorder} (lock-free on the write path) and the
+ * histogram used for percentiles is swapped at the end of each window.
+ *
+ * @author Jeff Carpenter
+ */
+public class LatencyPercentileTracker implements RequestTracker {
+    
+    /** Latencies are tracked up to 1 minute with 2 significant digits. */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    
+    /** Do not trust percentiles computed on less samples. */
+    private final long minSamples;
+    
+    /** Duration of a window. */
+    private final long windowNanos;
+    
+    /** Receiving samples. */
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+    
+    /** Last complete window, replaced (never mutated) when a window ends. */
+    private volatile Histogram snapshot;
+    
+    /** Start of current window. */
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    
+    /**
+     * Initialization of the tracker.
+     *
+     * @param windowSeconds
+     *      duration of a window of samples
+     * @param minSamples
+     *      minimum number of samples in a window to compute percentiles
+     */
+    public LatencyPercentileTracker(int windowSeconds, long minSamples) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.minSamples  = minSamples;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onNodeSuccess(Request request, long latencyNanos, DriverExecutionProfile profile, Node node, String logPrefix) {
+        if (request instanceof Statement && Boolean.TRUE.equals(((Statement<?>) request).isIdempotent())) {
+            record(latencyNanos);
+        }
+    }
+    
+    /**
+     * Add a sample.
+     *
+     * @param latencyNanos
+     *      observed latency
+     */
+    public void record(long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    }
+    
+    /**
+     * Latency at the given percentile in the last complete window.
+     *
+     * @param percentile
+     *      percentile, for instance 99.0
+     * @return
+     *      latency in nanoseconds or -1 if not enough samples have been recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        rollWindowIfNeeded();
+        Histogram current = snapshot;
+        if (current == null || current.getTotalCount() < minSamples) {
+            return -1;
+        }
+        return current.getValueAtPercentile(percentile);
+    }
+    
+    private void rollWindowIfNeeded() {
+        long start = windowStart.get();
+        long now   = System.nanoTime();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            Histogram interval = recorder.getIntervalHistogram();
+            // Keep previous window when traffic was too low to be significant
+            if (interval.getTotalCount() >= minSamples || snapshot == null) {
+                snapshot = interval;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+/**
+ * Raised when a call to Cassandra is rejected because too many calls are already in flight.
+ *
+ * @author Jeff Carpenter
+ */
+public class LoadSheddingException extends RuntimeException {
+
+    /** Serial. */
+    private static final long serialVersionUID = 3034985742611524876L;
+    
+    /** Name of the limiter rejecting the call. */
+    private final String limiterName;
+    
+    /** Hint for clients, sent as 'Retry-After'. */
+    private final int retryAfterSeconds;
+
+    /**
+     * Initialization of the exception.
+     *
+     * @param limiterName
+     *      limiter rejecting the call
+     * @param inflight
+     *      calls in flight when rejected
+     * @param retryAfterSeconds
+     *      delay suggested to the client
+     */
+    public LoadSheddingException(String limiterName, int inflight, int retryAfterSeconds) {
+        super("Too many " + limiterName + " requests in progress (" + inflight + "), please retry later");
+        this.limiterName       = limiterName;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Getter accessor for attribute 'limiterName'.
+     *
+     * @return
+     *       current value of 'limiterName'
+     */
+    public String getLimiterName() {
+        return limiterName;
+    }
+
+    /**
+     * Getter accessor for attribute 'retryAfterSeconds'.
+     *
+     * @return
+     *       current value of 'retryAfterSeconds'
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
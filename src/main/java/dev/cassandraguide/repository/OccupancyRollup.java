@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.update;
+import static com.datastax.oss.driver.api.querybuilder.relation.Relation.column;
+import static dev.cassandraguide.repository.ReservationRepository.HOTEL_ID;
+import static dev.cassandraguide.repository.ReservationRepository.NIGHT;
+import static dev.cassandraguide.repository.ReservationRepository.RESERVATIONS;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_OCCUPANCY_BY_HOTEL_YEAR;
+import static dev.cassandraguide.repository.ReservationRepository.YEAR;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import dev.cassandraguide.model.Reservation;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+
+/**
+ * Statements of the counter table 'occupancy_by_hotel_year': reservations in house per hotel and night, one
+ * partition per hotel and year so that a month or a quarter is a single-partition range read.
+ *
+ * <p>A reservation occupies the nights from its start date (included) to its end date (excluded), the start date
+ * only when the end date is missing. Writing a reservation decrements the nights of its previous version and
+ * increments the nights of the new one, nights in both cancel out.
+ *
+ * <p>The counters are approximate: the deltas are computed from the version read before the write (not serialized
+ * with concurrent writes of the same reservation), and a counter batch whose outcome is unknown (timeout) may have
+ * been applied or not. {@link #corrections} rebuilds the counters of a hotel from its calendar.
+ *
+ * @author Jeff Carpenter
+ */
+final class OccupancyRollup {
+
+    /** Longer stays are counted over their first nights only, bounds the size of counter batches. */
+    static final int MAX_NIGHTS = 366;
+
+    private final PreparedStatement psIncrement;
+    private final PreparedStatement psRange;
+
+    /**
+     * Prepare the statements (concurrently when the preparer is asynchronous).
+     *
+     * @param keyspaceName
+     *      keyspace of the table
+     * @param preparer
+     *      prepare a statement
+     */
+    OccupancyRollup(CqlIdentifier keyspaceName,
+            Function<SimpleStatement, CompletableFuture<PreparedStatement>> preparer) {
+        // Counter updates are not idempotent: never retried nor speculatively executed by the driver
+        CompletableFuture<PreparedStatement> increment = preparer.apply(
+                update(keyspaceName, TABLE_OCCUPANCY_BY_HOTEL_YEAR)
+                .increment(RESERVATIONS, bindMarker(RESERVATIONS))
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(YEAR).isEqualTo(bindMarker(YEAR)))
+                .where(column(NIGHT).isEqualTo(bindMarker(NIGHT)))
+                .build());
+        CompletableFuture<PreparedStatement> range = preparer.apply(
+                selectFrom(keyspaceName, TABLE_OCCUPANCY_BY_HOTEL_YEAR).column(NIGHT).column(RESERVATIONS)
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(YEAR).isEqualTo(bindMarker(YEAR)))
+                .where(column(NIGHT).isGreaterThanOrEqualTo(bindMarker("from")))
+                .where(column(NIGHT).isLessThanOrEqualTo(bindMarker("to")))
+                .build().setIdempotent(true));
+        psIncrement = increment.join();
+        psRange     = range.join();
+    }
+
+    /**
+     * Nights occupied by a reservation.
+     *
+     * @param reservation
+     *      reservation, may be null
+     * @return
+     *      nights in chronological order, empty without hotel or start date
+     */
+    static List<LocalDate> nights(Reservation reservation) {
+        List<LocalDate> nights = new ArrayList<>();
+        if (reservation == null || reservation.getHotelId() == null || reservation.getStartDate() == null) {
+            return nights;
+        }
+        LocalDate night = reservation.getStartDate();
+        do {
+            nights.add(night);
+            night = night.plusDays(1);
+        } while (reservation.getEndDate() != null && night.isBefore(reservation.getEndDate())
+                && nights.size() < MAX_NIGHTS);
+        return nights;
+    }
+
+    /**
+     * Changes of the counters when a reservation is written.
+     *
+     * @param previous
+     *      version replaced or deleted, null for a new reservation
+     * @param current
+     *      version written, null for a delete
+     * @return
+     *      delta per hotel and night, without zeros
+     */
+    static Map<String, Map<LocalDate, Long>> deltas(Reservation previous, Reservation current) {
+        Map<String, Map<LocalDate, Long>> deltas = new TreeMap<>();
+        for (LocalDate night : nights(previous)) {
+            deltas.computeIfAbsent(previous.getHotelId(), h -> new TreeMap<>()).merge(night, -1L, Long::sum);
+        }
+        for (LocalDate night : nights(current)) {
+            deltas.computeIfAbsent(current.getHotelId(), h -> new TreeMap<>()).merge(night, 1L, Long::sum);
+        }
+        deltas.values().forEach(nights -> nights.values().removeIf(delta -> delta == 0));
+        deltas.values().removeIf(Map::isEmpty);
+        return deltas;
+    }
+
+    /**
+     * Counter batch applying the changes of a write.
+     *
+     * @param previous
+     *      version replaced or deleted, null for a new reservation
+     * @param current
+     *      version written, null for a delete
+     * @return
+     *      statement, null if the write does not change any counter (same hotel and nights)
+     */
+    BatchStatement bindChanges(Reservation previous, Reservation current) {
+        Map<String, Map<LocalDate, Long>> deltas = deltas(previous, current);
+        if (deltas.isEmpty()) {
+            return null;
+        }
+        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.COUNTER);
+        deltas.forEach((hotelId, nights) -> nights.forEach((night, delta) ->
+            batch.addStatement(psIncrement.bind(delta, hotelId, night.getYear(), night))));
+        return batch.build();
+    }
+
+    /**
+     * Corrections bringing the counters of a hotel to the number of its reservations in house each night.
+     *
+     * @param reservations
+     *      reservations of the hotel in house during the period
+     * @param stored
+     *      counters of the period, nights without counter are missing
+     * @param from
+     *      first night
+     * @param to
+     *      last night (included)
+     * @return
+     *      delta per night, without zeros
+     */
+    static Map<LocalDate, Long> corrections(Collection<Reservation> reservations, Map<LocalDate, Long> stored, 
+            LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> corrections = new TreeMap<>();
+        for (Reservation reservation : reservations) {
+            for (LocalDate night : nights(reservation)) {
+                if (!night.isBefore(from) && !night.isAfter(to)) {
+                    corrections.merge(night, 1L, Long::sum);
+                }
+            }
+        }
+        stored.forEach((night, count) -> corrections.merge(night, -count, Long::sum));
+        corrections.values().removeIf(delta -> delta == 0);
+        return corrections;
+    }
+
+    /**
+     * Counter batch applying corrections to the nights of a hotel.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param corrections
+     *      delta per night
+     * @return
+     *      statement
+     */
+    BatchStatement bindCorrections(String hotelId, Map<LocalDate, Long> corrections) {
+        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.COUNTER);
+        corrections.forEach((night, delta) -> batch.addStatement(psIncrement.bind(delta, hotelId, night.getYear(), 
+                night)));
+        return batch.build();
+    }
+
+    /**
+     * Range of nights within a partition.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first night
+     * @param to
+     *      last night (included), same year as the first one
+     * @return
+     *      statement returning 'night' and 'reservations'
+     */
+    BoundStatement bindRange(String hotelId, LocalDate from, LocalDate to) {
+        if (from.getYear() != to.getYear()) {
+            throw new IllegalArgumentException("Range must be within a year");
+        }
+        return psRange.bind(Objects.requireNonNull(hotelId), from.getYear(), from, to);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.ReconciliationReport;
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Check the rows of 'reservations_by_hotel_date' read by a {@link BackfillJob} against 'reservations_by_confirmation'
+ * and delete the orphans: rows whose reservation does not exist, or exists at another hotel, date or room (left
+ * by updates that moved the reservation before upserts deleted the previous row).
+ *
+ * <p>Rows written within the grace period are skipped, their reservation may not be written yet (write-behind,
+ * coalescer). Orphans are deleted with the write time of the row: a reservation written again to the same row in
+ * the meantime is kept. In a dry run orphans are only counted and reported.
+ *
+ * @author Jeff Carpenter
+ */
+final class OrphanReconciler {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(OrphanReconciler.class);
+
+    private final boolean dryRun;
+    private final long graceMicros;
+    private final int maxSamples;
+    private final Function<String, CompletableFuture<Optional<Reservation>>> lookup;
+    private final BiFunction<Reservation, Long, CompletableFuture<?>> delete;
+
+    private final LongAdder checked       = new LongAdder();
+    private final LongAdder skippedRecent = new LongAdder();
+    private final LongAdder found         = new LongAdder();
+    private final LongAdder deleted       = new LongAdder();
+    private final ConcurrentLinkedQueue<String> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sampleCount = new AtomicInteger();
+
+    /**
+     * Initialization.
+     *
+     * @param dryRun
+     *      report orphans without deleting them
+     * @param graceSeconds
+     *      rows written more recently are not checked
+     * @param maxSamples
+     *      orphans listed in the report
+     * @param lookup
+     *      read of a reservation in 'reservations_by_confirmation'
+     * @param delete
+     *      delete of a row of 'reservations_by_hotel_date' with a write time (microseconds, may be null)
+     */
+    OrphanReconciler(boolean dryRun, long graceSeconds, int maxSamples,
+            Function<String, CompletableFuture<Optional<Reservation>>> lookup,
+            BiFunction<Reservation, Long, CompletableFuture<?>> delete) {
+        this.dryRun      = dryRun;
+        this.graceMicros = TimeUnit.SECONDS.toMicros(graceSeconds);
+        this.maxSamples  = maxSamples;
+        this.lookup      = lookup;
+        this.delete      = delete;
+    }
+
+    /**
+     * Why a row of 'reservations_by_hotel_date' is an orphan.
+     *
+     * @param indexed
+     *      reservation read from 'reservations_by_hotel_date', confirmation number may be null
+     * @param stored
+     *      reservation of the same confirmation number in 'reservations_by_confirmation', null if none
+     * @return
+     *      reason, null if the row matches the reservation
+     */
+    static String orphanReason(Reservation indexed, Reservation stored) {
+        if (indexed.getConfirmationNumber() == null) {
+            return "no confirmation number";
+        }
+        if (stored == null) {
+            return "reservation does not exist";
+        }
+        if (!Objects.equals(indexed.getHotelId(), stored.getHotelId())
+                || !Objects.equals(indexed.getStartDate(), stored.getStartDate())
+                || indexed.getRoomNumber() != stored.getRoomNumber()) {
+            return "reservation moved to " + stored.getHotelId() + "/" + stored.getStartDate() 
+                    + "/" + stored.getRoomNumber();
+        }
+        return null;
+    }
+
+    /**
+     * Writer of the reconciliation job.
+     *
+     * @param indexed
+     *      reservation read from 'reservations_by_hotel_date'
+     * @param writeTime
+     *      write time of the row (microseconds), may be null
+     * @return
+     *      completion of the check, null if the row is skipped
+     */
+    CompletionStage<?> reconcile(Reservation indexed, Long writeTime) {
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        if (writeTime != null && writeTime > now - graceMicros) {
+            skippedRecent.increment();
+            return null;
+        }
+        CompletableFuture<Optional<Reservation>> stored = indexed.getConfirmationNumber() == null
+                ? CompletableFuture.completedFuture(Optional.empty()) : lookup.apply(indexed.getConfirmationNumber());
+        return stored.thenCompose(reservation -> {
+            checked.increment();
+            String reason = orphanReason(indexed, reservation.orElse(null));
+            if (reason == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            found.increment();
+            String orphan = indexed.getHotelId() + "/" + indexed.getStartDate() + "/" + indexed.getRoomNumber() 
+                    + " " + indexed.getConfirmationNumber() + ": " + reason;
+            if (sampleCount.getAndIncrement() < maxSamples) {
+                samples.add(orphan);
+            }
+            if (dryRun) {
+                return CompletableFuture.completedFuture(null);
+            }
+            logger.debug("Deleting orphan row {}", orphan);
+            return delete.apply(indexed, writeTime).thenRun(deleted::increment);
+        });
+    }
+
+    /**
+     * Forget the counts of the previous run.
+     */
+    void reset() {
+        checked.reset();
+        skippedRecent.reset();
+        found.reset();
+        deleted.reset();
+        samples.clear();
+        sampleCount.set(0);
+    }
+
+    /**
+     * Report of the current or last run.
+     *
+     * @param job
+     *      name of the job running the reconciliation
+     * @param progress
+     *      progress of the job
+     * @return
+     *      counts and first orphans
+     */
+    ReconciliationReport report(String job, BackfillProgress progress) {
+        ReconciliationReport report = new ReconciliationReport();
+        report.setJob(job);
+        report.setDryRun(dryRun);
+        report.setProgress(progress);
+        report.setRowsChecked(checked.sum());
+        report.setSkippedRecent(skippedRecent.sum());
+        report.setOrphansFound(found.sum());
+        report.setOrphansDeleted(deleted.sum());
+        report.setOrphans(new ArrayList<>(samples));
+        return report;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.config.DriverOption;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.specex.SpeculativeExecutionPolicy;
+
+/**
+ * Start a speculative execution (hedged request to another replica) once a request has been running
+ * longer than a percentile of the latencies recently observed by {@link LatencyPercentileTracker}.
+ * 
+ * <p>The driver only applies speculative executions to idempotent statements. Until enough latencies
+ * have been observed the constant 'delay' of the configuration is used.
+ * 
+ * <pre>
+ * advanced.speculative-execution-policy {
+ *   class          = dev.cassandraguide.repository.PercentileSpeculativeExecutionPolicy
+ *   max-executions = 2
+ *   delay          = 50 milliseconds
+ *   percentile     = 99.0
+ *   min-delay      = 2 milliseconds
+ * }
+ * </pre>
+ *
+ * @author Jeff Carpenter
+ */
+public class PercentileSpeculativeExecutionPolicy implements SpeculativeExecutionPolicy {
+    
+    /**
+     * Options of the policy in addition to driver ones.
+     */
+    public enum Option implements DriverOption {
+        
+        /** Percentile of observed latencies used as delay. */
+        PERCENTILE("advanced.speculative-execution-policy.percentile"),
+        
+        /** Lower bound for the delay. */
+        MIN_DELAY("advanced.speculative-execution-policy.min-delay");
+        
+        private final String path;
+        
+        Option(String path) {
+            this.path = path;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public String getPath() {
+            return path;
+        }
+    }
+    
+    private final DriverContext context;
+    private final int           maxExecutions;
+    private final long          defaultDelayMillis;
+    private final long          minDelayMillis;
+    private final double        percentile;
+    
+    /** Resolved lazily, the request tracker is built after the policies. */
+    private volatile LatencyPercentileTracker tracker;
+    
+    /**
+     * Constructor invoked by the driver.
+     *
+     * @param context
+     *      driver context
+     * @param profileName
+     *      execution profile
+     */
+    public PercentileSpeculativeExecutionPolicy(DriverContext context, String profileName) {
+        DriverExecutionProfile profile = context.getConfig().getProfile(profileName);
+        this.context            = context;
+        this.maxExecutions      = profile.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX);
+        if (maxExecutions < 1) {
+            throw new IllegalArgumentException("Max must be at least 1");
+        }
+        this.defaultDelayMillis = profile.getDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY).toMillis();
+        this.minDelayMillis     = profile.getDuration(Option.MIN_DELAY, Duration.ofMillis(1)).toMillis();
+        this.percentile         = profile.getDouble(Option.PERCENTILE, 99.0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long nextExecution(Node node, CqlIdentifier keyspace, Request request, int runningExecutions) {
+        if (runningExecutions >= maxExecutions) {
+            return -1;
+        }
+        LatencyPercentileTracker latencies = getTracker();
+        long percentileNanos = (latencies == null) ? -1 : latencies.getPercentileNanos(percentile);
+        if (percentileNanos < 0) {
+            return defaultDelayMillis;
+        }
+        return Math.max(minDelayMillis, TimeUnit.NANOSECONDS.toMillis(percentileNanos));
+    }
+    
+    private LatencyPercentileTracker getTracker() {
+        if (tracker == null) {
+            tracker = CompositeRequestTracker.find(context.getRequestTracker(), LatencyPercentileTracker.class)
+                                             .orElse(null);
+        }
+        return tracker;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {}
+}
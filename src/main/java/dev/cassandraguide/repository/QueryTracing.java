@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+/**
+ * On-demand Cassandra query tracing for the statements of one HTTP request.
+ *
+ * <p>Tracing is enabled for the calling thread with {@link #begin()}: statements executed through
+ * {@link #execute(CqlSession, Statement)} and {@link #executeAsync(CqlSession, Statement)} from that thread are
+ * traced and their execution info is kept so that the trace events can be fetched once the request is served.
+ * Statements of background threads (coalescer, write-behind) are not traced.
+ *
+ * @author Jeff Carpenter
+ */
+public final class QueryTracing {
+
+    /** Traced statements kept per request, tracing is not meant for bulk calls. */
+    public static final int MAX_TRACED_STATEMENTS = 50;
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Statements traced during a request.
+     */
+    public static final class Context {
+
+        private final List<ExecutionInfo> executions = new CopyOnWriteArrayList<>();
+
+        /**
+         * Keep the execution of a traced statement.
+         *
+         * @param executionInfo
+         *      execution info holding the tracing id
+         */
+        void record(ExecutionInfo executionInfo) {
+            if (executionInfo.getTracingId() != null && executions.size() < MAX_TRACED_STATEMENTS) {
+                executions.add(executionInfo);
+            }
+        }
+
+        /**
+         * Getter accessor for attribute 'executions'.
+         *
+         * @return
+         *       current value of 'executions'
+         */
+        public List<ExecutionInfo> getExecutions() {
+            return executions;
+        }
+    }
+
+    private QueryTracing() {}
+
+    /**
+     * Trace the statements executed by the current thread.
+     *
+     * @return
+     *      context of the thread
+     */
+    public static Context begin() {
+        Context context = new Context();
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Stop tracing the statements of the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Context of the current thread.
+     *
+     * @return
+     *      context, null when tracing is not enabled
+     */
+    public static Context current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Execute a statement, traced when the current thread asked for it.
+     *
+     * @param cqlSession
+     *      session
+     * @param statement
+     *      statement to execute
+     * @return
+     *      result
+     */
+    static ResultSet execute(CqlSession cqlSession, Statement<?> statement) {
+        Context context = CURRENT.get();
+        if (context == null) {
+            return cqlSession.execute(statement);
+        }
+        ResultSet rs = cqlSession.execute(statement.setTracing(true));
+        context.record(rs.getExecutionInfo());
+        return rs;
+    }
+
+    /**
+     * Execute a statement asynchronously, traced when the calling thread asked for it.
+     *
+     * @param cqlSession
+     *      session
+     * @param statement
+     *      statement to execute
+     * @return
+     *      result
+     */
+    static CompletableFuture<AsyncResultSet> executeAsync(CqlSession cqlSession, Statement<?> statement) {
+        Context context = CURRENT.get();
+        if (context == null) {
+            return cqlSession.executeAsync(statement).toCompletableFuture();
+        }
+        return cqlSession.executeAsync(statement.setTracing(true)).toCompletableFuture()
+                .thenApply(rs -> {
+                    context.record(rs.getExecutionInfo());
+                    return rs;
+                });
+    }
+}
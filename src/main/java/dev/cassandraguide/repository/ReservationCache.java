@@ -0,0 +1,523 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.cassandraguide.model.CompactReservation;
+import dev.cassandraguide.model.HotelIdDictionary;
+import dev.cassandraguide.model.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hot working set of the service: recent confirmation lookups and upcoming 'hotel/date' partitions, held as
+ * {@link CompactReservation}s.
+ *
+ * <p>Entries expire after a time to live, writes through the repository invalidate them. A read caches its result
+ * only if no invalidation of the same key (striped counters, see {@link #confirmationStamp(String)}) happened since
+ * it started, so that a read racing with a write never caches the version it replaced. The cache can be
+ * saved to a snapshot file ({@link ReservationCacheSnapshot}) and restored on startup: restored entries are
+ * served immediately and checked once against Cassandra in the background (see {@link Cached#markVerified()}).
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationCache implements AutoCloseable {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCache.class);
+
+    /** Hotel ids of all entries. */
+    private final HotelIdDictionary dictionary = new HotelIdDictionary();
+
+    /** Reservations by confirmation number. */
+    private final ConcurrentHashMap<UUID, Entry> confirmations = new ConcurrentHashMap<>();
+
+    /** Reservations by 'hotel/date' partition, see {@link #partitionKey(int, int)}. */
+    private final ConcurrentHashMap<Long, PartitionEntry> partitions = new ConcurrentHashMap<>();
+
+    /** Invalidations per stripe of keys, a read captures its stripe before reading. */
+    private static final int STRIPES = 1024;
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private final int  maxConfirmations;
+    private final int  maxPartitions;
+    private final long ttlMillis;
+
+    private final LongAdder hits   = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Snapshots and background checks of restored entries. */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "reservation-cache");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Target of snapshots, null when disabled. */
+    private volatile Path snapshotPath;
+
+    /**
+     * Common part of cached values.
+     */
+    public abstract static class Cached {
+
+        private final long cachedAtMillis;
+        private final AtomicBoolean verified;
+
+        Cached(long cachedAtMillis, boolean verified) {
+            this.cachedAtMillis = cachedAtMillis;
+            this.verified       = new AtomicBoolean(verified);
+        }
+
+        /**
+         * Restored entries are not verified, the first caller to flip the flag checks the entry.
+         *
+         * @return
+         *      true if the caller must check the entry
+         */
+        public boolean markVerified() {
+            return !verified.get() && verified.compareAndSet(false, true);
+        }
+
+        long getCachedAtMillis() {
+            return cachedAtMillis;
+        }
+    }
+
+    /**
+     * A cached reservation.
+     */
+    public static class Entry extends Cached {
+
+        private final CompactReservation record;
+
+        Entry(CompactReservation record, long cachedAtMillis, boolean verified) {
+            super(cachedAtMillis, verified);
+            this.record = record;
+        }
+
+        CompactReservation getRecord() {
+            return record;
+        }
+    }
+
+    /**
+     * Cached reservations of a 'hotel/date' partition.
+     */
+    public static class PartitionEntry extends Cached {
+
+        private final CompactReservation[] records;
+
+        PartitionEntry(CompactReservation[] records, long cachedAtMillis, boolean verified) {
+            super(cachedAtMillis, verified);
+            this.records = records;
+        }
+
+        CompactReservation[] getRecords() {
+            return records;
+        }
+    }
+
+    /**
+     * Initialization of the cache.
+     *
+     * @param maxConfirmations
+     *      maximum number of reservations by confirmation number
+     * @param maxPartitions
+     *      maximum number of 'hotel/date' partitions
+     * @param ttlSeconds
+     *      time to live of entries
+     */
+    public ReservationCache(int maxConfirmations, int maxPartitions, int ttlSeconds) {
+        this.maxConfirmations = maxConfirmations;
+        this.maxPartitions    = maxPartitions;
+        this.ttlMillis        = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    /**
+     * Find a reservation by confirmation number.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     * @return
+     *      entry, null if absent or expired
+     */
+    public Entry getConfirmation(String confirmationNumber) {
+        UUID key = toUuid(confirmationNumber);
+        Entry entry = key == null ? null : confirmations.get(key);
+        if (entry == null || isExpired(entry.getCachedAtMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Invalidations of a confirmation number so far, to be captured before reading it.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     * @return
+     *      stamp for {@link #putConfirmation(Reservation, long, long)}
+     */
+    public long confirmationStamp(String confirmationNumber) {
+        return invalidations.get(stripe(confirmationNumber));
+    }
+
+    /**
+     * Cache a reservation read from Cassandra, unless it has been invalidated since the read started.
+     *
+     * @param reservation
+     *      reservation with a confirmation number
+     * @param cachedAtMillis
+     *      time of the read (taken before the read so that any later write is detected)
+     * @param stamp
+     *      result of {@link #confirmationStamp(String)} before the read
+     */
+    public void putConfirmation(Reservation reservation, long cachedAtMillis, long stamp) {
+        UUID key = toUuid(reservation.getConfirmationNumber());
+        int stripe = stripe(reservation.getConfirmationNumber());
+        if (key != null && invalidations.get(stripe) == stamp) {
+            Entry entry = new Entry(CompactReservation.of(reservation, dictionary), cachedAtMillis, true);
+            putConfirmation(key, entry);
+            // Invalidated between the check and the put: the invalidation may have missed the entry
+            if (invalidations.get(stripe) != stamp) {
+                confirmations.remove(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Find the reservations of a 'hotel/date' partition.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param date
+     *      start date
+     * @return
+     *      entry, null if absent or expired
+     */
+    public PartitionEntry getPartition(String hotelId, LocalDate date) {
+        int hotelCode = dictionary.codeOf(hotelId);
+        PartitionEntry entry = hotelCode == HotelIdDictionary.NULL_CODE ? null
+                : partitions.get(partitionKey(hotelCode, (int) date.toEpochDay()));
+        if (entry == null || isExpired(entry.getCachedAtMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Invalidations of a 'hotel/date' partition so far, to be captured before reading it.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param date
+     *      start date
+     * @return
+     *      stamp for {@link #putPartition(String, LocalDate, List, long, long)}
+     */
+    public long partitionStamp(String hotelId, LocalDate date) {
+        return invalidations.get(stripe(hotelId, date));
+    }
+
+    /**
+     * Cache the reservations of a 'hotel/date' partition, only upcoming dates are kept, unless the partition has
+     * been invalidated since the read started.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param date
+     *      start date
+     * @param reservations
+     *      reservations of the partition
+     * @param cachedAtMillis
+     *      time of the read (taken before the read so that any later write is detected)
+     * @param stamp
+     *      result of {@link #partitionStamp(String, LocalDate)} before the read
+     */
+    public void putPartition(String hotelId, LocalDate date, List<Reservation> reservations, long cachedAtMillis,
+            long stamp) {
+        int stripe = stripe(hotelId, date);
+        if (date.isBefore(LocalDate.now()) || invalidations.get(stripe) != stamp) {
+            return;
+        }
+        CompactReservation[] records = new CompactReservation[reservations.size()];
+        for (int i = 0; i < records.length; i++) {
+            if (toUuid(reservations.get(i).getConfirmationNumber()) == null) {
+                return;
+            }
+            records[i] = CompactReservation.of(reservations.get(i), dictionary);
+        }
+        Long key = partitionKey(dictionary.encode(hotelId), (int) date.toEpochDay());
+        PartitionEntry entry = new PartitionEntry(records, cachedAtMillis, true);
+        putPartition(key, entry);
+        if (invalidations.get(stripe) != stamp) {
+            partitions.remove(key, entry);
+        }
+    }
+
+    /**
+     * Remove a reservation and the partition holding it.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     */
+    public void invalidateConfirmation(String confirmationNumber) {
+        UUID key = toUuid(confirmationNumber);
+        if (key == null) {
+            return;
+        }
+        // Counted before the removal: a concurrent put either sees the new count or is removed here
+        invalidations.incrementAndGet(stripe(confirmationNumber));
+        Entry entry = confirmations.remove(key);
+        if (entry != null) {
+            partitions.remove(partitionKey(entry.getRecord().getHotelCode(), entry.getRecord().getStartEpochDay()));
+        }
+    }
+
+    /**
+     * Remove a 'hotel/date' partition.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param date
+     *      start date
+     */
+    public void invalidatePartition(String hotelId, LocalDate date) {
+        if (hotelId == null || date == null) {
+            return;
+        }
+        // Counted even when the hotel is not cached yet, a read of the partition may be in progress
+        invalidations.incrementAndGet(stripe(hotelId, date));
+        int hotelCode = dictionary.codeOf(hotelId);
+        if (hotelCode != HotelIdDictionary.NULL_CODE) {
+            partitions.remove(partitionKey(hotelCode, (int) date.toEpochDay()));
+        }
+    }
+
+    /**
+     * Decode a cached reservation.
+     *
+     * @param entry
+     *      entry
+     * @return
+     *      new reservation
+     */
+    public Reservation toReservation(Entry entry) {
+        return entry.getRecord().toReservation(dictionary);
+    }
+
+    /**
+     * Decode the reservations of a cached partition.
+     *
+     * @param entry
+     *      entry
+     * @return
+     *      new reservations
+     */
+    public List<Reservation> toReservations(PartitionEntry entry) {
+        List<Reservation> reservations = new ArrayList<>(entry.getRecords().length);
+        for (CompactReservation record : entry.getRecords()) {
+            reservations.add(record.toReservation(dictionary));
+        }
+        return reservations;
+    }
+
+    /**
+     * Run a task on the cache thread (checks of restored entries).
+     *
+     * @param task
+     *      task
+     */
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Cache task failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Restore the snapshot (if any) and save a new one periodically.
+     *
+     * @param path
+     *      snapshot file
+     * @param intervalSeconds
+     *      delay between snapshots
+     */
+    public void enableSnapshots(Path path, int intervalSeconds) {
+        this.snapshotPath = path;
+        long start = System.nanoTime();
+        try {
+            int restored = ReservationCacheSnapshot.read(path, this);
+            if (restored > 0) {
+                logger.info("Restored {} cache entries from '{}' in {}ms.", restored, path,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            // A cold cache is always correct
+            logger.warn("Ignoring cache snapshot '{}': {}", path, e.getMessage());
+        }
+        executor.scheduleWithFixedDelay(this::saveSnapshot, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Save the snapshot, a final snapshot is saved on close. */
+    void saveSnapshot() {
+        Path path = snapshotPath;
+        if (path != null) {
+            try {
+                ReservationCacheSnapshot.write(path, this);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unable to save cache snapshot '{}': {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saveSnapshot();
+    }
+
+    // -- Used by snapshots, records are restored with the codes of this dictionary --
+
+    HotelIdDictionary getDictionary() {
+        return dictionary;
+    }
+
+    Collection<Entry> confirmationEntries() {
+        return confirmations.values();
+    }
+
+    Collection<PartitionEntry> partitionEntries() {
+        return partitions.values();
+    }
+
+    boolean restoreConfirmation(CompactReservation record, long cachedAtMillis) {
+        if (isExpired(cachedAtMillis)) {
+            return false;
+        }
+        putConfirmation(new UUID(record.getConfirmationMsb(), record.getConfirmationLsb()),
+                new Entry(record, cachedAtMillis, false));
+        return true;
+    }
+
+    boolean restorePartition(int hotelCode, int epochDay, CompactReservation[] records, long cachedAtMillis) {
+        if (isExpired(cachedAtMillis) || epochDay < LocalDate.now().toEpochDay()) {
+            return false;
+        }
+        putPartition(partitionKey(hotelCode, epochDay), new PartitionEntry(records, cachedAtMillis, false));
+        return true;
+    }
+
+    boolean isExpired(long cachedAtMillis) {
+        return System.currentTimeMillis() - cachedAtMillis > ttlMillis;
+    }
+
+    /**
+     * Getter accessor for attribute 'hits'.
+     *
+     * @return
+     *       current value of 'hits'
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter accessor for attribute 'misses'.
+     *
+     * @return
+     *       current value of 'misses'
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of cached reservations and partitions.
+     *
+     * @return
+     *      size of the cache
+     */
+    public int size() {
+        return confirmations.size() + partitions.size();
+    }
+
+    private void putConfirmation(UUID key, Entry entry) {
+        confirmations.put(key, entry);
+        evict(confirmations, maxConfirmations);
+    }
+
+    private void putPartition(Long key, PartitionEntry entry) {
+        partitions.put(key, entry);
+        evict(partitions, maxPartitions);
+    }
+
+    /** Remove arbitrary entries over the maximum size (cheap, no access order to maintain). */
+    private static void evict(ConcurrentHashMap<?, ?> map, int maxSize) {
+        Iterator<?> keys = map.keySet().iterator();
+        while (map.size() > maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    static long partitionKey(int hotelCode, int epochDay) {
+        return ((long) hotelCode << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    private static int stripe(Object... key) {
+        return Math.floorMod(Objects.hash(key), STRIPES);
+    }
+
+    private static UUID toUuid(String confirmationNumber) {
+        try {
+            return confirmationNumber == null ? null : UUID.fromString(confirmationNumber);
+        } catch (IllegalArgumentException e) {
+            // Not cached (schema v1 may hold other values)
+            return null;
+        }
+    }
+}
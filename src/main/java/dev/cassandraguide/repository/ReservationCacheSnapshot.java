@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import dev.cassandraguide.model.CompactReservation;
+import dev.cassandraguide.model.HotelIdDictionary;
+
+/**
+ * Binary snapshot of a {@link ReservationCache}, written and read through memory-mapped files. Every section is an
+ * array of fixed-width slots so that a snapshot is decoded without parsing:
+ *
+ * <pre>
+ * header         64 bytes  magic, version, creation time, section sizes, CRC32 of the body
+ * hotel ids      64 bytes  per hotel code: length (short) + UTF-8 bytes, -1 when too long
+ * reservations   56 bytes  per reservation: cached at (long) + {@link CompactReservation} (48 bytes)
+ * partitions     24 bytes  per partition: cached at (long), hotel code, epoch day, record count, unused (ints)
+ * records        48 bytes  per {@link CompactReservation} of the partitions, in partition order
+ * </pre>
+ *
+ * <p>A snapshot is written to a temporary file then moved, readers never see a partial file.
+ *
+ * @author Jeff Carpenter
+ */
+final class ReservationCacheSnapshot {
+
+    static final int MAGIC   = 0x52535643; // 'RSVC'
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES      = 64;
+    static final int HOTEL_ID_BYTES    = 64;
+    static final int RESERVATION_BYTES = 8 + CompactReservation.BYTES;
+    static final int PARTITION_BYTES   = 24;
+
+    private ReservationCacheSnapshot() {
+    }
+
+    /**
+     * Write the content of the cache.
+     *
+     * @param path
+     *      snapshot file
+     * @param cache
+     *      cache to save
+     * @throws IOException
+     *      file cannot be written
+     */
+    static void write(Path path, ReservationCache cache) throws IOException {
+        // Copy first, the cache keeps changing
+        List<ReservationCache.Entry> reservations = new ArrayList<>(cache.confirmationEntries());
+        List<ReservationCache.PartitionEntry> partitions = new ArrayList<>(cache.partitionEntries());
+        HotelIdDictionary dictionary = cache.getDictionary();
+        int hotelCount  = dictionary.size();
+        int recordCount = partitions.stream().mapToInt(p -> p.getRecords().length).sum();
+        long size = HEADER_BYTES + (long) hotelCount * HOTEL_ID_BYTES + (long) reservations.size() * RESERVATION_BYTES
+                  + (long) partitions.size() * PARTITION_BYTES + (long) recordCount * CompactReservation.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would exceed 2GB, reduce the size of the cache");
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(HEADER_BYTES);
+            for (int code = 0; code < hotelCount; code++) {
+                byte[] hotelId = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                int slot = buffer.position();
+                if (hotelId.length > HOTEL_ID_BYTES - 2) {
+                    buffer.putShort((short) -1);
+                } else {
+                    buffer.putShort((short) hotelId.length).put(hotelId);
+                }
+                buffer.position(slot + HOTEL_ID_BYTES);
+            }
+            for (ReservationCache.Entry entry : reservations) {
+                buffer.putLong(entry.getCachedAtMillis());
+                entry.getRecord().writeTo(buffer);
+            }
+            for (ReservationCache.PartitionEntry entry : partitions) {
+                CompactReservation[] records = entry.getRecords();
+                buffer.putLong(entry.getCachedAtMillis())
+                      .putInt(records.length == 0 ? HotelIdDictionary.NULL_CODE : records[0].getHotelCode())
+                      .putInt(records.length == 0 ? 0 : records[0].getStartEpochDay())
+                      .putInt(records.length)
+                      .putInt(0);
+            }
+            for (ReservationCache.PartitionEntry entry : partitions) {
+                for (CompactReservation record : entry.getRecords()) {
+                    record.writeTo(buffer);
+                }
+            }
+            buffer.position(0);
+            buffer.putInt(MAGIC)
+                  .putInt(VERSION)
+                  .putLong(System.currentTimeMillis())
+                  .putInt(hotelCount)
+                  .putInt(reservations.size())
+                  .putInt(partitions.size())
+                  .putInt(recordCount)
+                  .putLong(checksum(buffer, size));
+            buffer.force();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore a snapshot in the cache, expired entries are skipped.
+     *
+     * @param path
+     *      snapshot file
+     * @param cache
+     *      cache to fill
+     * @return
+     *      number of restored entries (0 if the file does not exist)
+     * @throws IOException
+     *      file cannot be read
+     */
+    static int read(Path path, ReservationCache cache) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Truncated snapshot");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a snapshot or unsupported version");
+            }
+            long createdAt       = buffer.getLong();
+            int hotelCount       = buffer.getInt();
+            int reservationCount = buffer.getInt();
+            int partitionCount   = buffer.getInt();
+            int recordCount      = buffer.getInt();
+            long crc             = buffer.getLong();
+            if (cache.isExpired(createdAt)) {
+                return 0;
+            }
+            if (checksum(buffer, size) != crc) {
+                throw new IOException("Corrupted snapshot (checksum)");
+            }
+
+            // Codes of the file are translated to codes of the cache dictionary
+            HotelIdDictionary dictionary = cache.getDictionary();
+            int[] codes = new int[hotelCount];
+            buffer.position(HEADER_BYTES);
+            for (int code = 0; code < hotelCount; code++) {
+                int slot = buffer.position();
+                short length = buffer.getShort();
+                if (length < 0) {
+                    codes[code] = HotelIdDictionary.NULL_CODE;
+                } else {
+                    byte[] hotelId = new byte[length];
+                    buffer.get(hotelId);
+                    codes[code] = dictionary.encode(new String(hotelId, StandardCharsets.UTF_8));
+                }
+                buffer.position(slot + HOTEL_ID_BYTES);
+            }
+            int restored = 0;
+            for (int i = 0; i < reservationCount; i++) {
+                long cachedAt = buffer.getLong();
+                CompactReservation record = recode(CompactReservation.readFrom(buffer), codes);
+                if (record != null && cache.restoreConfirmation(record, cachedAt)) {
+                    restored++;
+                }
+            }
+            int recordsStart = buffer.position() + partitionCount * PARTITION_BYTES;
+            ByteBuffer records = buffer.duplicate();
+            records.position(recordsStart);
+            for (int i = 0; i < partitionCount; i++) {
+                long cachedAt = buffer.getLong();
+                buffer.getInt();
+                buffer.getInt();
+                int count = buffer.getInt();
+                buffer.getInt();
+                CompactReservation[] partition = new CompactReservation[count];
+                boolean complete = true;
+                for (int j = 0; j < count; j++) {
+                    partition[j] = recode(CompactReservation.readFrom(records), codes);
+                    complete &= partition[j] != null;
+                }
+                if (complete && count > 0 && cache.restorePartition(partition[0].getHotelCode(), 
+                        partition[0].getStartEpochDay(), partition, cachedAt)) {
+                    restored++;
+                }
+            }
+            if (records.position() != recordsStart + (long) recordCount * CompactReservation.BYTES) {
+                throw new IOException("Inconsistent record count");
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * Same record with the hotel code of the cache dictionary, null if the hotel id was not saved.
+     */
+    private static CompactReservation recode(CompactReservation record, int[] codes) {
+        int code = record.getHotelCode();
+        if (code == HotelIdDictionary.NULL_CODE || code < 0 || code >= codes.length
+                || codes[code] == HotelIdDictionary.NULL_CODE) {
+            return null;
+        }
+        return new CompactReservation(codes[code], record.getStartEpochDay(), record.getEndEpochDay(),
+                record.getRoomNumber(), record.getGuestIdMsb(), record.getGuestIdLsb(),
+                record.getConfirmationMsb(), record.getConfirmationLsb());
+    }
+
+    private static long checksum(ByteBuffer buffer, long size) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_BYTES).limit((int) size);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import dev.cassandraguide.model.Reservation;
+import dev.cassandraguide.model.ReservationChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Changes made by this instance, kept in a preallocated ring buffer and pushed to subscribers.
+ *
+ * <ul>
+ *  <li>Writers are serialized (single writer at a time), publishing copies fields into the slot of the sequence,
+ *  no allocation.</li>
+ *  <li>Readers are lock-free: each slot is guarded by a seqlock (the sequence it holds, -1 while written), a reader
+ *  overrun by the writer detects it and resumes from the oldest available change.</li>
+ *  <li>Each subscriber has its own cursor and delivery thread, woken up on publish: a client that stops reading
+ *  only stalls its own delivery (and is told about the gap once overrun).</li>
+ *  <li>A watchdog drops subscribers whose send has been blocked longer than the send timeout.</li>
+ * </ul>
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationChangeStream implements AutoCloseable {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(ReservationChangeStream.class);
+
+    /** Slot being written. */
+    private static final long WRITING = -1;
+
+    /** Changes delivered to a subscriber before the head is read again. */
+    private static final int MAX_DELIVERIES_PER_ROUND = 1000;
+
+    private final int  capacity;
+    private final int  mask;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+
+    // Slots, one index per field
+    private final AtomicLongArray sequences;
+    private final byte[]   types;
+    private final long[]   timestamps;
+    private final String[] hotelIds;
+    private final String[] confirmationNumbers;
+    private final int[]    startDays;
+    private final int[]    endDays;
+    private final short[]  roomNumbers;
+    private final long[]   guestIdMsbs;
+    private final long[]   guestIdLsbs;
+
+    /** Next sequence to publish. */
+    private volatile long head;
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriptionNumber = new AtomicInteger();
+    private final Thread watchdog;
+    private volatile boolean running = true;
+
+    /**
+     * Receives the changes of a subscription, on the delivery thread of the subscription.
+     */
+    public interface Listener {
+
+        /**
+         * A change matching the subscription.
+         *
+         * @param change
+         *      change
+         * @throws IOException
+         *      the subscriber is gone, the subscription is cancelled
+         */
+        void onChange(ReservationChange change) throws IOException;
+
+        /**
+         * Changes have been overwritten before delivery (subscriber too slow or resumed too late).
+         *
+         * @param expected
+         *      next sequence expected
+         * @param oldest
+         *      oldest sequence available, delivery resumes there
+         * @throws IOException
+         *      the subscriber is gone, the subscription is cancelled
+         */
+        void onGap(long expected, long oldest) throws IOException;
+
+        /**
+         * No change for a while, keeps idle connections alive.
+         *
+         * @throws IOException
+         *      the subscriber is gone, the subscription is cancelled
+         */
+        void onHeartbeat() throws IOException;
+
+        /**
+         * The subscription has been dropped: a send took longer than the send timeout. Called on the watchdog
+         * thread, while the delivery thread may still be blocked in the send.
+         */
+        default void onTimeout() {
+        }
+    }
+
+    /**
+     * A subscriber, its filter, its position and its delivery thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Set<String> hotelIds;
+        private final Listener listener;
+        private final Thread deliverer;
+        /** Next sequence to deliver, only used by the delivery thread. */
+        private long cursor;
+        /** Send in progress and its start, checked by the watchdog. */
+        private volatile boolean sending;
+        private volatile long sendStartNanos;
+        private volatile boolean open = true;
+
+        private Subscription(long fromSequence, Set<String> hotelIds, Listener listener) {
+            this.cursor    = fromSequence;
+            this.hotelIds  = hotelIds;
+            this.listener  = listener;
+            this.deliverer = new Thread(this::deliverLoop, "change-stream-" + subscriptionNumber.incrementAndGet());
+            this.deliverer.setDaemon(true);
+        }
+
+        /** Stop the delivery of changes. */
+        @Override
+        public void close() {
+            open = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(deliverer);
+        }
+
+        private void deliverLoop() {
+            long lastActivity = System.nanoTime();
+            while (running && open) {
+                try {
+                    if (deliver(this)) {
+                        lastActivity = System.nanoTime();
+                        continue;
+                    }
+                    long now = System.nanoTime();
+                    if (now - lastActivity >= heartbeatNanos) {
+                        beginSend();
+                        listener.onHeartbeat();
+                        endSend();
+                        lastActivity = now;
+                    }
+                    if (cursor >= head) {
+                        LockSupport.parkNanos(this, heartbeatNanos - (now - lastActivity));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (open) {
+                        logger.debug("Subscriber removed: {}", e.getMessage());
+                    }
+                    close();
+                }
+            }
+        }
+
+        private void beginSend() {
+            sendStartNanos = System.nanoTime();
+            sending        = true;
+        }
+
+        private void endSend() {
+            sending = false;
+        }
+
+        private boolean timedOut(long now) {
+            return sending && now - sendStartNanos > sendTimeoutNanos;
+        }
+    }
+
+    /**
+     * Initialization of the stream.
+     *
+     * @param capacity
+     *      number of changes kept (rounded to a power of 2)
+     * @param heartbeatSeconds
+     *      delay without change before a heartbeat is sent to subscribers
+     * @param sendTimeoutSeconds
+     *      duration of a send after which the subscriber is dropped, 0 to never drop
+     */
+    public ReservationChangeStream(int capacity, int heartbeatSeconds, int sendTimeoutSeconds) {
+        this.capacity            = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask                = this.capacity - 1;
+        this.heartbeatNanos      = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        this.sendTimeoutNanos    = TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        this.sequences           = new AtomicLongArray(this.capacity);
+        this.types               = new byte[this.capacity];
+        this.timestamps          = new long[this.capacity];
+        this.hotelIds            = new String[this.capacity];
+        this.confirmationNumbers = new String[this.capacity];
+        this.startDays           = new int[this.capacity];
+        this.endDays             = new int[this.capacity];
+        this.roomNumbers         = new short[this.capacity];
+        this.guestIdMsbs         = new long[this.capacity];
+        this.guestIdLsbs         = new long[this.capacity];
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, WRITING);
+        }
+        if (sendTimeoutSeconds > 0) {
+            this.watchdog = new Thread(this::watch, "change-stream-watchdog");
+            this.watchdog.setDaemon(true);
+            this.watchdog.start();
+        } else {
+            this.watchdog = null;
+        }
+    }
+
+    /**
+     * Publish a change.
+     *
+     * @param type
+     *      kind of change
+     * @param reservation
+     *      reservation after the change (before for a delete)
+     * @return
+     *      sequence of the change
+     */
+    public long publish(ReservationChange.Type type, Reservation reservation) {
+        long sequence;
+        synchronized (this) {
+            sequence = head;
+            int slot = (int) (sequence & mask);
+            sequences.set(slot, WRITING);
+            // Field writes must not move before the slot is marked
+            VarHandle.storeStoreFence();
+            types[slot]               = (byte) type.ordinal();
+            timestamps[slot]          = System.currentTimeMillis();
+            hotelIds[slot]            = reservation.getHotelId();
+            confirmationNumbers[slot] = reservation.getConfirmationNumber();
+            startDays[slot]           = reservation.getStartDate() == null ? Integer.MIN_VALUE
+                                                                         : (int) reservation.getStartDate().toEpochDay();
+            endDays[slot]             = reservation.getEndDate() == null ? Integer.MIN_VALUE
+                                                                       : (int) reservation.getEndDate().toEpochDay();
+            roomNumbers[slot]         = reservation.getRoomNumber();
+            UUID guestId              = reservation.getGuestId();
+            guestIdMsbs[slot]         = guestId == null ? 0 : guestId.getMostSignificantBits();
+            guestIdLsbs[slot]         = guestId == null ? 0 : guestId.getLeastSignificantBits();
+            sequences.setRelease(slot, sequence);
+            head = sequence + 1;
+        }
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.deliverer);
+        }
+        return sequence;
+    }
+
+    /**
+     * Read a change.
+     *
+     * @param sequence
+     *      sequence of the change
+     * @return
+     *      change, null if it has been overwritten or is not published yet
+     */
+    public ReservationChange read(long sequence) {
+        int slot = (int) (sequence & mask);
+        if (sequences.getAcquire(slot) != sequence) {
+            return null;
+        }
+        byte   type               = types[slot];
+        long   timestamp          = timestamps[slot];
+        String hotelId            = hotelIds[slot];
+        String confirmationNumber = confirmationNumbers[slot];
+        int    startDay           = startDays[slot];
+        int    endDay             = endDays[slot];
+        short  roomNumber         = roomNumbers[slot];
+        long   guestIdMsb         = guestIdMsbs[slot];
+        long   guestIdLsb         = guestIdLsbs[slot];
+        // Field reads must not move after the validation
+        VarHandle.loadLoadFence();
+        if (sequences.get(slot) != sequence) {
+            return null;
+        }
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(hotelId);
+        reservation.setConfirmationNumber(confirmationNumber);
+        reservation.setStartDate(startDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(startDay));
+        reservation.setEndDate(endDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(endDay));
+        reservation.setRoomNumber(roomNumber);
+        reservation.setGuestId((guestIdMsb == 0 && guestIdLsb == 0) ? null : new UUID(guestIdMsb, guestIdLsb));
+        return new ReservationChange(sequence, ReservationChange.Type.values()[type], timestamp, reservation);
+    }
+
+    /**
+     * Subscribe to changes.
+     *
+     * @param fromSequence
+     *      first sequence to deliver, null for new changes only
+     * @param hotelIds
+     *      hotels of interest, empty for all
+     * @param listener
+     *      receives the changes
+     * @return
+     *      subscription, close to unsubscribe
+     */
+    public Subscription subscribe(Long fromSequence, Set<String> hotelIds, Listener listener) {
+        long start = fromSequence == null ? head : Math.max(0, Math.min(fromSequence, head));
+        Subscription subscription = new Subscription(start, hotelIds, listener);
+        subscriptions.add(subscription);
+        subscription.deliverer.start();
+        return subscription;
+    }
+
+    /**
+     * Next sequence to be published.
+     *
+     * @return
+     *      head of the stream
+     */
+    public long getHead() {
+        return head;
+    }
+
+    /**
+     * Oldest sequence still available.
+     *
+     * @return
+     *      tail of the stream
+     */
+    public long getOldest() {
+        return Math.max(0, head - capacity);
+    }
+
+    /**
+     * Number of subscribers.
+     *
+     * @return
+     *      subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        running = false;
+        subscriptions.forEach(Subscription::close);
+        if (watchdog != null) {
+            LockSupport.unpark(watchdog);
+            try {
+                watchdog.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Drop the subscribers blocked in a send for longer than the timeout. Their delivery thread is interrupted, it
+     * ends when the send returns or fails.
+     */
+    private void watch() {
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), sendTimeoutNanos / 4);
+        while (running) {
+            LockSupport.parkNanos(this, period);
+            long now = System.nanoTime();
+            for (Subscription subscription : subscriptions) {
+                if (subscription.timedOut(now)) {
+                    logger.info("Subscriber dropped, a send has been blocked for more than {} s", 
+                            TimeUnit.NANOSECONDS.toSeconds(sendTimeoutNanos));
+                    subscription.close();
+                    subscription.deliverer.interrupt();
+                    try {
+                        subscription.listener.onTimeout();
+                    } catch (RuntimeException e) {
+                        logger.debug("Unable to end a dropped subscription: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver the available changes to a subscriber.
+     *
+     * @return
+     *      true if changes have been delivered
+     */
+    private boolean deliver(Subscription subscription) throws IOException {
+        long current = head;
+        int delivered = 0;
+        while (subscription.open && subscription.cursor < current && delivered < MAX_DELIVERIES_PER_ROUND) {
+            ReservationChange change = read(subscription.cursor);
+            if (change == null) {
+                // Overwritten: jump to the oldest change still available
+                long oldest = Math.max(subscription.cursor + 1, getOldest());
+                subscription.beginSend();
+                subscription.listener.onGap(subscription.cursor, oldest);
+                subscription.endSend();
+                subscription.cursor = oldest;
+                continue;
+            }
+            subscription.cursor++;
+            if (subscription.hotelIds.isEmpty() || subscription.hotelIds.contains(change.getReservation().getHotelId())) {
+                subscription.beginSend();
+                subscription.listener.onChange(change);
+                subscription.endSend();
+                delivered++;
+            }
+        }
+        return delivered > 0;
+    }
+}
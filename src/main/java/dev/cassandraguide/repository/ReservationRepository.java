@@ -15,25 +15,66 @@
  */
 package dev.cassandraguide.repository;
 
-import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
-import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.deleteFrom;
-import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.alterTable;
 import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.createTable;
 import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.createType;
-import static com.datastax.oss.driver.api.querybuilder.relation.Relation.column;
+import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.leveledCompactionStrategy;
+import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.sizeTieredCompactionStrategy;
+import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.timeWindowCompactionStrategy;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.PreDestroy;
 
+import dev.cassandraguide.conf.ReservationProperties;
+import dev.cassandraguide.conf.TableOptionsProperties;
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.BulkCancellationProgress;
+import dev.cassandraguide.model.CalendarPage;
+import dev.cassandraguide.model.ConfirmationNumberStorageReport;
+import dev.cassandraguide.model.MultiGetResult;
+import dev.cassandraguide.model.OccupancyReport;
+import dev.cassandraguide.model.ReconciliationReport;
 import dev.cassandraguide.model.Reservation;
+import dev.cassandraguide.model.ReservationChange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
@@ -41,16 +82,39 @@ import org.springframework.stereotype.Repository;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DefaultConsistencyLevel;
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
 import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.ClusteringOrder;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.QueryConsistencyException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.api.core.type.DataType;
 import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.api.core.type.UserDefinedType;
-import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.SchemaBuilder.RowsPerPartition;
+import com.datastax.oss.driver.api.querybuilder.schema.CreateTable;
+import com.datastax.oss.driver.api.querybuilder.schema.CreateTableWithOptions;
+import com.datastax.oss.driver.api.querybuilder.schema.RelationOptions;
+import com.datastax.oss.driver.api.querybuilder.schema.compaction.CompactionStrategy;
+import com.datastax.oss.driver.api.querybuilder.schema.compaction.LeveledCompactionStrategy;
+import com.datastax.oss.driver.api.querybuilder.schema.compaction.TimeWindowCompactionStrategy;
+import com.datastax.oss.driver.api.querybuilder.schema.compaction.TimeWindowCompactionStrategy.CompactionWindowUnit;
 
 /**
  * The goal of this project is to provide a minimally functional implementation of a microservice 
@@ -66,13 +130,36 @@ public class ReservationRepository {
     /** Logger for the class. */
     private static final Logger logger = LoggerFactory.getLogger(ReservationRepository.class);
     
+    // Execution profiles of the operations, defined with 'cassandra.profiles.<operation>.*'
+    public static final String PROFILE_EXISTS                = "exists";
+    public static final String PROFILE_FIND                  = "findByConfirmationNumber";
+    public static final String PROFILE_FIND_ALL              = "findAll";
+    public static final String PROFILE_FIND_BY_HOTEL_DATE    = "findByHotelAndDate";
+    public static final String PROFILE_UPSERT                = "upsert";
+    public static final String PROFILE_DELETE                = "delete";
+    public static final String PROFILE_OCCUPANCY             = "occupancy";
+    public static final String PROFILE_CALENDAR              = "calendar";
+    public static final String PROFILE_CLAIM                 = "claim";
+    public static final String PROFILE_BACKFILL              = "backfill";
+    public static final String PROFILE_PATCH                 = "patch";
+    public static final String PROFILE_BULK_CANCEL           = "bulkCancel";
+    
+    /** Migration job copying schema v1 to schema v2, to complete before switching storage to 'uuid'. */
+    public static final String JOB_COPY_TO_V2                = "copy_reservations_to_v2";
+    
     // Reservation Schema Constants
     public static final CqlIdentifier TYPE_ADDRESS               = CqlIdentifier.fromCql("address");
     public static final CqlIdentifier TABLE_RESERVATION_BY_HOTEL_DATE =
             CqlIdentifier.fromCql("reservations_by_hotel_date");
+    public static final CqlIdentifier TABLE_RESERVATION_BY_HOTEL_MONTH =
+            CqlIdentifier.fromCql("reservations_by_hotel_month");
     public static final CqlIdentifier TABLE_RESERVATION_BY_CONFI = CqlIdentifier.fromCql("reservations_by_confirmation");
     public static final CqlIdentifier TABLE_RESERVATION_BY_GUEST = CqlIdentifier.fromCql("reservations_by_guest");
     public static final CqlIdentifier TABLE_GUESTS               = CqlIdentifier.fromCql("guests");
+    public static final CqlIdentifier TABLE_OCCUPANCY_BY_HOTEL_YEAR =
+            CqlIdentifier.fromCql("occupancy_by_hotel_year");
+    public static final CqlIdentifier TABLE_ROOM_NIGHT_CLAIMS    = CqlIdentifier.fromCql("room_night_claims");
+    public static final CqlIdentifier TABLE_BACKFILL_CHECKPOINTS = CqlIdentifier.fromCql("backfill_checkpoints");
     public static final CqlIdentifier STREET                     = CqlIdentifier.fromCql("street");
     public static final CqlIdentifier CITY                       = CqlIdentifier.fromCql("city");
     public static final CqlIdentifier STATE_PROVINCE             = CqlIdentifier.fromCql("state_or_province");
@@ -91,32 +178,230 @@ public class ReservationRepository {
     public static final CqlIdentifier EMAILS                     = CqlIdentifier.fromCql("emails");
     public static final CqlIdentifier PHONE_NUMBERS              = CqlIdentifier.fromCql("phone_numbers");
     public static final CqlIdentifier ADDRESSES                  = CqlIdentifier.fromCql("addresses");
+    public static final CqlIdentifier MONTH                      = CqlIdentifier.fromCql("month");
+    public static final CqlIdentifier YEAR                       = CqlIdentifier.fromCql("year");
+    public static final CqlIdentifier NIGHT                      = CqlIdentifier.fromCql("night");
+    public static final CqlIdentifier RESERVATIONS               = CqlIdentifier.fromCql("reservations");
+    public static final CqlIdentifier STATUS                     = CqlIdentifier.fromCql("status");
+    
+    /** Statements of a partition sent in one batch by bulk operations. */
+    private static final int BULK_BATCH_SIZE = 100;
+    
+    /** Size of a confirmation number as 'text' (36 characters) and as 'uuid'. */
+    public static final int CONFIRM_NUMBER_TEXT_BYTES = 36;
+    public static final int CONFIRM_NUMBER_UUID_BYTES = 16;
+    
+    /** Statements of the tables read first and written (schema v1 or v2 depending on the storage). */
+    private ReservationStatements statements;
+    
+    /** Migration only, statements of schema v1: written as well and read when a row is not yet in schema v2. */
+    private ReservationStatements legacyStatements;
+    
+    /** Optional, statements of the occupancy rollup maintained by upserts and deletes. */
+    private OccupancyRollup occupancy;
+    private final boolean occupancyEnabled;
+    private final LongAdder occupancyFailures = new LongAdder();
+    
+    /** Maintain 'reservations_by_hotel_month' (calendar view), largest page returned by the calendar. */
+    private final boolean calendarEnabled;
+    private final int calendarMaxPageSize;
     
-    private PreparedStatement psExistReservation;
-    private PreparedStatement psFindReservation;
-    private PreparedStatement psInsertReservationByHotelDate;
-    private PreparedStatement psInsertReservationByConfirmation;
-    private PreparedStatement psDeleteReservationByHotelDate;
-    private PreparedStatement psDeleteReservationByConfirmation;
-    private PreparedStatement psSearchReservation;
+    /** Optional, conditional claims of the nights of a room checked before writing a reservation. */
+    private RoomNightClaims claims;
+    private final boolean claimsEnabled;
+    private final int claimsMaxConcurrency;
+    
+    /** Optional, background jobs filling tables from 'reservations_by_confirmation', by name. */
+    private final Map<String, BackfillJob> backfills = new LinkedHashMap<>();
+    private final boolean backfillEnabled;
+    private final int backfillSplits;
+    private final int backfillConcurrency;
+    private final int backfillPageSize;
+    private final double backfillRowsPerSecond;
+    
+    /** Optional, jobs deleting (or only reporting) orphan rows of 'reservations_by_hotel_date', by job name. */
+    private final Map<String, OrphanReconciler> reconcilers = new LinkedHashMap<>();
+    private final boolean reconcilerEnabled;
+    private final double reconcilerRowsPerSecond;
+    private final long reconcilerGraceSeconds;
+    private final int reconcilerMaxSamples;
+    
+    /** Optional, cancelled rows of 'reservations_by_hotel_date' kept with a TTL, purged once their night is past. */
+    private final boolean softCancelEnabled;
+    private final int softCancelTtlSeconds;
+    private final long softCancelPurgeIntervalMinutes;
+    private final double softCancelPurgeRowsPerSecond;
+    private ScheduledExecutorService purgeScheduler;
+    
+    /** Cancellations of every reservation of a hotel over a range of dates, by identifier (finished ones expire). */
+    private final Map<String, BulkCancellation> bulkCancellations = new LinkedHashMap<>();
+    private final int bulkCancelConcurrency;
+    private final int bulkCancelMaxDays;
+    private final int bulkCancelRetentionMinutes;
+    private final int bulkCancelMaxRetained;
     
     /** CqlSession holding metadata to interact with Cassandra. */
     private CqlSession     cqlSession;
     private CqlIdentifier  keyspaceName;
     
-    /** External Initialization. */
+    /** Compaction, compression, caching... of the tables created. */
+    private final TableOptionsProperties tableOptions;
+    
+    /** Skip DDL when possible and prepare statements concurrently. */
+    private final boolean fastStartup;
+    
+    /** How confirmation numbers are stored: 'text' (schema v1), 'uuid' (schema v2) or both while migrating. */
+    private final ConfirmationNumberStorage confirmationNumberStorage;
+    
+    /** Confirmation numbers for new reservations. */
+    private final ConfirmationNumberGenerator confirmationNumberGenerator;
+    
+    /** Optional, groups concurrent writes to the same 'reservations_by_hotel_date' partition. */
+    private final WriteCoalescer writeCoalescer;
+    
+    /** Optional, hot working set restored from a snapshot on startup. */
+    private final ReservationCache cache;
+    
+    /** Optional, concurrent identical reads share one execution (by confirmation number, by hotel and date). */
+    private final SingleFlight<String, Optional<Reservation>> confirmationFlights;
+    private final SingleFlight<List<Object>, List<Reservation>> partitionFlights;
+    
+    /** Optional, writes to the query tables applied in the background from a local journal. */
+    private final WriteBehindApplier writeBehind;
+    
+    /** Write timestamps of write-behind mode, strictly increasing. */
+    private final AtomicLong lastTimestampMicros = new AtomicLong();
+    
+    /** Optional, changes made by this instance pushed to subscribers. */
+    private final ReservationChangeStream changeStream;
+    
+    /** Multi-get: maximum number of keys per call and of concurrent reads per call. */
+    private final int multiGetMaxKeys;
+    private final int multiGetMaxConcurrency;
+    
+    /** Execution profiles defined in the driver configuration, other operations use the default profile. */
+    private final Set<String> executionProfiles;
+    
+    /** Read at LOCAL_ONE first, then at LOCAL_QUORUM when nothing is found (write not replicated yet). */
+    private final boolean localOneReads;
+    private final LongAdder quorumFallbacks = new LongAdder();
+    
+    /** Adaptive limits on in-flight calls, reads and writes are shed independently. */
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    
+    /** External Initialization with default settings. */
     public ReservationRepository(
             @NonNull CqlSession cqlSession, 
             @Qualifier("keyspace") @NonNull CqlIdentifier keyspaceName) {
+        this(cqlSession, keyspaceName, new ReservationProperties());
+    }
+    
+    /** External Initialization with default table options. */
+    public ReservationRepository(
+            @NonNull CqlSession cqlSession, 
+            @Qualifier("keyspace") @NonNull CqlIdentifier keyspaceName,
+            @NonNull ReservationProperties properties) {
+        this(cqlSession, keyspaceName, properties, new TableOptionsProperties());
+    }
+    
+    /** External Initialization. */
+    @Autowired
+    public ReservationRepository(
+            @NonNull CqlSession cqlSession, 
+            @Qualifier("keyspace") @NonNull CqlIdentifier keyspaceName,
+            @NonNull ReservationProperties properties,
+            @NonNull TableOptionsProperties tableOptions) {
         this.cqlSession   = cqlSession;
+        this.tableOptions = tableOptions;
         this.keyspaceName = keyspaceName;
+        this.readLimiter  = new AdaptiveConcurrencyLimiter("read", 
+                properties.getReadInitialLimit(), properties.getReadMinLimit(), properties.getReadMaxLimit(),
+                properties.getLimiterRttTolerance(), properties.getLimiterSmoothing(),
+                properties.isLimiterEnabled(), properties.getRetryAfterSeconds());
+        this.writeLimiter = new AdaptiveConcurrencyLimiter("write", 
+                properties.getWriteInitialLimit(), properties.getWriteMinLimit(), properties.getWriteMaxLimit(),
+                properties.getLimiterRttTolerance(), properties.getLimiterSmoothing(),
+                properties.isLimiterEnabled(), properties.getRetryAfterSeconds());
         
+        this.fastStartup  = properties.isFastStartup();
+        this.occupancyEnabled = properties.isOccupancyEnabled();
+        this.calendarEnabled = properties.isCalendarEnabled();
+        this.calendarMaxPageSize = properties.getCalendarMaxPageSize();
+        this.claimsEnabled = properties.isClaimsEnabled();
+        this.claimsMaxConcurrency = properties.getClaimsMaxConcurrency();
+        this.backfillEnabled = properties.isBackfillEnabled();
+        this.backfillSplits = properties.getBackfillSplits();
+        this.backfillConcurrency = properties.getBackfillConcurrency();
+        this.backfillPageSize = properties.getBackfillPageSize();
+        this.backfillRowsPerSecond = properties.getBackfillRowsPerSecond();
+        this.reconcilerEnabled = properties.isReconcilerEnabled();
+        this.reconcilerRowsPerSecond = properties.getReconcilerRowsPerSecond();
+        this.reconcilerGraceSeconds = properties.getReconcilerGraceSeconds();
+        this.reconcilerMaxSamples = properties.getReconcilerMaxSamples();
+        this.softCancelEnabled = properties.isSoftCancelEnabled();
+        this.softCancelTtlSeconds = properties.getSoftCancelTtlSeconds();
+        this.softCancelPurgeIntervalMinutes = properties.getSoftCancelPurgeIntervalMinutes();
+        this.softCancelPurgeRowsPerSecond = properties.getSoftCancelPurgeRowsPerSecond();
+        this.bulkCancelConcurrency = properties.getBulkCancelConcurrency();
+        this.bulkCancelMaxDays = properties.getBulkCancelMaxDays();
+        this.bulkCancelRetentionMinutes = properties.getBulkCancelRetentionMinutes();
+        this.bulkCancelMaxRetained = properties.getBulkCancelMaxRetained();
+        this.executionProfiles = new HashSet<>(cqlSession.getContext().getConfig().getProfiles().keySet());
+        this.localOneReads = properties.isLocalOneReads();
+        this.multiGetMaxKeys = properties.getMultiGetMaxKeys();
+        this.multiGetMaxConcurrency = properties.getMultiGetMaxConcurrency();
+        this.confirmationNumberGenerator = ConfirmationNumberGenerator.of(properties.getConfirmationNumberGenerator());
+        this.confirmationNumberStorage   = ConfirmationNumberStorage.of(properties.getConfirmationNumberStorage());
+        this.writeCoalescer = properties.isCoalescerEnabled() ? new WriteCoalescer(cqlSession, 
+                properties.getCoalescerWindowMicros(), properties.getCoalescerMaxBatchSize()) : null;
+        
+        long start = System.nanoTime();
         // Will create tables (if they do not exist)
-        createReservationTables();
+        if (!fastStartup || !isSchemaPresent()) {
+            createReservationTables();
+        } else {
+            logger.info("Schema is already present, skipping DDL.");
+        }
+        long schemaReady = System.nanoTime();
         
         // Prepare Statements of reservation
         prepareStatements();
-        logger.info("Application initialized.");
+        if (backfillEnabled) {
+            registerBackfills();
+        }
+        long statementsReady = System.nanoTime();
+        
+        if (fastStartup) {
+            warmUpConnections();
+        }
+        long warm = System.nanoTime();
+        
+        this.cache = properties.isCacheEnabled() ? new ReservationCache(properties.getCacheMaxConfirmations(),
+                properties.getCacheMaxPartitions(), properties.getCacheTtlSeconds()) : null;
+        if (cache != null && !properties.getCacheSnapshotPath().isEmpty()) {
+            cache.enableSnapshots(Paths.get(properties.getCacheSnapshotPath()), 
+                    properties.getCacheSnapshotIntervalSeconds());
+        }
+        if (properties.isSingleFlightEnabled()) {
+            // Joining callers get their own copies, returned reservations are mutable
+            this.confirmationFlights = new SingleFlight<>(PROFILE_FIND, properties.getSingleFlightTimeoutMillis(),
+                    found -> found.map(Reservation::new));
+            this.partitionFlights = new SingleFlight<>(PROFILE_FIND_BY_HOTEL_DATE, 
+                    properties.getSingleFlightTimeoutMillis(),
+                    found -> found.stream().map(Reservation::new).collect(Collectors.toList()));
+        } else {
+            this.confirmationFlights = null;
+            this.partitionFlights    = null;
+        }
+        this.writeBehind = properties.isWriteBehindEnabled() ? openWriteBehind(properties) : null;
+        this.changeStream = properties.isChangeStreamEnabled() ? new ReservationChangeStream(
+                properties.getChangeStreamCapacity(), properties.getChangeStreamHeartbeatSeconds(), 
+                properties.getChangeStreamSendTimeoutSeconds()) : null;
+        logger.info("Application initialized (schema={}ms, prepare={}ms, warmup={}ms).",
+                TimeUnit.NANOSECONDS.toMillis(schemaReady - start),
+                TimeUnit.NANOSECONDS.toMillis(statementsReady - schemaReady),
+                TimeUnit.NANOSECONDS.toMillis(warm - statementsReady));
     }
     
     /**
@@ -125,6 +410,28 @@ public class ReservationRepository {
      */
     @PreDestroy
     public void cleanup() {
+        if (null != purgeScheduler) {
+            purgeScheduler.shutdownNow();
+        }
+        // Jobs save their position after the pages in progress, they resume from there
+        backfills.values().forEach(BackfillJob::close);
+        synchronized (bulkCancellations) {
+            bulkCancellations.values().forEach(BulkCancellation::close);
+        }
+        if (null != writeCoalescer) {
+            writeCoalescer.close();
+        }
+        if (null != cache) {
+            // Saves a last snapshot for the next start
+            cache.close();
+        }
+        if (null != changeStream) {
+            changeStream.close();
+        }
+        if (null != writeBehind) {
+            // Before the session, pending entries are applied if possible
+            writeBehind.close();
+        }
         if (null != cqlSession) {
             cqlSession.close();
             logger.info("+ CqlSession has been successfully closed");
@@ -141,8 +448,16 @@ public class ReservationRepository {
      *      true if the reservation exists, false if it does not
      */
     public boolean exists(String confirmationNumber) {
-        return cqlSession.execute(psExistReservation.bind(confirmationNumber))
-                         .getAvailableWithoutFetching() > 0;
+        if (cache != null && cache.getConfirmation(confirmationNumber) != null) {
+            return true;
+        }
+        return limited(readLimiter, () -> exists(statements, confirmationNumber)
+                         || (legacyStatements != null && exists(legacyStatements, confirmationNumber)));
+    }
+    
+    private boolean exists(ReservationStatements statements, String confirmationNumber) {
+        return statements.accepts(confirmationNumber) 
+                && read(statements.bindExist(confirmationNumber), PROFILE_EXISTS).getAvailableWithoutFetching() > 0;
     }
     
     /**
@@ -155,21 +470,174 @@ public class ReservationRepository {
      */
     @NonNull
     public Optional<Reservation> findByConfirmationNumber(@NonNull String confirmationNumber) {
-        
-        ResultSet resultSet = cqlSession.execute(psFindReservation.bind(confirmationNumber));
+        if (cache != null) {
+            ReservationCache.Entry cached = cache.getConfirmation(confirmationNumber);
+            if (cached != null) {
+                if (cached.markVerified()) {
+                    verify(confirmationNumber, cached);
+                }
+                return Optional.of(cache.toReservation(cached));
+            }
+        }
+        Optional<Reservation> reservation = (confirmationFlights == null) ? findAndCache(confirmationNumber)
+                : confirmationFlights.execute(confirmationNumber, () -> findAndCache(confirmationNumber));
         
         // Hint: an empty result might not be an error as this method is sometimes used to check whether a
         // reservation with this confirmation number exists
-        Row row = resultSet.one();
-        if (row == null) {
+        if (!reservation.isPresent()) {
             logger.debug("Unable to load reservation with confirmation number: " + confirmationNumber);
+        }
+        return reservation;
+    }
+    
+    private Optional<Reservation> findAndCache(String confirmationNumber) {
+        long readAt = System.currentTimeMillis();
+        long stamp  = (cache == null) ? 0 : cache.confirmationStamp(confirmationNumber);
+        Optional<Reservation> reservation = findStored(confirmationNumber);
+        if (reservation.isPresent() && cache != null) {
+            cache.putConfirmation(reservation.get(), readAt, stamp);
+        }
+        return reservation;
+    }
+    
+    /**
+     * Read a reservation from the tables, never from the cache.
+     */
+    private Optional<Reservation> findStored(String confirmationNumber) {
+        return findStored(confirmationNumber, this::read);
+    }
+    
+    /**
+     * Read-before-write (upsert, patch, delete): always at the consistency of the 'findByConfirmationNumber'
+     * profile, never at LOCAL_ONE. A stale replica returning an old version would not trigger the fallback and
+     * the write would compute moves, rollup deltas and claims from that version.
+     */
+    private Optional<Reservation> findForWrite(String confirmationNumber) {
+        return findStored(confirmationNumber, 
+                (statement, profile) -> QueryTracing.execute(cqlSession, profiled(statement, profile)));
+    }
+    
+    private Optional<Reservation> findStored(String confirmationNumber, 
+            BiFunction<BoundStatement, String, ResultSet> reader) {
+        return limited(readLimiter, () -> {
+            Optional<Reservation> found = find(statements, confirmationNumber, reader);
+            if (!found.isPresent() && legacyStatements != null) {
+                // Migration: the reservation may not have been copied to schema v2 yet (job 'copy_reservations_to_v2')
+                found = find(legacyStatements, confirmationNumber, reader);
+            }
+            return found;
+        });
+    }
+    
+    private Optional<Reservation> find(ReservationStatements statements, String confirmationNumber,
+            BiFunction<BoundStatement, String, ResultSet> reader) {
+        if (!statements.accepts(confirmationNumber)) {
             return Optional.empty();
         }
+        Row row = reader.apply(statements.bindFind(confirmationNumber), PROFILE_FIND).one();
+        return Optional.ofNullable(row).map(statements::mapRowToReservation);
+    }
+    
+    /**
+     * Retrieve many reservations in one call: cached reservations first, then concurrent single-partition reads
+     * (routed to a replica by the driver), at most 'reservation.mget.maxConcurrency' at a time. Each read goes
+     * through the read limiter; when it is full, the call waits for its own reads rather than being rejected.
+     *
+     * @param confirmationNumbers
+     *      confirmation numbers, duplicates are ignored
+     * @return
+     *      reservations found and confirmation numbers without reservation, in the order of the request
+     */
+    public MultiGetResult findByConfirmationNumbers(@NonNull Collection<String> confirmationNumbers) {
+        Set<String> keys = new LinkedHashSet<>(confirmationNumbers);
+        if (keys.size() > multiGetMaxKeys) {
+            throw new IllegalArgumentException("At most " + multiGetMaxKeys + " confirmation numbers per call");
+        }
+        Map<String, Reservation> found = new ConcurrentHashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String confirmationNumber : keys) {
+            ReservationCache.Entry cached = cache == null ? null : cache.getConfirmation(confirmationNumber);
+            if (cached != null) {
+                if (cached.markVerified()) {
+                    verify(confirmationNumber, cached);
+                }
+                found.put(confirmationNumber, cache.toReservation(cached));
+            } else {
+                remaining.add(confirmationNumber);
+            }
+        }
+        
+        long readAt = System.currentTimeMillis();
+        Semaphore fanOut = new Semaphore(multiGetMaxConcurrency);
+        List<CompletableFuture<?>> reads = new ArrayList<>(remaining.size());
+        for (String confirmationNumber : remaining) {
+            fanOut.acquireUninterruptibly();
+            AdaptiveConcurrencyLimiter.Permit permit;
+            for (;;) {
+                try {
+                    permit = readLimiter.acquire();
+                    break;
+                } catch (LoadSheddingException e) {
+                    CompletableFuture<?>[] pending = reads.stream()
+                            .filter(read -> !read.isDone())
+                            .toArray(CompletableFuture<?>[]::new);
+                    if (pending.length == 0) {
+                        // None of our reads in flight, the call is rejected
+                        fanOut.release();
+                        join(CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])));
+                        throw e;
+                    }
+                    // Wait for one of our reads to complete (its failure is reported below) before trying again
+                    CompletableFuture.anyOf(pending).handle((result, error) -> null).join();
+                }
+            }
+            AdaptiveConcurrencyLimiter.Permit readPermit = permit;
+            long stamp = (cache == null) ? 0 : cache.confirmationStamp(confirmationNumber);
+            reads.add(findAsync(statements, confirmationNumber)
+                    .thenCompose(reservation -> reservation.isPresent() || legacyStatements == null 
+                            ? CompletableFuture.completedFuture(reservation) 
+                            : findAsync(legacyStatements, confirmationNumber))
+                    .whenComplete((reservation, error) -> {
+                        fanOut.release();
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (error == null) {
+                            readPermit.success();
+                            reservation.ifPresent(r -> {
+                                found.put(confirmationNumber, r);
+                                if (cache != null) {
+                                    cache.putConfirmation(r, readAt, stamp);
+                                }
+                            });
+                        } else if (cause instanceof DriverTimeoutException
+                                || cause instanceof QueryConsistencyException
+                                || cause instanceof OverloadedException) {
+                            readPermit.dropped();
+                        } else {
+                            readPermit.ignore();
+                        }
+                    }));
+        }
+        join(CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])));
         
-        // Hint: If there is a result, create a new reservation object and set the values
-        // Bonus: factor the logic to extract a reservation from a row into a separate method
-        // (you will reuse it again later in getAllReservations())
-        return Optional.of(mapRowToReservation(row));
+        MultiGetResult result = new MultiGetResult();
+        for (String confirmationNumber : keys) {
+            Reservation reservation = found.get(confirmationNumber);
+            if (reservation == null) {
+                result.getMissing().add(confirmationNumber);
+            } else {
+                result.getFound().add(reservation);
+            }
+        }
+        return result;
+    }
+    
+    private CompletableFuture<Optional<Reservation>> findAsync(ReservationStatements statements, 
+            String confirmationNumber) {
+        if (!statements.accepts(confirmationNumber)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return readAsync(statements.bindFind(confirmationNumber), PROFILE_FIND)
+                .thenApply(rs -> Optional.ofNullable(rs.one()).map(statements::mapRowToReservation));
     }
     
     /**
@@ -183,29 +651,168 @@ public class ReservationRepository {
      */
      public String upsert(Reservation reservation) {
         Objects.requireNonNull(reservation);
-        if (null == reservation.getConfirmationNumber()) {
+        boolean generated = null == reservation.getConfirmationNumber();
+        if (generated) {
             // Generating a new reservation number if none has been provided
-            reservation.setConfirmationNumber(UUID.randomUUID().toString());
-        }
-        // Insert into 'reservations_by_hotel_date'
-        BoundStatement bsInsertReservationByHotel = 
-                psInsertReservationByHotelDate.bind(reservation.getHotelId(), reservation.getStartDate(),
-                        reservation.getEndDate(), reservation.getRoomNumber(), reservation.getConfirmationNumber(),
-                        reservation.getGuestId());
-        // Insert into 'reservations_by_confirmation'
-        BoundStatement bsInsertReservationByConfirmation = 
-                psInsertReservationByConfirmation.bind(reservation.getConfirmationNumber(), reservation.getHotelId(),
-                        reservation.getStartDate(), reservation.getEndDate(), reservation.getRoomNumber(),
-                        reservation.getGuestId());
-        BatchStatement batchInsertReservation = BatchStatement
-                    .builder(DefaultBatchType.LOGGED)
-                    .addStatement(bsInsertReservationByHotel)
-                    .addStatement(bsInsertReservationByConfirmation)
-                    .build();
-        cqlSession.execute(batchInsertReservation);
+            reservation.setConfirmationNumber(confirmationNumberGenerator.next());
+        }
+        if (!statements.accepts(reservation.getConfirmationNumber())) {
+            throw new IllegalArgumentException("Confirmation number must be a UUID");
+        }
+        // The version replaced may have moved to another hotel, date or room: its row of 'reservations_by_hotel_date'
+        // is deleted with the write, the rollup, the calendar and the claims are updated as well
+        Reservation previous = generated ? null : findForWrite(reservation.getConfirmationNumber()).orElse(null);
+        save(reservation, previous, false);
         return reservation.getConfirmationNumber();
     }
 
+    /**
+     * Apply a partial change to a reservation (PATCH). When the hotel, the start date and the room are unchanged,
+     * only the changed columns are written, with UPDATE statements sent concurrently instead of a LOGGED batch:
+     * each one targets a single partition, they are idempotent and share a write timestamp, so that a client
+     * retrying after a failure converges to the same rows. A change of the key is written as an upsert.
+     *
+     * @param confirmationNumber
+     *      unique identifier for confirmation
+     * @param changes
+     *      compute the new version from a copy of the stored one
+     * @return
+     *      new version, empty if the reservation does not exist
+     */
+    public Optional<Reservation> patch(String confirmationNumber, UnaryOperator<Reservation> changes) {
+        Objects.requireNonNull(confirmationNumber);
+        Optional<Reservation> stored = findForWrite(confirmationNumber);
+        if (!stored.isPresent()) {
+            return Optional.empty();
+        }
+        Reservation previous = stored.get();
+        Reservation current  = changes.apply(new Reservation(previous));
+        current.setConfirmationNumber(previous.getConfirmationNumber());
+        boolean moved = ReservationStatements.moved(previous, current);
+        if (moved || !ReservationStatements.changedColumns(previous, current).isEmpty()) {
+            save(current, previous, !moved);
+        }
+        return Optional.of(current);
+    }
+
+    /**
+     * Claim the nights, write a version and update what derives from it (rollup, claims, change stream).
+     *
+     * @param reservation
+     *      version written
+     * @param previous
+     *      version replaced, null for a new reservation
+     * @param partial
+     *      write the changed columns only, the key must be the same
+     */
+    private void save(Reservation reservation, Reservation previous, boolean partial) {
+        // Nights of the room are claimed first, nothing is written on conflict
+        List<LocalDate> claimed = (claims == null) ? List.of() : claims.claim(previous, reservation);
+        try {
+            if (partial) {
+                update(reservation, previous);
+            } else {
+                write(reservation, previous);
+            }
+        } catch (DriverTimeoutException | WriteTimeoutException e) {
+            // The write may have been applied, the nights stay claimed
+            throw e;
+        } catch (RuntimeException e) {
+            if (claims != null) {
+                claims.release(reservation, claimed);
+            }
+            throw e;
+        }
+        if (ReservationStatements.moved(previous, reservation)) {
+            // Cached search results of the previous partition still list the reservation
+            invalidate(previous);
+        }
+        if (claims != null && previous != null) {
+            claims.release(previous, RoomNightClaims.toRelease(previous, reservation));
+        }
+        updateOccupancy(previous, reservation, partial ? PROFILE_PATCH : PROFILE_UPSERT);
+        publish(ReservationChange.Type.UPSERT, reservation);
+    }
+
+    /**
+     * Write the changed columns of a reservation that keeps its key, one statement per partition. With write-behind
+     * or the coalescer the statements are written directly as well: they carry a timestamp from the same clock as
+     * the journal entries, the latest write wins whatever the order in which they are applied.
+     */
+    private void update(Reservation reservation, Reservation previous) {
+        invalidate(reservation);
+        long timestamp = nextTimestampMicros();
+        // Sent once the permit is granted: a rejected patch never reaches Cassandra
+        limited(writeLimiter, () -> {
+            List<CompletableFuture<?>> writes = new ArrayList<>();
+            for (ReservationStatements target : writtenStatements()) {
+                for (BoundStatement statement : target.bindUpdate(previous, reservation)) {
+                    writes.add(QueryTracing.executeAsync(cqlSession, 
+                            profiled(statement.setQueryTimestamp(timestamp), PROFILE_PATCH)));
+                }
+            }
+            return join(CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])));
+        });
+        invalidate(reservation);
+    }
+
+    /**
+     * Write a reservation to the tables, with write-behind, the coalescer or a LOGGED batch.
+     */
+    private void write(Reservation reservation, Reservation previous) {
+        invalidate(reservation);
+        if (writeBehind != null) {
+            writeBehind(WriteBehindJournal.Operation.INSERT, reservation, previous,
+                    ReservationStatements::bindInsertByConfirmation, ReservationStatements::bindInsertByHotelDate);
+            return;
+        }
+        if (writeCoalescer != null) {
+            // Hot partitions of 'reservations_by_hotel_date' are written in coalesced batches, the two tables
+            // are no longer updated atomically (no LOGGED batch) but the client still waits for both writes.
+            // Sent once the permit is granted: a rejected write never reaches Cassandra
+            limited(writeLimiter, () -> {
+                List<CompletableFuture<?>> writes = new ArrayList<>();
+                for (ReservationStatements target : writtenStatements()) {
+                    // Writes of the same room are never batched together (they would share a timestamp)
+                    writes.add(writeCoalescer.submit(List.of(target.getTableByHotelDate(), 
+                            reservation.getHotelId(), reservation.getStartDate()), reservation.getRoomNumber(),
+                            profiled(target.bindInsertByHotelDate(reservation), PROFILE_UPSERT)));
+                    for (BoundStatement moved : target.bindDeleteMovedByHotelDate(previous, reservation)) {
+                        writes.add(writeCoalescer.submit(List.of(target.getTableByHotelDate(), 
+                                previous.getHotelId(), previous.getStartDate()), previous.getRoomNumber(), 
+                                profiled(moved, PROFILE_UPSERT)));
+                    }
+                    writes.add(QueryTracing.executeAsync(cqlSession, 
+                            profiled(target.bindInsertByConfirmation(reservation), PROFILE_UPSERT)));
+                    List<BoundStatement> calendarRows = calendarStatements(target, previous, reservation);
+                    if (!calendarRows.isEmpty()) {
+                        BatchStatementBuilder calendar = BatchStatement.builder(DefaultBatchType.LOGGED);
+                        calendarRows.forEach(calendar::addStatement);
+                        writes.add(QueryTracing.executeAsync(cqlSession, 
+                                profiled(calendar.build(), PROFILE_UPSERT)));
+                    }
+                }
+                return join(CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])));
+            });
+            invalidate(reservation);
+            return;
+        }
+        BatchStatementBuilder batchInsertReservation = BatchStatement.builder(DefaultBatchType.LOGGED);
+        for (ReservationStatements target : writtenStatements()) {
+            // Insert into 'reservations_by_hotel_date' and 'reservations_by_confirmation'
+            batchInsertReservation.addStatement(target.bindInsertByHotelDate(reservation));
+            batchInsertReservation.addStatement(target.bindInsertByConfirmation(reservation));
+            // Delete the row of the previous version from 'reservations_by_hotel_date' if the reservation moved
+            target.bindDeleteMovedByHotelDate(previous, reservation).forEach(batchInsertReservation::addStatement);
+            // And 'reservations_by_hotel_month', rows of the previous version included
+            calendarStatements(target, previous, reservation).forEach(batchInsertReservation::addStatement);
+        }
+        limited(writeLimiter, () -> QueryTracing.execute(cqlSession, 
+                profiled(batchInsertReservation.build(), PROFILE_UPSERT)));
+        // Again, a concurrent read may have cached the previous version
+        invalidate(reservation);
+    }
+
     /**
      * We pick 'reservations_by_confirmation' table to list reservations
      * BUT we could have used 'reservations_by_hotel_date' (as no key provided in request)
@@ -214,11 +821,9 @@ public class ReservationRepository {
      *      list containing all reservations
      */
     public List<Reservation> findAll() {
-        return cqlSession.execute(selectFrom(keyspaceName, TABLE_RESERVATION_BY_CONFI).all().build())
-                  .all()                          // no paging we retrieve all objects
-                  .stream()                       // because we are good people
-                  .map(this::mapRowToReservation) // Mapping row as Reservation
-                  .collect(Collectors.toList());  // Back to list objects
+        return limited(readLimiter, () -> merge(Reservation::getConfirmationNumber, 
+                statements -> QueryTracing.execute(cqlSession, 
+                        profiled(statements.selectAll(keyspaceName), PROFILE_FIND_ALL))));
     }
       
     /**
@@ -230,32 +835,154 @@ public class ReservationRepository {
     public boolean delete(String confirmationNumber) {
 
         // Retrieving entire reservation in order to obtain the attributes we will need to delete from
-        // reservations_by_hotel_date table
-        Optional<Reservation> reservationToDelete = this.findByConfirmationNumber(confirmationNumber);
+        // reservations_by_hotel_date table (from the tables: a stale cache entry would delete the wrong rows)
+        Optional<Reservation> reservationToDelete = findForWrite(confirmationNumber);
 
         if (reservationToDelete.isPresent()) {
 
-            // Delete from 'reservations_by_hotel_date'
+            // Delete from 'reservations_by_hotel_date' (rewritten as cancelled with a TTL in soft-cancel mode)
             Reservation reservation = reservationToDelete.get();
-            BoundStatement bsDeleteReservationByHotelDate =
-                    psDeleteReservationByHotelDate.bind(reservation.getHotelId(),
-                            reservation.getStartDate(), reservation.getRoomNumber());
-
-            // Delete from 'reservations_by_confirmation'
-            BoundStatement bsDeleteReservationByConfirmation =
-                    psDeleteReservationByConfirmation.bind(confirmationNumber);
-
-            BatchStatement batchDeleteReservation = BatchStatement
-                    .builder(DefaultBatchType.LOGGED)
-                    .addStatement(bsDeleteReservationByHotelDate)
-                    .addStatement(bsDeleteReservationByConfirmation)
-                    .build();
-            cqlSession.execute(batchDeleteReservation);
+            invalidate(reservation);
+            if (writeBehind != null) {
+                writeBehind(WriteBehindJournal.Operation.DELETE, reservation, null,
+                        (target, r) -> target.bindDeleteByConfirmation(r.getConfirmationNumber()),
+                        ReservationStatements::bindDeleteByHotelDate);
+                releaseClaims(reservation);
+                updateOccupancy(reservation, null, PROFILE_DELETE);
+                publish(ReservationChange.Type.DELETE, reservation);
+                return true;
+            }
+            BatchStatementBuilder batchDeleteReservation = BatchStatement.builder(DefaultBatchType.LOGGED);
+            for (ReservationStatements target : writtenStatements()) {
+                batchDeleteReservation.addStatement(target.bindDeleteByHotelDate(reservation));
+                // Delete from 'reservations_by_confirmation'
+                batchDeleteReservation.addStatement(target.bindDeleteByConfirmation(confirmationNumber));
+                calendarStatements(target, reservation, null).forEach(batchDeleteReservation::addStatement);
+            }
+            limited(writeLimiter, () -> QueryTracing.execute(cqlSession, 
+                    profiled(batchDeleteReservation.build(), PROFILE_DELETE)));
+            invalidate(reservation);
+            releaseClaims(reservation);
+            updateOccupancy(reservation, null, PROFILE_DELETE);
+            publish(ReservationChange.Type.DELETE, reservation);
             return true;
         }
         return false;
     }
     
+    /**
+     * Cancel every reservation of a hotel starting within a range of dates, in the background. Starting the
+     * cancellation of the same hotel and dates again is safe: reservations already cancelled are no longer found,
+     * the others (after a failure) are cancelled.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first start date
+     * @param to
+     *      last start date (included)
+     * @return
+     *      progress, of the run in progress if the cancellation is running
+     */
+    public BulkCancellationProgress cancelAll(String hotelId, LocalDate from, LocalDate to) {
+        Objects.requireNonNull(hotelId);
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Last date must not be before the first one");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= bulkCancelMaxDays) {
+            throw new IllegalArgumentException("At most " + bulkCancelMaxDays + " days can be cancelled at once");
+        }
+        BulkCancellation cancellation;
+        synchronized (bulkCancellations) {
+            evictBulkCancellations();
+            cancellation = bulkCancellations.computeIfAbsent(BulkCancellation.id(hotelId, from, to), 
+                    id -> new BulkCancellation(hotelId, from, to, bulkCancelConcurrency, 
+                            day -> limited(readLimiter, () -> merge(Reservation::getRoomNumber, 
+                                    statements -> QueryTracing.execute(cqlSession, 
+                                            profiled(statements.bindSearch(hotelId, day), PROFILE_BULK_CANCEL)))),
+                            this::cancelPartition));
+            // Started under the lock: a finished run is never evicted while it is restarted
+            cancellation.start();
+        }
+        return cancellation.getProgress();
+    }
+    
+    /**
+     * Cancel the reservations of a partition of 'reservations_by_hotel_date'. Rows of the other tables are deleted
+     * first, then the rows of the partition: when a write fails, the partition still lists the reservations and the
+     * next run cancels them again. The rollup, the claims and the change stream are updated once the partition no
+     * longer lists a reservation, that is only once.
+     *
+     * <p>Like {@link #delete(String)}, the stored version of each reservation is read first: a row of the partition
+     * whose reservation is gone or has moved to another hotel, night or room is only removed from the partition,
+     * the reservation itself is left untouched. The timestamp is taken before the reads, a reservation moved while
+     * the partition is cancelled keeps its newer rows.
+     */
+    private void cancelPartition(List<Reservation> indexed) {
+        long timestamp = nextTimestampMicros();
+        List<Reservation> reservations = new ArrayList<>();
+        List<Reservation> orphans      = new ArrayList<>();
+        for (Reservation row : indexed) {
+            Optional<Reservation> stored = row.getConfirmationNumber() == null ? Optional.empty()
+                    : findForWrite(row.getConfirmationNumber());
+            if (stored.isPresent() && Objects.equals(stored.get().getHotelId(), row.getHotelId())
+                    && Objects.equals(stored.get().getStartDate(), row.getStartDate())
+                    && Objects.equals(stored.get().getRoomNumber(), row.getRoomNumber())) {
+                reservations.add(stored.get());
+            } else {
+                orphans.add(row);
+            }
+        }
+        reservations.forEach(this::invalidate);
+        List<BoundStatement> others    = new ArrayList<>();
+        List<BoundStatement> partition = new ArrayList<>();
+        for (ReservationStatements target : writtenStatements()) {
+            for (Reservation reservation : reservations) {
+                others.add(target.bindDeleteByConfirmation(reservation.getConfirmationNumber()));
+                others.addAll(calendarStatements(target, reservation, null));
+                partition.add(target.bindDeleteByHotelDate(reservation));
+            }
+            orphans.forEach(orphan -> partition.add(target.bindDeleteByHotelDate(orphan)));
+        }
+        limited(writeLimiter, () -> join(executeByPartition(others, timestamp)));
+        limited(writeLimiter, () -> join(executeByPartition(partition, timestamp)));
+        orphans.forEach(this::invalidate);
+        for (Reservation reservation : reservations) {
+            invalidate(reservation);
+            releaseClaims(reservation);
+            updateOccupancy(reservation, null, PROFILE_BULK_CANCEL);
+            publish(ReservationChange.Type.DELETE, reservation);
+        }
+    }
+    
+    /**
+     * Send statements grouped by partition, one single-partition UNLOGGED batch per partition (at most
+     * BULK_BATCH_SIZE statements each), every partition concurrently.
+     */
+    private CompletableFuture<Void> executeByPartition(List<BoundStatement> statements, long timestamp) {
+        Map<List<Object>, List<BoundStatement>> partitions = new LinkedHashMap<>();
+        for (BoundStatement statement : statements) {
+            ColumnDefinition column = statement.getPreparedStatement().getVariableDefinitions().get(0);
+            partitions.computeIfAbsent(Arrays.asList(column.getKeyspace(), column.getTable(), 
+                    statement.getRoutingKey()), key -> new ArrayList<>()).add(statement);
+        }
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        for (List<BoundStatement> group : partitions.values()) {
+            for (int i = 0; i < group.size(); i += BULK_BATCH_SIZE) {
+                List<BoundStatement> chunk = group.subList(i, Math.min(group.size(), i + BULK_BATCH_SIZE));
+                Statement<?> write = (chunk.size() == 1)
+                        ? profiled(chunk.get(0).setQueryTimestamp(timestamp), PROFILE_BULK_CANCEL)
+                        : profiled(BatchStatement.builder(DefaultBatchType.UNLOGGED)
+                                        .addStatements(new ArrayList<>(chunk))
+                                        .setQueryTimestamp(timestamp).build(), PROFILE_BULK_CANCEL);
+                writes.add(QueryTracing.executeAsync(cqlSession, write));
+            }
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }
+    
     /**
      * Search all reservation for an hotel id and LocalDate.
      *
@@ -269,86 +996,914 @@ public class ReservationRepository {
     public List<Reservation> findByHotelAndDate(String hotelId, LocalDate date) {
         Objects.requireNonNull(hotelId);
         Objects.requireNonNull(date);
-        return cqlSession.execute(psSearchReservation.bind(hotelId, date))
-                         .all()                          // no paging we retrieve all objects
-                         .stream()                       // because we are good people
-                         .map(this::mapRowToReservation) // Mapping row as Reservation
-                         .collect(Collectors.toList());  // Back to list objects
+        if (cache != null) {
+            ReservationCache.PartitionEntry cached = cache.getPartition(hotelId, date);
+            if (cached != null) {
+                if (cached.markVerified()) {
+                    // Restored from a snapshot, refreshed in the background
+                    cache.execute(() -> searchAndCache(hotelId, date));
+                }
+                return cache.toReservations(cached);
+            }
+        }
+        Supplier<List<Reservation>> read = (cache == null) ? () -> search(hotelId, date) 
+                : () -> searchAndCache(hotelId, date);
+        return (partitionFlights == null) ? read.get() : partitionFlights.execute(List.of(hotelId, date), read);
+    }
+    
+    private List<Reservation> search(String hotelId, LocalDate date) {
+        return limited(readLimiter, () -> merge(Reservation::getRoomNumber, 
+                statements -> QueryTracing.execute(cqlSession, profiled(statements.bindSearch(hotelId, date), 
+                        PROFILE_FIND_BY_HOTEL_DATE))));
+    }
+    
+    private List<Reservation> searchAndCache(String hotelId, LocalDate date) {
+        long readAt = System.currentTimeMillis();
+        long stamp  = cache.partitionStamp(hotelId, date);
+        List<Reservation> reservations = search(hotelId, date);
+        cache.putPartition(hotelId, date, reservations, readAt, stamp);
+        return reservations;
+    }
+    
+    /**
+     * Occupancy of a hotel from the rollup, one single-partition range read per calendar year of the period (a
+     * single read for a month or a quarter). Counts are approximate, see {@link #reconcileOccupancy}.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param from
+     *      first night
+     * @param to
+     *      last night (included)
+     * @param rooms
+     *      rooms of the hotel for the occupancy rate, may be null
+     * @return
+     *      statistics of the period, empty if the rollup is disabled
+     */
+    public Optional<OccupancyReport> occupancy(String hotelId, LocalDate from, LocalDate to, Integer rooms) {
+        Objects.requireNonNull(hotelId);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Period ends before it starts");
+        }
+        if (occupancy == null) {
+            return Optional.empty();
+        }
+        Map<LocalDate, Long> reservationsPerNight = new LinkedHashMap<>();
+        for (LocalDate night = from; !night.isAfter(to); night = night.plusDays(1)) {
+            reservationsPerNight.put(night, 0L);
+        }
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            LocalDate first = year == from.getYear() ? from : LocalDate.of(year, 1, 1);
+            LocalDate last  = year == to.getYear() ? to : LocalDate.of(year, 12, 31);
+            ResultSet rs = limited(readLimiter, () -> QueryTracing.execute(cqlSession, 
+                    profiled(occupancy.bindRange(hotelId, first, last), PROFILE_OCCUPANCY)));
+            for (Row row : rs) {
+                reservationsPerNight.put(row.getLocalDate(NIGHT), row.getLong(RESERVATIONS));
+            }
+        }
+        return Optional.of(new OccupancyReport(hotelId, from, to, reservationsPerNight, rooms));
+    }
+    
+    /**
+     * Rebuild the rollup of a hotel for a month from its calendar ('reservations_by_hotel_month'), the counters
+     * being approximate (see {@link OccupancyRollup}). A write of the hotel during the rebuild may be counted twice
+     * or missed: run it again once the hotel is quiet to converge.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month to rebuild
+     * @return
+     *      occupancy of the month after the rebuild, empty if the rollup or the calendar is disabled
+     */
+    public Optional<OccupancyReport> reconcileOccupancy(String hotelId, YearMonth month) {
+        Objects.requireNonNull(hotelId);
+        Objects.requireNonNull(month);
+        if (occupancy == null || !calendarEnabled) {
+            return Optional.empty();
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to   = month.atEndOfMonth();
+        // Whole partition, further pages fetched while iterating
+        List<Reservation> reservations = new ArrayList<>();
+        limited(readLimiter, () -> QueryTracing.execute(cqlSession, profiled(
+                statements.bindCalendar(hotelId, month, calendarMaxPageSize, null), PROFILE_CALENDAR)))
+                .forEach(row -> reservations.add(statements.mapRowToReservation(row)));
+        Map<LocalDate, Long> stored = new TreeMap<>();
+        limited(readLimiter, () -> QueryTracing.execute(cqlSession, 
+                profiled(occupancy.bindRange(hotelId, from, to), PROFILE_OCCUPANCY)))
+                .forEach(row -> stored.put(row.getLocalDate(NIGHT), row.getLong(RESERVATIONS)));
+        Map<LocalDate, Long> corrections = OccupancyRollup.corrections(reservations, stored, from, to);
+        if (!corrections.isEmpty()) {
+            logger.info("Occupancy of hotel {} in {}: {} nights corrected", hotelId, month, corrections.size());
+            limited(writeLimiter, () -> QueryTracing.execute(cqlSession, 
+                    profiled(occupancy.bindCorrections(hotelId, corrections), PROFILE_OCCUPANCY)));
+        }
+        return occupancy(hotelId, from, to, null);
+    }
+    
+    /**
+     * Reservations of a hotel in house during a month, by start date and room number, from a single partition of
+     * 'reservations_by_hotel_month' read page by page.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month of the calendar
+     * @param pageSize
+     *      reservations per page, at most 'reservation.calendar.maxPageSize'
+     * @param pagingState
+     *      returned with the previous page, null for the first page
+     * @return
+     *      a page of the calendar, empty if the calendar is disabled
+     */
+    public Optional<CalendarPage> calendar(String hotelId, YearMonth month, int pageSize, String pagingState) {
+        Objects.requireNonNull(hotelId);
+        Objects.requireNonNull(month);
+        if (!calendarEnabled) {
+            return Optional.empty();
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        ByteBuffer position = pagingState == null ? null : ByteBuffer.wrap(Base64.getUrlDecoder().decode(pagingState));
+        // The calendar table is new in both schema versions while migrating, the primary one is complete
+        ResultSet rs = limited(readLimiter, () -> QueryTracing.execute(cqlSession, profiled(
+                statements.bindCalendar(hotelId, month, Math.min(pageSize, calendarMaxPageSize), position), 
+                PROFILE_CALENDAR)));
+        List<Reservation> reservations = new ArrayList<>(rs.getAvailableWithoutFetching());
+        // Current page only, iterating further would fetch the next pages
+        while (rs.getAvailableWithoutFetching() > 0) {
+            reservations.add(statements.mapRowToReservation(rs.one()));
+        }
+        ByteBuffer next = rs.getExecutionInfo().getPagingState();
+        String nextPage = null;
+        if (next != null) {
+            byte[] bytes = new byte[next.remaining()];
+            next.duplicate().get(bytes);
+            nextPage = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+        return Optional.of(new CalendarPage(hotelId, month.toString(), reservations, nextPage));
     }
 
     /**
-     * Utility method to marshal a row as expected Reservation Bean.
+     * Getter accessor for attribute 'readLimiter'.
      *
-     * @param row
-     *      current row from ResultSet
      * @return
-     *      object
+     *       current value of 'readLimiter'
      */
-    private Reservation mapRowToReservation(Row row) {
-        Reservation reservation = new Reservation();
-        reservation.setHotelId(row.getString(HOTEL_ID));
-        reservation.setConfirmationNumber(row.getString(CONFIRM_NUMBER));
-        reservation.setGuestId(row.getUuid(GUEST_ID));
-        reservation.setRoomNumber(row.getShort(ROOM_NUMBER));
-        reservation.setStartDate(row.getLocalDate(START_DATE));
-        reservation.setEndDate(row.getLocalDate(END_DATE));
-        return reservation;
+    public AdaptiveConcurrencyLimiter getReadLimiter() {
+        return readLimiter;
+    }
+
+    /**
+     * Getter accessor for attribute 'writeLimiter'.
+     *
+     * @return
+     *       current value of 'writeLimiter'
+     */
+    public AdaptiveConcurrencyLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+
+    /**
+     * Getter accessor for attribute 'cache'.
+     *
+     * @return
+     *       current value of 'cache', null when disabled
+     */
+    public ReservationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Reads retried at LOCAL_QUORUM because nothing was found at LOCAL_ONE.
+     *
+     * @return
+     *      number of fallbacks since startup
+     */
+    public long getQuorumFallbacks() {
+        return quorumFallbacks.sum();
+    }
+
+    /**
+     * Rollup updates that failed (counters drifted) since startup.
+     *
+     * @return
+     *      number of failures
+     */
+    public long getOccupancyFailures() {
+        return occupancyFailures.sum();
     }
     
     /**
-     * Create Keyspace and relevant tables as per defined in 'reservation.cql'
+     * Request coalescing of the reads by confirmation number and by hotel and date.
+     *
+     * @return
+     *      single-flight groups, empty when disabled
      */
-    public void createReservationTables() {
-        
-        /**
-         * Create TYPE 'Address' if not exists
-         * 
-         * CREATE TYPE reservation.address (
-         *   street text,
-         *   city text,
-         *   state_or_province text,
-         *   postal_code text,
-         *   country text
-         * );
-         */
-        cqlSession.execute(
-                createType(keyspaceName, TYPE_ADDRESS)
-                .ifNotExists()
-                .withField(STREET, DataTypes.TEXT)
-                .withField(CITY, DataTypes.TEXT)
-                .withField(STATE_PROVINCE, DataTypes.TEXT)
-                .withField(POSTAL_CODE, DataTypes.TEXT)
-                .withField(COUNTRY, DataTypes.TEXT)
-                .build());
-        logger.debug("+ Type '{}' has been created (if needed)", TYPE_ADDRESS.asInternal());
-        
-        /** 
-         * CREATE TABLE reservation.reservations_by_hotel_date (
-         *  hotel_id text,
-         *  start_date date,
-         *  end_date date,
-         *  room_number smallint,
-         *  confirm_number text,
-         *  guest_id uuid,
-         *  PRIMARY KEY ((hotel_id, start_date), room_number)
-         * );
-         */
-        cqlSession.execute(createTable(keyspaceName, TABLE_RESERVATION_BY_HOTEL_DATE)
+    public List<SingleFlight<?, ?>> getSingleFlights() {
+        return (confirmationFlights == null) ? List.of() : List.of(confirmationFlights, partitionFlights);
+    }
+    
+    /**
+     * Writes rejected because a night of the room was held by another reservation.
+     *
+     * @return
+     *      number of conflicts since startup, 0 when claims are disabled
+     */
+    public long getClaimConflicts() {
+        return claims == null ? 0 : claims.getConflicts();
+    }
+    
+    /**
+     * Background jobs filling tables from 'reservations_by_confirmation'.
+     *
+     * @return
+     *      jobs, empty when backfills are disabled
+     */
+    public Collection<BackfillJob> getBackfills() {
+        return backfills.values();
+    }
+    
+    /**
+     * Background job by name.
+     *
+     * @param name
+     *      name of the job (name of the table it fills)
+     * @return
+     *      job if it exists
+     */
+    public Optional<BackfillJob> getBackfill(String name) {
+        return Optional.ofNullable(backfills.get(name));
+    }
+    
+    /**
+     * Reports of the reconciliations of 'reservations_by_hotel_date'.
+     *
+     * @return
+     *      current or last run of each reconciliation job, empty when disabled
+     */
+    public List<ReconciliationReport> getReconciliations() {
+        return reconcilers.entrySet().stream()
+                .map(reconciler -> reconciler.getValue().report(reconciler.getKey(), 
+                        backfills.get(reconciler.getKey()).getProgress()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Bulk cancellations started since startup.
+     *
+     * @return
+     *      progress of each cancellation
+     */
+    public List<BulkCancellationProgress> getBulkCancellations() {
+        synchronized (bulkCancellations) {
+            evictBulkCancellations();
+            return bulkCancellations.values().stream()
+                    .map(BulkCancellation::getProgress)
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    /**
+     * Progress of a bulk cancellation.
+     *
+     * @param id
+     *      identifier of the cancellation
+     * @return
+     *      progress, empty if no cancellation has this identifier
+     */
+    public Optional<BulkCancellationProgress> getBulkCancellation(String id) {
+        synchronized (bulkCancellations) {
+            evictBulkCancellations();
+            return Optional.ofNullable(bulkCancellations.get(id)).map(BulkCancellation::getProgress);
+        }
+    }
+    
+    /**
+     * Forget the completed and failed cancellations past the retention delay, then the oldest ones beyond the
+     * maximum number kept. Must be called holding the lock of 'bulkCancellations'.
+     */
+    private void evictBulkCancellations() {
+        Instant expiry = Instant.now().minus(bulkCancelRetentionMinutes, ChronoUnit.MINUTES);
+        List<BulkCancellation> finished = bulkCancellations.values().stream()
+                .filter(cancellation -> cancellation.getCompletedAt() != null)
+                .sorted(Comparator.comparing(BulkCancellation::getCompletedAt))
+                .collect(Collectors.toList());
+        for (int i = 0; i < finished.size(); i++) {
+            BulkCancellation cancellation = finished.get(i);
+            if (finished.size() - i > bulkCancelMaxRetained || cancellation.getCompletedAt().isBefore(expiry)) {
+                bulkCancellations.remove(cancellation.getId());
+            }
+        }
+    }
+    
+    /**
+     * Getter accessor for attribute 'writeBehind'.
+     *
+     * @return
+     *       current value of 'writeBehind', null when disabled
+     */
+    public WriteBehindApplier getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Getter accessor for attribute 'changeStream'.
+     *
+     * @return
+     *       current value of 'changeStream', null when disabled
+     */
+    public ReservationChangeStream getChangeStream() {
+        return changeStream;
+    }
+
+    /**
+     * Estimate the storage saved by confirmation numbers as 'uuid', from the partition counts of
+     * 'system.size_estimates' (refreshed every 5 minutes by Cassandra) and the size of a value in each type.
+     *
+     * @return
+     *      report for every table holding a confirmation number
+     */
+    public ConfirmationNumberStorageReport confirmationNumberStorageReport() {
+        ConfirmationNumberStorageReport report = new ConfirmationNumberStorageReport();
+        report.setStorage(confirmationNumberStorage.name().toLowerCase());
+        report.setTextValueBytes(CONFIRM_NUMBER_TEXT_BYTES);
+        report.setUuidValueBytes(CONFIRM_NUMBER_UUID_BYTES);
+        int savedPerValue = CONFIRM_NUMBER_TEXT_BYTES - CONFIRM_NUMBER_UUID_BYTES;
+        for (CqlIdentifier table : List.of(TABLE_RESERVATION_BY_HOTEL_DATE, TABLE_RESERVATION_BY_CONFI,
+                                           TABLE_RESERVATION_BY_GUEST, TABLE_GUESTS)) {
+            ConfirmationNumberStorageReport.TableStorage tableStorage = new ConfirmationNumberStorageReport.TableStorage();
+            tableStorage.setTable(table.asInternal());
+            tableStorage.setConfirmNumberInKey(TABLE_RESERVATION_BY_CONFI.equals(table));
+            long[] text = sizeEstimate(ReservationStatements.table(table, false));
+            long[] uuid = sizeEstimate(ReservationStatements.table(table, true));
+            tableStorage.setTextPartitions(text[0]);
+            tableStorage.setTextMeanPartitionSize(text[1]);
+            tableStorage.setUuidPartitions(uuid[0]);
+            tableStorage.setUuidMeanPartitionSize(uuid[1]);
+            // Each partition holds at least one confirmation number (exactly one when it is the key)
+            long partitions = Math.max(0, Math.max(text[0], uuid[0]));
+            tableStorage.setDataBytesSaved(partitions * savedPerValue);
+            tableStorage.setIndexBytesSaved(tableStorage.isConfirmNumberInKey() ? partitions * savedPerValue : 0);
+            report.getTables().add(tableStorage);
+            report.setEstimatedBytesSaved(report.getEstimatedBytesSaved()
+                    + tableStorage.getDataBytesSaved() + tableStorage.getIndexBytesSaved());
+        }
+        return report;
+    }
+
+    /**
+     * Sum the estimates of the local token ranges for a table.
+     *
+     * @param table
+     *      table name
+     * @return
+     *      partition count and mean partition size, -1 for both when the table does not exist
+     */
+    private long[] sizeEstimate(CqlIdentifier table) {
+        boolean exists = cqlSession.getMetadata().getKeyspace(keyspaceName)
+                                   .flatMap(keyspace -> keyspace.getTable(table)).isPresent();
+        if (!exists) {
+            return new long[] { -1, -1 };
+        }
+        long partitions = 0;
+        long bytes      = 0;
+        for (Row row : cqlSession.execute(SimpleStatement.newInstance(
+                "SELECT partitions_count, mean_partition_size FROM system.size_estimates "
+                + "WHERE keyspace_name = ? AND table_name = ?", keyspaceName.asInternal(), table.asInternal()))) {
+            partitions += row.getLong("partitions_count");
+            bytes      += row.getLong("partitions_count") * row.getLong("mean_partition_size");
+        }
+        return new long[] { partitions, partitions == 0 ? 0 : bytes / partitions };
+    }
+    
+    /**
+     * Execute a call to Cassandra within the limits, the call is rejected with a {@link LoadSheddingException}
+     * when too many calls are already in flight. Timeouts and overloaded errors shrink the limit.
+     *
+     * @param limiter
+     *      read or write limiter
+     * @param call
+     *      call to Cassandra
+     * @return
+     *      result of the call
+     */
+    private <T> T limited(AdaptiveConcurrencyLimiter limiter, Supplier<T> call) {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        try {
+            T result = call.get();
+            permit.success();
+            return result;
+        } catch (DriverTimeoutException | QueryConsistencyException | OverloadedException timeout) {
+            permit.dropped();
+            throw timeout;
+        } catch (RuntimeException e) {
+            permit.ignore();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for an asynchronous call, driver errors are rethrown as is (not wrapped).
+     *
+     * @param future
+     *      pending call
+     * @return
+     *      result of the call
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Check in the background a reservation restored from a snapshot: it is evicted if it has been deleted or
+     * written since it was cached.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     * @param cached
+     *      cache entry
+     */
+    private void verify(String confirmationNumber, ReservationCache.Entry cached) {
+        cache.execute(() -> {
+            try {
+                Row row = limited(readLimiter, 
+                        () -> read(statements.bindWriteTime(confirmationNumber), PROFILE_FIND).one());
+                if (row == null || row.isNull(0) || row.getLong(0) / 1000 > cached.getCachedAtMillis()) {
+                    cache.invalidateConfirmation(confirmationNumber);
+                }
+            } catch (RuntimeException e) {
+                // Unable to check, do not keep it
+                cache.invalidateConfirmation(confirmationNumber);
+            }
+        });
+    }
+    
+    /**
+     * Write-behind mode: 'reservations_by_confirmation' is written synchronously, then the write to
+     * 'reservations_by_hotel_date' (and the delete of the previous row when the reservation moved) is appended to
+     * the journal. When the journal is full, both are written
+     * synchronously. Every statement carries the same write timestamp so that the applier never overrides a newer
+     * write, whatever the order. Rows of 'reservations_by_hotel_month' are written synchronously as well.
+     */
+    private void writeBehind(WriteBehindJournal.Operation operation, Reservation reservation, Reservation previous,
+            BiFunction<ReservationStatements, Reservation, BoundStatement> primary,
+            BiFunction<ReservationStatements, Reservation, BoundStatement> secondary) {
+        long timestamp = nextTimestampMicros();
+        String profile = operation == WriteBehindJournal.Operation.INSERT ? PROFILE_UPSERT : PROFILE_DELETE;
+        List<ReservationStatements> targets = writtenStatements();
+        // Statements of a batch are written with the timestamp of the batch
+        BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED).setQueryTimestamp(timestamp);
+        List<WriteBehindJournal.Entry> entries = new ArrayList<>();
+        boolean insert = operation == WriteBehindJournal.Operation.INSERT;
+        int statementCount = 0;
+        for (ReservationStatements target : targets) {
+            batch.addStatement(primary.apply(target, reservation));
+            for (BoundStatement row : insert ? calendarStatements(target, previous, reservation) 
+                                             : calendarStatements(target, reservation, null)) {
+                batch.addStatement(row);
+                statementCount++;
+            }
+            boolean uuid = target == statements && confirmationNumberStorage.usesUuid();
+            entries.add(new WriteBehindJournal.Entry(operation, uuid, timestamp, reservation));
+            if (insert && ReservationStatements.moved(previous, reservation)) {
+                // Applied with the insert: the row of the previous version does not outlive it
+                entries.add(new WriteBehindJournal.Entry(WriteBehindJournal.Operation.DELETE, uuid, timestamp, 
+                        previous));
+            }
+            statementCount++;
+        }
+        Statement<?> write = statementCount == 1 ? profiled(primary.apply(targets.get(0), reservation)
+                .setQueryTimestamp(timestamp), profile) : profiled(batch.build(), profile);
+        limited(writeLimiter, () -> QueryTracing.execute(cqlSession, write));
+        if (!writeBehind.getJournal().append(entries)) {
+            logger.debug("Write-behind journal is full, writing synchronously");
+            BatchStatementBuilder fallback = BatchStatement.builder(DefaultBatchType.LOGGED)
+                    .setQueryTimestamp(timestamp);
+            for (ReservationStatements target : targets) {
+                fallback.addStatement(secondary.apply(target, reservation));
+                if (insert) {
+                    target.bindDeleteMovedByHotelDate(previous, reservation).forEach(fallback::addStatement);
+                }
+            }
+            limited(writeLimiter, () -> QueryTracing.execute(cqlSession, profiled(fallback.build(), profile)));
+        }
+        invalidate(reservation);
+    }
+    
+    /**
+     * Open the journal and start applying it (entries left by a previous process first).
+     */
+    private WriteBehindApplier openWriteBehind(ReservationProperties properties) {
+        try {
+            WriteBehindJournal journal = new WriteBehindJournal(Paths.get(properties.getWriteBehindJournalPath()), 
+                    properties.getWriteBehindJournalSizeMb() * 1024 * 1024);
+            return new WriteBehindApplier(cqlSession, journal, entry -> {
+                    ReservationStatements target = statementsOf(entry.isUuid());
+                    if (target == null) {
+                        return null;
+                    }
+                    BoundStatement statement = entry.getOperation() == WriteBehindJournal.Operation.INSERT
+                            ? target.bindInsertByHotelDate(entry.getReservation())
+                            : target.bindDeleteByHotelDate(entry.getReservation());
+                    return profiled(statement.setQueryTimestamp(entry.getTimestampMicros()), 
+                            entry.getOperation() == WriteBehindJournal.Operation.INSERT ? PROFILE_UPSERT : PROFILE_DELETE);
+                },
+                entry -> List.of(entry.isUuid(), entry.getReservation().getHotelId(), 
+                                 entry.getReservation().getStartDate()),
+                entry -> invalidate(entry.getReservation()),
+                properties.getWriteBehindBatchSize());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open write-behind journal", e);
+        }
+    }
+    
+    /**
+     * Statements of a schema version, null if no longer in use (journal entries of a previous configuration).
+     */
+    private ReservationStatements statementsOf(boolean uuid) {
+        if (!uuid && legacyStatements != null) {
+            return legacyStatements;
+        }
+        return uuid == confirmationNumberStorage.usesUuid() ? statements : null;
+    }
+    
+    /**
+     * Execution profile of the operation, when defined.
+     */
+    private <S extends Statement<S>> S profiled(S statement, String profile) {
+        return executionProfiles.contains(profile) ? statement.setExecutionProfileName(profile) : statement;
+    }
+    
+    /**
+     * Single-partition read with the profile of the operation. With LOCAL_ONE reads, a single replica answers
+     * first and the read is retried at LOCAL_QUORUM only when nothing is found: that replica may have missed a recent
+     * write, rows found are not checked (LOCAL_ONE guarantees).
+     */
+    private ResultSet read(BoundStatement statement, String profile) {
+        BoundStatement profiledStatement = profiled(statement, profile);
+        if (!localOneReads) {
+            return QueryTracing.execute(cqlSession, profiledStatement);
+        }
+        ResultSet rs = QueryTracing.execute(cqlSession, 
+                profiledStatement.setConsistencyLevel(DefaultConsistencyLevel.LOCAL_ONE));
+        if (rs.getAvailableWithoutFetching() > 0) {
+            return rs;
+        }
+        quorumFallbacks.increment();
+        return QueryTracing.execute(cqlSession, 
+                profiledStatement.setConsistencyLevel(DefaultConsistencyLevel.LOCAL_QUORUM));
+    }
+    
+    /**
+     * Asynchronous version of {@link #read(BoundStatement, String)}.
+     */
+    private CompletableFuture<AsyncResultSet> readAsync(BoundStatement statement, String profile) {
+        BoundStatement profiledStatement = profiled(statement, profile);
+        if (!localOneReads) {
+            return QueryTracing.executeAsync(cqlSession, profiledStatement);
+        }
+        // The fallback runs on a driver thread, it is not traced
+        return QueryTracing.executeAsync(cqlSession, 
+                        profiledStatement.setConsistencyLevel(DefaultConsistencyLevel.LOCAL_ONE))
+                .thenCompose(rs -> {
+                    if (rs.remaining() > 0) {
+                        return CompletableFuture.completedFuture(rs);
+                    }
+                    quorumFallbacks.increment();
+                    return cqlSession.executeAsync(
+                            profiledStatement.setConsistencyLevel(DefaultConsistencyLevel.LOCAL_QUORUM));
+                });
+    }
+    
+    /**
+     * Update the occupancy rollup after a write that succeeded. Counters are not idempotent, the batch is not
+     * retried: a failure is logged and counted, the reservation itself is written.
+     */
+    private void updateOccupancy(Reservation previous, Reservation current, String profile) {
+        if (occupancy == null) {
+            return;
+        }
+        BatchStatement changes = occupancy.bindChanges(previous, current);
+        if (changes == null) {
+            return;
+        }
+        try {
+            QueryTracing.execute(cqlSession, profiled(changes, profile));
+        } catch (RuntimeException e) {
+            occupancyFailures.increment();
+            logger.warn("Unable to update occupancy of reservation {}: {}", current != null 
+                    ? current.getConfirmationNumber() : previous.getConfirmationNumber(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Release the nights held by a reservation after it has been deleted.
+     */
+    private void releaseClaims(Reservation reservation) {
+        if (claims != null) {
+            claims.release(reservation, RoomNightClaims.toRelease(reservation, null));
+        }
+    }
+    
+    /**
+     * Rows of 'reservations_by_hotel_month' to write with a reservation: rows of the previous version that are not
+     * overwritten are deleted, then one row per month of the stay is inserted.
+     *
+     * @param target
+     *      statements of a schema version
+     * @param previous
+     *      version replaced or deleted, may be null
+     * @param current
+     *      version written, null for a delete
+     * @return
+     *      statements, empty when the calendar is disabled
+     */
+    private List<BoundStatement> calendarStatements(ReservationStatements target, Reservation previous, 
+            Reservation current) {
+        List<BoundStatement> rows = target.bindDeleteByHotelMonth(previous, current);
+        if (current != null) {
+            rows.addAll(target.bindInsertByHotelMonth(current));
+        }
+        return rows;
+    }
+    
+    /**
+     * Notify subscribers of a write that succeeded.
+     */
+    private void publish(ReservationChange.Type type, Reservation reservation) {
+        if (changeStream != null) {
+            changeStream.publish(type, reservation);
+        }
+    }
+
+    /**
+     * Remove the cached entries of a reservation before it is written (previous partition included).
+     *
+     * @param reservation
+     *      reservation about to be written
+     */
+    private void invalidate(Reservation reservation) {
+        if (cache != null) {
+            cache.invalidateConfirmation(reservation.getConfirmationNumber());
+            cache.invalidatePartition(reservation.getHotelId(), reservation.getStartDate());
+        }
+        if (confirmationFlights != null) {
+            if (reservation.getConfirmationNumber() != null) {
+                // Orphan rows of 'reservations_by_hotel_date' may have none
+                confirmationFlights.forget(reservation.getConfirmationNumber());
+            }
+            if (reservation.getHotelId() != null && reservation.getStartDate() != null) {
+                partitionFlights.forget(List.of(reservation.getHotelId(), reservation.getStartDate()));
+            }
+        }
+    }
+    
+    /**
+     * Tables written by upserts and deletes, both schema versions while migrating.
+     *
+     * @return
+     *      statements of the written tables
+     */
+    private List<ReservationStatements> writtenStatements() {
+        return legacyStatements == null ? List.of(statements) : List.of(statements, legacyStatements);
+    }
+    
+    /**
+     * Run a query on the current tables and, while migrating, on the tables of schema v1 as well. Rows are
+     * merged on their primary key, rows of schema v2 win.
+     *
+     * @param key
+     *      primary key of a reservation in the queried table
+     * @param query
+     *      query to execute on a schema version
+     * @return
+     *      list of reservations
+     */
+    private List<Reservation> merge(Function<Reservation, Object> key, 
+                                    Function<ReservationStatements, ResultSet> query) {
+        List<Row> rows = query.apply(statements).all();    // no paging we retrieve all objects
+        if (legacyStatements == null) {
+            return rows.stream()                           // because we are good people
+                    .filter(row -> !ReservationStatements.cancelled(row))
+                    .map(statements::mapRowToReservation)  // Mapping row as Reservation
+                    .collect(Collectors.toList());         // Back to list objects
+        }
+        Map<Object, Reservation> merged = new LinkedHashMap<>();
+        for (Row row : query.apply(legacyStatements).all()) {
+            if (!ReservationStatements.cancelled(row)) {
+                Reservation reservation = legacyStatements.mapRowToReservation(row);
+                merged.put(key.apply(reservation), reservation);
+            }
+        }
+        for (Row row : rows) {
+            Reservation reservation = statements.mapRowToReservation(row);
+            if (ReservationStatements.cancelled(row)) {
+                merged.remove(key.apply(reservation));
+            } else {
+                merged.put(key.apply(reservation), reservation);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+    
+    /**
+     * Create Keyspace and relevant tables as per defined in 'reservation.cql'
+     */
+    public void createReservationTables() {
+        
+        /**
+         * Create TYPE 'Address' if not exists
+         * 
+         * CREATE TYPE reservation.address (
+         *   street text,
+         *   city text,
+         *   state_or_province text,
+         *   postal_code text,
+         *   country text
+         * );
+         */
+        cqlSession.execute(
+                createType(keyspaceName, TYPE_ADDRESS)
+                .ifNotExists()
+                .withField(STREET, DataTypes.TEXT)
+                .withField(CITY, DataTypes.TEXT)
+                .withField(STATE_PROVINCE, DataTypes.TEXT)
+                .withField(POSTAL_CODE, DataTypes.TEXT)
+                .withField(COUNTRY, DataTypes.TEXT)
+                .build());
+        logger.debug("+ Type '{}' has been created (if needed)", TYPE_ADDRESS.asInternal());
+        
+        if (confirmationNumberStorage.usesText()) {
+            createReservationTables(false);
+        }
+        if (confirmationNumberStorage.usesUuid()) {
+            createReservationTables(true);
+        }
+        
+        /**
+         * CREATE TABLE reservation.occupancy_by_hotel_year (
+         *   hotel_id text,
+         *   year int,
+         *   night date,
+         *   reservations counter,
+         *   PRIMARY KEY ((hotel_id, year), night)
+         * );
+         */
+        if (occupancyEnabled) {
+            executeCreateTable(createTable(keyspaceName, TABLE_OCCUPANCY_BY_HOTEL_YEAR)
+                    .ifNotExists()
+                    .withPartitionKey(HOTEL_ID, DataTypes.TEXT)
+                    .withPartitionKey(YEAR, DataTypes.INT)
+                    .withClusteringColumn(NIGHT, DataTypes.DATE)
+                    .withColumn(RESERVATIONS, DataTypes.COUNTER)
+                    .withClusteringOrder(NIGHT, ClusteringOrder.ASC)
+                    .withComment("Reservations in house per hotel and night"),
+                            TABLE_OCCUPANCY_BY_HOTEL_YEAR, TABLE_OCCUPANCY_BY_HOTEL_YEAR);
+            logger.debug("+ Table '{}' has been created (if needed)", TABLE_OCCUPANCY_BY_HOTEL_YEAR.asInternal());
+        }
+        
+        /**
+         * CREATE TABLE reservation.room_night_claims (
+         *   hotel_id text,
+         *   room_number smallint,
+         *   night date,
+         *   confirm_number text,
+         *   PRIMARY KEY ((hotel_id, room_number, night))
+         * );
+         */
+        if (claimsEnabled) {
+            executeCreateTable(createTable(keyspaceName, TABLE_ROOM_NIGHT_CLAIMS)
+                    .ifNotExists()
+                    .withPartitionKey(HOTEL_ID, DataTypes.TEXT)
+                    .withPartitionKey(ROOM_NUMBER, DataTypes.SMALLINT)
+                    .withPartitionKey(NIGHT, DataTypes.DATE)
+                    .withColumn(CONFIRM_NUMBER, DataTypes.TEXT)
+                    .withComment("Reservation holding a room for a night"),
+                            TABLE_ROOM_NIGHT_CLAIMS, TABLE_ROOM_NIGHT_CLAIMS);
+            logger.debug("+ Table '{}' has been created (if needed)", TABLE_ROOM_NIGHT_CLAIMS.asInternal());
+        }
+        
+        /**
+         * CREATE TABLE reservation.backfill_checkpoints (
+         *   job text,
+         *   range_start bigint,
+         *   range_end bigint,
+         *   position bigint,
+         *   rows bigint,
+         *   completed boolean,
+         *   updated_at timestamp,
+         *   PRIMARY KEY ((job), range_start)
+         * );
+         */
+        if (backfillEnabled) {
+            executeCreateTable(createTable(keyspaceName, TABLE_BACKFILL_CHECKPOINTS)
+                    .ifNotExists()
+                    .withPartitionKey(BackfillCheckpoints.JOB, DataTypes.TEXT)
+                    .withClusteringColumn(BackfillCheckpoints.RANGE_START, DataTypes.BIGINT)
+                    .withColumn(BackfillCheckpoints.RANGE_END, DataTypes.BIGINT)
+                    .withColumn(BackfillCheckpoints.POSITION, DataTypes.BIGINT)
+                    .withColumn(BackfillCheckpoints.ROWS, DataTypes.BIGINT)
+                    .withColumn(BackfillCheckpoints.COMPLETED, DataTypes.BOOLEAN)
+                    .withColumn(BackfillCheckpoints.UPDATED_AT, DataTypes.TIMESTAMP)
+                    .withComment("Progress of background jobs per token range"),
+                            TABLE_BACKFILL_CHECKPOINTS, TABLE_BACKFILL_CHECKPOINTS);
+            logger.debug("+ Table '{}' has been created (if needed)", TABLE_BACKFILL_CHECKPOINTS.asInternal());
+        }
+        logger.info("Schema has been successfully initialized.");
+    }
+    
+    /**
+     * Create the tables of a schema version, 'confirm_number' is a 'uuid' in the tables of schema v2 
+     * (suffixed with '_v2') and a 'text' in the tables of schema v1.
+     *
+     * @param uuid
+     *      true for schema v2
+     */
+    private void createReservationTables(boolean uuid) {
+        DataType      confirmNumberType   = ReservationStatements.confirmNumberType(uuid);
+        CqlIdentifier tableByHotelDate    = ReservationStatements.table(TABLE_RESERVATION_BY_HOTEL_DATE, uuid);
+        CqlIdentifier tableByConfirmation = ReservationStatements.table(TABLE_RESERVATION_BY_CONFI, uuid);
+        CqlIdentifier tableByGuest        = ReservationStatements.table(TABLE_RESERVATION_BY_GUEST, uuid);
+        CqlIdentifier tableGuests         = ReservationStatements.table(TABLE_GUESTS, uuid);
+        
+        /** 
+         * CREATE TABLE reservation.reservations_by_hotel_date (
+         *  hotel_id text,
+         *  start_date date,
+         *  end_date date,
+         *  room_number smallint,
+         *  confirm_number text,  -- uuid in schema v2
+         *  guest_id uuid,
+         *  status text,          -- soft-cancel mode only
+         *  PRIMARY KEY ((hotel_id, start_date), room_number)
+         * );
+         */
+        CreateTable createTableByHotelDate = createTable(keyspaceName, tableByHotelDate)
                         .ifNotExists()
                         .withPartitionKey(HOTEL_ID, DataTypes.TEXT)
                         .withPartitionKey(START_DATE, DataTypes.DATE)
                         .withClusteringColumn(ROOM_NUMBER, DataTypes.SMALLINT)
                         .withColumn(END_DATE, DataTypes.DATE)
-                        .withColumn(CONFIRM_NUMBER, DataTypes.TEXT)
-                        .withColumn(GUEST_ID, DataTypes.UUID)
+                        .withColumn(CONFIRM_NUMBER, confirmNumberType)
+                        .withColumn(GUEST_ID, DataTypes.UUID);
+        if (softCancelEnabled) {
+            // CONFIRMED or CANCELLED, soft-cancel mode only
+            createTableByHotelDate = createTableByHotelDate.withColumn(STATUS, DataTypes.TEXT);
+        }
+        executeCreateTable(createTableByHotelDate
                         .withClusteringOrder(ROOM_NUMBER, ClusteringOrder.ASC)
-                        .withComment("Q7. Find reservations by hotel and date")
-                        .build());
-        logger.debug("+ Table '{}' has been created (if needed)", TABLE_RESERVATION_BY_HOTEL_DATE.asInternal());
+                        .withComment("Q7. Find reservations by hotel and date"),
+                                tableByHotelDate, TABLE_RESERVATION_BY_HOTEL_DATE);
+        if (softCancelEnabled && !hasColumn(tableByHotelDate, STATUS)) {
+            cqlSession.execute(alterTable(keyspaceName, tableByHotelDate).addColumn(STATUS, DataTypes.TEXT).build());
+            logger.info("+ Column '{}' has been added to table '{}'", STATUS.asInternal(), 
+                    tableByHotelDate.asInternal());
+        }
+        logger.debug("+ Table '{}' has been created (if needed)", tableByHotelDate.asInternal());
+        
+        /**
+         * CREATE TABLE reservation.reservations_by_hotel_month (
+         *  hotel_id text,
+         *  month text,           -- yyyy-MM, one row per month of the stay
+         *  start_date date,
+         *  room_number smallint,
+         *  end_date date,
+         *  confirm_number text,  -- uuid in schema v2
+         *  guest_id uuid,
+         *  PRIMARY KEY ((hotel_id, month), start_date, room_number)
+         * );
+         */
+        if (calendarEnabled) {
+            CqlIdentifier tableByHotelMonth = ReservationStatements.table(TABLE_RESERVATION_BY_HOTEL_MONTH, uuid);
+            executeCreateTable(createTable(keyspaceName, tableByHotelMonth)
+                            .ifNotExists()
+                            .withPartitionKey(HOTEL_ID, DataTypes.TEXT)
+                            .withPartitionKey(MONTH, DataTypes.TEXT)
+                            .withClusteringColumn(START_DATE, DataTypes.DATE)
+                            .withClusteringColumn(ROOM_NUMBER, DataTypes.SMALLINT)
+                            .withColumn(END_DATE, DataTypes.DATE)
+                            .withColumn(CONFIRM_NUMBER, confirmNumberType)
+                            .withColumn(GUEST_ID, DataTypes.UUID)
+                            .withClusteringOrder(START_DATE, ClusteringOrder.ASC)
+                            .withClusteringOrder(ROOM_NUMBER, ClusteringOrder.ASC)
+                            .withComment("Calendar of a hotel, reservations in house by month"),
+                                    tableByHotelMonth, TABLE_RESERVATION_BY_HOTEL_MONTH);
+            logger.debug("+ Table '{}' has been created (if needed)", tableByHotelMonth.asInternal());
+        }
         
         /**
          * CREATE TABLE reservation.reservations_by_confirmation (
-         *   confirm_number text PRIMARY KEY,
+         *   confirm_number text PRIMARY KEY,   -- uuid in schema v2
          *   hotel_id text,
          *   start_date date,
          *   end_date date,
@@ -356,16 +1911,16 @@ public class ReservationRepository {
          *   guest_id uuid
          * );
          */
-        cqlSession.execute(createTable(keyspaceName, TABLE_RESERVATION_BY_CONFI)
+        executeCreateTable(createTable(keyspaceName, tableByConfirmation)
                 .ifNotExists()
-                .withPartitionKey(CONFIRM_NUMBER, DataTypes.TEXT)
+                .withPartitionKey(CONFIRM_NUMBER, confirmNumberType)
                 .withColumn(HOTEL_ID, DataTypes.TEXT)
                 .withColumn(START_DATE, DataTypes.DATE)
                 .withColumn(END_DATE, DataTypes.DATE)
                 .withColumn(ROOM_NUMBER, DataTypes.SMALLINT)
-                .withColumn(GUEST_ID, DataTypes.UUID)
-                .build());
-         logger.debug("+ Table '{}' has been created (if needed)", TABLE_RESERVATION_BY_CONFI.asInternal());
+                .withColumn(GUEST_ID, DataTypes.UUID),
+                        tableByConfirmation, TABLE_RESERVATION_BY_CONFI);
+         logger.debug("+ Table '{}' has been created (if needed)", tableByConfirmation.asInternal());
          
          /**
           * CREATE TABLE reservation.reservations_by_guest (
@@ -374,23 +1929,23 @@ public class ReservationRepository {
           *  start_date date,
           *  end_date date,
           *  room_number smallint,
-          *  confirm_number text,
+          *  confirm_number text,  -- uuid in schema v2
           *  guest_id uuid,
           *  PRIMARY KEY ((guest_last_name), hotel_id)
           * );
           */
-         cqlSession.execute(createTable(keyspaceName, TABLE_RESERVATION_BY_GUEST)
+         executeCreateTable(createTable(keyspaceName, tableByGuest)
                  .ifNotExists()
                  .withPartitionKey(GUEST_LAST_NAME, DataTypes.TEXT)
                  .withClusteringColumn(HOTEL_ID, DataTypes.TEXT)
                  .withColumn(START_DATE, DataTypes.DATE)
                  .withColumn(END_DATE, DataTypes.DATE)
                  .withColumn(ROOM_NUMBER, DataTypes.SMALLINT)
-                 .withColumn(CONFIRM_NUMBER, DataTypes.TEXT)
+                 .withColumn(CONFIRM_NUMBER, confirmNumberType)
                  .withColumn(GUEST_ID, DataTypes.UUID)
-                 .withComment("Q8. Find reservations by guest name")
-                 .build());
-          logger.debug("+ Table '{}' has been created (if needed)", TABLE_RESERVATION_BY_GUEST.asInternal());
+                 .withComment("Q8. Find reservations by guest name"),
+                         tableByGuest, TABLE_RESERVATION_BY_GUEST);
+          logger.debug("+ Table '{}' has been created (if needed)", tableByGuest.asInternal());
           
           /**
            * CREATE TABLE reservation.guests (
@@ -401,13 +1956,13 @@ public class ReservationRepository {
            *   emails set<text>,
            *   phone_numbers list<text>,
            *   addresses map<text, frozen<address>>,
-           *   confirm_number text
+           *   confirm_number text  -- uuid in schema v2
            * );
            */
           UserDefinedType  udtAddressType = 
                   cqlSession.getMetadata().getKeyspace(keyspaceName).get() // Retrieving KeySpaceMetadata
                             .getUserDefinedType(TYPE_ADDRESS).get();        // Looking for UDT (extending DataType)
-          cqlSession.execute(createTable(keyspaceName, TABLE_GUESTS)
+          executeCreateTable(createTable(keyspaceName, tableGuests)
                   .ifNotExists()
                   .withPartitionKey(GUEST_ID, DataTypes.UUID)
                   .withColumn(FIRSTNAME, DataTypes.TEXT)
@@ -416,54 +1971,419 @@ public class ReservationRepository {
                   .withColumn(EMAILS, DataTypes.setOf(DataTypes.TEXT))
                   .withColumn(PHONE_NUMBERS, DataTypes.listOf(DataTypes.TEXT))
                   .withColumn(ADDRESSES, DataTypes.mapOf(DataTypes.TEXT, udtAddressType, true))
-                  .withColumn(CONFIRM_NUMBER, DataTypes.TEXT)
-                  .withComment("Q9. Find guest by ID")
-                  .build());
-           logger.debug("+ Table '{}' has been created (if needed)", TABLE_GUESTS.asInternal());
-           logger.info("Schema has been successfully initialized.");
+                  .withColumn(CONFIRM_NUMBER, confirmNumberType)
+                  .withComment("Q9. Find guest by ID"),
+                          tableGuests, TABLE_GUESTS);
+           logger.debug("+ Table '{}' has been created (if needed)", tableGuests.asInternal());
+    }
+
+    /**
+     * Write timestamps of the writes sent with an explicit timestamp (write-behind, patches, bulk cancellations).
+     *
+     * @return
+     *      microseconds, strictly increasing
+     */
+    private long nextTimestampMicros() {
+        return lastTimestampMicros.accumulateAndGet(
+                TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()), (last, now) -> Math.max(last + 1, now));
+    }
+    
+    /**
+     * Check with driver metadata that a table has a column.
+     *
+     * @param table
+     *      table in the keyspace
+     * @param column
+     *      column
+     * @return
+     *      false if the table or the column does not exist
+     */
+    private boolean hasColumn(CqlIdentifier table, CqlIdentifier column) {
+        return cqlSession.getMetadata().getKeyspace(keyspaceName)
+                         .flatMap(keyspace -> keyspace.getTable(table))
+                         .flatMap(metadata -> metadata.getColumn(column)).isPresent();
     }
 
+    /**
+     * Create a table with its configured options, the options of an existing table are altered.
+     *
+     * @param statement
+     *      CREATE TABLE IF NOT EXISTS
+     * @param table
+     *      table created
+     * @param optionsOf
+     *      name of the table in schema v1, key of the options
+     */
+    private void executeCreateTable(CreateTableWithOptions statement, CqlIdentifier table, CqlIdentifier optionsOf) {
+        TableOptionsProperties.TableOptions options = tableOptions.of(optionsOf.asInternal());
+        boolean exists = cqlSession.getMetadata().getKeyspace(keyspaceName)
+                                   .flatMap(keyspace -> keyspace.getTable(table)).isPresent();
+        cqlSession.execute(withTableOptions(statement, options).build());
+        if (exists && !options.isEmpty()) {
+            cqlSession.execute(withTableOptions(alterTable(keyspaceName, table), options).build());
+            logger.info("+ Options of table '{}' have been altered", table.asInternal());
+        }
+    }
+    
+    /**
+     * Add the configured options to a CREATE or ALTER TABLE statement.
+     *
+     * @param statement
+     *      statement without options
+     * @param options
+     *      options of the table
+     * @return
+     *      statement with options (the same statement if none is set)
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends RelationOptions<T>> T withTableOptions(RelationOptions<T> statement, 
+            TableOptionsProperties.TableOptions options) {
+        RelationOptions<T> result = statement;
+        if (options.getCompaction() != null) {
+            result = result.withCompaction(compactionStrategy(options));
+        }
+        if (options.getCompression() != null || options.getCompressionChunkLengthKb() != null) {
+            // LZ4Compressor is the default of Cassandra
+            String compressor = options.getCompression() == null ? "LZ4Compressor" : options.getCompression();
+            if ("none".equalsIgnoreCase(compressor)) {
+                result = result.withNoCompression();
+            } else if (options.getCompressionChunkLengthKb() != null) {
+                result = result.withCompression(compressor, options.getCompressionChunkLengthKb(), 1.0);
+            } else {
+                result = result.withCompression(compressor);
+            }
+        }
+        if (options.getBloomFilterFpChance() != null) {
+            result = result.withBloomFilterFpChance(options.getBloomFilterFpChance());
+        }
+        if (options.getCachingKeys() != null || options.getCachingRowsPerPartition() != null) {
+            // Defaults of Cassandra: keys 'ALL', rows 'NONE'
+            boolean keys = options.getCachingKeys() == null || "ALL".equalsIgnoreCase(options.getCachingKeys());
+            String rows  = options.getCachingRowsPerPartition() == null ? "NONE" : options.getCachingRowsPerPartition();
+            result = result.withCaching(keys, "ALL".equalsIgnoreCase(rows) ? RowsPerPartition.ALL 
+                    : "NONE".equalsIgnoreCase(rows) ? RowsPerPartition.NONE 
+                    : RowsPerPartition.rows(Integer.parseInt(rows)));
+        }
+        if (options.getDefaultTimeToLive() != null) {
+            result = result.withDefaultTimeToLiveSeconds(options.getDefaultTimeToLive());
+        }
+        return (T) result;
+    }
+    
+    /**
+     * Compaction strategy of a table.
+     */
+    private static CompactionStrategy<?> compactionStrategy(TableOptionsProperties.TableOptions options) {
+        switch (options.getCompaction()) {
+            case "SizeTieredCompactionStrategy":
+                return sizeTieredCompactionStrategy();
+            case "LeveledCompactionStrategy":
+                LeveledCompactionStrategy<?> leveled = leveledCompactionStrategy();
+                return options.getSstableSizeInMb() == null ? leveled 
+                        : leveled.withSSTableSizeInMB(options.getSstableSizeInMb());
+            case "TimeWindowCompactionStrategy":
+                TimeWindowCompactionStrategy<?> timeWindow = timeWindowCompactionStrategy();
+                return options.getCompactionWindowSize() == null ? timeWindow 
+                        : timeWindow.withCompactionWindow(options.getCompactionWindowSize(), 
+                                CompactionWindowUnit.valueOf(options.getCompactionWindowUnit() == null 
+                                        ? "DAYS" : options.getCompactionWindowUnit().toUpperCase()));
+            default:
+                throw new IllegalArgumentException("Unknown compaction strategy: " + options.getCompaction());
+        }
+    }
+    
     private void prepareStatements() {
-        if (psExistReservation == null) {
-            psExistReservation = cqlSession.prepare(selectFrom(keyspaceName, TABLE_RESERVATION_BY_CONFI).column(CONFIRM_NUMBER)
-                                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
-                                .build());
-            psFindReservation = cqlSession.prepare(
-                                selectFrom(keyspaceName, TABLE_RESERVATION_BY_CONFI).all()
-                                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
-                                .build());
-            psSearchReservation = cqlSession.prepare(
-                                selectFrom(keyspaceName, TABLE_RESERVATION_BY_HOTEL_DATE).all()
-                                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
-                                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
-                                .build());
-            psDeleteReservationByConfirmation = cqlSession.prepare(
-                                deleteFrom(keyspaceName, TABLE_RESERVATION_BY_CONFI)
-                                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
-                                .build());
-            psDeleteReservationByHotelDate = cqlSession.prepare(
-                    deleteFrom(keyspaceName, TABLE_RESERVATION_BY_HOTEL_DATE)
-                    .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
-                    .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
-                    .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
-                    .build());
-            psInsertReservationByHotelDate = cqlSession.prepare(QueryBuilder.insertInto(keyspaceName, TABLE_RESERVATION_BY_HOTEL_DATE)
-                    .value(HOTEL_ID, bindMarker(HOTEL_ID))
-                    .value(START_DATE, bindMarker(START_DATE))
-                    .value(END_DATE, bindMarker(END_DATE))
-                    .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
-                    .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
-                    .value(GUEST_ID, bindMarker(GUEST_ID))
-                    .build());
-            psInsertReservationByConfirmation = cqlSession.prepare(QueryBuilder.insertInto(keyspaceName, TABLE_RESERVATION_BY_CONFI)
-                    .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
-                    .value(HOTEL_ID, bindMarker(HOTEL_ID))
-                    .value(START_DATE, bindMarker(START_DATE))
-                    .value(END_DATE, bindMarker(END_DATE))
-                    .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
-                    .value(GUEST_ID, bindMarker(GUEST_ID))
-                    .build());
-            logger.info("Statements have been successfully prepared.");
+        if (statements == null) {
+            statements = newStatements(confirmationNumberStorage.usesUuid());
+            if (confirmationNumberStorage == ConfirmationNumberStorage.MIGRATION) {
+                legacyStatements = newStatements(false);
+            }
+            if (occupancyEnabled) {
+                occupancy = new OccupancyRollup(keyspaceName, this::prepare);
+            }
+            if (claimsEnabled) {
+                claims = new RoomNightClaims(cqlSession, keyspaceName, this::prepare,
+                        executionProfiles.contains(PROFILE_CLAIM) ? PROFILE_CLAIM : null, claimsMaxConcurrency);
+            }
+            logger.info("Statements have been successfully prepared (confirmation numbers as {}).", 
+                    confirmationNumberStorage.name().toLowerCase());
+        }
+    }
+    
+    /**
+     * Jobs filling the query tables from 'reservations_by_confirmation' (tables of the current schema version),
+     * for tables created empty or enabled after reservations were written. Rows are written with the write time
+     * of the reservation: a reservation updated or deleted during the scan keeps its newer version.
+     */
+    private void registerBackfills() {
+        BackfillCheckpoints checkpoints = new BackfillCheckpoints(cqlSession, keyspaceName, this::prepare);
+        TokenRangeScanner scanner = new TokenRangeScanner(cqlSession, keyspaceName, 
+                statements.getTableByConfirmation(), List.of(CONFIRM_NUMBER), 
+                List.of(CONFIRM_NUMBER, HOTEL_ID, START_DATE, END_DATE, ROOM_NUMBER, GUEST_ID), HOTEL_ID, 
+                this::prepare);
+        String profile = executionProfiles.contains(PROFILE_BACKFILL) ? PROFILE_BACKFILL : null;
+        if (calendarEnabled) {
+            addBackfill(new BackfillJob(TABLE_RESERVATION_BY_HOTEL_MONTH.asInternal(), 
+                    "Calendar rows of the reservations", scanner, checkpoints, row -> {
+                        Long writeTime = scanner.writeTime(row);
+                        return CompletableFuture.allOf(statements.bindInsertByHotelMonth(
+                                        statements.mapRowToReservation(row)).stream()
+                                .map(insert -> QueryTracing.executeAsync(cqlSession, backfilled(insert, writeTime)))
+                                .toArray(CompletableFuture<?>[]::new));
+                    }, backfillSplits, backfillConcurrency, backfillPageSize, backfillRowsPerSecond, profile));
+        }
+        addBackfill(new BackfillJob(TABLE_RESERVATION_BY_GUEST.asInternal(), 
+                "Reservations by last name of their guest (guests without a last name are skipped)", 
+                scanner, checkpoints, row -> {
+                    Reservation reservation = statements.mapRowToReservation(row);
+                    if (reservation.getGuestId() == null) {
+                        return null;
+                    }
+                    Long writeTime = scanner.writeTime(row);
+                    return QueryTracing.executeAsync(cqlSession, 
+                                    backfilled(statements.bindGuestLastName(reservation.getGuestId()), null))
+                            .thenCompose(rs -> {
+                                Row guest = rs.one();
+                                if (guest == null || guest.isNull(LASTNAME)) {
+                                    return CompletableFuture.completedFuture(null);
+                                }
+                                return QueryTracing.executeAsync(cqlSession, backfilled(
+                                        statements.bindInsertByGuest(reservation, guest.getString(LASTNAME)), 
+                                        writeTime));
+                            });
+                }, backfillSplits, backfillConcurrency, backfillPageSize, backfillRowsPerSecond, profile));
+        if (claims != null) {
+            addBackfill(new BackfillJob(TABLE_ROOM_NIGHT_CLAIMS.asInternal(), 
+                    "Claims of the nights of the reservations (reservations overlapping another one are skipped)", 
+                    scanner, checkpoints, row -> {
+                        Reservation reservation = statements.mapRowToReservation(row);
+                        try {
+                            // Nights already held by the reservation are claimed again, the claim is idempotent
+                            claims.claim(null, reservation);
+                        } catch (RoomConflictException e) {
+                            logger.warn("Reservation '{}' overlaps another one, its nights are not claimed: {}", 
+                                    reservation.getConfirmationNumber(), e.getMessage());
+                        }
+                        return CompletableFuture.completedFuture(null);
+                    }, backfillSplits, backfillConcurrency, backfillPageSize, backfillRowsPerSecond, profile));
+        }
+        if (legacyStatements != null) {
+            registerCopyToV2(checkpoints, profile);
+        }
+        if (reconcilerEnabled) {
+            registerReconcilers(checkpoints, profile);
+        }
+        if (softCancelEnabled) {
+            registerPurge(checkpoints, profile);
+        }
+    }
+    
+    /**
+     * Migration: job copying the reservations of schema v1 to the tables of schema v2 (by confirmation, by hotel
+     * and date, calendar). Rows are written with the write time of the v1 row: a reservation updated, moved or
+     * deleted since (written to both schemas) keeps its newer version. Confirmation numbers that are not UUIDs
+     * cannot be stored in v2 and are skipped, they remain readable while migrating only.
+     */
+    private void registerCopyToV2(BackfillCheckpoints checkpoints, String profile) {
+        TokenRangeScanner scanner = new TokenRangeScanner(cqlSession, keyspaceName, 
+                legacyStatements.getTableByConfirmation(), List.of(CONFIRM_NUMBER), 
+                List.of(CONFIRM_NUMBER, HOTEL_ID, START_DATE, END_DATE, ROOM_NUMBER, GUEST_ID), HOTEL_ID, 
+                this::prepare);
+        addBackfill(new BackfillJob(JOB_COPY_TO_V2, 
+                "Copy of the reservations of schema v1 to the tables '*_v2' (confirmation numbers that are UUIDs)", 
+                scanner, checkpoints, row -> {
+                    Reservation reservation = legacyStatements.mapRowToReservation(row);
+                    if (!statements.accepts(reservation.getConfirmationNumber())) {
+                        return null;
+                    }
+                    Long writeTime = scanner.writeTime(row);
+                    List<BoundStatement> inserts = new ArrayList<>();
+                    inserts.add(statements.bindInsertByConfirmation(reservation));
+                    inserts.add(statements.bindInsertByHotelDate(reservation));
+                    if (calendarEnabled) {
+                        inserts.addAll(statements.bindInsertByHotelMonth(reservation));
+                    }
+                    return CompletableFuture.allOf(inserts.stream()
+                            .map(insert -> QueryTracing.executeAsync(cqlSession, backfilled(insert, writeTime)))
+                            .toArray(CompletableFuture<?>[]::new));
+                }, backfillSplits, backfillConcurrency, backfillPageSize, backfillRowsPerSecond, profile));
+    }
+    
+    private void addBackfill(BackfillJob job) {
+        backfills.put(job.getName(), job);
+    }
+    
+    /**
+     * Jobs scanning 'reservations_by_hotel_date' for rows without a matching reservation: one deleting them, one
+     * reporting them only (dry run), each with its own checkpoints.
+     */
+    private void registerReconcilers(BackfillCheckpoints checkpoints, String profile) {
+        List<CqlIdentifier> columns = new ArrayList<>(
+                List.of(HOTEL_ID, START_DATE, ROOM_NUMBER, END_DATE, CONFIRM_NUMBER, GUEST_ID));
+        if (hasColumn(statements.getTableByHotelDate(), STATUS)) {
+            // Cancelled rows have no reservation anymore, they are not orphans
+            columns.add(STATUS);
+        }
+        TokenRangeScanner scanner = new TokenRangeScanner(cqlSession, keyspaceName, 
+                statements.getTableByHotelDate(), List.of(HOTEL_ID, START_DATE), columns, CONFIRM_NUMBER, 
+                this::prepare);
+        for (boolean dryRun : new boolean[] { false, true }) {
+            OrphanReconciler reconciler = new OrphanReconciler(dryRun, reconcilerGraceSeconds, reconcilerMaxSamples,
+                    confirmationNumber -> QueryTracing.executeAsync(cqlSession, 
+                                    backfilled(statements.bindFind(confirmationNumber), null))
+                            .thenApply(rs -> Optional.ofNullable(rs.one()).map(statements::mapRowToReservation)),
+                    (orphan, writeTime) -> QueryTracing.executeAsync(cqlSession, 
+                                    backfilled(statements.bindDeleteByHotelDate(orphan), writeTime))
+                            .thenRun(() -> {
+                                if (cache != null) {
+                                    cache.invalidatePartition(orphan.getHotelId(), orphan.getStartDate());
+                                }
+                            }));
+            BackfillJob job = new BackfillJob(
+                    "reconcile_" + TABLE_RESERVATION_BY_HOTEL_DATE.asInternal() + (dryRun ? "_dry_run" : ""),
+                    dryRun ? "Report orphan rows of reservations_by_hotel_date" 
+                           : "Delete orphan rows of reservations_by_hotel_date",
+                    scanner, checkpoints, row -> {
+                        if (ReservationStatements.cancelled(row)) {
+                            return null;
+                        }
+                        Reservation indexed = statements.mapRowToReservation(row);
+                        if (row.isNull(CONFIRM_NUMBER)) {
+                            indexed.setConfirmationNumber(null);
+                        }
+                        return reconciler.reconcile(indexed, scanner.writeTime(row));
+                    }, backfillSplits, backfillConcurrency, backfillPageSize, reconcilerRowsPerSecond, profile);
+            job.setOnStart(reconciler::reset);
+            addBackfill(job);
+            reconcilers.put(job.getName(), reconciler);
+        }
+    }
+    
+    /**
+     * Statements of a schema version. Once the table has a status (soft-cancel mode enabled at least once), inserts
+     * keep writing it so that a new row never inherits the status of a cancelled one.
+     */
+    private ReservationStatements newStatements(boolean uuid) {
+        boolean status = hasColumn(ReservationStatements.table(TABLE_RESERVATION_BY_HOTEL_DATE, uuid), STATUS);
+        return new ReservationStatements(keyspaceName, uuid, calendarEnabled, status, 
+                softCancelEnabled ? softCancelTtlSeconds : 0, this::prepare);
+    }
+    
+    /**
+     * Tables 'reservations_by_hotel_date' of the schema versions in use.
+     */
+    private Stream<CqlIdentifier> writtenTablesByHotelDate() {
+        return Stream.of(false, true)
+                     .filter(uuid -> uuid ? confirmationNumberStorage.usesUuid() : confirmationNumberStorage.usesText())
+                     .map(uuid -> ReservationStatements.table(TABLE_RESERVATION_BY_HOTEL_DATE, uuid));
+    }
+    
+    /**
+     * Job deleting the cancelled rows of 'reservations_by_hotel_date' whose night is past: searches target upcoming
+     * nights, the tombstones land in partitions that are no longer read (rows of upcoming nights expire with their
+     * TTL). A row is deleted with its own write time, a newer reservation of the room wins.
+     */
+    private void registerPurge(BackfillCheckpoints checkpoints, String profile) {
+        TokenRangeScanner scanner = new TokenRangeScanner(cqlSession, keyspaceName, 
+                statements.getTableByHotelDate(), List.of(HOTEL_ID, START_DATE), 
+                List.of(HOTEL_ID, START_DATE, ROOM_NUMBER, END_DATE, CONFIRM_NUMBER, GUEST_ID, STATUS), STATUS, 
+                this::prepare);
+        BackfillJob job = new BackfillJob("purge_cancelled_" + TABLE_RESERVATION_BY_HOTEL_DATE.asInternal(),
+                "Delete cancelled rows of reservations_by_hotel_date whose night is past", 
+                scanner, checkpoints, row -> {
+                    if (!ReservationStatements.cancelled(row) 
+                            || !row.getLocalDate(START_DATE).isBefore(LocalDate.now())) {
+                        return null;
+                    }
+                    return QueryTracing.executeAsync(cqlSession, backfilled(
+                            statements.bindPurgeByHotelDate(statements.mapRowToReservation(row)), 
+                            scanner.writeTime(row)));
+                }, backfillSplits, backfillConcurrency, backfillPageSize, softCancelPurgeRowsPerSecond, profile);
+        addBackfill(job);
+        if (softCancelPurgeIntervalMinutes > 0) {
+            purgeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "soft-cancel-purge");
+                t.setDaemon(true);
+                return t;
+            });
+            // A completed run starts over, an interrupted one resumes from its checkpoints
+            purgeScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    job.start(job.getProgress().getStatus() == BackfillProgress.Status.COMPLETED);
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to start the purge of cancelled reservations: {}", e.getMessage());
+                }
+            }, softCancelPurgeIntervalMinutes, softCancelPurgeIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+    
+    /**
+     * Statement of a backfill: profile of the backfills and, for writes, the write time of the source row.
+     */
+    private BoundStatement backfilled(BoundStatement statement, Long writeTime) {
+        BoundStatement profiledStatement = profiled(statement, PROFILE_BACKFILL);
+        return writeTime == null ? profiledStatement : profiledStatement.setQueryTimestamp(writeTime);
+    }
+    
+    /**
+     * Prepare a statement, asynchronously in fast startup mode so that all statements are prepared concurrently.
+     *
+     * @param statement
+     *      statement to prepare
+     * @return
+     *      prepared statement when available
+     */
+    private CompletableFuture<PreparedStatement> prepare(SimpleStatement statement) {
+        if (fastStartup) {
+            return cqlSession.prepareAsync(statement).toCompletableFuture();
+        }
+        return CompletableFuture.completedFuture(cqlSession.prepare(statement));
+    }
+    
+    /**
+     * Check with driver metadata (no query) that the keyspace contains the type and the tables of the schema.
+     *
+     * @return
+     *      true if every element of the schema is present
+     */
+    private boolean isSchemaPresent() {
+        Optional<KeyspaceMetadata> keyspace = cqlSession.getMetadata().getKeyspace(keyspaceName);
+        return keyspace.isPresent() 
+                && keyspace.get().getUserDefinedType(TYPE_ADDRESS).isPresent()
+                && Stream.of(false, true)
+                         .filter(uuid -> uuid ? confirmationNumberStorage.usesUuid() : confirmationNumberStorage.usesText())
+                         .flatMap(uuid -> Stream.concat(Stream.of(TABLE_RESERVATION_BY_HOTEL_DATE, 
+                                 TABLE_RESERVATION_BY_CONFI, TABLE_RESERVATION_BY_GUEST, TABLE_GUESTS),
+                                 calendarEnabled ? Stream.of(TABLE_RESERVATION_BY_HOTEL_MONTH) : Stream.empty())
+                                 .map(table -> ReservationStatements.table(table, uuid)))
+                         .allMatch(table -> keyspace.get().getTable(table).isPresent())
+                && (!occupancyEnabled || keyspace.get().getTable(TABLE_OCCUPANCY_BY_HOTEL_YEAR).isPresent())
+                && (!claimsEnabled || keyspace.get().getTable(TABLE_ROOM_NIGHT_CLAIMS).isPresent())
+                && (!backfillEnabled || keyspace.get().getTable(TABLE_BACKFILL_CHECKPOINTS).isPresent())
+                && (!softCancelEnabled || writtenTablesByHotelDate().allMatch(table -> hasColumn(table, STATUS)));
+    }
+    
+    /**
+     * Send a lightweight query to every local node (as many as connections per node) so that connections are
+     * established and the code paths are hot before the first request.
+     */
+    private void warmUpConnections() {
+        SimpleStatement ping = SimpleStatement.newInstance("SELECT release_version FROM system.local");
+        int poolSize = cqlSession.getContext().getConfig().getDefaultProfile()
+                                 .getInt(DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE);
+        List<CompletableFuture<?>> pings = new ArrayList<>();
+        for (Node node : cqlSession.getMetadata().getNodes().values()) {
+            if (node.getState() == NodeState.UP && node.getDistance() == NodeDistance.LOCAL) {
+                for (int i = 0; i < poolSize; i++) {
+                    pings.add(cqlSession.executeAsync(ping.setNode(node)).toCompletableFuture());
+                }
+            }
+        }
+        try {
+            CompletableFuture.allOf(pings.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            // Warmup is best effort, requests will be retried by the driver on other nodes
+            logger.warn("Unable to warm up all connections: {}", e.getCause().getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publish repository internals as metrics (available at /actuator/metrics).
+ *
+ * @author Jeff Carpenter
+ */
+@Component
+@Profile("!unit-test") // Same as the repository
+public class ReservationRepositoryMetrics implements MeterBinder {
+    
+    /** Repository to monitor. */
+    private final ReservationRepository reservationRepository;
+    
+    /**
+     * Initialization with the repository.
+     *
+     * @param reservationRepository
+     *      repository to monitor
+     */
+    public ReservationRepositoryMetrics(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        bindLimiter(registry, reservationRepository.getReadLimiter());
+        bindLimiter(registry, reservationRepository.getWriteLimiter());
+        FunctionCounter.builder("reservation.read.quorumFallbacks", reservationRepository, 
+                    ReservationRepository::getQuorumFallbacks)
+             .description("Reads retried at LOCAL_QUORUM because nothing was found at LOCAL_ONE")
+             .register(registry);
+        FunctionCounter.builder("reservation.occupancy.failures", reservationRepository, 
+                    ReservationRepository::getOccupancyFailures)
+             .description("Occupancy rollup updates that failed, counters need to be rebuilt")
+             .register(registry);
+        FunctionCounter.builder("reservation.claims.conflicts", reservationRepository, 
+                    ReservationRepository::getClaimConflicts)
+             .description("Writes rejected because the room was already reserved for one of the nights")
+             .register(registry);
+        reservationRepository.getSingleFlights().forEach(flights -> bindSingleFlight(registry, flights));
+        reservationRepository.getBackfills().forEach(job -> bindBackfill(registry, job));
+        if (reservationRepository.getCache() != null) {
+            bindCache(registry, reservationRepository.getCache());
+        }
+        if (reservationRepository.getWriteBehind() != null) {
+            bindWriteBehind(registry, reservationRepository.getWriteBehind());
+        }
+    }
+    
+    private void bindWriteBehind(MeterRegistry registry, WriteBehindApplier writeBehind) {
+        Gauge.builder("reservation.writeBehind.pending", writeBehind.getJournal(), WriteBehindJournal::getPendingBytes)
+             .baseUnit("bytes")
+             .description("Journal entries not applied to the query tables yet")
+             .register(registry);
+        Gauge.builder("reservation.writeBehind.usage", writeBehind.getJournal(), WriteBehindJournal::getUsage)
+             .description("Used part of the journal, writes are synchronous when full")
+             .register(registry);
+        FunctionCounter.builder("reservation.writeBehind.applied", writeBehind, WriteBehindApplier::getApplied)
+             .description("Journal entries applied to the query tables")
+             .register(registry);
+        FunctionCounter.builder("reservation.writeBehind.failures", writeBehind, WriteBehindApplier::getFailures)
+             .description("Journal batches that failed and have been retried")
+             .register(registry);
+    }
+    
+    private void bindBackfill(MeterRegistry registry, BackfillJob job) {
+        Gauge.builder("reservation.backfill.rows", job, BackfillJob::getRowsScanned)
+             .tag("job", job.getName())
+             .description("Rows read by the job since it was first started, reset when it is restarted")
+             .register(registry);
+        Gauge.builder("reservation.backfill.progress", job, BackfillJob::getFractionScanned)
+             .tag("job", job.getName())
+             .description("Fraction of the ring scanned by the job")
+             .register(registry);
+    }
+    
+    private void bindSingleFlight(MeterRegistry registry, SingleFlight<?, ?> flights) {
+        FunctionCounter.builder("reservation.singleFlight.calls", flights, SingleFlight::getCalls)
+             .tag("read", flights.getName())
+             .description("Reads requested, executed or joined")
+             .register(registry);
+        FunctionCounter.builder("reservation.singleFlight.shared", flights, SingleFlight::getShared)
+             .tag("read", flights.getName())
+             .description("Reads served by an identical read already in flight")
+             .register(registry);
+        Gauge.builder("reservation.singleFlight.dedupRatio", flights, SingleFlight::getDedupRatio)
+             .tag("read", flights.getName())
+             .description("Part of the reads served by an identical read already in flight, since startup")
+             .register(registry);
+    }
+    
+    private void bindCache(MeterRegistry registry, ReservationCache cache) {
+        FunctionCounter.builder("reservation.cache.hits", cache, ReservationCache::getHits)
+             .description("Reads served by the reservation cache")
+             .register(registry);
+        FunctionCounter.builder("reservation.cache.misses", cache, ReservationCache::getMisses)
+             .description("Reads not found in the reservation cache")
+             .register(registry);
+        Gauge.builder("reservation.cache.size", cache, ReservationCache::size)
+             .description("Cached reservations and partitions")
+             .register(registry);
+    }
+    
+    private void bindLimiter(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("reservation.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+             .tag("limiter", limiter.getName())
+             .description("Current limit of in-flight calls to Cassandra")
+             .register(registry);
+        Gauge.builder("reservation.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+             .tag("limiter", limiter.getName())
+             .description("Calls to Cassandra in progress")
+             .register(registry);
+        FunctionCounter.builder("reservation.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+             .tag("limiter", limiter.getName())
+             .description("Calls rejected because the limit was reached")
+             .register(registry);
+    }
+}
@@ -0,0 +1,638 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.deleteFrom;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.update;
+import static com.datastax.oss.driver.api.querybuilder.relation.Relation.column;
+import static dev.cassandraguide.repository.ReservationRepository.CONFIRM_NUMBER;
+import static dev.cassandraguide.repository.ReservationRepository.END_DATE;
+import static dev.cassandraguide.repository.ReservationRepository.GUEST_ID;
+import static dev.cassandraguide.repository.ReservationRepository.GUEST_LAST_NAME;
+import static dev.cassandraguide.repository.ReservationRepository.HOTEL_ID;
+import static dev.cassandraguide.repository.ReservationRepository.LASTNAME;
+import static dev.cassandraguide.repository.ReservationRepository.MONTH;
+import static dev.cassandraguide.repository.ReservationRepository.ROOM_NUMBER;
+import static dev.cassandraguide.repository.ReservationRepository.START_DATE;
+import static dev.cassandraguide.repository.ReservationRepository.STATUS;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_GUESTS;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_RESERVATION_BY_CONFI;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_RESERVATION_BY_GUEST;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_RESERVATION_BY_HOTEL_DATE;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_RESERVATION_BY_HOTEL_MONTH;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import dev.cassandraguide.model.Reservation;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.insert.RegularInsert;
+
+/**
+ * Prepared statements of the reservation tables for one representation of confirmation numbers: 'text' in the
+ * tables of schema v1 or 'uuid' in the tables of schema v2 (suffixed with '_v2'). Confirmation numbers are
+ * converted here so that the repository only deals with strings.
+ *
+ * @author Jeff Carpenter
+ */
+final class ReservationStatements {
+
+    /** Suffix of the tables of schema v2. */
+    static final String SUFFIX_V2 = "_v2";
+
+    /** Longer stays appear in the calendar of their first months only. */
+    static final int MAX_CALENDAR_MONTHS = 12;
+
+    /** Status of the rows of 'reservations_by_hotel_date' when the table has the column. */
+    static final String STATUS_CONFIRMED = "CONFIRMED";
+    static final String STATUS_CANCELLED = "CANCELLED";
+
+    /** Confirmation numbers are stored as 'uuid'. */
+    private final boolean uuid;
+
+    private final CqlIdentifier tableByHotelDate;
+    private final CqlIdentifier tableByConfirmation;
+    private final CqlIdentifier tableByHotelMonth;
+
+    private final PreparedStatement psExistReservation;
+    private final PreparedStatement psFindReservation;
+    private final PreparedStatement psWriteTimeReservation;
+    private final PreparedStatement psSearchReservation;
+    private final PreparedStatement psInsertReservationByHotelDate;
+    private final PreparedStatement psInsertReservationByConfirmation;
+    private final PreparedStatement psDeleteReservationByHotelDate;
+    private final PreparedStatement psDeleteReservationByConfirmation;
+
+    /** Soft-cancel mode: rewrite the row as cancelled with a TTL instead of deleting it, null when disabled. */
+    private final PreparedStatement psCancelReservationByHotelDate;
+
+    /** Non-key columns only (idempotent), values not bound are left unset and not written. */
+    private final PreparedStatement psUpdateReservationByHotelDate;
+    private final PreparedStatement psUpdateReservationByConfirmation;
+    private final PreparedStatement psUpdateReservationByHotelMonth;
+
+    /** Calendar table, null when disabled. */
+    private final PreparedStatement psInsertReservationByHotelMonth;
+    private final PreparedStatement psDeleteReservationByHotelMonth;
+    private final PreparedStatement psCalendarReservation;
+
+    /** Backfill of 'reservations_by_guest' from the last name of the guest. */
+    private final PreparedStatement psGuestLastName;
+    private final PreparedStatement psInsertReservationByGuest;
+
+    /**
+     * Prepare all statements (concurrently when the preparer is asynchronous).
+     *
+     * @param keyspaceName
+     *      keyspace of the tables
+     * @param uuid
+     *      true for schema v2
+     * @param calendar
+     *      'reservations_by_hotel_month' is maintained
+     * @param status
+     *      'reservations_by_hotel_date' has the column 'status', written with every insert
+     * @param cancelTtlSeconds
+     *      TTL of cancelled rows in 'reservations_by_hotel_date' (soft-cancel mode, requires the status), 0 to delete
+     * @param preparer
+     *      prepare a statement
+     */
+    ReservationStatements(CqlIdentifier keyspaceName, boolean uuid, boolean calendar, boolean status,
+            int cancelTtlSeconds, Function<SimpleStatement, CompletableFuture<PreparedStatement>> preparer) {
+        this.uuid                = uuid;
+        this.tableByHotelDate    = table(TABLE_RESERVATION_BY_HOTEL_DATE, uuid);
+        this.tableByConfirmation = table(TABLE_RESERVATION_BY_CONFI, uuid);
+        this.tableByHotelMonth   = table(TABLE_RESERVATION_BY_HOTEL_MONTH, uuid);
+        // Reads are idempotent: bound statements inherit the flag and become eligible to speculative executions
+        CompletableFuture<PreparedStatement> existReservation = preparer.apply(
+                selectFrom(keyspaceName, tableByConfirmation).column(CONFIRM_NUMBER)
+                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> findReservation = preparer.apply(
+                selectFrom(keyspaceName, tableByConfirmation).all()
+                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> writeTimeReservation = preparer.apply(
+                selectFrom(keyspaceName, tableByConfirmation).writeTime(HOTEL_ID)
+                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> searchReservation = preparer.apply(
+                selectFrom(keyspaceName, tableByHotelDate).all()
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> deleteReservationByConfirmation = preparer.apply(
+                deleteFrom(keyspaceName, tableByConfirmation)
+                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build());
+        CompletableFuture<PreparedStatement> deleteReservationByHotelDate = preparer.apply(
+                deleteFrom(keyspaceName, tableByHotelDate)
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
+                .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
+                .build());
+        RegularInsert insertByHotelDate = QueryBuilder.insertInto(keyspaceName, tableByHotelDate)
+                .value(HOTEL_ID, bindMarker(HOTEL_ID))
+                .value(START_DATE, bindMarker(START_DATE))
+                .value(END_DATE, bindMarker(END_DATE))
+                .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
+                .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
+                .value(GUEST_ID, bindMarker(GUEST_ID));
+        // A row may replace a cancelled one whose status has not expired yet: the status is always written
+        CompletableFuture<PreparedStatement> insertReservationByHotelDate = preparer.apply((status 
+                ? insertByHotelDate.value(STATUS, literal(STATUS_CONFIRMED)) : insertByHotelDate).build());
+        CompletableFuture<PreparedStatement> cancelReservationByHotelDate = cancelTtlSeconds <= 0 ? null 
+                : preparer.apply(insertByHotelDate.value(STATUS, literal(STATUS_CANCELLED))
+                                                  .usingTtl(cancelTtlSeconds).build());
+        CompletableFuture<PreparedStatement> insertReservationByConfirmation = preparer.apply(
+                QueryBuilder.insertInto(keyspaceName, tableByConfirmation)
+                .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
+                .value(HOTEL_ID, bindMarker(HOTEL_ID))
+                .value(START_DATE, bindMarker(START_DATE))
+                .value(END_DATE, bindMarker(END_DATE))
+                .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
+                .value(GUEST_ID, bindMarker(GUEST_ID))
+                .build());
+        CompletableFuture<PreparedStatement> insertReservationByHotelMonth = !calendar ? null : preparer.apply(
+                QueryBuilder.insertInto(keyspaceName, tableByHotelMonth)
+                .value(HOTEL_ID, bindMarker(HOTEL_ID))
+                .value(MONTH, bindMarker(MONTH))
+                .value(START_DATE, bindMarker(START_DATE))
+                .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
+                .value(END_DATE, bindMarker(END_DATE))
+                .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
+                .value(GUEST_ID, bindMarker(GUEST_ID))
+                .build());
+        CompletableFuture<PreparedStatement> deleteReservationByHotelMonth = !calendar ? null : preparer.apply(
+                deleteFrom(keyspaceName, tableByHotelMonth)
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(MONTH).isEqualTo(bindMarker(MONTH)))
+                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
+                .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
+                .build());
+        CompletableFuture<PreparedStatement> updateReservationByHotelDate = preparer.apply(
+                update(keyspaceName, tableByHotelDate)
+                .setColumn(END_DATE, bindMarker(END_DATE))
+                .setColumn(GUEST_ID, bindMarker(GUEST_ID))
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
+                .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> updateReservationByConfirmation = preparer.apply(
+                update(keyspaceName, tableByConfirmation)
+                .setColumn(END_DATE, bindMarker(END_DATE))
+                .setColumn(GUEST_ID, bindMarker(GUEST_ID))
+                .where(column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> updateReservationByHotelMonth = !calendar ? null : preparer.apply(
+                update(keyspaceName, tableByHotelMonth)
+                .setColumn(END_DATE, bindMarker(END_DATE))
+                .setColumn(GUEST_ID, bindMarker(GUEST_ID))
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(MONTH).isEqualTo(bindMarker(MONTH)))
+                .where(column(START_DATE).isEqualTo(bindMarker(START_DATE)))
+                .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> calendarReservation = !calendar ? null : preparer.apply(
+                selectFrom(keyspaceName, tableByHotelMonth).all()
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(MONTH).isEqualTo(bindMarker(MONTH)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> guestLastName = preparer.apply(
+                selectFrom(keyspaceName, table(TABLE_GUESTS, uuid)).column(LASTNAME)
+                .where(column(GUEST_ID).isEqualTo(bindMarker(GUEST_ID)))
+                .build().setIdempotent(true));
+        CompletableFuture<PreparedStatement> insertReservationByGuest = preparer.apply(
+                QueryBuilder.insertInto(keyspaceName, table(TABLE_RESERVATION_BY_GUEST, uuid))
+                .value(GUEST_LAST_NAME, bindMarker(GUEST_LAST_NAME))
+                .value(HOTEL_ID, bindMarker(HOTEL_ID))
+                .value(START_DATE, bindMarker(START_DATE))
+                .value(END_DATE, bindMarker(END_DATE))
+                .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
+                .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
+                .value(GUEST_ID, bindMarker(GUEST_ID))
+                .build().setIdempotent(true));
+        psExistReservation                = existReservation.join();
+        psFindReservation                 = findReservation.join();
+        psWriteTimeReservation            = writeTimeReservation.join();
+        psSearchReservation               = searchReservation.join();
+        psDeleteReservationByConfirmation = deleteReservationByConfirmation.join();
+        psDeleteReservationByHotelDate    = deleteReservationByHotelDate.join();
+        psInsertReservationByHotelDate    = insertReservationByHotelDate.join();
+        psCancelReservationByHotelDate    = cancelTtlSeconds <= 0 ? null : cancelReservationByHotelDate.join();
+        psInsertReservationByConfirmation = insertReservationByConfirmation.join();
+        psUpdateReservationByHotelDate    = updateReservationByHotelDate.join();
+        psUpdateReservationByConfirmation = updateReservationByConfirmation.join();
+        psUpdateReservationByHotelMonth   = calendar ? updateReservationByHotelMonth.join() : null;
+        psInsertReservationByHotelMonth   = calendar ? insertReservationByHotelMonth.join() : null;
+        psDeleteReservationByHotelMonth   = calendar ? deleteReservationByHotelMonth.join() : null;
+        psCalendarReservation             = calendar ? calendarReservation.join() : null;
+        psGuestLastName                   = guestLastName.join();
+        psInsertReservationByGuest        = insertReservationByGuest.join();
+    }
+
+    /**
+     * Name of a table in a schema version.
+     *
+     * @param table
+     *      name of the table in schema v1
+     * @param uuid
+     *      true for schema v2
+     * @return
+     *      name of the table
+     */
+    static CqlIdentifier table(CqlIdentifier table, boolean uuid) {
+        return uuid ? CqlIdentifier.fromInternal(table.asInternal() + SUFFIX_V2) : table;
+    }
+
+    /**
+     * Type of column 'confirm_number' in a schema version.
+     *
+     * @param uuid
+     *      true for schema v2
+     * @return
+     *      'uuid' or 'text'
+     */
+    static DataType confirmNumberType(boolean uuid) {
+        return uuid ? DataTypes.UUID : DataTypes.TEXT;
+    }
+
+    /**
+     * Months in which a reservation appears in the calendar: from its start date to its last night.
+     *
+     * @param reservation
+     *      reservation
+     * @return
+     *      partitions of 'reservations_by_hotel_month', empty without hotel or start date
+     */
+    static List<YearMonth> months(Reservation reservation) {
+        List<YearMonth> months = new ArrayList<>();
+        if (reservation == null || reservation.getHotelId() == null || reservation.getStartDate() == null) {
+            return months;
+        }
+        LocalDate start    = reservation.getStartDate();
+        LocalDate end      = reservation.getEndDate();
+        YearMonth last     = (end == null || !end.isAfter(start)) ? YearMonth.from(start)
+                                                                  : YearMonth.from(end.minusDays(1));
+        for (YearMonth month = YearMonth.from(start); 
+                !month.isAfter(last) && months.size() < MAX_CALENDAR_MONTHS; month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * A new version of a reservation has another primary key in 'reservations_by_hotel_date' (hotel, start date
+     * or room changed): the row of the previous version is not overwritten.
+     *
+     * @param previous
+     *      version replaced, may be null
+     * @param current
+     *      version written
+     * @return
+     *      true if the row of the previous version must be deleted
+     */
+    static boolean moved(Reservation previous, Reservation current) {
+        return previous != null && previous.getHotelId() != null && previous.getStartDate() != null
+                && !(Objects.equals(previous.getHotelId(), current.getHotelId())
+                        && Objects.equals(previous.getStartDate(), current.getStartDate())
+                        && previous.getRoomNumber() == current.getRoomNumber());
+    }
+
+    /**
+     * Non-key columns that differ between two versions of a reservation with the same key.
+     *
+     * @param previous
+     *      version replaced
+     * @param current
+     *      version written
+     * @return
+     *      'end_date' and/or 'guest_id', empty if nothing changed
+     */
+    static List<CqlIdentifier> changedColumns(Reservation previous, Reservation current) {
+        List<CqlIdentifier> changed = new ArrayList<>();
+        if (!Objects.equals(previous.getEndDate(), current.getEndDate())) {
+            changed.add(END_DATE);
+        }
+        if (!Objects.equals(previous.getGuestId(), current.getGuestId())) {
+            changed.add(GUEST_ID);
+        }
+        return changed;
+    }
+
+    /**
+     * A row of 'reservations_by_hotel_date' written by a soft cancel, to be skipped by reads.
+     *
+     * @param row
+     *      row of the table, with or without the column 'status'
+     * @return
+     *      true if the reservation is cancelled
+     */
+    static boolean cancelled(Row row) {
+        return row.getColumnDefinitions().contains(STATUS) && STATUS_CANCELLED.equals(row.getString(STATUS));
+    }
+
+    /**
+     * A confirmation number that is not a valid UUID cannot exist in schema v2.
+     *
+     * @param confirmationNumber
+     *      confirmation number
+     * @return
+     *      true if the confirmation number can be stored
+     */
+    boolean accepts(String confirmationNumber) {
+        if (!uuid) {
+            return true;
+        }
+        try {
+            UUID.fromString(confirmationNumber);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    BoundStatement bindExist(String confirmationNumber) {
+        return psExistReservation.bind(toColumn(confirmationNumber));
+    }
+
+    BoundStatement bindFind(String confirmationNumber) {
+        return psFindReservation.bind(toColumn(confirmationNumber));
+    }
+
+    /** Write time (microseconds) of a reservation in 'reservations_by_confirmation', first column. */
+    BoundStatement bindWriteTime(String confirmationNumber) {
+        return psWriteTimeReservation.bind(toColumn(confirmationNumber));
+    }
+
+    BoundStatement bindSearch(String hotelId, LocalDate date) {
+        return psSearchReservation.bind(hotelId, date);
+    }
+
+    BoundStatement bindInsertByHotelDate(Reservation reservation) {
+        return psInsertReservationByHotelDate.bind(reservation.getHotelId(), reservation.getStartDate(),
+                reservation.getEndDate(), reservation.getRoomNumber(),
+                toColumn(reservation.getConfirmationNumber()), reservation.getGuestId());
+    }
+
+    BoundStatement bindInsertByConfirmation(Reservation reservation) {
+        return psInsertReservationByConfirmation.bind(toColumn(reservation.getConfirmationNumber()),
+                reservation.getHotelId(), reservation.getStartDate(), reservation.getEndDate(),
+                reservation.getRoomNumber(), reservation.getGuestId());
+    }
+
+    /** Delete the row of a reservation from 'reservations_by_hotel_date', or mark it as cancelled (soft cancel). */
+    BoundStatement bindDeleteByHotelDate(Reservation reservation) {
+        if (psCancelReservationByHotelDate != null) {
+            return psCancelReservationByHotelDate.bind(reservation.getHotelId(), reservation.getStartDate(),
+                    reservation.getEndDate(), reservation.getRoomNumber(),
+                    toColumn(reservation.getConfirmationNumber()), reservation.getGuestId());
+        }
+        return bindPurgeByHotelDate(reservation);
+    }
+
+    /** Delete the row of a reservation from 'reservations_by_hotel_date', whatever the mode. */
+    BoundStatement bindPurgeByHotelDate(Reservation reservation) {
+        return psDeleteReservationByHotelDate.bind(reservation.getHotelId(),
+                reservation.getStartDate(), reservation.getRoomNumber());
+    }
+
+    /** Row of the previous version in 'reservations_by_hotel_date' when the reservation moved, empty otherwise. */
+    List<BoundStatement> bindDeleteMovedByHotelDate(Reservation previous, Reservation current) {
+        return moved(previous, current) ? List.of(bindDeleteByHotelDate(previous)) : List.of();
+    }
+
+    BoundStatement bindDeleteByConfirmation(String confirmationNumber) {
+        return psDeleteReservationByConfirmation.bind(toColumn(confirmationNumber));
+    }
+
+    /**
+     * Write a change of the non-key columns only: UPDATE statements setting the changed columns of the rows of both
+     * versions, plus the rows of 'reservations_by_hotel_month' gained (full insert) or lost (delete) when the end
+     * date changes the months of the stay. Every statement targets a single partition and is idempotent.
+     *
+     * @param previous
+     *      version replaced, same key ({@link #moved} is false)
+     * @param current
+     *      version written
+     * @return
+     *      statements, empty if nothing changed
+     */
+    List<BoundStatement> bindUpdate(Reservation previous, Reservation current) {
+        List<BoundStatement> updates = new ArrayList<>();
+        List<CqlIdentifier> changed = changedColumns(previous, current);
+        if (changed.isEmpty()) {
+            return updates;
+        }
+        BoundStatementBuilder byConfirmation = psUpdateReservationByConfirmation.boundStatementBuilder();
+        if (uuid) {
+            byConfirmation.setUuid(CONFIRM_NUMBER, UUID.fromString(current.getConfirmationNumber()));
+        } else {
+            byConfirmation.setString(CONFIRM_NUMBER, current.getConfirmationNumber());
+        }
+        updates.add(setChanged(byConfirmation, changed, current));
+        updates.add(setChanged(psUpdateReservationByHotelDate.boundStatementBuilder()
+                .setString(HOTEL_ID, current.getHotelId())
+                .setLocalDate(START_DATE, current.getStartDate())
+                .setShort(ROOM_NUMBER, current.getRoomNumber()), changed, current));
+        if (psUpdateReservationByHotelMonth != null) {
+            List<YearMonth> months = months(previous);
+            for (YearMonth month : months(current)) {
+                if (months.contains(month)) {
+                    updates.add(setChanged(psUpdateReservationByHotelMonth.boundStatementBuilder()
+                            .setString(HOTEL_ID, current.getHotelId())
+                            .setString(MONTH, month.toString())
+                            .setLocalDate(START_DATE, current.getStartDate())
+                            .setShort(ROOM_NUMBER, current.getRoomNumber()), changed, current));
+                } else {
+                    updates.add(psInsertReservationByHotelMonth.bind(current.getHotelId(), month.toString(),
+                            current.getStartDate(), current.getRoomNumber(), current.getEndDate(),
+                            toColumn(current.getConfirmationNumber()), current.getGuestId()));
+                }
+            }
+            updates.addAll(bindDeleteByHotelMonth(previous, current));
+        }
+        return updates;
+    }
+
+    /** One row per month of the stay in 'reservations_by_hotel_month', empty when the calendar is disabled. */
+    List<BoundStatement> bindInsertByHotelMonth(Reservation reservation) {
+        List<BoundStatement> inserts = new ArrayList<>();
+        if (psInsertReservationByHotelMonth != null) {
+            for (YearMonth month : months(reservation)) {
+                inserts.add(psInsertReservationByHotelMonth.bind(reservation.getHotelId(), month.toString(),
+                        reservation.getStartDate(), reservation.getRoomNumber(), reservation.getEndDate(),
+                        toColumn(reservation.getConfirmationNumber()), reservation.getGuestId()));
+            }
+        }
+        return inserts;
+    }
+
+    /**
+     * Rows of a version of a reservation in 'reservations_by_hotel_month' that the current version does not
+     * overwrite (other hotel, start date, room or months), empty when the calendar is disabled.
+     *
+     * @param previous
+     *      version replaced or deleted, may be null
+     * @param current
+     *      version written, null for a delete
+     * @return
+     *      statements deleting the rows left behind
+     */
+    List<BoundStatement> bindDeleteByHotelMonth(Reservation previous, Reservation current) {
+        List<BoundStatement> deletes = new ArrayList<>();
+        if (psDeleteReservationByHotelMonth == null || previous == null) {
+            return deletes;
+        }
+        boolean sameKey = current != null && !moved(previous, current);
+        List<YearMonth> kept = sameKey ? months(current) : new ArrayList<>();
+        for (YearMonth month : months(previous)) {
+            if (!kept.contains(month)) {
+                deletes.add(psDeleteReservationByHotelMonth.bind(previous.getHotelId(), month.toString(),
+                        previous.getStartDate(), previous.getRoomNumber()));
+            }
+        }
+        return deletes;
+    }
+
+    /**
+     * A page of the calendar of a hotel, rows by start date and room number.
+     *
+     * @param hotelId
+     *      hotel identifier
+     * @param month
+     *      month of the calendar
+     * @param pageSize
+     *      rows per page
+     * @param pagingState
+     *      position returned by the previous page, null for the first one
+     * @return
+     *      statement
+     */
+    BoundStatement bindCalendar(String hotelId, YearMonth month, int pageSize, ByteBuffer pagingState) {
+        return psCalendarReservation.bind(hotelId, month.toString())
+                .setPageSize(pageSize)
+                .setPagingState(pagingState);
+    }
+
+    /** Last name of a guest in 'guests', first column. */
+    BoundStatement bindGuestLastName(UUID guestId) {
+        return psGuestLastName.bind(guestId);
+    }
+
+    BoundStatement bindInsertByGuest(Reservation reservation, String guestLastName) {
+        return psInsertReservationByGuest.bind(guestLastName, reservation.getHotelId(), reservation.getStartDate(),
+                reservation.getEndDate(), reservation.getRoomNumber(), toColumn(reservation.getConfirmationNumber()),
+                reservation.getGuestId());
+    }
+
+    /**
+     * Full scan of 'reservations_by_confirmation' (no paging).
+     *
+     * @param keyspaceName
+     *      keyspace of the table
+     * @return
+     *      statement
+     */
+    SimpleStatement selectAll(CqlIdentifier keyspaceName) {
+        return selectFrom(keyspaceName, tableByConfirmation).all().build();
+    }
+
+    /**
+     * Utility method to marshal a row as expected Reservation Bean.
+     *
+     * @param row
+     *      current row from ResultSet
+     * @return
+     *      object
+     */
+    Reservation mapRowToReservation(Row row) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(row.getString(HOTEL_ID));
+        reservation.setConfirmationNumber(uuid
+                ? String.valueOf(row.getUuid(CONFIRM_NUMBER))
+                : row.getString(CONFIRM_NUMBER));
+        reservation.setGuestId(row.getUuid(GUEST_ID));
+        reservation.setRoomNumber(row.getShort(ROOM_NUMBER));
+        reservation.setStartDate(row.getLocalDate(START_DATE));
+        reservation.setEndDate(row.getLocalDate(END_DATE));
+        return reservation;
+    }
+
+    /**
+     * Getter accessor for attribute 'tableByHotelDate'.
+     *
+     * @return
+     *       current value of 'tableByHotelDate'
+     */
+    CqlIdentifier getTableByHotelDate() {
+        return tableByHotelDate;
+    }
+
+    /**
+     * Getter accessor for attribute 'tableByConfirmation'.
+     *
+     * @return
+     *       current value of 'tableByConfirmation'
+     */
+    CqlIdentifier getTableByConfirmation() {
+        return tableByConfirmation;
+    }
+
+    /**
+     * Getter accessor for attribute 'tableByHotelMonth'.
+     *
+     * @return
+     *       current value of 'tableByHotelMonth'
+     */
+    CqlIdentifier getTableByHotelMonth() {
+        return tableByHotelMonth;
+    }
+
+    /** Bind the changed columns, a null value removes the column. */
+    private static BoundStatement setChanged(BoundStatementBuilder builder, List<CqlIdentifier> changed,
+            Reservation current) {
+        if (changed.contains(END_DATE)) {
+            builder.setLocalDate(END_DATE, current.getEndDate());
+        }
+        if (changed.contains(GUEST_ID)) {
+            builder.setUuid(GUEST_ID, current.getGuestId());
+        }
+        return builder.build();
+    }
+
+    private Object toColumn(String confirmationNumber) {
+        return uuid ? UUID.fromString(confirmationNumber) : confirmationNumber;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raised when a reservation claims a room for nights already held by other reservations, nothing has been written.
+ *
+ * @author Jeff Carpenter
+ */
+public class RoomConflictException extends RuntimeException {
+
+    /** Serial. */
+    private static final long serialVersionUID = -5386013720844711290L;
+
+    /** Nights already claimed, with the confirmation number holding them. */
+    private final Map<LocalDate, String> conflicts;
+
+    /**
+     * Initialization of the exception.
+     *
+     * @param hotelId
+     *      hotel of the reservation
+     * @param roomNumber
+     *      room of the reservation
+     * @param conflicts
+     *      nights already claimed and their holder
+     */
+    public RoomConflictException(String hotelId, short roomNumber, Map<LocalDate, String> conflicts) {
+        super("Room " + roomNumber + " of hotel " + hotelId + " is already reserved for nights " 
+                + List.copyOf(conflicts.keySet()));
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * Getter accessor for attribute 'conflicts'.
+     *
+     * @return
+     *       current value of 'conflicts'
+     */
+    public Map<LocalDate, String> getConflicts() {
+        return conflicts;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.deleteFrom;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.oss.driver.api.querybuilder.relation.Relation.column;
+import static dev.cassandraguide.repository.ReservationRepository.CONFIRM_NUMBER;
+import static dev.cassandraguide.repository.ReservationRepository.HOTEL_ID;
+import static dev.cassandraguide.repository.ReservationRepository.NIGHT;
+import static dev.cassandraguide.repository.ReservationRepository.ROOM_NUMBER;
+import static dev.cassandraguide.repository.ReservationRepository.TABLE_ROOM_NIGHT_CLAIMS;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.cassandraguide.model.Reservation;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.querybuilder.condition.Condition;
+
+/**
+ * Claims of the nights of a room in 'room_night_claims', one partition per hotel, room and night so that the
+ * claims of a stay are independent lightweight transactions sent concurrently (at most 'maxConcurrency' at a time).
+ *
+ * <p>A reservation claims its nights before it is written: a night held by another reservation is a conflict, the
+ * nights acquired so far are released and nothing is written. Releases are conditional on the holder, releasing a
+ * night that has been claimed by another reservation in the meantime has no effect.
+ *
+ * @author Jeff Carpenter
+ */
+final class RoomNightClaims {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(RoomNightClaims.class);
+
+    private final CqlSession cqlSession;
+    private final String executionProfile;
+    private final int maxConcurrency;
+
+    private final PreparedStatement psClaim;
+    private final PreparedStatement psRelease;
+
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * Prepare the statements (concurrently when the preparer is asynchronous).
+     *
+     * @param cqlSession
+     *      session executing claims
+     * @param keyspaceName
+     *      keyspace of the table
+     * @param preparer
+     *      prepare a statement
+     * @param executionProfile
+     *      profile of claims and releases (serial consistency), null for the default one
+     * @param maxConcurrency
+     *      claims in flight per reservation
+     */
+    RoomNightClaims(CqlSession cqlSession, CqlIdentifier keyspaceName,
+            Function<SimpleStatement, CompletableFuture<PreparedStatement>> preparer,
+            String executionProfile, int maxConcurrency) {
+        this.cqlSession       = cqlSession;
+        this.executionProfile = executionProfile;
+        this.maxConcurrency   = maxConcurrency;
+        CompletableFuture<PreparedStatement> claim = preparer.apply(
+                insertInto(keyspaceName, TABLE_ROOM_NIGHT_CLAIMS)
+                .value(HOTEL_ID, bindMarker(HOTEL_ID))
+                .value(ROOM_NUMBER, bindMarker(ROOM_NUMBER))
+                .value(NIGHT, bindMarker(NIGHT))
+                .value(CONFIRM_NUMBER, bindMarker(CONFIRM_NUMBER))
+                .ifNotExists()
+                .build());
+        CompletableFuture<PreparedStatement> release = preparer.apply(
+                deleteFrom(keyspaceName, TABLE_ROOM_NIGHT_CLAIMS)
+                .where(column(HOTEL_ID).isEqualTo(bindMarker(HOTEL_ID)))
+                .where(column(ROOM_NUMBER).isEqualTo(bindMarker(ROOM_NUMBER)))
+                .where(column(NIGHT).isEqualTo(bindMarker(NIGHT)))
+                .if_(Condition.column(CONFIRM_NUMBER).isEqualTo(bindMarker(CONFIRM_NUMBER)))
+                .build());
+        psClaim   = claim.join();
+        psRelease = release.join();
+    }
+
+    /**
+     * Nights to claim for a write: nights of the new version, except those already held by the previous version
+     * (same hotel and room).
+     *
+     * @param previous
+     *      version replaced, null for a new reservation
+     * @param current
+     *      version written
+     * @return
+     *      nights to claim
+     */
+    static List<LocalDate> toClaim(Reservation previous, Reservation current) {
+        List<LocalDate> nights = OccupancyRollup.nights(current);
+        if (sameRoom(previous, current)) {
+            nights.removeAll(new HashSet<>(OccupancyRollup.nights(previous)));
+        }
+        return nights;
+    }
+
+    /**
+     * Nights to release once a write succeeded: nights of the previous version the new one does not occupy.
+     *
+     * @param previous
+     *      version replaced or deleted, may be null
+     * @param current
+     *      version written, null for a delete
+     * @return
+     *      nights to release
+     */
+    static List<LocalDate> toRelease(Reservation previous, Reservation current) {
+        List<LocalDate> nights = OccupancyRollup.nights(previous);
+        if (sameRoom(previous, current)) {
+            nights.removeAll(new HashSet<>(OccupancyRollup.nights(current)));
+        }
+        return nights;
+    }
+
+    private static boolean sameRoom(Reservation previous, Reservation current) {
+        return previous != null && current != null 
+                && Objects.equals(previous.getHotelId(), current.getHotelId())
+                && previous.getRoomNumber() == current.getRoomNumber();
+    }
+
+    /**
+     * Claim the nights of a reservation.
+     *
+     * @param previous
+     *      version replaced, null for a new reservation
+     * @param current
+     *      version about to be written
+     * @return
+     *      nights claimed by this call, to release if the write fails
+     * @throws RoomConflictException
+     *      a night is held by another reservation, the nights claimed have been released
+     */
+    List<LocalDate> claim(Reservation previous, Reservation current) {
+        List<LocalDate> nights = toClaim(previous, current);
+        String holder = current.getConfirmationNumber();
+        Map<LocalDate, CompletableFuture<AsyncResultSet>> claims = execute(nights, night -> 
+            psClaim.bind(current.getHotelId(), current.getRoomNumber(), night, holder));
+        List<LocalDate> acquired = new ArrayList<>();
+        Map<LocalDate, String> conflicting = new TreeMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<LocalDate, CompletableFuture<AsyncResultSet>> claim : claims.entrySet()) {
+            try {
+                AsyncResultSet rs = claim.getValue().join();
+                String currentHolder = rs.wasApplied() ? holder : rs.one().getString(CONFIRM_NUMBER);
+                if (holder.equals(currentHolder)) {
+                    // Claimed now, or left by a failed attempt of the same reservation
+                    acquired.add(claim.getKey());
+                } else {
+                    conflicting.put(claim.getKey(), currentHolder);
+                }
+            } catch (CompletionException e) {
+                // Outcome unknown (timeout): released as well, the release is conditional
+                acquired.add(claim.getKey());
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (!conflicting.isEmpty() || failure != null) {
+            release(current, acquired);
+            if (!conflicting.isEmpty()) {
+                conflicts.increment();
+                throw new RoomConflictException(current.getHotelId(), current.getRoomNumber(), conflicting);
+            }
+            throw failure;
+        }
+        return acquired;
+    }
+
+    /**
+     * Release nights held by a reservation, best effort: failures are logged, nights stay claimed.
+     *
+     * @param reservation
+     *      holder of the nights
+     * @param nights
+     *      nights to release
+     */
+    void release(Reservation reservation, Collection<LocalDate> nights) {
+        Map<LocalDate, CompletableFuture<AsyncResultSet>> releases = execute(nights, night ->
+            psRelease.bind(reservation.getHotelId(), reservation.getRoomNumber(), night, 
+                    reservation.getConfirmationNumber()));
+        Set<LocalDate> failed = new TreeSet<>();
+        releases.forEach((night, release) -> {
+            try {
+                release.join();
+            } catch (CompletionException e) {
+                failed.add(night);
+            }
+        });
+        if (!failed.isEmpty()) {
+            logger.warn("Unable to release nights {} of room {} of hotel {} held by {}", failed, 
+                    reservation.getRoomNumber(), reservation.getHotelId(), reservation.getConfirmationNumber());
+        }
+    }
+
+    /**
+     * Execute one statement per night, at most 'maxConcurrency' in flight.
+     */
+    private Map<LocalDate, CompletableFuture<AsyncResultSet>> execute(Collection<LocalDate> nights, 
+            Function<LocalDate, BoundStatement> binder) {
+        Map<LocalDate, CompletableFuture<AsyncResultSet>> results = new LinkedHashMap<>();
+        Semaphore inflight = new Semaphore(maxConcurrency);
+        for (LocalDate night : nights) {
+            inflight.acquireUninterruptibly();
+            BoundStatement statement = binder.apply(night);
+            if (executionProfile != null) {
+                statement = statement.setExecutionProfileName(executionProfile);
+            }
+            CompletableFuture<AsyncResultSet> result = QueryTracing.executeAsync(cqlSession, statement);
+            result.whenComplete((rs, error) -> inflight.release());
+            results.put(night, result);
+        }
+        return results;
+    }
+
+    /**
+     * Claims rejected because a night was held by another reservation.
+     *
+     * @return
+     *      number of conflicts since startup
+     */
+    long getConflicts() {
+        return conflicts.sum();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.datastax.oss.driver.api.core.DriverException;
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+
+/**
+ * Request coalescing: concurrent identical reads share a single execution.
+ *
+ * <p>The first caller for a key (the leader) executes the read on its own thread, callers arriving while it is in
+ * flight wait for its result, at most 'timeoutMillis', and get a copy of it or the same error. A new read starts
+ * once the flight has landed: results are never reused, only shared between overlapping calls. Writes call
+ * {@link #forget(Object)} so that reads issued after them do not join a flight started before.
+ *
+ * @param <K>
+ *      key of a read (with equals/hashCode)
+ * @param <V>
+ *      result of a read
+ *
+ * @author Jeff Carpenter
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final long timeoutMillis;
+    private final UnaryOperator<V> share;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder calls  = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Initialization of the group.
+     *
+     * @param name
+     *      name of the read, used as metric tag
+     * @param timeoutMillis
+     *      longest wait of a caller joining a flight
+     * @param share
+     *      copy of a result handed to a caller that joined a flight (results may be mutable)
+     */
+    public SingleFlight(String name, long timeoutMillis, UnaryOperator<V> share) {
+        this.name          = name;
+        this.timeoutMillis = timeoutMillis;
+        this.share         = share;
+    }
+
+    /**
+     * Execute a read, or join the identical read in flight.
+     *
+     * @param key
+     *      key of the read
+     * @param read
+     *      read executed by the leader
+     * @return
+     *      result of the read
+     */
+    public V execute(K key, Supplier<V> read) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            shared.increment();
+            return share.apply(await(inFlight));
+        }
+        try {
+            V result = read.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+            if (!flight.isDone()) {
+                flight.completeExceptionally(new IllegalStateException("Read of " + name + " did not complete"));
+            }
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DriverTimeoutException("Query timed out after waiting " + timeoutMillis 
+                    + "ms for an identical " + name + " read");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DriverTimeoutException("Interrupted while waiting for an identical " + name + " read");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DriverException) {
+                // Stack trace of this caller, not of the leader
+                throw ((DriverException) cause).copy();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Calls for this key no longer join the flight in progress, if any (a write happened).
+     *
+     * @param key
+     *      key of the read
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    /**
+     * Getter accessor for attribute 'name'.
+     *
+     * @return
+     *       current value of 'name'
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Calls since startup, leaders and callers that joined a flight.
+     *
+     * @return
+     *      number of calls
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Calls that joined a flight instead of reading.
+     *
+     * @return
+     *      number of calls
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    /**
+     * Part of the calls served by another call's read.
+     *
+     * @return
+     *      ratio between 0 and 1
+     */
+    public double getDedupRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) shared.sum() / total;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+
+/**
+ * Log requests slower than the threshold of their operation, the operation being the name of the execution profile
+ * of the statement ('cassandra.profiles.&lt;operation&gt;.slowQueryMillis').
+ *
+ * <p>An entry holds the operation, the latency of the request (retries and speculative executions included), the
+ * coordinator that answered, the statement and its bind values redacted to their type and size: guest names and
+ * emails never reach the logs.
+ *
+ * @author Jeff Carpenter
+ */
+public class SlowQueryLogger implements RequestTracker {
+
+    /** Logger for the class, route it to a dedicated appender to get a slow-query log. */
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLogger.class);
+
+    /** Longer statements are truncated. */
+    private static final int MAX_LABEL_LENGTH = 200;
+
+    /** Thresholds by execution profile. */
+    private final Map<String, Long> thresholdNanos;
+
+    /** Threshold of the default profile and of profiles without one. */
+    private final long defaultThresholdNanos;
+
+    private final LongAdder slowQueries = new LongAdder();
+
+    /**
+     * Initialization of the tracker.
+     *
+     * @param thresholdMillis
+     *      threshold by execution profile
+     * @param defaultThresholdMillis
+     *      threshold of other profiles
+     */
+    public SlowQueryLogger(Map<String, Long> thresholdMillis, long defaultThresholdMillis) {
+        this.thresholdNanos = thresholdMillis.entrySet().stream().collect(Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, e -> TimeUnit.MILLISECONDS.toNanos(e.getValue())));
+        this.defaultThresholdNanos = TimeUnit.MILLISECONDS.toNanos(defaultThresholdMillis);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onSuccess(Request request, long latencyNanos, DriverExecutionProfile profile, Node node, 
+            String logPrefix) {
+        if (isSlow(profile.getName(), latencyNanos)) {
+            slowQueries.increment();
+            logger.warn("Slow query [{}] {}ms on {}: {} {}", profile.getName(), 
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos), coordinator(node), label(request), values(request));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onError(Request request, Throwable error, long latencyNanos, DriverExecutionProfile profile, 
+            Node node, String logPrefix) {
+        if (isSlow(profile.getName(), latencyNanos)) {
+            slowQueries.increment();
+            logger.warn("Slow query [{}] {}ms on {} failed with {}: {} {}", profile.getName(), 
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos), coordinator(node), error.toString(), 
+                    label(request), values(request));
+        }
+    }
+
+    /**
+     * Compare a latency to the threshold of an operation.
+     *
+     * @param operation
+     *      name of the execution profile
+     * @param latencyNanos
+     *      latency of the request
+     * @return
+     *      true if the request is logged
+     */
+    boolean isSlow(String operation, long latencyNanos) {
+        return latencyNanos >= thresholdNanos.getOrDefault(operation, defaultThresholdNanos);
+    }
+
+    /**
+     * Statement of a request, a batch is labelled with its type, its size and its first statement.
+     *
+     * @param request
+     *      request executed
+     * @return
+     *      CQL, truncated
+     */
+    static String label(Request request) {
+        String label;
+        if (request instanceof BoundStatement) {
+            label = ((BoundStatement) request).getPreparedStatement().getQuery();
+        } else if (request instanceof SimpleStatement) {
+            label = ((SimpleStatement) request).getQuery();
+        } else if (request instanceof BatchStatement) {
+            BatchStatement batch = (BatchStatement) request;
+            label = "BATCH " + batch.getBatchType() + " of " + batch.size() 
+                    + (batch.size() > 0 ? ", first: " + label(batch.iterator().next()) : "");
+        } else {
+            label = request.getClass().getSimpleName();
+        }
+        return label.length() > MAX_LABEL_LENGTH ? label.substring(0, MAX_LABEL_LENGTH) + "..." : label;
+    }
+
+    /**
+     * Bind values of a request, as their name, type and size only.
+     *
+     * @param request
+     *      request executed
+     * @return
+     *      redacted values, for instance '[hotel_id=&lt;text, 5 bytes&gt;, room_number=null]'
+     */
+    static String values(Request request) {
+        if (request instanceof BoundStatement) {
+            BoundStatement bound = (BoundStatement) request;
+            ColumnDefinitions variables = bound.getPreparedStatement().getVariableDefinitions();
+            StringJoiner values = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < variables.size(); i++) {
+                String value;
+                if (!bound.isSet(i)) {
+                    value = "<unset>";
+                } else {
+                    ByteBuffer bytes = bound.getBytesUnsafe(i);
+                    value = (bytes == null) ? "null" : "<" + variables.get(i).getType().asCql(false, true) 
+                            + ", " + bytes.remaining() + " bytes>";
+                }
+                values.add(variables.get(i).getName().asCql(true) + "=" + value);
+            }
+            return values.toString();
+        }
+        if (request instanceof SimpleStatement) {
+            SimpleStatement simple = (SimpleStatement) request;
+            return "[<" + (simple.getPositionalValues().size() + simple.getNamedValues().size()) + " values>]";
+        }
+        if (request instanceof BatchStatement && ((BatchStatement) request).size() > 0) {
+            BatchableStatement<?> first = ((BatchStatement) request).iterator().next();
+            return values(first);
+        }
+        return "[]";
+    }
+
+    private static String coordinator(Node node) {
+        return (node == null) ? "no coordinator" : node.getEndPoint().toString();
+    }
+
+    /**
+     * Requests logged since startup.
+     *
+     * @return
+     *      number of slow requests
+     */
+    public long getSlowQueries() {
+        return slowQueries.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Time-ordered confirmation numbers in the spirit of ULID, laid out as a version 7 UUID:
+ * 
+ * <pre>
+ * | unix time millis (48) | version=7 (4) | sequence (12) | variant (2) | random (62) |
+ * </pre>
+ * 
+ * <p>Each thread keeps its own state (last millisecond, sequence and a {@link SecureRandom} of its own): nothing
+ * is shared between threads, no lock contention nor CAS on the hot path. Numbers generated by a thread are
+ * strictly increasing, numbers from different threads are ordered by millisecond, and the hexadecimal
+ * representation sorts by creation time which helps when debugging.
+ * <p>The 62 random bits are unpredictable, but the creation time and the sequence are not: a confirmation number
+ * reveals when it was issued.
+ *
+ * @author Jeff Carpenter
+ */
+public class TimeOrderedConfirmationNumberGenerator implements ConfirmationNumberGenerator {
+    
+    private static final long VERSION_7       = 0x7000L;
+    private static final long VARIANT_RFC4122 = 0x8000000000000000L;
+    private static final long RANDOM_MASK     = 0x3FFFFFFFFFFFFFFFL;
+    private static final int  MAX_SEQUENCE    = 0xFFF;
+    
+    /** Per thread state, never shared. */
+    private static final class State {
+        private final SecureRandom random = newSecureRandom();
+        private long millis;
+        private int  sequence;
+    }
+    
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    /** {@inheritDoc} */
+    @Override
+    public String next() {
+        return nextUuid().toString();
+    }
+    
+    /**
+     * Generate a new time-ordered UUID.
+     *
+     * @return
+     *      unique identifier
+     */
+    public UUID nextUuid() {
+        State current = state.get();
+        SecureRandom random = current.random;
+        long now = System.currentTimeMillis();
+        if (now > current.millis) {
+            current.millis   = now;
+            // Start from a random point in the lower half so that the sequence rarely overflows
+            current.sequence = random.nextInt(MAX_SEQUENCE / 2);
+        } else if (++current.sequence > MAX_SEQUENCE) {
+            // More than 2048 numbers in this millisecond (or the clock went back): borrow the next millisecond
+            current.millis++;
+            current.sequence = 0;
+        }
+        long msb = (current.millis << 16) | VERSION_7 | current.sequence;
+        long lsb = VARIANT_RFC4122 | (random.nextLong() & RANDOM_MASK);
+        return new UUID(msb, lsb);
+    }
+    
+    /**
+     * DRBG instances only synchronize on themselves (the default generator on Linux shares a lock between all
+     * instances), seeded once from the system entropy.
+     */
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+    
+    /**
+     * Creation time of a confirmation number generated by this class, useful when debugging.
+     *
+     * @param confirmationNumber
+     *      time-ordered confirmation number
+     * @return
+     *      creation time (millisecond precision)
+     */
+    public static Instant timestampOf(String confirmationNumber) {
+        UUID uuid = UUID.fromString(confirmationNumber);
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("'" + confirmationNumber + "' is not a time-ordered confirmation number");
+        }
+        return Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+
+/**
+ * Full scan of a table by token range, page by page, for background jobs reading every row without a
+ * coordinator-wide 'SELECT *'. Each query reads a range of the ring '(start, end]', rows are returned with the
+ * token of their partition (and optionally the write time of a column) so that a scan can be resumed after the
+ * last token processed.
+ *
+ * <p>Assumes the default Murmur3Partitioner, whose tokens are the longs from {@link Long#MIN_VALUE} (excluded,
+ * never assigned) to {@link Long#MAX_VALUE}.
+ *
+ * @author Jeff Carpenter
+ */
+final class TokenRangeScanner {
+
+    /** Aliases of the token and of the write time in the rows returned. */
+    static final String TOKEN      = "scan_token";
+    static final String WRITE_TIME = "scan_writetime";
+
+    private final CqlSession cqlSession;
+    private final CqlIdentifier table;
+    private final PreparedStatement psScan;
+    private final boolean writeTime;
+
+    /**
+     * Prepare the scan of a table.
+     *
+     * @param cqlSession
+     *      session executing the scan
+     * @param keyspaceName
+     *      keyspace of the table
+     * @param table
+     *      table scanned
+     * @param partitionKey
+     *      partition key columns of the table
+     * @param columns
+     *      columns returned
+     * @param writeTimeOf
+     *      regular column whose write time is returned, null if not needed
+     * @param preparer
+     *      prepare a statement
+     */
+    TokenRangeScanner(CqlSession cqlSession, CqlIdentifier keyspaceName, CqlIdentifier table,
+            List<CqlIdentifier> partitionKey, List<CqlIdentifier> columns, CqlIdentifier writeTimeOf,
+            Function<SimpleStatement, CompletableFuture<PreparedStatement>> preparer) {
+        this.cqlSession = cqlSession;
+        this.table      = table;
+        this.writeTime  = writeTimeOf != null;
+        // token is a reserved keyword, not accepted as a function name by the query builder
+        Select select = selectFrom(keyspaceName, table).columnsIds(columns)
+                .raw("token(" + partitionKey.stream().map(column -> column.asCql(true))
+                        .collect(Collectors.joining(", ")) + ")")
+                .as(TOKEN);
+        if (writeTime) {
+            select = select.writeTime(writeTimeOf).as(WRITE_TIME);
+        }
+        this.psScan = preparer.apply(select
+                .whereTokenFromIds(partitionKey).isGreaterThan(bindMarker("start"))
+                .whereTokenFromIds(partitionKey).isLessThanOrEqualTo(bindMarker("end"))
+                .build().setIdempotent(true)).join();
+    }
+
+    /**
+     * Split the ring into ranges of the same width.
+     *
+     * @param count
+     *      number of ranges
+     * @return
+     *      ranges as '{start (excluded), end (included)}', in token order, covering the whole ring
+     */
+    static List<long[]> splits(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one split is required");
+        }
+        List<long[]> splits = new ArrayList<>(count);
+        // Width of the ring is 2^64 - 1: computed on the unsigned distance from the minimum token
+        long width = Long.divideUnsigned(-1L, count);
+        long start = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            long end = (i == count - 1) ? Long.MAX_VALUE : start + width;
+            splits.add(new long[] { start, end });
+            start = end;
+        }
+        return splits;
+    }
+
+    /**
+     * Fraction of a range scanned.
+     *
+     * @param start
+     *      start of the range (excluded)
+     * @param end
+     *      end of the range (included)
+     * @param position
+     *      last token processed, the start when nothing has been
+     * @return
+     *      value from 0 to 1
+     */
+    static double fraction(long start, long end, long position) {
+        // Doubles: the distances do not fit in a long for the largest ranges
+        return Math.max(0, Math.min(1, ((double) position - start) / ((double) end - start)));
+    }
+
+    /**
+     * Read a page of a range.
+     *
+     * @param start
+     *      start of the range (excluded), the last token processed when resuming
+     * @param end
+     *      end of the range (included)
+     * @param pageSize
+     *      rows of the page
+     * @param pagingState
+     *      position returned by the previous page, null for the first one
+     * @param profile
+     *      execution profile, null for the default one
+     * @return
+     *      result, rows of the page are available without fetching
+     */
+    ResultSet page(long start, long end, int pageSize, ByteBuffer pagingState, String profile) {
+        BoundStatement statement = psScan.bind(start, end)
+                .setPageSize(pageSize)
+                .setPagingState(pagingState);
+        return QueryTracing.execute(cqlSession, 
+                profile == null ? statement : statement.setExecutionProfileName(profile));
+    }
+
+    /**
+     * Token of the partition of a row.
+     *
+     * @param row
+     *      row returned by {@link #page(long, long, int, ByteBuffer, String)}
+     * @return
+     *      token
+     */
+    static long token(Row row) {
+        return row.getLong(TOKEN);
+    }
+
+    /**
+     * Write time of the column given at construction.
+     *
+     * @param row
+     *      row returned by {@link #page(long, long, int, ByteBuffer, String)}
+     * @return
+     *      microseconds, null if the column is not set or not requested
+     */
+    Long writeTime(Row row) {
+        return writeTime && !row.isNull(WRITE_TIME) ? row.getLong(WRITE_TIME) : null;
+    }
+
+    /**
+     * Getter accessor for attribute 'table'.
+     *
+     * @return
+     *       current value of 'table'
+     */
+    CqlIdentifier getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+/**
+ * Apply the entries of a {@link WriteBehindJournal} in the background.
+ *
+ * <p>Entries are read by batches and grouped by partition and write timestamp, each group is sent as a
+ * single-partition UNLOGGED batch carrying the timestamp of its entries (the driver ignores the timestamps of the
+ * statements of a batch). A batch is committed in the journal once all its groups are applied; on failure the batch
+ * is retried, entries carry their write timestamp so that applying them twice or late never overrides newer data.
+ * Entries left by a previous process are applied first.
+ *
+ * @author Jeff Carpenter
+ */
+public class WriteBehindApplier implements AutoCloseable {
+
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindApplier.class);
+
+    /** Delay before retrying a batch that failed. */
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final CqlSession cqlSession;
+    private final WriteBehindJournal journal;
+    private final Function<WriteBehindJournal.Entry, BatchableStatement<?>> binder;
+    private final Function<WriteBehindJournal.Entry, Object> partitionKey;
+    private final Consumer<WriteBehindJournal.Entry> onApplied;
+    private final int batchSize;
+
+    private final LongAdder applied  = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Start applying the journal.
+     *
+     * @param cqlSession
+     *      session executing writes
+     * @param journal
+     *      journal to apply
+     * @param binder
+     *      statement of an entry (write timestamp included), null to skip the entry
+     * @param partitionKey
+     *      partition written by an entry (with equals/hashCode)
+     * @param onApplied
+     *      called for each entry once written (cache invalidation)
+     * @param batchSize
+     *      maximum number of entries read at once
+     */
+    public WriteBehindApplier(CqlSession cqlSession, WriteBehindJournal journal,
+            Function<WriteBehindJournal.Entry, BatchableStatement<?>> binder,
+            Function<WriteBehindJournal.Entry, Object> partitionKey,
+            Consumer<WriteBehindJournal.Entry> onApplied, int batchSize) {
+        this.cqlSession   = cqlSession;
+        this.journal      = journal;
+        this.binder       = binder;
+        this.partitionKey = partitionKey;
+        this.onApplied    = onApplied;
+        this.batchSize    = batchSize;
+        if (journal.getPendingBytes() > 0) {
+            logger.info("Replaying {} bytes of write-behind journal", journal.getPendingBytes());
+        }
+        this.thread = new Thread(this::run, "write-behind");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        while (running || journal.getPendingBytes() > 0) {
+            WriteBehindJournal.Batch batch;
+            try {
+                batch = journal.poll(batchSize, 100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.getEntries().isEmpty()) {
+                continue;
+            }
+            try {
+                apply(batch.getEntries());
+                journal.commit(batch);
+                journal.force();
+                applied.add(batch.getEntries().size());
+                batch.getEntries().forEach(onApplied);
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.warn("Unable to apply {} journal entries, retrying: {}", batch.getEntries().size(),
+                        e.getMessage());
+                journal.rewind();
+                if (!running) {
+                    // Pending entries will be replayed on next start
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the entries, one UNLOGGED batch per partition and timestamp.
+     */
+    private void apply(List<WriteBehindJournal.Entry> entries) {
+        Map<List<Object>, List<BatchableStatement<?>>> groups = new LinkedHashMap<>();
+        for (WriteBehindJournal.Entry entry : entries) {
+            BatchableStatement<?> statement = binder.apply(entry);
+            if (statement == null) {
+                logger.warn("Skipping journal entry of {}, its table is no longer in use",
+                        entry.getReservation().getConfirmationNumber());
+                continue;
+            }
+            groups.computeIfAbsent(List.of(partitionKey.apply(entry), entry.getTimestampMicros()), 
+                    k -> new ArrayList<>()).add(statement);
+        }
+        List<CompletableFuture<?>> writes = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, List<BatchableStatement<?>>> group : groups.entrySet()) {
+            Statement<?> statement = group.getValue().get(0);
+            if (group.getValue().size() > 1) {
+                BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.UNLOGGED)
+                        .setExecutionProfileName(statement.getExecutionProfileName())
+                        .setQueryTimestamp((Long) group.getKey().get(1));
+                group.getValue().forEach(batch::addStatement);
+                statement = batch.build();
+            }
+            writes.add(cqlSession.executeAsync(statement).toCompletableFuture());
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Getter accessor for attribute 'journal'.
+     *
+     * @return
+     *       current value of 'journal'
+     */
+    public WriteBehindJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Entries applied since startup.
+     *
+     * @return
+     *      number of entries
+     */
+    public long getApplied() {
+        return applied.sum();
+    }
+
+    /**
+     * Batches that failed and have been retried.
+     *
+     * @return
+     *      number of failures
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Apply pending entries (a few seconds at most, the rest is replayed on next start) and close the journal.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close write-behind journal: {}", e.getMessage());
+        }
+    }
+}
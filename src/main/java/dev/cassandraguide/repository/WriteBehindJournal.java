@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Local append-only journal of the writes to the query tables, memory-mapped so that a process crash loses nothing
+ * (the file is forced to disk by {@link #force()}, called by the applier after each batch).
+ *
+ * <pre>
+ * header    64 bytes  magic, version, offset of the first entry not applied yet
+ * entries             length (int), CRC32 of the body (int), body, a length of 0 ends the journal
+ * body                operation, schema (v1/v2), write timestamp, hotel id, dates, room, guest id, confirmation number
+ * </pre>
+ *
+ * <p>Applied entries are reclaimed by moving the pending ones to the start of the file once they fit in the
+ * applied area (the source is never overwritten, a crash during the move replays entries at worst). When no space
+ * is left, {@link #append(List)} returns false and the caller writes synchronously.
+ *
+ * @author Jeff Carpenter
+ */
+public class WriteBehindJournal implements AutoCloseable {
+
+    static final int MAGIC   = 0x5253574A; // 'RSWJ'
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES   = 64;
+    static final int APPLIED_OFFSET = 8;
+    static final int ENTRY_OVERHEAD = 8;
+
+    /** Kind of write to the query tables. */
+    public enum Operation { INSERT, DELETE }
+
+    /**
+     * A write to apply to 'reservations_by_hotel_date'.
+     */
+    public static final class Entry {
+
+        private final Operation operation;
+        private final boolean uuid;
+        private final long timestampMicros;
+        private final Reservation reservation;
+
+        /**
+         * Full constructor.
+         *
+         * @param operation
+         *      insert or delete
+         * @param uuid
+         *      schema v2 (confirmation number as 'uuid') or v1
+         * @param timestampMicros
+         *      write timestamp, replays and late writes never override newer data
+         * @param reservation
+         *      reservation written or deleted
+         */
+        public Entry(Operation operation, boolean uuid, long timestampMicros, Reservation reservation) {
+            this.operation       = operation;
+            this.uuid            = uuid;
+            this.timestampMicros = timestampMicros;
+            this.reservation     = reservation;
+        }
+
+        /**
+         * Getter accessor for attribute 'operation'.
+         *
+         * @return
+         *       current value of 'operation'
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Getter accessor for attribute 'uuid'.
+         *
+         * @return
+         *       current value of 'uuid'
+         */
+        public boolean isUuid() {
+            return uuid;
+        }
+
+        /**
+         * Getter accessor for attribute 'timestampMicros'.
+         *
+         * @return
+         *       current value of 'timestampMicros'
+         */
+        public long getTimestampMicros() {
+            return timestampMicros;
+        }
+
+        /**
+         * Getter accessor for attribute 'reservation'.
+         *
+         * @return
+         *       current value of 'reservation'
+         */
+        public Reservation getReservation() {
+            return reservation;
+        }
+    }
+
+    /**
+     * Entries read from the journal, {@link WriteBehindJournal#commit(Batch)} once applied.
+     */
+    public static final class Batch {
+
+        private final List<Entry> entries;
+        private final int bytes;
+
+        private Batch(List<Entry> entries, int bytes) {
+            this.entries = entries;
+            this.bytes   = bytes;
+        }
+
+        /**
+         * Getter accessor for attribute 'entries'.
+         *
+         * @return
+         *       current value of 'entries'
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    /** First entry not applied yet, entries being applied included. */
+    private int applied;
+
+    /** Entries returned by poll and not committed yet start at 'applied'. */
+    private int polled;
+
+    /** End of the last entry. */
+    private int written;
+
+    /**
+     * Open (or create) a journal, entries not applied before a crash are available again.
+     *
+     * @param path
+     *      journal file
+     * @param sizeBytes
+     *      size of the file, used when the journal is created
+     * @throws IOException
+     *      file cannot be opened or is not a journal
+     */
+    public WriteBehindJournal(Path path, int sizeBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        this.capacity = created ? sizeBytes : (int) Math.min(channel.size(), Integer.MAX_VALUE);
+        if (capacity < HEADER_BYTES + ENTRY_OVERHEAD) {
+            throw new IOException("Journal too small");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (created) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(APPLIED_OFFSET, HEADER_BYTES);
+            buffer.putInt(HEADER_BYTES, 0);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a journal or unsupported version");
+        }
+        long offset = buffer.getLong(APPLIED_OFFSET);
+        if (offset < HEADER_BYTES || offset > capacity) {
+            throw new IOException("Corrupted journal header");
+        }
+        this.applied = (int) offset;
+        this.polled  = applied;
+        // Entries written before a crash end at the first invalid one (torn write)
+        int position = applied;
+        while (decode(position) != null) {
+            position += ENTRY_OVERHEAD + buffer.getInt(position);
+        }
+        this.written = position;
+    }
+
+    /**
+     * Append the entries of a write, all or none.
+     *
+     * @param entries
+     *      entries to append
+     * @return
+     *      false if the journal is full (caller writes synchronously)
+     */
+    public synchronized boolean append(List<Entry> entries) {
+        List<byte[]> bodies = new ArrayList<>(entries.size());
+        int size = 0;
+        for (Entry entry : entries) {
+            byte[] body = encode(entry);
+            bodies.add(body);
+            size += ENTRY_OVERHEAD + body.length;
+        }
+        // Keep room for the end marker
+        if (written + size + 4 > capacity && (!reclaim() || written + size + 4 > capacity)) {
+            return false;
+        }
+        int position = written;
+        for (byte[] body : bodies) {
+            buffer.putInt(position + 4, checksum(body));
+            buffer.duplicate().position(position + ENTRY_OVERHEAD).put(body);
+            // Marker of the next entry first, the length makes the entry visible
+            buffer.putInt(position + ENTRY_OVERHEAD + body.length, 0);
+            buffer.putInt(position, body.length);
+            position += ENTRY_OVERHEAD + body.length;
+        }
+        written = position;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Wait for entries to apply.
+     *
+     * @param maxEntries
+     *      maximum number of entries returned
+     * @param timeout
+     *      maximum wait when the journal is empty
+     * @param unit
+     *      unit of the timeout
+     * @return
+     *      entries following the ones already polled, empty on timeout
+     * @throws InterruptedException
+     *      interrupted while waiting
+     */
+    public synchronized Batch poll(int maxEntries, long timeout, TimeUnit unit) throws InterruptedException {
+        if (polled == written) {
+            wait(Math.max(1, unit.toMillis(timeout)));
+        }
+        List<Entry> entries = new ArrayList<>();
+        int position = polled;
+        while (position < written && entries.size() < maxEntries) {
+            entries.add(decode(position));
+            position += ENTRY_OVERHEAD + buffer.getInt(position);
+        }
+        Batch batch = new Batch(entries, position - polled);
+        polled = position;
+        return batch;
+    }
+
+    /**
+     * Mark the oldest polled entries as applied, batches are committed in the order they were polled.
+     *
+     * @param batch
+     *      batch applied
+     */
+    public synchronized void commit(Batch batch) {
+        applied += batch.bytes;
+        if (applied == written) {
+            // Nothing pending, next entries start over
+            buffer.putInt(HEADER_BYTES, 0);
+            applied = polled = written = HEADER_BYTES;
+        }
+        buffer.putLong(APPLIED_OFFSET, applied);
+    }
+
+    /**
+     * Forget the polled entries not committed, they will be polled again.
+     */
+    public synchronized void rewind() {
+        polled = applied;
+    }
+
+    /**
+     * Write the journal to disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Bytes of entries not applied yet.
+     *
+     * @return
+     *      pending bytes
+     */
+    public synchronized int getPendingBytes() {
+        return written - applied;
+    }
+
+    /**
+     * Usage of the journal.
+     *
+     * @return
+     *      used part of the journal (0 to 1)
+     */
+    public synchronized double getUsage() {
+        return (double) (written - HEADER_BYTES) / (capacity - HEADER_BYTES);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Move the pending entries to the start of the file when they fit in the applied area.
+     */
+    private boolean reclaim() {
+        int pending = written - applied;
+        if (applied == HEADER_BYTES || pending + 4 > applied - HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer source = buffer.duplicate();
+        source.position(applied).limit(written);
+        ByteBuffer target = buffer.duplicate();
+        target.position(HEADER_BYTES);
+        target.put(source);
+        buffer.putInt(HEADER_BYTES + pending, 0);
+        buffer.force();
+        buffer.putLong(APPLIED_OFFSET, HEADER_BYTES);
+        polled  = HEADER_BYTES + (polled - applied);
+        written = HEADER_BYTES + pending;
+        applied = HEADER_BYTES;
+        return true;
+    }
+
+    private static byte[] encode(Entry entry) {
+        Reservation reservation = entry.getReservation();
+        byte[] hotelId = reservation.getHotelId().getBytes(StandardCharsets.UTF_8);
+        byte[] confirmationNumber = reservation.getConfirmationNumber().getBytes(StandardCharsets.UTF_8);
+        UUID guestId = reservation.getGuestId();
+        ByteBuffer body = ByteBuffer.allocate(2 + 8 + 2 + hotelId.length + 4 + 4 + 2 + 16 + 2
+                + confirmationNumber.length);
+        try {
+            body.put((byte) entry.getOperation().ordinal())
+                .put((byte) (entry.isUuid() ? 1 : 0))
+                .putLong(entry.getTimestampMicros())
+                .putShort((short) hotelId.length).put(hotelId)
+                .putInt(reservation.getStartDate() == null ? Integer.MIN_VALUE
+                                                           : (int) reservation.getStartDate().toEpochDay())
+                .putInt(reservation.getEndDate() == null ? Integer.MIN_VALUE
+                                                         : (int) reservation.getEndDate().toEpochDay())
+                .putShort(reservation.getRoomNumber())
+                .putLong(guestId == null ? 0 : guestId.getMostSignificantBits())
+                .putLong(guestId == null ? 0 : guestId.getLeastSignificantBits())
+                .putShort((short) confirmationNumber.length).put(confirmationNumber);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Hotel id or confirmation number too long", e);
+        }
+        return body.array();
+    }
+
+    /**
+     * Entry at a position, null if there is none or it is invalid.
+     */
+    private Entry decode(int position) {
+        if (position + ENTRY_OVERHEAD > capacity) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + ENTRY_OVERHEAD + length > capacity) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        buffer.duplicate().position(position + ENTRY_OVERHEAD).get(body);
+        if (checksum(body) != buffer.getInt(position + 4)) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(body);
+        Operation operation = Operation.values()[in.get()];
+        boolean uuid = in.get() == 1;
+        long timestampMicros = in.getLong();
+        byte[] hotelId = new byte[in.getShort()];
+        in.get(hotelId);
+        int startDay = in.getInt();
+        int endDay = in.getInt();
+        short roomNumber = in.getShort();
+        long guestIdMsb = in.getLong();
+        long guestIdLsb = in.getLong();
+        byte[] confirmationNumber = new byte[in.getShort()];
+        in.get(confirmationNumber);
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(new String(hotelId, StandardCharsets.UTF_8));
+        reservation.setStartDate(startDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(startDay));
+        reservation.setEndDate(endDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(endDay));
+        reservation.setRoomNumber(roomNumber);
+        reservation.setGuestId((guestIdMsb == 0 && guestIdLsb == 0) ? null : new UUID(guestIdMsb, guestIdLsb));
+        reservation.setConfirmationNumber(new String(confirmationNumber, StandardCharsets.UTF_8));
+        return new Entry(operation, uuid, timestampMicros, reservation);
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017-2020 Jeff Carpenter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+/**
+ * Coalesce concurrent writes targeting the same partition.
+ * 
+ * <p>Writes are collected during a short window (a few hundred microseconds) and grouped by partition key.
+ * Each group is sent as a single-partition UNLOGGED batch, which Cassandra applies as one mutation, and the
+ * future of each caller is completed individually when the batch completes.
+ * <p>Statements of a batch share its write timestamp: two writes of the same row would tie, and a tombstone wins a
+ * tie. A write of a row already in the group flushes the group first, so that the later write gets a later
+ * timestamp in a batch of its own.
+ *
+ * @author Jeff Carpenter
+ */
+public class WriteCoalescer implements AutoCloseable {
+    
+    /** Logger for the class. */
+    private static final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+    
+    private final CqlSession cqlSession;
+    private final long       windowNanos;
+    private final int        maxBatchSize;
+    
+    /** Groups being collected, a group is removed from the map when flushed. */
+    private final ConcurrentHashMap<Object, Group> groups = new ConcurrentHashMap<>();
+    
+    /** Flush groups at the end of their window. */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-coalescer");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    /**
+     * Initialization of the coalescer.
+     *
+     * @param cqlSession
+     *      session executing batches
+     * @param windowMicros
+     *      how long writes are collected before a group is flushed
+     * @param maxBatchSize
+     *      a group is flushed as soon as it reaches this size
+     */
+    public WriteCoalescer(CqlSession cqlSession, int windowMicros, int maxBatchSize) {
+        this.cqlSession   = cqlSession;
+        this.windowNanos  = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+    
+    /**
+     * Submit a write for a partition.
+     *
+     * @param partitionKey
+     *      key of the targeted partition (with equals/hashCode)
+     * @param rowKey
+     *      clustering key of the row written within the partition (with equals/hashCode)
+     * @param statement
+     *      statement writing to this partition
+     * @return
+     *      completed when the batch containing the write has been applied
+     */
+    public CompletableFuture<Void> submit(Object partitionKey, Object rowKey, BatchableStatement<?> statement) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        for (;;) {
+            Group group = groups.computeIfAbsent(partitionKey, Group::new);
+            synchronized (group) {
+                if (group.flushed) {
+                    // Flushed while we were waiting for the lock, a new group will be created
+                    continue;
+                }
+                if (!group.rows.add(rowKey)) {
+                    // Same row already in the batch: sent now, this write goes to a new group
+                    flush(group);
+                    continue;
+                }
+                group.statements.add(statement);
+                group.callers.add(result);
+                if (group.statements.size() >= maxBatchSize) {
+                    flush(group);
+                } else if (group.statements.size() == 1) {
+                    scheduler.schedule(() -> flushAtEndOfWindow(group), windowNanos, TimeUnit.NANOSECONDS);
+                }
+                return result;
+            }
+        }
+    }
+    
+    private void flushAtEndOfWindow(Group group) {
+        synchronized (group) {
+            if (!group.flushed) {
+                flush(group);
+            }
+        }
+    }
+    
+    /**
+     * Send the group, must be called holding the lock of the group.
+     */
+    private void flush(Group group) {
+        group.flushed = true;
+        groups.remove(group.partitionKey, group);
+        Statement<?> statement = group.statements.get(0);
+        if (group.statements.size() > 1) {
+            BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.UNLOGGED)
+                    .setExecutionProfileName(statement.getExecutionProfileName());
+            group.statements.forEach(batch::addStatement);
+            statement = batch.build();
+        }
+        List<CompletableFuture<Void>> callers = group.callers;
+        cqlSession.executeAsync(statement).whenComplete((rs, error) -> {
+            if (error != null) {
+                logger.debug("Coalesced batch of {} writes failed: {}", callers.size(), error.getMessage());
+                callers.forEach(caller -> caller.completeExceptionally(error));
+            } else {
+                callers.forEach(caller -> caller.complete(null));
+            }
+        });
+    }
+    
+    /**
+     * Flush pending groups and stop the scheduler.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        groups.values().forEach(this::flushAtEndOfWindow);
+    }
+    
+    /**
+     * Writes collected for a partition.
+     */
+    private static final class Group {
+        
+        private final Object partitionKey;
+        private final List<BatchableStatement<?>> statements = new ArrayList<>();
+        private final List<CompletableFuture<Void>> callers  = new ArrayList<>();
+        private final Set<Object> rows = new HashSet<>();
+        private boolean flushed;
+        
+        private Group(Object partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+    }
+}
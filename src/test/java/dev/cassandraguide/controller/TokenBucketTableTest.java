@@ -0,0 +1,57 @@
+package dev.cassandraguide.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Burst, refill and isolation of the token buckets, with a manual clock.
+ *
+ * @author Jeff Carpenter
+ */
+public class TokenBucketTableTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    @Test
+    @DisplayName("A full bucket allows a burst, then tells when the next token comes")
+    public void burst_should_exhaust_bucket() {
+        TokenBucketTable table = new TokenBucketTable("client", 2, 3, 64, clock::get);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, table.tryAcquire("c1"));
+        }
+        // 2 tokens per second: the next one in 500ms
+        Assertions.assertEquals(500, table.tryAcquire("c1"));
+        clock.addAndGet(200);
+        Assertions.assertEquals(300, table.tryAcquire("c1"));
+        Assertions.assertEquals(2, table.getRejected());
+    }
+
+    @Test
+    @DisplayName("Tokens refill with time, up to the burst")
+    public void tokens_should_refill() {
+        TokenBucketTable table = new TokenBucketTable("hotel", 10, 2, 64, clock::get);
+        Assertions.assertEquals(0, table.tryAcquire("h1"));
+        Assertions.assertEquals(0, table.tryAcquire("h1"));
+        Assertions.assertTrue(table.tryAcquire("h1") > 0);
+        clock.addAndGet(100);
+        Assertions.assertEquals(0, table.tryAcquire("h1"));
+        Assertions.assertTrue(table.tryAcquire("h1") > 0);
+        // A long pause refills to the burst, not beyond
+        clock.addAndGet(60_000);
+        Assertions.assertEquals(0, table.tryAcquire("h1"));
+        Assertions.assertEquals(0, table.tryAcquire("h1"));
+        Assertions.assertTrue(table.tryAcquire("h1") > 0);
+    }
+
+    @Test
+    @DisplayName("Keys in different slots have their own budget")
+    public void keys_should_be_isolated() {
+        TokenBucketTable table = new TokenBucketTable("client", 1, 1, 1024, clock::get);
+        Assertions.assertEquals(0, table.tryAcquire("c1"));
+        Assertions.assertTrue(table.tryAcquire("c1") > 0);
+        Assertions.assertEquals(0, table.tryAcquire("c2"));
+    }
+}
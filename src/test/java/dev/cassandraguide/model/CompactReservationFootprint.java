@@ -0,0 +1,68 @@
+package dev.cassandraguide.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Footprint of reservations kept in memory, measured with JOL (object graphs as laid out by the running JVM):
+ * {@link Reservation} objects vs {@link CompactReservation} records vs a flat {@link CompactReservationStore}.
+ * Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dev.cassandraguide.model.CompactReservationFootprint</code>
+ *
+ * @author Jeff Carpenter
+ */
+public final class CompactReservationFootprint {
+
+    /** Reservations measured by {@link #main(String[])}. */
+    private static final int COUNT = 10_000;
+
+    final int count;
+    final GraphLayout objects;
+    final GraphLayout compact;
+    final GraphLayout flat;
+
+    private CompactReservationFootprint(int count, GraphLayout objects, GraphLayout compact, GraphLayout flat) {
+        this.count   = count;
+        this.objects = objects;
+        this.compact = compact;
+        this.flat    = flat;
+    }
+
+    /**
+     * Measure the same reservations in the three forms.
+     *
+     * @param count
+     *      reservations
+     * @return
+     *      layouts of the three forms
+     */
+    static CompactReservationFootprint measure(int count) {
+        HotelIdDictionary dictionary = new HotelIdDictionary();
+        List<Reservation> reservations = new ArrayList<>();
+        List<CompactReservation> compacts = new ArrayList<>();
+        CompactReservationStore store = new CompactReservationStore(count);
+        for (int i = 0; i < count; i++) {
+            Reservation reservation = CompactReservationTest.reservation(i);
+            reservations.add(reservation);
+            CompactReservation compact = CompactReservation.of(reservation, dictionary);
+            compacts.add(compact);
+            store.put(compact);
+        }
+        return new CompactReservationFootprint(count, GraphLayout.parseInstance(reservations.toArray()),
+                GraphLayout.parseInstance(compacts.toArray()), GraphLayout.parseInstance(store));
+    }
+
+    public static void main(String[] args) {
+        CompactReservationFootprint footprint = measure(COUNT);
+        System.out.println(ClassLayout.parseClass(CompactReservation.class).toPrintable());
+        System.out.println(footprint.objects.toFootprint());
+        System.out.println(footprint.compact.toFootprint());
+        System.out.println(footprint.flat.toFootprint());
+        System.out.printf("Bytes per reservation: objects=%d, compact=%d, store=%d%n",
+                footprint.objects.totalSize() / COUNT, footprint.compact.totalSize() / COUNT,
+                footprint.flat.totalSize() / COUNT);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.cassandraguide.model;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CompactReservation} and {@link CompactReservationStore}, footprints are measured by
+ * {@link CompactReservationFootprint}.
+ *
+ * @author Jeff Carpenter
+ */
+public class CompactReservationTest {
+
+    private static final int COUNT = 10_000;
+
+    private final HotelIdDictionary dictionary = new HotelIdDictionary();
+
+    @Test
+    @DisplayName("Reservations are converted back and forth without loss")
+    public void should_round_trip() {
+        Reservation reservation = reservation(42);
+        CompactReservation compact = CompactReservation.of(reservation, dictionary);
+        assertSameReservation(reservation, compact.toReservation(dictionary));
+
+        ByteBuffer buffer = ByteBuffer.allocate(CompactReservation.BYTES);
+        compact.writeTo(buffer);
+        Assertions.assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        Assertions.assertEquals(compact, CompactReservation.readFrom(buffer));
+
+        // Missing values are preserved
+        Reservation empty = new Reservation();
+        assertSameReservation(empty, CompactReservation.of(empty, dictionary).toReservation(dictionary));
+    }
+
+    @Test
+    @DisplayName("Store finds and replaces reservations by confirmation number while growing")
+    public void store_should_index_by_confirmation_number() {
+        CompactReservationStore store = new CompactReservationStore(16);
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            Reservation reservation = reservation(i);
+            reservations.add(reservation);
+            store.put(CompactReservation.of(reservation, dictionary));
+        }
+        Assertions.assertEquals(COUNT, store.size());
+        Assertions.assertEquals(10, dictionary.size());
+        for (Reservation reservation : reservations) {
+            CompactReservation found = store.get(UUID.fromString(reservation.getConfirmationNumber()));
+            assertSameReservation(reservation, found.toReservation(dictionary));
+        }
+        Assertions.assertNull(store.get(UUID.randomUUID()));
+
+        Reservation moved = reservations.get(7);
+        moved.setRoomNumber((short) 999);
+        store.put(CompactReservation.of(moved, dictionary));
+        Assertions.assertEquals(COUNT, store.size());
+        Assertions.assertEquals(999, store.get(UUID.fromString(moved.getConfirmationNumber())).getRoomNumber());
+    }
+
+    @Test
+    @DisplayName("Compact records take less than half the memory of Reservation objects, the flat store less still")
+    public void compact_forms_should_save_memory() {
+        CompactReservationFootprint footprint = CompactReservationFootprint.measure(COUNT);
+        Assertions.assertTrue(footprint.compact.totalSize() * 2 < footprint.objects.totalSize());
+        Assertions.assertTrue(footprint.flat.totalSize() < footprint.compact.totalSize());
+    }
+
+    static Reservation reservation(int i) {
+        Reservation reservation = new Reservation();
+        // Hotel ids are built at runtime, as when read from Cassandra (not shared literals)
+        reservation.setHotelId(new StringBuilder("NY").append(i % 10).toString());
+        reservation.setStartDate(LocalDate.of(2020, 1, 1).plusDays(i % 365));
+        reservation.setEndDate(LocalDate.of(2020, 1, 3).plusDays(i % 365));
+        reservation.setRoomNumber((short) (i % 500));
+        reservation.setGuestId(UUID.randomUUID());
+        reservation.setConfirmationNumber(UUID.randomUUID().toString());
+        return reservation;
+    }
+
+    private static void assertSameReservation(Reservation expected, Reservation actual) {
+        Assertions.assertEquals(expected.getHotelId(), actual.getHotelId());
+        Assertions.assertEquals(expected.getStartDate(), actual.getStartDate());
+        Assertions.assertEquals(expected.getEndDate(), actual.getEndDate());
+        Assertions.assertEquals(expected.getRoomNumber(), actual.getRoomNumber());
+        Assertions.assertEquals(expected.getGuestId(), actual.getGuestId());
+        Assertions.assertEquals(expected.getConfirmationNumber(), actual.getConfirmationNumber());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.cassandraguide.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for the JSON merge patches of {@link ReservationPatch}.
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationPatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Members set attributes, null members remove them and absent members leave them unchanged")
+    public void should_merge() throws Exception {
+        Reservation stored  = reservation();
+        Reservation patched = ReservationPatch.apply(stored, json("{\"endDate\": \"2020-06-30\", \"guestId\": null}"));
+        Assertions.assertEquals(LocalDate.of(2020, 6, 30), patched.getEndDate());
+        Assertions.assertNull(patched.getGuestId());
+        Assertions.assertEquals(stored.getHotelId(), patched.getHotelId());
+        Assertions.assertEquals(stored.getStartDate(), patched.getStartDate());
+        Assertions.assertEquals(stored.getRoomNumber(), patched.getRoomNumber());
+        // The stored version is not modified
+        Assertions.assertEquals(LocalDate.of(2020, 6, 28), stored.getEndDate());
+
+        patched = ReservationPatch.apply(stored, json("{\"roomNumber\": 12, \"confirmationNumber\": \"" 
+                + stored.getConfirmationNumber() + "\"}"));
+        Assertions.assertEquals(12, patched.getRoomNumber());
+        Assertions.assertEquals(stored.getConfirmationNumber(), patched.getConfirmationNumber());
+    }
+
+    @Test
+    @DisplayName("Key attributes cannot be removed, the confirmation number cannot change")
+    public void should_reject_invalid_patches() throws Exception {
+        Reservation stored = reservation();
+        for (String patch : new String[] { "[]", "{\"hotelId\": null}", "{\"startDate\": null}",
+                "{\"roomNumber\": null}", "{\"roomNumber\": 70000}", "{\"roomNumber\": \"12\"}",
+                "{\"endDate\": \"28/06/2020\"}", "{\"guestId\": \"guest\"}", "{\"nights\": 3}",
+                "{\"confirmationNumber\": \"" + UUID.randomUUID() + "\"}" }) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ReservationPatch.apply(stored, json(patch)),
+                    patch);
+        }
+    }
+
+    private JsonNode json(String json) throws Exception {
+        return mapper.readTree(json);
+    }
+
+    private static Reservation reservation() {
+        Reservation reservation = new Reservation();
+        reservation.setConfirmationNumber(UUID.randomUUID().toString());
+        reservation.setHotelId("h1");
+        reservation.setStartDate(LocalDate.of(2020, 6, 26));
+        reservation.setEndDate(LocalDate.of(2020, 6, 28));
+        reservation.setRoomNumber((short) 104);
+        reservation.setGuestId(UUID.randomUUID());
+        return reservation;
+    }
+}
@@ -0,0 +1,82 @@
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimiter}, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class AdaptiveConcurrencyLimiterTest {
+    
+    @Test
+    @DisplayName("Calls over the limit are rejected")
+    public void acquire_over_limit_should_reject() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 2, 1, 10, 1.5, 0.2, true, 3);
+        AdaptiveConcurrencyLimiter.Permit p1 = limiter.acquire();
+        limiter.acquire();
+        LoadSheddingException e = Assertions.assertThrows(LoadSheddingException.class, limiter::acquire);
+        Assertions.assertEquals(3, e.getRetryAfterSeconds());
+        Assertions.assertEquals(1, limiter.getRejected());
+        // Releasing a permit makes room again
+        p1.ignore();
+        Assertions.assertNotNull(limiter.acquire());
+        Assertions.assertEquals(2, limiter.getInflight());
+    }
+    
+    @Test
+    @DisplayName("Dropped calls shrink the limit")
+    public void dropped_should_reduce_limit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 10, 2, 10, 1.5, 0.2, true, 1);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire().dropped();
+        }
+        Assertions.assertEquals(2, limiter.getLimit());
+        Assertions.assertEquals(0, limiter.getInflight());
+    }
+    
+    @Test
+    @DisplayName("Samples are aggregated per window, the limit is only recomputed when a window closes")
+    public void samples_should_update_limit_once_per_window() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 4, 1, 100, 1.5, 0.2, true, 1,
+                TimeUnit.HOURS.toNanos(1));
+        for (int i = 0; i < 50; i++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                permits.add(limiter.acquire());
+            }
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+        }
+        // Window still open
+        Assertions.assertEquals(4, limiter.getLimit());
+        
+        AdaptiveConcurrencyLimiter perSample = new AdaptiveConcurrencyLimiter("read", 4, 1, 100, 1.5, 0.2, true, 1, 0);
+        for (int i = 0; i < 50; i++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                permits.add(perSample.acquire());
+            }
+            Thread.sleep(1);
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+        }
+        // Stable latency at the limit: the queue allowance grows the limit
+        Assertions.assertTrue(perSample.getLimit() > 4);
+    }
+    
+    @Test
+    @DisplayName("Disabled limiter never rejects")
+    public void disabled_should_not_reject() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 1, 1, 1, 1.5, 0.2, false, 1);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        Assertions.assertEquals(5, limiter.getInflight());
+        Assertions.assertEquals(0, limiter.getRejected());
+    }
+}
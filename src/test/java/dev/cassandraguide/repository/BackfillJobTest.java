@@ -0,0 +1,278 @@
+package dev.cassandraguide.repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.BackfillProgress.Status;
+
+/**
+ * Unit tests for {@link BackfillJob}: estimated time to completion, and scans resumed from their checkpoints.
+ * Cassandra is stood in by mocks of the driver interfaces over an in-memory table of tokens.
+ *
+ * @author Jeff Carpenter
+ */
+public class BackfillJobTest {
+
+    private static final CqlIdentifier KEYSPACE = CqlIdentifier.fromCql("reservation");
+    private static final CqlIdentifier TABLE    = CqlIdentifier.fromCql("reservations_by_confirmation");
+
+    @Test
+    @DisplayName("ETA extrapolates the progress of the current run, not the progress of previous runs")
+    public void eta_should_use_current_run() {
+        long oneMinute = TimeUnit.MINUTES.toNanos(1);
+        // 10% in a minute: 9 minutes left
+        Assertions.assertEquals(540, BackfillJob.eta(0, 0.1, oneMinute));
+        // Resumed at 50%, 10% more in a minute: 4 minutes left
+        Assertions.assertEquals(240, BackfillJob.eta(0.5, 0.6, oneMinute));
+        Assertions.assertNull(BackfillJob.eta(0.5, 0.5, oneMinute));
+        Assertions.assertEquals(0, BackfillJob.eta(0, 1, oneMinute));
+    }
+
+    @Test
+    @DisplayName("A range is completed once a page comes without paging state")
+    public void scan_should_complete_on_last_page() throws Exception {
+        FakeCassandra cassandra = new FakeCassandra(10, 20, 30, 40, 50);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        BackfillJob job = cassandra.job(2, row -> written.add(TokenRangeScanner.token(row)), null);
+        Assertions.assertEquals(Status.NOT_STARTED, job.getProgress().getStatus());
+        Assertions.assertTrue(job.start(false));
+        BackfillProgress progress = await(job);
+        Assertions.assertEquals(Status.COMPLETED, progress.getStatus());
+        Assertions.assertEquals(List.of(10L, 20L, 30L, 40L, 50L), written);
+        Assertions.assertEquals(5, progress.getRowsScanned());
+        // One checkpoint per page, the last one marks the range completed at its end
+        Assertions.assertEquals(List.of(19L, 39L, Long.MAX_VALUE), cassandra.savedPositions);
+        Assertions.assertTrue(cassandra.checkpoint().completed);
+        // Completed and not restarted: nothing to do
+        Assertions.assertFalse(job.start(false));
+    }
+
+    @Test
+    @DisplayName("A stopped job resumes at the token before the last one processed, rows of that partition read again")
+    public void scan_should_resume_before_last_token() throws Exception {
+        // Two rows in the partition of token 20, split over two pages
+        FakeCassandra cassandra = new FakeCassandra(10, 20, 20, 30, 40);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        AtomicReference<BackfillJob> current = new AtomicReference<>();
+        BackfillJob job = cassandra.job(2, row -> {
+            written.add(TokenRangeScanner.token(row));
+            if (written.size() == 2) {
+                // Stopped during the first page: the page completes and is saved
+                current.get().stop();
+            }
+        }, current);
+        Assertions.assertTrue(job.start(false));
+        BackfillProgress stopped = await(job);
+        Assertions.assertEquals(Status.STOPPED, stopped.getStatus());
+        Assertions.assertEquals(List.of(10L, 20L), written);
+        Assertions.assertEquals(19L, cassandra.checkpoint().position);
+        Assertions.assertFalse(cassandra.checkpoint().completed);
+
+        // A new instance (restart of the service) loads the checkpoint and resumes after token 19
+        written.clear();
+        BackfillJob resumed = cassandra.job(2, row -> written.add(TokenRangeScanner.token(row)), null);
+        Assertions.assertEquals(Status.STOPPED, resumed.getProgress().getStatus());
+        Assertions.assertTrue(resumed.start(false));
+        Assertions.assertEquals(Status.COMPLETED, await(resumed).getStatus());
+        Assertions.assertEquals(List.of(20L, 20L, 30L, 40L), written);
+        Assertions.assertEquals(19L, cassandra.scannedFrom.get(cassandra.scannedFrom.size() - 1).longValue());
+    }
+
+    @Test
+    @DisplayName("Restarting a job forgets its checkpoints and scans the whole table again")
+    public void restart_should_scan_from_scratch() throws Exception {
+        FakeCassandra cassandra = new FakeCassandra(10, 20, 30);
+        List<Long> written = new CopyOnWriteArrayList<>();
+        BackfillJob job = cassandra.job(10, row -> written.add(TokenRangeScanner.token(row)), null);
+        Assertions.assertTrue(job.start(false));
+        Assertions.assertEquals(Status.COMPLETED, await(job).getStatus());
+        Assertions.assertTrue(job.start(true));
+        Assertions.assertEquals(Status.COMPLETED, await(job).getStatus());
+        Assertions.assertEquals(1, cassandra.clears);
+        Assertions.assertEquals(List.of(10L, 20L, 30L, 10L, 20L, 30L), written);
+    }
+
+    private static BackfillProgress await(BackfillJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getProgress().getStatus() == Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.getProgress();
+    }
+
+    /**
+     * A table of tokens (one row each) and the checkpoints table, behind mocks of the session and statements.
+     * Paging states are the index of the next row within the range queried.
+     */
+    private static final class FakeCassandra {
+
+        private final List<Long> tokens;
+        private final Map<Long, BackfillCheckpoints.Range> checkpoints = new ConcurrentHashMap<>();
+        private final List<Long> savedPositions = new CopyOnWriteArrayList<>();
+        private final List<Long> scannedFrom = new CopyOnWriteArrayList<>();
+        private volatile int clears;
+        private final Map<BoundStatement, Bound> bound = Collections.synchronizedMap(new IdentityHashMap<>());
+        private final CqlSession session;
+
+        private FakeCassandra(long... tokens) {
+            this.tokens  = Arrays.stream(tokens).boxed().collect(Collectors.toList());
+            this.session = Mockito.mock(CqlSession.class, invocation ->
+                    "execute".equals(invocation.getMethod().getName())
+                            ? execute((BoundStatement) invocation.getArgument(0)) : null);
+        }
+
+        /** Job over a single range, one thread, no throttle. */
+        private BackfillJob job(int pageSize, Consumer<Row> writer,
+                AtomicReference<BackfillJob> holder) {
+            TokenRangeScanner scanner = new TokenRangeScanner(session, KEYSPACE, TABLE,
+                    List.of(ReservationRepository.CONFIRM_NUMBER), List.of(ReservationRepository.CONFIRM_NUMBER),
+                    null, this::prepare);
+            BackfillCheckpoints store = new BackfillCheckpoints(session, KEYSPACE, this::prepare);
+            BackfillJob job = new BackfillJob("test", "Test job", scanner, store, row -> {
+                writer.accept(row);
+                return CompletableFuture.completedFuture(null);
+            }, 1, 1, pageSize, 0, null);
+            if (holder != null) {
+                holder.set(job);
+            }
+            return job;
+        }
+
+        private BackfillCheckpoints.Range checkpoint() {
+            return checkpoints.values().iterator().next();
+        }
+
+        /** Statements are told apart by their query, bound values are kept by the bound statement. */
+        private CompletableFuture<PreparedStatement> prepare(SimpleStatement statement) {
+            String query = statement.getQuery();
+            String kind = query.contains("token(") ? "scan" : query.startsWith("INSERT") ? "save"
+                        : query.startsWith("DELETE") ? "clear" : "load";
+            return CompletableFuture.completedFuture(Mockito.mock(PreparedStatement.class, invocation ->
+                    "bind".equals(invocation.getMethod().getName())
+                            ? bound(kind, invocation.getArguments()) : null));
+        }
+
+        private BoundStatement bound(String kind, Object[] values) {
+            Bound state = new Bound(kind, values);
+            BoundStatement statement = Mockito.mock(BoundStatement.class, invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "setPageSize":
+                        state.pageSize = invocation.getArgument(0);
+                        return invocation.getMock();
+                    case "setPagingState":
+                        state.pagingState = invocation.getArgument(0);
+                        return invocation.getMock();
+                    default:
+                        return null;
+                }
+            });
+            bound.put(statement, state);
+            return statement;
+        }
+
+        private ResultSet execute(BoundStatement statement) {
+            Bound state = bound.remove(statement);
+            Object[] values = state.values;
+            switch (state.kind) {
+                case "scan":
+                    return page((Long) values[0], (Long) values[1], state.pageSize, state.pagingState);
+                case "save":
+                    BackfillCheckpoints.Range range = new BackfillCheckpoints.Range((Long) values[1],
+                            (Long) values[2], (Long) values[3], (Long) values[4], (Boolean) values[5]);
+                    checkpoints.put(range.start, range);
+                    savedPositions.add(range.position);
+                    return resultSet(List.of(), null);
+                case "clear":
+                    checkpoints.clear();
+                    clears++;
+                    return resultSet(List.of(), null);
+                default:
+                    List<Row> rows = new ArrayList<>();
+                    for (BackfillCheckpoints.Range saved : checkpoints.values()) {
+                        rows.add(checkpointRow(saved));
+                    }
+                    return resultSet(rows, null);
+            }
+        }
+
+        private ResultSet page(long start, long end, int pageSize, ByteBuffer pagingState) {
+            if (pagingState == null) {
+                scannedFrom.add(start);
+            }
+            List<Long> inRange = tokens.stream().filter(token -> token > start && token <= end)
+                    .collect(Collectors.toList());
+            int from = pagingState == null ? 0 : pagingState.getInt(0);
+            int to   = Math.min(inRange.size(), from + pageSize);
+            List<Row> rows = new ArrayList<>();
+            for (long token : inRange.subList(from, to)) {
+                Row row = Mockito.mock(Row.class);
+                Mockito.when(row.getLong(TokenRangeScanner.TOKEN)).thenReturn(token);
+                rows.add(row);
+            }
+            return resultSet(rows, to < inRange.size() ? ByteBuffer.allocate(4).putInt(0, to) : null);
+        }
+
+        private static Row checkpointRow(BackfillCheckpoints.Range range) {
+            Row row = Mockito.mock(Row.class);
+            Mockito.when(row.getLong(BackfillCheckpoints.RANGE_START)).thenReturn(range.start);
+            Mockito.when(row.getLong(BackfillCheckpoints.RANGE_END)).thenReturn(range.end);
+            Mockito.when(row.getLong(BackfillCheckpoints.POSITION)).thenReturn(range.position);
+            Mockito.when(row.getLong(BackfillCheckpoints.ROWS)).thenReturn(range.rows);
+            Mockito.when(row.getBoolean(BackfillCheckpoints.COMPLETED)).thenReturn(range.completed);
+            return row;
+        }
+
+        private static ResultSet resultSet(List<Row> rows, ByteBuffer pagingState) {
+            List<Row> remaining = new ArrayList<>(rows);
+            ExecutionInfo info = Mockito.mock(ExecutionInfo.class);
+            Mockito.when(info.getPagingState()).thenReturn(pagingState);
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            Mockito.when(rs.getAvailableWithoutFetching()).thenAnswer(invocation -> remaining.size());
+            Mockito.when(rs.one()).thenAnswer(invocation -> remaining.isEmpty() ? null : remaining.remove(0));
+            Mockito.when(rs.iterator()).thenAnswer(invocation -> new ArrayList<>(remaining).iterator());
+            Mockito.when(rs.getExecutionInfo()).thenReturn(info);
+            return rs;
+        }
+    }
+
+    /** Values bound to a statement of the fake. */
+    private static final class Bound {
+
+        private final String kind;
+        private final Object[] values;
+        private int pageSize;
+        private ByteBuffer pagingState;
+
+        private Bound(String kind, Object[] values) {
+            this.kind   = kind;
+            this.values = values;
+        }
+    }
+}
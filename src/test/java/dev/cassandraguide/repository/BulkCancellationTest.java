@@ -0,0 +1,113 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dev.cassandraguide.model.BulkCancellationProgress;
+import dev.cassandraguide.model.BulkCancellationProgress.Status;
+import dev.cassandraguide.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BulkCancellation}, partitions are stood in by a map, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class BulkCancellationTest {
+
+    private static final LocalDate FROM = LocalDate.of(2020, 6, 1);
+    private static final LocalDate TO   = LocalDate.of(2020, 6, 10);
+
+    @Test
+    @DisplayName("Every partition of the range is read and its reservations cancelled")
+    public void cancellation_should_cancel_every_partition() throws Exception {
+        Map<LocalDate, List<Reservation>> partitions = partitions(3);
+        BulkCancellation cancellation = new BulkCancellation("NY456", FROM, TO, 4,
+                day -> new ArrayList<>(partitions.get(day)),
+                reservations -> partitions.get(reservations.get(0).getStartDate()).removeAll(reservations));
+        Assertions.assertTrue(cancellation.start());
+        BulkCancellationProgress progress = await(cancellation);
+        Assertions.assertEquals(Status.COMPLETED, progress.getStatus());
+        Assertions.assertEquals(10, progress.getPartitions());
+        Assertions.assertEquals(10, progress.getPartitionsCompleted());
+        Assertions.assertEquals(30, progress.getReservationsFound());
+        Assertions.assertEquals(30, progress.getReservationsCancelled());
+        Assertions.assertTrue(partitions.values().stream().allMatch(List::isEmpty));
+    }
+
+    @Test
+    @DisplayName("A failed cancellation started again only cancels the reservations left")
+    public void cancellation_should_resume_after_failure() throws Exception {
+        Map<LocalDate, List<Reservation>> partitions = partitions(2);
+        AtomicBoolean failing = new AtomicBoolean(true);
+        BulkCancellation cancellation = new BulkCancellation("NY456", FROM, TO, 1,
+                day -> new ArrayList<>(partitions.get(day)),
+                reservations -> {
+                    LocalDate day = reservations.get(0).getStartDate();
+                    if (day.equals(FROM.plusDays(5)) && failing.getAndSet(false)) {
+                        throw new IllegalStateException("timeout");
+                    }
+                    partitions.get(day).removeAll(reservations);
+                });
+        Assertions.assertTrue(cancellation.start());
+        BulkCancellationProgress failed = await(cancellation);
+        Assertions.assertEquals(Status.FAILED, failed.getStatus());
+        Assertions.assertEquals(5, failed.getPartitionsCompleted());
+        Assertions.assertEquals(10, failed.getReservationsCancelled());
+        Assertions.assertTrue(failed.getLastError().contains("timeout"));
+
+        Assertions.assertTrue(cancellation.start());
+        BulkCancellationProgress retried = await(cancellation);
+        Assertions.assertEquals(Status.COMPLETED, retried.getStatus());
+        Assertions.assertNull(retried.getLastError());
+        Assertions.assertEquals(10, retried.getPartitionsCompleted());
+        // Partitions cancelled by the first run are read again and found empty
+        Assertions.assertEquals(10, retried.getReservationsCancelled());
+        Assertions.assertTrue(partitions.values().stream().allMatch(List::isEmpty));
+    }
+
+    @Test
+    @DisplayName("Identifier only depends on the hotel and the dates")
+    public void id_should_be_deterministic() {
+        Assertions.assertEquals(BulkCancellation.id("NY456", FROM, TO), BulkCancellation.id("NY456", FROM, TO));
+        Assertions.assertNotEquals(BulkCancellation.id("NY456", FROM, TO), BulkCancellation.id("NY457", FROM, TO));
+        Assertions.assertNotEquals(BulkCancellation.id("NY456", FROM, TO),
+                BulkCancellation.id("NY456", FROM, TO.plusDays(1)));
+    }
+
+    private static Map<LocalDate, List<Reservation>> partitions(int reservationsPerDay) {
+        Map<LocalDate, List<Reservation>> partitions = new ConcurrentHashMap<>();
+        for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+            List<Reservation> reservations = new ArrayList<>();
+            for (short room = 1; room <= reservationsPerDay; room++) {
+                Reservation reservation = new Reservation();
+                reservation.setConfirmationNumber(day + "-" + room);
+                reservation.setHotelId("NY456");
+                reservation.setStartDate(day);
+                reservation.setEndDate(day.plusDays(1));
+                reservation.setRoomNumber(room);
+                reservation.setGuestId(UUID.randomUUID());
+                reservations.add(reservation);
+            }
+            partitions.put(day, Collections.synchronizedList(reservations));
+        }
+        return partitions;
+    }
+
+    private static BulkCancellationProgress await(BulkCancellation cancellation) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cancellation.getProgress().getStatus() == Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return cancellation.getProgress();
+    }
+}
@@ -0,0 +1,57 @@
+package dev.cassandraguide.repository;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of confirmation number generation with many threads (bulk loads):
+ * {@link UUID#randomUUID()} shares a SecureRandom while {@link TimeOrderedConfirmationNumberGenerator}
+ * only uses per-thread state.
+ * 
+ * <p>Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=dev.cassandraguide.repository.ConfirmationNumberGeneratorBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ConfirmationNumberGeneratorBenchmark {
+    
+    private final ConfirmationNumberGenerator randomGenerator      = ConfirmationNumberGenerator.random();
+    private final ConfirmationNumberGenerator timeOrderedGenerator = new TimeOrderedConfirmationNumberGenerator();
+    
+    @Benchmark
+    public String randomUUID() {
+        return randomGenerator.next();
+    }
+    
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrderedGenerator.next();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConfirmationNumberGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
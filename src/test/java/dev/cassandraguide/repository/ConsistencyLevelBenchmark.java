@@ -0,0 +1,117 @@
+package dev.cassandraguide.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare read latency at LOCAL_QUORUM, at LOCAL_ONE, and at LOCAL_ONE retried at LOCAL_QUORUM when nothing is
+ * found (the 'reservation.read.localOne' path), against a latency-injecting stand-in for a replication factor of 3.
+ *
+ * <p>A LOCAL_QUORUM read waits for the slower of two replicas, a LOCAL_ONE read for a single one, so LOCAL_ONE
+ * mostly improves the tail: look at the p0.99 lines of the 'SampleTime' output. The fallback costs a second round
+ * trip for each 'not found', which is cheap as long as lookups of unknown confirmation numbers are rare.
+ * Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dev.cassandraguide.repository.ConsistencyLevelBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class ConsistencyLevelBenchmark {
+
+    /** Fraction of replica reads hitting a slow replica (GC, compaction), a quorum hits one twice as often. */
+    @Param({"0.008"})
+    public double slowRatio;
+
+    /** Latency of a slow replica. */
+    @Param({"20"})
+    public int slowMillis;
+
+    /** Fraction of reads finding nothing at LOCAL_ONE (unknown confirmation number or write not replicated). */
+    @Param({"0.0", "0.1"})
+    public double notFoundRatio;
+
+    private ScheduledExecutorService replicas;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        replicas = Executors.newScheduledThreadPool(4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        replicas.shutdownNow();
+    }
+
+    @Benchmark
+    public Object quorumRead() {
+        return quorum().join();
+    }
+
+    @Benchmark
+    public Object localOneRead() {
+        return replicaRead().join();
+    }
+
+    @Benchmark
+    public Object localOneWithFallback() {
+        return replicaRead().thenCompose(found ->
+            ThreadLocalRandom.current().nextDouble() < notFoundRatio ? quorum() : CompletableFuture.completedFuture(found)
+        ).join();
+    }
+
+    /**
+     * Stand-in for a LOCAL_QUORUM read: the coordinator waits for 2 replicas out of 3.
+     */
+    private CompletableFuture<Long> quorum() {
+        return replicaRead().thenCombine(replicaRead(), Math::max);
+    }
+
+    /**
+     * Stand-in for a read sent to one replica.
+     */
+    private CompletableFuture<Long> replicaRead() {
+        CompletableFuture<Long> response = new CompletableFuture<>();
+        long latency = sampleLatencyNanos();
+        replicas.schedule(() -> response.complete(latency), latency, TimeUnit.NANOSECONDS);
+        return response;
+    }
+
+    private long sampleLatencyNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long base = TimeUnit.MICROSECONDS.toNanos(800 + random.nextInt(400));
+        return (random.nextDouble() < slowRatio) ? base + TimeUnit.MILLISECONDS.toNanos(slowMillis) : base;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConsistencyLevelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
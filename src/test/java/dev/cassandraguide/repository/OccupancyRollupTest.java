@@ -0,0 +1,87 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.cassandraguide.model.OccupancyReport;
+import dev.cassandraguide.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the counter changes of {@link OccupancyRollup}, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class OccupancyRollupTest {
+
+    @Test
+    @DisplayName("A stay occupies its nights, the end date excluded")
+    public void nights_should_exclude_end_date() {
+        Assertions.assertEquals(List.of(LocalDate.of(2020, 12, 30), LocalDate.of(2020, 12, 31), 
+                LocalDate.of(2021, 1, 1)),
+                OccupancyRollup.nights(reservation("h1", LocalDate.of(2020, 12, 30), LocalDate.of(2021, 1, 2))));
+        Assertions.assertEquals(List.of(LocalDate.of(2020, 6, 1)),
+                OccupancyRollup.nights(reservation("h1", LocalDate.of(2020, 6, 1), null)));
+        Assertions.assertTrue(OccupancyRollup.nights(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Moving a reservation only changes the nights that differ")
+    public void deltas_should_cancel_out_common_nights() {
+        Reservation previous = reservation("h1", LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 13));
+        Reservation moved    = reservation("h1", LocalDate.of(2020, 6, 12), LocalDate.of(2020, 6, 15));
+        Map<String, Map<LocalDate, Long>> deltas = OccupancyRollup.deltas(previous, moved);
+        Assertions.assertEquals(Map.of("h1", Map.of(
+                LocalDate.of(2020, 6, 10), -1L, LocalDate.of(2020, 6, 11), -1L,
+                LocalDate.of(2020, 6, 13), 1L, LocalDate.of(2020, 6, 14), 1L)), deltas);
+        // Same stay (guest or room changed): nothing to update
+        Assertions.assertTrue(OccupancyRollup.deltas(previous, previous).isEmpty());
+        // Other hotel: every night moves
+        Map<String, Map<LocalDate, Long>> otherHotel = OccupancyRollup.deltas(previous, 
+                reservation("h2", LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 13)));
+        Assertions.assertEquals(3, otherHotel.get("h1").size());
+        Assertions.assertEquals(3, otherHotel.get("h2").size());
+    }
+
+    @Test
+    @DisplayName("Corrections bring the counters to the reservations in house each night")
+    public void corrections_should_match_reservations() {
+        List<Reservation> reservations = List.of(
+                reservation("h1", LocalDate.of(2020, 5, 30), LocalDate.of(2020, 6, 3)),
+                reservation("h1", LocalDate.of(2020, 6, 2), LocalDate.of(2020, 6, 4)));
+        // Counted twice on June 1st, missed on June 3rd, never decremented on June 10th
+        Map<LocalDate, Long> stored = Map.of(LocalDate.of(2020, 6, 1), 2L, LocalDate.of(2020, 6, 2), 2L, 
+                LocalDate.of(2020, 6, 10), 1L);
+        Assertions.assertEquals(Map.of(LocalDate.of(2020, 6, 1), -1L, LocalDate.of(2020, 6, 3), 1L, 
+                LocalDate.of(2020, 6, 10), -1L),
+                OccupancyRollup.corrections(reservations, stored, LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 30)));
+        // Counters already right: nothing to write
+        Assertions.assertTrue(OccupancyRollup.corrections(reservations, Map.of(LocalDate.of(2020, 6, 1), 1L, 
+                LocalDate.of(2020, 6, 2), 2L, LocalDate.of(2020, 6, 3), 1L), 
+                LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 30)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Report statistics over the nights of the period")
+    public void report_should_compute_statistics() {
+        OccupancyReport report = new OccupancyReport("h1", LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 4),
+                new LinkedHashMap<>(Map.of(LocalDate.of(2020, 6, 1), 2L, LocalDate.of(2020, 6, 2), 6L,
+                        LocalDate.of(2020, 6, 3), 0L, LocalDate.of(2020, 6, 4), 4L)), 10);
+        Assertions.assertEquals(12, report.getRoomNights());
+        Assertions.assertEquals(3.0, report.getAveragePerNight());
+        Assertions.assertEquals(LocalDate.of(2020, 6, 2), report.getPeakNight());
+        Assertions.assertEquals(0.3, report.getOccupancyRate(), 1e-9);
+    }
+
+    private static Reservation reservation(String hotelId, LocalDate start, LocalDate end) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(hotelId);
+        reservation.setStartDate(start);
+        reservation.setEndDate(end);
+        return reservation;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.cassandraguide.model.ReconciliationReport;
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Orphan detection, dry run and grace period of the reconciliation of 'reservations_by_hotel_date'.
+ *
+ * @author Jeff Carpenter
+ */
+public class OrphanReconcilerTest {
+
+    private static final long OLD_WRITE = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) 
+            - TimeUnit.HOURS.toMicros(1);
+
+    @Test
+    @DisplayName("Rows of a missing or moved reservation are orphans")
+    public void orphanReason_should_compare_keys() {
+        Reservation indexed = reservation("c1", "h1", 42);
+        Assertions.assertNull(OrphanReconciler.orphanReason(indexed, reservation("c1", "h1", 42)));
+        Assertions.assertNotNull(OrphanReconciler.orphanReason(indexed, null));
+        Assertions.assertNotNull(OrphanReconciler.orphanReason(indexed, reservation("c1", "h2", 42)));
+        Assertions.assertNotNull(OrphanReconciler.orphanReason(indexed, reservation("c1", "h1", 43)));
+        Assertions.assertNotNull(OrphanReconciler.orphanReason(reservation(null, "h1", 42), null));
+    }
+
+    @Test
+    @DisplayName("Orphans are deleted with the write time of their row, a dry run only reports them")
+    public void reconcile_should_delete_unless_dry_run() {
+        Map<String, Reservation> stored = Map.of("c1", reservation("c1", "h1", 42), "c2", reservation("c2", "h2", 7));
+        for (boolean dryRun : new boolean[] { false, true }) {
+            List<Long> deletes = new ArrayList<>();
+            OrphanReconciler reconciler = new OrphanReconciler(dryRun, 600, 10,
+                    confirmationNumber -> CompletableFuture.completedFuture(
+                            Optional.ofNullable(stored.get(confirmationNumber))),
+                    (orphan, writeTime) -> {
+                        deletes.add(writeTime);
+                        return CompletableFuture.completedFuture(null);
+                    });
+            join(reconciler.reconcile(reservation("c1", "h1", 42), OLD_WRITE));
+            join(reconciler.reconcile(reservation("c2", "h1", 42), OLD_WRITE));
+            join(reconciler.reconcile(reservation("c3", "h1", 43), OLD_WRITE));
+            ReconciliationReport report = reconciler.report("reconcile", null);
+            Assertions.assertEquals(3, report.getRowsChecked());
+            Assertions.assertEquals(2, report.getOrphansFound());
+            Assertions.assertEquals(2, report.getOrphans().size());
+            Assertions.assertEquals(dryRun ? 0 : 2, report.getOrphansDeleted());
+            Assertions.assertEquals(dryRun ? List.of() : List.of(OLD_WRITE, OLD_WRITE), deletes);
+        }
+    }
+
+    @Test
+    @DisplayName("Rows written within the grace period are not checked")
+    public void reconcile_should_skip_recent_rows() {
+        OrphanReconciler reconciler = new OrphanReconciler(false, 600, 10,
+                confirmationNumber -> { throw new AssertionError("Recent rows must not be read"); },
+                (orphan, writeTime) -> { throw new AssertionError("Recent rows must not be deleted"); });
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        Assertions.assertNull(reconciler.reconcile(reservation("c1", "h1", 42), now));
+    }
+
+    private static void join(CompletionStage<?> stage) {
+        if (stage != null) {
+            stage.toCompletableFuture().join();
+        }
+    }
+
+    private static Reservation reservation(String confirmationNumber, String hotelId, int room) {
+        Reservation reservation = new Reservation();
+        reservation.setConfirmationNumber(confirmationNumber);
+        reservation.setHotelId(hotelId);
+        reservation.setStartDate(LocalDate.of(2020, 6, 1));
+        reservation.setRoomNumber((short) room);
+        return reservation;
+    }
+}
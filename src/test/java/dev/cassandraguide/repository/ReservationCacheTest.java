@@ -0,0 +1,148 @@
+package dev.cassandraguide.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import dev.cassandraguide.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link ReservationCache} and its snapshots, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationCacheTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("Snapshot restores reservations and partitions as entries to verify")
+    public void snapshot_should_round_trip() throws Exception {
+        ReservationCache cache = new ReservationCache(1000, 100, 600);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        List<Reservation> partition = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Reservation reservation = reservation("NY" + (i % 3), tomorrow, (short) i);
+            cache.putConfirmation(reservation, System.currentTimeMillis(), 0);
+            if (reservation.getHotelId().equals("NY1")) {
+                partition.add(reservation);
+            }
+        }
+        cache.putPartition("NY1", tomorrow, partition, System.currentTimeMillis(), 0);
+        Path snapshot = folder.resolve("cache.bin");
+        ReservationCacheSnapshot.write(snapshot, cache);
+        Assertions.assertTrue(Files.exists(snapshot));
+
+        ReservationCache restored = new ReservationCache(1000, 100, 600);
+        Assertions.assertEquals(21, ReservationCacheSnapshot.read(snapshot, restored));
+        Reservation expected = partition.get(2);
+        ReservationCache.Entry entry = restored.getConfirmation(expected.getConfirmationNumber());
+        Assertions.assertNotNull(entry);
+        assertSameReservation(expected, restored.toReservation(entry));
+        // Checked once
+        Assertions.assertTrue(entry.markVerified());
+        Assertions.assertFalse(entry.markVerified());
+
+        ReservationCache.PartitionEntry restoredPartition = restored.getPartition("NY1", tomorrow);
+        Assertions.assertNotNull(restoredPartition);
+        List<Reservation> reservations = restored.toReservations(restoredPartition);
+        Assertions.assertEquals(partition.size(), reservations.size());
+        for (int i = 0; i < partition.size(); i++) {
+            assertSameReservation(partition.get(i), reservations.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Expired snapshots, past partitions and corrupted files are ignored")
+    public void snapshot_should_skip_stale_data() throws Exception {
+        ReservationCache cache = new ReservationCache(1000, 100, 600);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Reservation old = reservation("NY0", yesterday, (short) 1);
+        cache.putConfirmation(old, System.currentTimeMillis() - 3_600_000, 0);
+        cache.putPartition("NY0", yesterday, List.of(old), System.currentTimeMillis(), 0);
+        Path snapshot = folder.resolve("cache.bin");
+        ReservationCacheSnapshot.write(snapshot, cache);
+
+        ReservationCache restored = new ReservationCache(1000, 100, 600);
+        Assertions.assertEquals(0, ReservationCacheSnapshot.read(snapshot, restored));
+        Assertions.assertNull(restored.getConfirmation(old.getConfirmationNumber()));
+        Assertions.assertNull(restored.getPartition("NY0", yesterday));
+
+        byte[] content = Files.readAllBytes(snapshot);
+        content[content.length - 1] ^= 1;
+        Files.write(snapshot, content);
+        Assertions.assertThrows(java.io.IOException.class,
+                () -> ReservationCacheSnapshot.read(snapshot, new ReservationCache(1000, 100, 600)));
+    }
+
+    @Test
+    @DisplayName("Invalidation removes the reservation and its partition")
+    public void invalidate_should_remove_partition() {
+        ReservationCache cache = new ReservationCache(1000, 100, 600);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        Reservation reservation = reservation("NY0", tomorrow, (short) 1);
+        cache.putConfirmation(reservation, System.currentTimeMillis(), 0);
+        cache.putPartition("NY0", tomorrow, List.of(reservation), System.currentTimeMillis(), 0);
+        cache.invalidateConfirmation(reservation.getConfirmationNumber());
+        Assertions.assertNull(cache.getConfirmation(reservation.getConfirmationNumber()));
+        Assertions.assertNull(cache.getPartition("NY0", tomorrow));
+        // Unknown hotels are not added to the dictionary
+        Assertions.assertNull(cache.getPartition("unknown", tomorrow));
+        Assertions.assertEquals(1, cache.getDictionary().size());
+    }
+
+    @Test
+    @DisplayName("A read that started before a write does not cache the version it replaced")
+    public void put_after_invalidation_should_be_rejected() {
+        ReservationCache cache = new ReservationCache(1000, 100, 600);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        Reservation stale = reservation("NY0", tomorrow, (short) 1);
+        // Read starts: the keys are not cached yet
+        long readAt = System.currentTimeMillis();
+        long confirmationStamp = cache.confirmationStamp(stale.getConfirmationNumber());
+        long partitionStamp = cache.partitionStamp("NY0", tomorrow);
+        // A write completes and invalidates both keys, before the read finishes
+        cache.invalidateConfirmation(stale.getConfirmationNumber());
+        cache.invalidatePartition("NY0", tomorrow);
+        // The read finishes with the old version
+        cache.putConfirmation(stale, readAt, confirmationStamp);
+        cache.putPartition("NY0", tomorrow, List.of(stale), readAt, partitionStamp);
+        Assertions.assertNull(cache.getConfirmation(stale.getConfirmationNumber()));
+        Assertions.assertNull(cache.getPartition("NY0", tomorrow));
+        // A read started after the write is cached
+        cache.putConfirmation(stale, System.currentTimeMillis(),
+                cache.confirmationStamp(stale.getConfirmationNumber()));
+        cache.putPartition("NY0", tomorrow, List.of(stale), System.currentTimeMillis(),
+                cache.partitionStamp("NY0", tomorrow));
+        Assertions.assertNotNull(cache.getConfirmation(stale.getConfirmationNumber()));
+        Assertions.assertNotNull(cache.getPartition("NY0", tomorrow));
+    }
+
+    private static Reservation reservation(String hotelId, LocalDate startDate, short roomNumber) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(hotelId);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(2));
+        reservation.setRoomNumber(roomNumber);
+        reservation.setGuestId(UUID.randomUUID());
+        reservation.setConfirmationNumber(UUID.randomUUID().toString());
+        return reservation;
+    }
+
+    private static void assertSameReservation(Reservation expected, Reservation actual) {
+        Assertions.assertEquals(expected.getHotelId(), actual.getHotelId());
+        Assertions.assertEquals(expected.getStartDate(), actual.getStartDate());
+        Assertions.assertEquals(expected.getEndDate(), actual.getEndDate());
+        Assertions.assertEquals(expected.getRoomNumber(), actual.getRoomNumber());
+        Assertions.assertEquals(expected.getGuestId(), actual.getGuestId());
+        Assertions.assertEquals(expected.getConfirmationNumber(), actual.getConfirmationNumber());
+    }
+}
@@ -0,0 +1,148 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import dev.cassandraguide.model.Reservation;
+import dev.cassandraguide.model.ReservationChange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ReservationChangeStream}, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationChangeStreamTest {
+
+    @Test
+    @DisplayName("Published changes are read back until overwritten")
+    public void publish_should_be_readable() {
+        try (ReservationChangeStream stream = new ReservationChangeStream(4, 15, 10)) {
+            Reservation reservation = reservation("NY0");
+            Assertions.assertEquals(0, stream.publish(ReservationChange.Type.UPSERT, reservation));
+            ReservationChange change = stream.read(0);
+            Assertions.assertNotNull(change);
+            Assertions.assertEquals(ReservationChange.Type.UPSERT, change.getType());
+            Assertions.assertEquals(reservation.getConfirmationNumber(), change.getReservation().getConfirmationNumber());
+            Assertions.assertEquals(reservation.getStartDate(), change.getReservation().getStartDate());
+            Assertions.assertEquals(reservation.getGuestId(), change.getReservation().getGuestId());
+            Assertions.assertNull(stream.read(1));
+            for (int i = 0; i < 4; i++) {
+                stream.publish(ReservationChange.Type.DELETE, reservation);
+            }
+            Assertions.assertNull(stream.read(0));
+            Assertions.assertEquals(1, stream.getOldest());
+            Assertions.assertEquals(ReservationChange.Type.DELETE, stream.read(4).getType());
+        }
+    }
+
+    @Test
+    @DisplayName("Subscribers receive the changes of their hotels, resuming from a sequence")
+    public void subscribe_should_filter_and_resume() throws Exception {
+        try (ReservationChangeStream stream = new ReservationChangeStream(64, 15, 10)) {
+            for (int i = 0; i < 10; i++) {
+                stream.publish(ReservationChange.Type.UPSERT, reservation("NY" + (i % 2)));
+            }
+            Collector collector = new Collector(3);
+            stream.subscribe(4L, Set.of("NY1"), collector);
+            stream.publish(ReservationChange.Type.UPSERT, reservation("NY0"));
+            stream.publish(ReservationChange.Type.DELETE, reservation("NY1"));
+            Assertions.assertTrue(collector.latch.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of(5L, 7L, 9L), collector.sequences.subList(0, 3));
+            Assertions.assertTrue(collector.gaps.isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Subscribers resuming too late are told about the gap")
+    public void subscribe_should_report_gap() throws Exception {
+        try (ReservationChangeStream stream = new ReservationChangeStream(8, 15, 10)) {
+            for (int i = 0; i < 20; i++) {
+                stream.publish(ReservationChange.Type.UPSERT, reservation("NY0"));
+            }
+            Collector collector = new Collector(8);
+            stream.subscribe(2L, Set.of(), collector);
+            Assertions.assertTrue(collector.latch.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of(2L), collector.gaps);
+            Assertions.assertEquals(12L, collector.sequences.get(0));
+            Assertions.assertEquals(19L, collector.sequences.get(7));
+        }
+    }
+
+    @Test
+    @DisplayName("A subscriber blocked in a send neither delays the others nor stays subscribed")
+    public void blocked_subscriber_should_be_dropped() throws Exception {
+        try (ReservationChangeStream stream = new ReservationChangeStream(64, 15, 1)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch timedOut = new CountDownLatch(1);
+            stream.subscribe(null, Set.of(), new Collector(0) {
+                @Override
+                public void onChange(ReservationChange change) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void onTimeout() {
+                    timedOut.countDown();
+                }
+            });
+            Collector collector = new Collector(5);
+            stream.subscribe(null, Set.of(), collector);
+            for (int i = 0; i < 5; i++) {
+                stream.publish(ReservationChange.Type.UPSERT, reservation("NY0"));
+            }
+            Assertions.assertTrue(collector.latch.await(500, TimeUnit.MILLISECONDS));
+            Assertions.assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, stream.getSubscriberCount());
+            release.countDown();
+        }
+    }
+
+    private static Reservation reservation(String hotelId) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId(hotelId);
+        reservation.setStartDate(LocalDate.now());
+        reservation.setEndDate(LocalDate.now().plusDays(2));
+        reservation.setRoomNumber((short) 101);
+        reservation.setGuestId(UUID.randomUUID());
+        reservation.setConfirmationNumber(UUID.randomUUID().toString());
+        return reservation;
+    }
+
+    private static class Collector implements ReservationChangeStream.Listener {
+
+        private final List<Long> sequences = new CopyOnWriteArrayList<>();
+        private final List<Long> gaps = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        private Collector(int expected) {
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onChange(ReservationChange change) {
+            sequences.add(change.getSequence());
+            latch.countDown();
+        }
+
+        @Override
+        public void onGap(long expected, long oldest) {
+            gaps.add(expected);
+        }
+
+        @Override
+        public void onHeartbeat() {
+        }
+    }
+}
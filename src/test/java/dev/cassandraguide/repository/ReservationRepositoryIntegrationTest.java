@@ -1,8 +1,15 @@
 package dev.cassandraguide.repository;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -12,7 +19,16 @@ import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.CassandraContainer;
 import org.testcontainers.containers.GenericContainer;
 
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+
 import dev.cassandraguide.conf.CassandraConfiguration;
+import dev.cassandraguide.conf.ReservationProperties;
+import dev.cassandraguide.model.BackfillProgress;
+import dev.cassandraguide.model.BulkCancellationProgress;
+import dev.cassandraguide.model.CalendarPage;
+import dev.cassandraguide.model.MultiGetResult;
+import dev.cassandraguide.model.OccupancyReport;
 import dev.cassandraguide.model.Reservation;
 
 /**
@@ -111,6 +127,37 @@ public class ReservationRepositoryIntegrationTest {
         Optional<Reservation> r3 = reservationRepo.findByConfirmationNumber(confirmationNumber);
         Assertions.assertTrue(r3.isPresent());
         Assertions.assertEquals(r2.getHotelId(), r3.get().getHotelId());
+        // And the row of the previous hotel has been deleted
+        Assertions.assertTrue(reservationRepo.findByHotelAndDate("12345", r1.getStartDate()).stream()
+                .noneMatch(r -> confirmationNumber.equals(r.getConfirmationNumber())));
+    }
+    
+    @Test
+    @DisplayName("Extending the stay of an existing Reservation")
+    public void patchReservation_should_update_changed_columns() {
+        // Given an existing reservation
+        Reservation r1 = new Reservation();
+        r1.setStartDate(LocalDate.now());
+        r1.setEndDate(LocalDate.now().plusDays(2));
+        r1.setHotelId("12345");
+        r1.setGuestId(UUID.randomUUID());
+        r1.setRoomNumber(Short.valueOf("43"));
+        String confirmationNumber = reservationRepo.upsert(r1);
+
+        // When patching the end date only
+        Optional<Reservation> r2 = reservationRepo.patch(confirmationNumber, 
+                r -> { r.setEndDate(LocalDate.now().plusDays(4)); return r; });
+        Assertions.assertTrue(r2.isPresent());
+
+        // Both tables have the new end date, other columns are unchanged
+        Optional<Reservation> r3 = reservationRepo.findByConfirmationNumber(confirmationNumber);
+        Assertions.assertTrue(r3.isPresent());
+        Assertions.assertEquals(LocalDate.now().plusDays(4), r3.get().getEndDate());
+        Assertions.assertEquals(r1.getGuestId(), r3.get().getGuestId());
+        Assertions.assertTrue(reservationRepo.findByHotelAndDate("12345", r1.getStartDate()).stream()
+                .anyMatch(r -> confirmationNumber.equals(r.getConfirmationNumber()) 
+                        && LocalDate.now().plusDays(4).equals(r.getEndDate())));
+        Assertions.assertFalse(reservationRepo.patch(UUID.randomUUID().toString(), r -> r).isPresent());
     }
     
     @Test
@@ -131,6 +178,195 @@ public class ReservationRepositoryIntegrationTest {
         Assertions.assertFalse(reservationRepo.exists(confirmationNumber));
     }
     
+    @Test
+    @DisplayName("Soft-cancelling a reservation")
+    public void softCancelReservation_should_hide_row() {
+        ReservationProperties properties = new ReservationProperties();
+        properties.setSoftCancelEnabled(true);
+        properties.setSoftCancelPurgeIntervalMinutes(0);
+        ReservationRepository softCancelRepo = new ReservationRepository(cassandraConfig.cqlSession(), 
+                cassandraConfig.keyspace(), properties);
+        try {
+            // Given a cancelled reservation
+            Reservation r1 = new Reservation();
+            r1.setStartDate(LocalDate.now());
+            r1.setEndDate(LocalDate.now().plusDays(1));
+            r1.setHotelId("12345");
+            r1.setGuestId(UUID.randomUUID());
+            r1.setRoomNumber(Short.valueOf("42"));
+            Assertions.assertTrue(softCancelRepo.delete(softCancelRepo.upsert(r1)));
+            // The row is kept as cancelled but not listed
+            Assertions.assertTrue(softCancelRepo.findByHotelAndDate("12345", r1.getStartDate()).isEmpty());
+            // When the room is reserved again, the new reservation is listed
+            Reservation r2 = new Reservation(r1);
+            r2.setConfirmationNumber(null);
+            String confirmationNumber = softCancelRepo.upsert(r2);
+            List<Reservation> found = softCancelRepo.findByHotelAndDate("12345", r1.getStartDate());
+            Assertions.assertEquals(1, found.size());
+            Assertions.assertEquals(confirmationNumber, found.get(0).getConfirmationNumber());
+        } finally {
+            softCancelRepo.cleanup();
+        }
+    }
+    
+    @Test
+    @DisplayName("Cancel every reservation of a hotel over a range of dates")
+    public void cancelAll_should_delete_reservations() throws InterruptedException {
+        // Given reservations on 3 days, and one after the range
+        LocalDate from = LocalDate.now().plusDays(30);
+        List<String> confirmationNumbers = new ArrayList<>();
+        for (int day = 0; day < 4; day++) {
+            Reservation r = new Reservation();
+            r.setStartDate(from.plusDays(day));
+            r.setEndDate(from.plusDays(day + 1));
+            r.setHotelId("bulk-cancel");
+            r.setGuestId(UUID.randomUUID());
+            r.setRoomNumber(Short.valueOf("42"));
+            confirmationNumbers.add(reservationRepo.upsert(r));
+        }
+        // When
+        BulkCancellationProgress progress = reservationRepo.cancelAll("bulk-cancel", from, from.plusDays(2));
+        while (progress.getStatus() == BulkCancellationProgress.Status.RUNNING) {
+            Thread.sleep(50);
+            progress = reservationRepo.getBulkCancellation(progress.getId()).get();
+        }
+        // Then
+        Assertions.assertEquals(BulkCancellationProgress.Status.COMPLETED, progress.getStatus());
+        Assertions.assertEquals(3, progress.getReservationsCancelled());
+        for (int day = 0; day < 3; day++) {
+            Assertions.assertFalse(reservationRepo.findByConfirmationNumber(confirmationNumbers.get(day)).isPresent());
+            Assertions.assertTrue(reservationRepo.findByHotelAndDate("bulk-cancel", from.plusDays(day)).isEmpty());
+        }
+        Assertions.assertTrue(reservationRepo.findByConfirmationNumber(confirmationNumbers.get(3)).isPresent());
+    }
+    
+    @Test
+    @DisplayName("A bulk cancellation only removes the stale row of a reservation that has moved")
+    public void cancelAll_should_keep_moved_reservation() throws InterruptedException {
+        // Given a reservation after the range, still listed on a night of the range (stale row)
+        LocalDate from = LocalDate.now().plusDays(60);
+        Reservation r = new Reservation();
+        r.setStartDate(from.plusDays(5));
+        r.setEndDate(from.plusDays(6));
+        r.setHotelId("bulk-cancel-moved");
+        r.setGuestId(UUID.randomUUID());
+        r.setRoomNumber(Short.valueOf("42"));
+        String confirmationNumber = reservationRepo.upsert(r);
+        cassandraConfig.cqlSession().execute(SimpleStatement.newInstance("INSERT INTO " 
+                + cassandraConfig.keyspace().asCql(true) + ".reservations_by_hotel_date "
+                + "(hotel_id, start_date, room_number, end_date, confirm_number, guest_id) VALUES (?, ?, ?, ?, ?, ?)",
+                r.getHotelId(), from, r.getRoomNumber(), from.plusDays(1), confirmationNumber, r.getGuestId()));
+        Assertions.assertEquals(1, reservationRepo.findByHotelAndDate("bulk-cancel-moved", from).size());
+        // When the range is cancelled
+        BulkCancellationProgress progress = reservationRepo.cancelAll("bulk-cancel-moved", from, from);
+        while (progress.getStatus() == BulkCancellationProgress.Status.RUNNING) {
+            Thread.sleep(50);
+            progress = reservationRepo.getBulkCancellation(progress.getId()).get();
+        }
+        // Then the stale row is gone and the reservation is kept
+        Assertions.assertEquals(BulkCancellationProgress.Status.COMPLETED, progress.getStatus());
+        Assertions.assertTrue(reservationRepo.findByHotelAndDate("bulk-cancel-moved", from).isEmpty());
+        Assertions.assertTrue(reservationRepo.findByConfirmationNumber(confirmationNumber).isPresent());
+        Assertions.assertEquals(1, reservationRepo.findByHotelAndDate("bulk-cancel-moved", r.getStartDate()).size());
+    }
+    
+    @Test
+    @DisplayName("Migrating confirmation numbers from schema v1 to schema v2")
+    public void migration_should_dual_write_fall_back_and_copy() throws InterruptedException {
+        ReservationProperties properties = new ReservationProperties();
+        properties.setBackfillSplits(8);
+        properties.setConfirmationNumberStorage("migration");
+        ReservationRepository migrationRepo = new ReservationRepository(cassandraConfig.cqlSession(), 
+                cassandraConfig.keyspace(), properties);
+        properties.setConfirmationNumberStorage("uuid");
+        ReservationRepository uuidRepo = new ReservationRepository(cassandraConfig.cqlSession(), 
+                cassandraConfig.keyspace(), properties);
+        try {
+            // Given a reservation written in schema v1 only
+            LocalDate night = LocalDate.now().plusDays(10);
+            Reservation r1 = new Reservation();
+            r1.setStartDate(night);
+            r1.setEndDate(night.plusDays(1));
+            r1.setHotelId("migration");
+            r1.setGuestId(UUID.randomUUID());
+            r1.setRoomNumber(Short.valueOf("1"));
+            String legacy = reservationRepo.upsert(r1);
+            Assertions.assertFalse(uuidRepo.findByConfirmationNumber(legacy).isPresent());
+            // When a reservation is written while migrating, it reaches both schemas
+            Reservation r2 = new Reservation(r1);
+            r2.setConfirmationNumber(null);
+            r2.setRoomNumber(Short.valueOf("2"));
+            String dual = migrationRepo.upsert(r2);
+            Assertions.assertTrue(reservationRepo.findByConfirmationNumber(dual).isPresent());
+            Assertions.assertTrue(uuidRepo.findByConfirmationNumber(dual).isPresent());
+            // Reads fall back to schema v1 and searches merge both schemas
+            Assertions.assertTrue(migrationRepo.findByConfirmationNumber(legacy).isPresent());
+            Assertions.assertEquals(2, migrationRepo.findByHotelAndDate("migration", night).size());
+            Assertions.assertEquals(1, uuidRepo.findByHotelAndDate("migration", night).size());
+            // Once copied, schema v2 alone has every reservation
+            BackfillJob copy = migrationRepo.getBackfill(ReservationRepository.JOB_COPY_TO_V2).get();
+            Assertions.assertTrue(copy.start(true));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (copy.getProgress().getStatus() == BackfillProgress.Status.RUNNING 
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            Assertions.assertEquals(BackfillProgress.Status.COMPLETED, copy.getProgress().getStatus());
+            Assertions.assertTrue(uuidRepo.findByConfirmationNumber(legacy).isPresent());
+            Assertions.assertEquals(2, uuidRepo.findByHotelAndDate("migration", night).size());
+        } finally {
+            migrationRepo.cleanup();
+            uuidRepo.cleanup();
+        }
+    }
+    
+    @Test
+    @DisplayName("Write-behind entries replayed late never override a newer write of the same rows")
+    public void writeBehind_replay_should_keep_newer_write() throws Exception {
+        CqlSession session = cassandraConfig.cqlSession();
+        String table = cassandraConfig.keyspace().asCql(true) + ".write_behind_replay";
+        session.execute("CREATE TABLE IF NOT EXISTS " + table + " (k text, c smallint, v text, PRIMARY KEY (k, c))");
+        session.execute("TRUNCATE " + table);
+        long older = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        // Given a synchronous write, newer than the journal entries
+        session.execute(SimpleStatement.newInstance("INSERT INTO " + table + " (k, c, v) VALUES ('NY456', 1, 'new')")
+                .setQueryTimestamp(older + 1000));
+        Path path = Files.createTempFile("write-behind", ".journal");
+        Files.delete(path);
+        WriteBehindJournal journal = new WriteBehindJournal(path, 64 * 1024);
+        // Two entries of the same partition, applied as one batch
+        List<WriteBehindJournal.Entry> entries = new ArrayList<>();
+        for (short room = 1; room <= 2; room++) {
+            Reservation r = new Reservation();
+            r.setHotelId("NY456");
+            r.setRoomNumber(room);
+            r.setConfirmationNumber("old");
+            entries.add(new WriteBehindJournal.Entry(WriteBehindJournal.Operation.INSERT, true, older, r));
+        }
+        Assertions.assertTrue(journal.append(entries));
+        // When the entries are applied late
+        WriteBehindApplier applier = new WriteBehindApplier(session, journal, 
+                entry -> SimpleStatement.newInstance("INSERT INTO " + table + " (k, c, v) VALUES (?, ?, ?)", 
+                        entry.getReservation().getHotelId(), entry.getReservation().getRoomNumber(), 
+                        entry.getReservation().getConfirmationNumber())
+                        .setQueryTimestamp(entry.getTimestampMicros()),
+                entry -> entry.getReservation().getHotelId(), entry -> {}, 10);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (applier.getApplied() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            Assertions.assertEquals(2, applier.getApplied());
+        } finally {
+            applier.close();
+        }
+        // Then the newer write is kept
+        Assertions.assertEquals("new", 
+                session.execute("SELECT v FROM " + table + " WHERE k = 'NY456' AND c = 1").one().getString("v"));
+        Assertions.assertEquals("old", 
+                session.execute("SELECT v FROM " + table + " WHERE k = 'NY456' AND c = 2").one().getString("v"));
+    }
+    
     @Test
     @DisplayName("Create 2 reservations")
     public void upsert2Reservations_should_fill_table() {
@@ -144,6 +380,7 @@ public class ReservationRepositoryIntegrationTest {
         // When
         String confirmationNumber1 = reservationRepo.upsert(r1);
         r1.setConfirmationNumber(null);
+        r1.setRoomNumber(Short.valueOf("43"));
         String confirmationNumber2 = reservationRepo.upsert(r1);
         // Then
         Assertions.assertTrue(reservationRepo.exists(confirmationNumber1));
@@ -151,6 +388,153 @@ public class ReservationRepositoryIntegrationTest {
         // The record is no more present
         Assertions.assertEquals(2, reservationRepo.findAll().size());
     }
+    
+    @Test
+    @DisplayName("Retrieving many reservations in one call")
+    public void findByConfirmationNumbers_should_split_found_and_missing() {
+        // Given two existing reservations
+        Reservation r1 = new Reservation();
+        r1.setEndDate(LocalDate.of(2020, 12, 20));
+        r1.setStartDate(LocalDate.now());
+        r1.setHotelId("12345");
+        r1.setGuestId(UUID.randomUUID());
+        r1.setRoomNumber(Short.valueOf("42"));
+        String confirmationNumber1 = reservationRepo.upsert(r1);
+        r1.setConfirmationNumber(null);
+        r1.setRoomNumber(Short.valueOf("43"));
+        String confirmationNumber2 = reservationRepo.upsert(r1);
+        String unknown = UUID.randomUUID().toString();
+        // When retrieving them with an unknown one (and a duplicate)
+        MultiGetResult result = reservationRepo.findByConfirmationNumbers(
+                List.of(confirmationNumber1, unknown, confirmationNumber2, confirmationNumber1));
+        // Then
+        Assertions.assertEquals(2, result.getFound().size());
+        Assertions.assertEquals(confirmationNumber1, result.getFound().get(0).getConfirmationNumber());
+        Assertions.assertEquals(List.of(unknown), result.getMissing());
+    }
 
-}
+    @Test
+    @DisplayName("Occupancy follows reservations moved and deleted")
+    public void occupancy_should_follow_moves_and_deletes() {
+        // Given a reservation of 3 nights
+        Reservation r1 = new Reservation();
+        r1.setStartDate(LocalDate.of(2020, 6, 10));
+        r1.setEndDate(LocalDate.of(2020, 6, 13));
+        r1.setHotelId("12345");
+        r1.setGuestId(UUID.randomUUID());
+        r1.setRoomNumber(Short.valueOf("42"));
+        String confirmationNumber = reservationRepo.upsert(r1);
+        OccupancyReport june = reservationRepo.occupancy("12345", 
+                LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 30), 10).get();
+        Assertions.assertEquals(3, june.getRoomNights());
+        Assertions.assertEquals(1, june.getReservationsPerNight().get(LocalDate.of(2020, 6, 12)));
+        // When moving it by 2 days
+        r1.setStartDate(LocalDate.of(2020, 6, 12));
+        r1.setEndDate(LocalDate.of(2020, 6, 15));
+        reservationRepo.upsert(r1);
+        june = reservationRepo.occupancy("12345", LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 30), 10).get();
+        Assertions.assertEquals(3, june.getRoomNights());
+        Assertions.assertEquals(0, june.getReservationsPerNight().get(LocalDate.of(2020, 6, 10)));
+        Assertions.assertEquals(1, june.getReservationsPerNight().get(LocalDate.of(2020, 6, 14)));
+        // Then deleting it
+        reservationRepo.delete(confirmationNumber);
+        june = reservationRepo.occupancy("12345", LocalDate.of(2020, 6, 1), LocalDate.of(2020, 6, 30), 10).get();
+        Assertions.assertEquals(0, june.getRoomNights());
+    }
+
+    @Test
+    @DisplayName("Occupancy counters are rebuilt from the calendar")
+    public void reconcileOccupancy_should_fix_counters() {
+        // Given a reservation of 2 nights, one of them counted twice
+        Reservation r1 = new Reservation();
+        r1.setStartDate(LocalDate.of(2020, 7, 10));
+        r1.setEndDate(LocalDate.of(2020, 7, 12));
+        r1.setHotelId("reconcile");
+        r1.setGuestId(UUID.randomUUID());
+        r1.setRoomNumber(Short.valueOf("42"));
+        reservationRepo.upsert(r1);
+        cassandraConfig.cqlSession().execute(SimpleStatement.newInstance("UPDATE " 
+                + cassandraConfig.keyspace().asCql(true) + ".occupancy_by_hotel_year "
+                + "SET reservations = reservations + 1 WHERE hotel_id = ? AND year = ? AND night = ?", 
+                "reconcile", 2020, LocalDate.of(2020, 7, 11)));
+        Assertions.assertEquals(3, reservationRepo.occupancy("reconcile", 
+                LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 31), null).get().getRoomNights());
+        // When the month is rebuilt
+        OccupancyReport july = reservationRepo.reconcileOccupancy("reconcile", YearMonth.of(2020, 7)).get();
+        // Then each night counts its reservations
+        Assertions.assertEquals(2, july.getRoomNights());
+        Assertions.assertEquals(1, july.getReservationsPerNight().get(LocalDate.of(2020, 7, 11)));
+    }
 
+    @Test
+    @DisplayName("Calendar of a month read page by page")
+    public void calendar_should_page_through_a_month() {
+        // Given 5 reservations in June, one of them moved to July
+        String moved = null;
+        for (int i = 0; i < 5; i++) {
+            Reservation r = new Reservation();
+            r.setStartDate(LocalDate.of(2020, 6, 1).plusDays(i));
+            r.setEndDate(LocalDate.of(2020, 6, 3).plusDays(i));
+            r.setHotelId("12345");
+            r.setGuestId(UUID.randomUUID());
+            r.setRoomNumber((short) (42 + i));
+            moved = reservationRepo.upsert(r);
+        }
+        Reservation r = reservationRepo.findByConfirmationNumber(moved).get();
+        r.setStartDate(LocalDate.of(2020, 7, 1));
+        r.setEndDate(LocalDate.of(2020, 7, 3));
+        reservationRepo.upsert(r);
+        // When reading June 2 by 2
+        CalendarPage page = reservationRepo.calendar("12345", YearMonth.of(2020, 6), 2, null).get();
+        int count = page.getReservations().size();
+        Assertions.assertEquals(LocalDate.of(2020, 6, 1), page.getReservations().get(0).getStartDate());
+        while (page.getPagingState() != null) {
+            page = reservationRepo.calendar("12345", YearMonth.of(2020, 6), 2, page.getPagingState()).get();
+            count += page.getReservations().size();
+        }
+        // Then
+        Assertions.assertEquals(4, count);
+        Assertions.assertEquals(1, reservationRepo.calendar("12345", YearMonth.of(2020, 7), 10, null)
+                .get().getReservations().size());
+    }
+
+    @Test
+    @DisplayName("Overlapping reservations of a room are rejected")
+    public void upsertOverlappingReservation_should_conflict() {
+        ReservationProperties properties = new ReservationProperties();
+        properties.setClaimsEnabled(true);
+        ReservationRepository claimsRepo = new ReservationRepository(cassandraConfig.cqlSession(), 
+                cassandraConfig.keyspace(), properties);
+        try {
+            // Given a reservation of room 42 from June 10 to June 13
+            Reservation r1 = new Reservation();
+            r1.setStartDate(LocalDate.of(2020, 6, 10));
+            r1.setEndDate(LocalDate.of(2020, 6, 13));
+            r1.setHotelId("67890");
+            r1.setGuestId(UUID.randomUUID());
+            r1.setRoomNumber(Short.valueOf("42"));
+            String confirmationNumber1 = claimsRepo.upsert(r1);
+            // When reserving the same room from June 12
+            Reservation r2 = new Reservation();
+            r2.setStartDate(LocalDate.of(2020, 6, 12));
+            r2.setEndDate(LocalDate.of(2020, 6, 15));
+            r2.setHotelId("67890");
+            r2.setGuestId(UUID.randomUUID());
+            r2.setRoomNumber(Short.valueOf("42"));
+            RoomConflictException conflict = Assertions.assertThrows(RoomConflictException.class, 
+                    () -> claimsRepo.upsert(r2));
+            // Then only the overlapping night is reported and nothing is written
+            Assertions.assertEquals(Map.of(LocalDate.of(2020, 6, 12), confirmationNumber1), conflict.getConflicts());
+            Assertions.assertFalse(claimsRepo.exists(r2.getConfirmationNumber()));
+            // Nights claimed before the conflict have been released: once the first one is moved, the room is free
+            r1.setStartDate(LocalDate.of(2020, 6, 1));
+            r1.setEndDate(LocalDate.of(2020, 6, 4));
+            claimsRepo.upsert(r1);
+            r2.setConfirmationNumber(null);
+            Assertions.assertTrue(claimsRepo.exists(claimsRepo.upsert(r2)));
+        } finally {
+            claimsRepo.cleanup();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import dev.cassandraguide.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the partitions of 'reservations_by_hotel_month', the moves in 'reservations_by_hotel_date' and the
+ * changed columns computed by {@link ReservationStatements}.
+ *
+ * @author Jeff Carpenter
+ */
+public class ReservationStatementsTest {
+
+    @Test
+    @DisplayName("A stay appears in every month from its start date to its last night")
+    public void months_should_cover_the_nights_of_the_stay() {
+        Assertions.assertEquals(List.of(YearMonth.of(2020, 6)),
+                ReservationStatements.months(reservation(LocalDate.of(2020, 6, 28), LocalDate.of(2020, 7, 1))));
+        Assertions.assertEquals(List.of(YearMonth.of(2020, 12), YearMonth.of(2021, 1)),
+                ReservationStatements.months(reservation(LocalDate.of(2020, 12, 30), LocalDate.of(2021, 1, 2))));
+        Assertions.assertEquals(List.of(YearMonth.of(2020, 6)),
+                ReservationStatements.months(reservation(LocalDate.of(2020, 6, 28), null)));
+        Assertions.assertEquals(ReservationStatements.MAX_CALENDAR_MONTHS,
+                ReservationStatements.months(reservation(LocalDate.of(2020, 1, 1), LocalDate.of(2023, 1, 1))).size());
+        Assertions.assertTrue(ReservationStatements.months(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reservation moves in 'reservations_by_hotel_date' when its hotel, start date or room changes")
+    public void moved_should_detect_key_changes() {
+        Reservation previous = reservation(LocalDate.of(2020, 6, 28), LocalDate.of(2020, 7, 1));
+        Reservation current  = reservation(LocalDate.of(2020, 6, 28), LocalDate.of(2020, 7, 3));
+        Assertions.assertFalse(ReservationStatements.moved(previous, current));
+        Assertions.assertFalse(ReservationStatements.moved(null, current));
+        current.setRoomNumber((short) 12);
+        Assertions.assertTrue(ReservationStatements.moved(previous, current));
+        current.setRoomNumber(previous.getRoomNumber());
+        current.setHotelId("h2");
+        Assertions.assertTrue(ReservationStatements.moved(previous, current));
+        Assertions.assertTrue(ReservationStatements.moved(previous, 
+                reservation(LocalDate.of(2020, 6, 29), LocalDate.of(2020, 7, 1))));
+    }
+
+    @Test
+    @DisplayName("Only the non-key columns that differ are written by a partial update")
+    public void changedColumns_should_list_non_key_changes() {
+        Reservation previous = reservation(LocalDate.of(2020, 6, 28), LocalDate.of(2020, 7, 1));
+        Reservation current  = new Reservation(previous);
+        Assertions.assertTrue(ReservationStatements.changedColumns(previous, current).isEmpty());
+        current.setEndDate(LocalDate.of(2020, 7, 3));
+        Assertions.assertEquals(List.of(ReservationRepository.END_DATE),
+                ReservationStatements.changedColumns(previous, current));
+        current.setGuestId(UUID.randomUUID());
+        Assertions.assertEquals(List.of(ReservationRepository.END_DATE, ReservationRepository.GUEST_ID),
+                ReservationStatements.changedColumns(previous, current));
+        current.setEndDate(null);
+        Assertions.assertEquals(List.of(ReservationRepository.END_DATE, ReservationRepository.GUEST_ID),
+                ReservationStatements.changedColumns(previous, current));
+    }
+
+    private static Reservation reservation(LocalDate start, LocalDate end) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId("h1");
+        reservation.setStartDate(start);
+        reservation.setEndDate(end);
+        return reservation;
+    }
+}
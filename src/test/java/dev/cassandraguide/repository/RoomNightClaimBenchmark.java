@@ -0,0 +1,118 @@
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Latency of the claims of a booking as the stay gets longer, against a latency-injecting stand-in for a
+ * lightweight transaction (4 round trips between the coordinator and the replicas).
+ *
+ * <p>Claimed one after the other, a stay of n nights costs n transactions; claimed concurrently, as
+ * {@link RoomNightClaims} does, it costs about one transaction plus the tail of the slowest, so the latency of a
+ * booking stays bounded as the stay gets longer. 'maxConcurrency' caps the transactions in flight per booking.
+ * Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dev.cassandraguide.repository.RoomNightClaimBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class RoomNightClaimBenchmark {
+
+    /** Nights of a stay. */
+    @Param({"1", "3", "7", "14"})
+    public int nights;
+
+    /** Claims of a stay in flight at once ('reservation.claims.maxConcurrency'). */
+    @Param({"32"})
+    public int maxConcurrency;
+
+    /** Fraction of transactions hitting a slow replica or contention (Paxos retry). */
+    @Param({"0.01"})
+    public double slowRatio;
+
+    private ScheduledExecutorService replicas;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        replicas = Executors.newScheduledThreadPool(4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        replicas.shutdownNow();
+    }
+
+    @Benchmark
+    public Object sequentialClaims() {
+        long total = 0;
+        for (int i = 0; i < nights; i++) {
+            total += claim().join();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Object concurrentClaims() {
+        Semaphore inflight = new Semaphore(maxConcurrency);
+        List<CompletableFuture<Long>> claims = new ArrayList<>(nights);
+        for (int i = 0; i < nights; i++) {
+            inflight.acquireUninterruptibly();
+            CompletableFuture<Long> claim = claim();
+            claim.whenComplete((latency, error) -> inflight.release());
+            claims.add(claim);
+        }
+        return CompletableFuture.allOf(claims.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Stand-in for an 'INSERT ... IF NOT EXISTS' at LOCAL_SERIAL.
+     */
+    private CompletableFuture<Long> claim() {
+        CompletableFuture<Long> response = new CompletableFuture<>();
+        long latency = sampleLatencyNanos();
+        replicas.schedule(() -> response.complete(latency), latency, TimeUnit.NANOSECONDS);
+        return response;
+    }
+
+    private long sampleLatencyNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long base = TimeUnit.MICROSECONDS.toNanos(4 * (800 + random.nextInt(400)));
+        return (random.nextDouble() < slowRatio) ? base + TimeUnit.MILLISECONDS.toNanos(20) : base;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoomNightClaimBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Nights claimed and released by a write, no Cassandra needed.
+ *
+ * @author Jeff Carpenter
+ */
+public class RoomNightClaimsTest {
+
+    @Test
+    @DisplayName("A new reservation claims all its nights and releases none")
+    public void newReservation_should_claim_every_night() {
+        Reservation r = reservation("12345", 42, LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 13));
+        Assertions.assertEquals(List.of(LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 11), 
+                LocalDate.of(2020, 6, 12)), RoomNightClaims.toClaim(null, r));
+        Assertions.assertTrue(RoomNightClaims.toRelease(null, r).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A stay extended in the same room claims the new nights and releases the ones left")
+    public void movedReservation_should_claim_difference() {
+        Reservation previous = reservation("12345", 42, LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 13));
+        Reservation current  = reservation("12345", 42, LocalDate.of(2020, 6, 11), LocalDate.of(2020, 6, 14));
+        current.setConfirmationNumber(previous.getConfirmationNumber());
+        Assertions.assertEquals(List.of(LocalDate.of(2020, 6, 13)), RoomNightClaims.toClaim(previous, current));
+        Assertions.assertEquals(List.of(LocalDate.of(2020, 6, 10)), RoomNightClaims.toRelease(previous, current));
+        // Same nights, nothing to do
+        Assertions.assertTrue(RoomNightClaims.toClaim(previous, previous).isEmpty());
+        Assertions.assertTrue(RoomNightClaims.toRelease(previous, previous).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reservation moved to another room claims every night and releases the previous room")
+    public void otherRoom_should_claim_and_release_all_nights() {
+        Reservation previous = reservation("12345", 42, LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 12));
+        Reservation current  = reservation("12345", 43, LocalDate.of(2020, 6, 10), LocalDate.of(2020, 6, 12));
+        Assertions.assertEquals(2, RoomNightClaims.toClaim(previous, current).size());
+        Assertions.assertEquals(2, RoomNightClaims.toRelease(previous, current).size());
+        // A delete releases everything
+        Assertions.assertEquals(2, RoomNightClaims.toRelease(previous, null).size());
+    }
+
+    private static Reservation reservation(String hotelId, int room, LocalDate start, LocalDate end) {
+        Reservation r = new Reservation();
+        r.setConfirmationNumber(UUID.randomUUID().toString());
+        r.setHotelId(hotelId);
+        r.setRoomNumber((short) room);
+        r.setStartDate(start);
+        r.setEndDate(end);
+        return r;
+    }
+}
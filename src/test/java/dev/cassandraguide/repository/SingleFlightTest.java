@@ -0,0 +1,107 @@
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+
+/**
+ * Sharing, errors and timeouts of concurrent identical reads.
+ *
+ * @author Jeff Carpenter
+ */
+public class SingleFlightTest {
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void startCallers() {
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent calls for the same key share one read and get their own copy")
+    public void concurrentCalls_should_share_one_read() throws Exception {
+        SingleFlight<String, StringBuilder> flights = new SingleFlight<>("find", 5000, r -> new StringBuilder(r));
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<StringBuilder>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> flights.execute("key", () -> {
+                reads.incrementAndGet();
+                await(release);
+                return new StringBuilder("value");
+            }), callers));
+        }
+        // Every caller has joined (or is the leader) before the read completes
+        while (flights.getCalls() < 8) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (CompletableFuture<StringBuilder> result : results) {
+            Assertions.assertEquals("value", result.get(5, TimeUnit.SECONDS).toString());
+        }
+        Assertions.assertEquals(1, reads.get());
+        Assertions.assertEquals(7, flights.getShared());
+        Assertions.assertEquals(7.0 / 8, flights.getDedupRatio(), 1e-9);
+        Assertions.assertEquals(8, results.stream().map(CompletableFuture::join).distinct().count());
+        // Once landed, the next call reads again
+        flights.execute("key", () -> {
+            reads.incrementAndGet();
+            return new StringBuilder("again");
+        });
+        Assertions.assertEquals(2, reads.get());
+    }
+
+    @Test
+    @DisplayName("Callers that joined get the error of the read, and give up after their timeout")
+    public void joinedCalls_should_get_errors_and_timeouts() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("find", 500, r -> r);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new ReadTimeoutException(null, null, 1, 2, false);
+        }), callers);
+        started.await();
+        // A caller joining a read slower than its timeout gives up
+        Assertions.assertThrows(DriverTimeoutException.class, () -> flights.execute("key", () -> "unused"));
+        CompletableFuture<String> joined = CompletableFuture.supplyAsync(
+                () -> flights.execute("key", () -> "unused"), callers);
+        while (flights.getShared() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        Assertions.assertTrue(Assertions.assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS))
+                .getCause() instanceof ReadTimeoutException);
+        Assertions.assertTrue(Assertions.assertThrows(Exception.class, () -> joined.get(5, TimeUnit.SECONDS))
+                .getCause() instanceof ReadTimeoutException);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.cassandraguide.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+
+/**
+ * Thresholds and redaction of the slow-query log.
+ *
+ * @author Jeff Carpenter
+ */
+public class SlowQueryLoggerTest {
+
+    @Test
+    @DisplayName("Each operation is compared to its own threshold, others to the default one")
+    public void thresholds_should_apply_per_operation() {
+        SlowQueryLogger slowQueries = new SlowQueryLogger(Map.of("findByConfirmationNumber", 100L), 500);
+        Assertions.assertFalse(slowQueries.isSlow("findByConfirmationNumber", TimeUnit.MILLISECONDS.toNanos(99)));
+        Assertions.assertTrue(slowQueries.isSlow("findByConfirmationNumber", TimeUnit.MILLISECONDS.toNanos(150)));
+        Assertions.assertFalse(slowQueries.isSlow("default", TimeUnit.MILLISECONDS.toNanos(150)));
+        Assertions.assertTrue(slowQueries.isSlow("default", TimeUnit.MILLISECONDS.toNanos(500)));
+    }
+
+    @Test
+    @DisplayName("Statements are labelled without their values")
+    public void label_should_not_contain_values() {
+        SimpleStatement select = SimpleStatement.newInstance(
+                "SELECT * FROM reservation.guests WHERE guest_id=?", "Smith");
+        Assertions.assertEquals("SELECT * FROM reservation.guests WHERE guest_id=?", SlowQueryLogger.label(select));
+        Assertions.assertEquals("[<1 values>]", SlowQueryLogger.values(select));
+        BatchStatement batch = BatchStatement.newInstance(DefaultBatchType.LOGGED, 
+                List.of(select, SimpleStatement.newInstance("DELETE FROM reservation.guests WHERE guest_id=?", "Doe")));
+        Assertions.assertTrue(SlowQueryLogger.label(batch).startsWith("BATCH LOGGED of 2, first: SELECT"));
+        Assertions.assertFalse(SlowQueryLogger.values(batch).contains("Smith"));
+    }
+}
@@ -0,0 +1,124 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.CassandraContainer;
+
+import dev.cassandraguide.conf.CassandraConfiguration;
+import dev.cassandraguide.conf.ReservationProperties;
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Latency of 'findByHotelAndDate' on 'reservations_by_hotel_date' partitions with heavy cancellation churn: every
+ * partition holds a few live reservations and many cancelled ones, deleted (one row tombstone each) or soft-cancelled
+ * (a live row with a CANCELLED status, filtered by the repository). Requires Docker (Cassandra started with
+ * TestContainers).
+ *
+ * <p>Deleted rows are scanned as tombstones by every read until compaction purges them after gc_grace_seconds,
+ * soft-cancelled rows are scanned and returned to the client: look at the p0.99 lines of the 'SampleTime' output and
+ * at the tombstone warnings of the Cassandra logs (tombstone_warn_threshold is 1000). Soft cancels trade tombstones
+ * for larger responses, they pay off while cancelled rows are a minority of what the client would read anyway.
+ * Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=dev.cassandraguide.repository.SoftCancelBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class SoftCancelBenchmark {
+
+    @Param({"false", "true"})
+    public boolean softCancel;
+
+    /** Cancelled reservations per partition. */
+    @Param({"2000"})
+    public int cancellations;
+
+    /** Live reservations per partition. */
+    @Param({"50"})
+    public int reservations;
+
+    /** Number of partitions read. */
+    @Param({"4"})
+    public int hotels;
+
+    private CassandraContainer<?>  cassandraContainer;
+    private ReservationRepository  reservationRepo;
+    private final LocalDate        checkIn = LocalDate.now().plusDays(7);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cassandraContainer = new CassandraContainer<>("cassandra:3.11.4");
+        cassandraContainer.start();
+        CassandraConfiguration cassandraConfig = new CassandraConfiguration();
+        cassandraConfig.setDropSchema(true);
+        cassandraConfig.setCassandraHost(cassandraContainer.getContainerIpAddress());
+        cassandraConfig.setCassandraPort(cassandraContainer.getMappedPort(9042));
+        ReservationProperties properties = new ReservationProperties();
+        properties.setLimiterEnabled(false);
+        properties.setClaimsEnabled(false);
+        properties.setSoftCancelEnabled(softCancel);
+        reservationRepo = new ReservationRepository(cassandraConfig.cqlSession(), cassandraConfig.keyspace(), properties);
+        for (int hotel = 0; hotel < hotels; hotel++) {
+            // Cancelled rooms first, live ones are then written over some of them as rebookings
+            for (int room = 0; room < cancellations; room++) {
+                reservationRepo.delete(reservationRepo.upsert(reservation(hotel, room)));
+            }
+            for (int room = 0; room < reservations; room++) {
+                reservationRepo.upsert(reservation(hotel, room));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        reservationRepo.cleanup();
+        cassandraContainer.stop();
+    }
+
+    @Benchmark
+    public Object findByHotelAndDate() {
+        return reservationRepo.findByHotelAndDate("HOTEL-" + ThreadLocalRandom.current().nextInt(hotels), checkIn);
+    }
+
+    private Reservation reservation(int hotel, int room) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId("HOTEL-" + hotel);
+        reservation.setStartDate(checkIn);
+        reservation.setEndDate(checkIn.plusDays(2));
+        reservation.setRoomNumber((short) room);
+        reservation.setGuestId(UUID.randomUUID());
+        return reservation;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SoftCancelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package dev.cassandraguide.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare tail latency of single reads and hedged reads against a latency-injecting stand-in for
+ * replicas: most reads answer in about 1ms but a fraction of them hit a replica paused for GC or
+ * compaction.
+ * 
+ * <p>The hedging delay is computed by {@link LatencyPercentileTracker} as in
+ * {@link PercentileSpeculativeExecutionPolicy}. Look at the p0.99 line of the 'SampleTime' output.
+ * Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=dev.cassandraguide.repository.SpeculativeExecutionBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class SpeculativeExecutionBenchmark {
+    
+    /** Fraction of reads hitting a slow replica. */
+    @Param({"0.02"})
+    public double slowRatio;
+    
+    /** Latency of a slow replica. */
+    @Param({"40"})
+    public int slowMillis;
+    
+    /** Percentile used as hedging delay, must be below 1 - slowRatio to catch slow replicas. */
+    @Param({"95.0"})
+    public double percentile;
+    
+    private ScheduledExecutorService replicas;
+    private LatencyPercentileTracker tracker;
+    
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        replicas = Executors.newScheduledThreadPool(4);
+        tracker  = new LatencyPercentileTracker(1, 100);
+        // Prime the tracker with a full window of samples
+        for (int i = 0; i < 10_000; i++) {
+            tracker.record(sampleLatencyNanos());
+        }
+        TimeUnit.MILLISECONDS.sleep(1100);
+        tracker.getPercentileNanos(percentile);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        replicas.shutdownNow();
+    }
+    
+    @Benchmark
+    public Object singleRead() {
+        return replicaRead().join();
+    }
+    
+    @Benchmark
+    public Object hedgedRead() {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        replicaRead().thenAccept(result::complete);
+        long delayNanos = tracker.getPercentileNanos(percentile);
+        replicas.schedule(() -> {
+            if (!result.isDone()) {
+                replicaRead().thenAccept(result::complete);
+            }
+        }, delayNanos < 0 ? TimeUnit.MILLISECONDS.toNanos(50) : delayNanos, TimeUnit.NANOSECONDS);
+        return result.join();
+    }
+    
+    /**
+     * Stand-in for a read sent to one replica.
+     */
+    private CompletableFuture<Long> replicaRead() {
+        CompletableFuture<Long> response = new CompletableFuture<>();
+        long latency = sampleLatencyNanos();
+        long start   = System.nanoTime();
+        replicas.schedule(() -> {
+            long observed = System.nanoTime() - start;
+            tracker.record(observed);
+            response.complete(observed);
+        }, latency, TimeUnit.NANOSECONDS);
+        return response;
+    }
+    
+    private long sampleLatencyNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long base = TimeUnit.MICROSECONDS.toNanos(800 + random.nextInt(400));
+        return (random.nextDouble() < slowRatio) ? base + TimeUnit.MILLISECONDS.toNanos(slowMillis) : base;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SpeculativeExecutionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package dev.cassandraguide.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TimeOrderedConfirmationNumberGenerator}, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class TimeOrderedConfirmationNumberGeneratorTest {
+    
+    private final TimeOrderedConfirmationNumberGenerator generator = new TimeOrderedConfirmationNumberGenerator();
+    
+    @Test
+    @DisplayName("Confirmation numbers are valid UUIDs increasing within a thread")
+    public void next_should_be_valid_and_ordered() {
+        String previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            String current = generator.next();
+            // Same check as the REST API
+            UUID uuid = UUID.fromString(current);
+            Assertions.assertEquals(7, uuid.version());
+            Assertions.assertEquals(2, uuid.variant());
+            Assertions.assertTrue(current.compareTo(previous) > 0, current + " should be after " + previous);
+            previous = current;
+        }
+    }
+    
+    @Test
+    @DisplayName("Confirmation numbers are unique across threads")
+    public void next_should_be_unique_across_threads() throws Exception {
+        Set<String> generated = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    Assertions.assertTrue(generated.add(generator.next()));
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+        Assertions.assertEquals(160_000, generated.size());
+    }
+    
+    @Test
+    @DisplayName("Creation time can be read from a confirmation number")
+    public void timestampOf_should_return_creation_time() {
+        long before = System.currentTimeMillis();
+        String confirmationNumber = generator.next();
+        long created = TimeOrderedConfirmationNumberGenerator.timestampOf(confirmationNumber).toEpochMilli();
+        // Sequence overflow may borrow a few milliseconds
+        Assertions.assertTrue(created >= before && created <= System.currentTimeMillis() + 10);
+        Assertions.assertThrows(IllegalArgumentException.class, 
+                () -> TimeOrderedConfirmationNumberGenerator.timestampOf(UUID.randomUUID().toString()));
+    }
+}
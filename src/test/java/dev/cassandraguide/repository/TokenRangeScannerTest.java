@@ -0,0 +1,42 @@
+package dev.cassandraguide.repository;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Splits of the ring and progress within a range.
+ *
+ * @author Jeff Carpenter
+ */
+public class TokenRangeScannerTest {
+
+    @Test
+    @DisplayName("Splits are contiguous and cover the whole ring")
+    public void splits_should_cover_ring() {
+        for (int count : new int[] { 1, 2, 3, 256, 1000 }) {
+            List<long[]> splits = TokenRangeScanner.splits(count);
+            Assertions.assertEquals(count, splits.size());
+            Assertions.assertEquals(Long.MIN_VALUE, splits.get(0)[0]);
+            Assertions.assertEquals(Long.MAX_VALUE, splits.get(count - 1)[1]);
+            for (int i = 0; i < count; i++) {
+                Assertions.assertTrue(splits.get(i)[0] < splits.get(i)[1]);
+                if (i > 0) {
+                    Assertions.assertEquals(splits.get(i - 1)[1], splits.get(i)[0]);
+                }
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TokenRangeScanner.splits(0));
+    }
+
+    @Test
+    @DisplayName("Fraction scanned goes from 0 at the start of a range to 1 at its end")
+    public void fraction_should_follow_position() {
+        Assertions.assertEquals(0, TokenRangeScanner.fraction(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE));
+        Assertions.assertEquals(0.5, TokenRangeScanner.fraction(Long.MIN_VALUE, Long.MAX_VALUE, 0), 1e-9);
+        Assertions.assertEquals(1, TokenRangeScanner.fraction(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE));
+        Assertions.assertEquals(0.25, TokenRangeScanner.fraction(0, 100, 25), 1e-9);
+    }
+}
@@ -0,0 +1,93 @@
+package dev.cassandraguide.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import dev.cassandraguide.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link WriteBehindJournal}, no Cassandra required.
+ *
+ * @author Jeff Carpenter
+ */
+public class WriteBehindJournalTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("Entries not committed are replayed when the journal is reopened")
+    public void journal_should_replay_after_crash() throws Exception {
+        Path path = folder.resolve("journal");
+        WriteBehindJournal journal = new WriteBehindJournal(path, 64 * 1024);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(journal.append(List.of(entry(i))));
+        }
+        WriteBehindJournal.Batch batch = journal.poll(4, 1, TimeUnit.MILLISECONDS);
+        Assertions.assertEquals(4, batch.getEntries().size());
+        journal.commit(batch);
+        // Polled, never committed
+        journal.poll(4, 1, TimeUnit.MILLISECONDS);
+        // No close: simulates a crash
+        journal.force();
+
+        WriteBehindJournal reopened = new WriteBehindJournal(path, 64 * 1024);
+        List<WriteBehindJournal.Entry> replayed = reopened.poll(100, 1, TimeUnit.MILLISECONDS).getEntries();
+        Assertions.assertEquals(6, replayed.size());
+        WriteBehindJournal.Entry first = replayed.get(0);
+        Assertions.assertEquals(4L, first.getTimestampMicros());
+        Assertions.assertEquals(WriteBehindJournal.Operation.INSERT, first.getOperation());
+        Assertions.assertTrue(first.isUuid());
+        Assertions.assertEquals("NY4", first.getReservation().getHotelId());
+        Assertions.assertEquals(LocalDate.of(2020, 6, 24), first.getReservation().getStartDate());
+        Assertions.assertEquals(WriteBehindJournal.Operation.DELETE, replayed.get(1).getOperation());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("A torn entry ends the journal and a full journal rejects appends")
+    public void journal_should_stop_at_torn_entry_and_fill_up() throws Exception {
+        Path path = folder.resolve("journal");
+        WriteBehindJournal journal = new WriteBehindJournal(path, 1024);
+        int appended = 0;
+        while (journal.append(List.of(entry(appended)))) {
+            appended++;
+        }
+        Assertions.assertTrue(appended > 5);
+        journal.close();
+
+        // Corrupt the body of the third entry
+        byte[] content = Files.readAllBytes(path);
+        int entryBytes = (journal.getPendingBytes()) / appended;
+        content[WriteBehindJournal.HEADER_BYTES + 2 * entryBytes + WriteBehindJournal.ENTRY_OVERHEAD + 3] ^= 1;
+        Files.write(path, content);
+        WriteBehindJournal reopened = new WriteBehindJournal(path, 1024);
+        Assertions.assertEquals(2 * entryBytes, reopened.getPendingBytes());
+
+        // Applied entries are reclaimed
+        reopened.commit(reopened.poll(100, 1, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, reopened.getPendingBytes());
+        Assertions.assertTrue(reopened.append(List.of(entry(0))));
+        reopened.close();
+    }
+
+    private static WriteBehindJournal.Entry entry(int i) {
+        Reservation reservation = new Reservation();
+        reservation.setHotelId("NY" + i);
+        reservation.setStartDate(LocalDate.of(2020, 6, 20).plusDays(i));
+        reservation.setEndDate(LocalDate.of(2020, 6, 22).plusDays(i));
+        reservation.setRoomNumber((short) (100 + i));
+        reservation.setGuestId(UUID.randomUUID());
+        reservation.setConfirmationNumber(UUID.randomUUID().toString());
+        return new WriteBehindJournal.Entry(i % 2 == 0 ? WriteBehindJournal.Operation.INSERT 
+                : WriteBehindJournal.Operation.DELETE, true, i, reservation);
+    }
+}
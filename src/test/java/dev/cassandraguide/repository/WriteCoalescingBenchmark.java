@@ -0,0 +1,97 @@
+package dev.cassandraguide.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.CassandraContainer;
+
+import dev.cassandraguide.conf.CassandraConfiguration;
+import dev.cassandraguide.conf.ReservationProperties;
+import dev.cassandraguide.model.Reservation;
+
+/**
+ * Writes/sec of concurrent upserts on a few hot 'reservations_by_hotel_date' partitions (check-in peak),
+ * with and without the {@link WriteCoalescer}. Requires Docker (Cassandra started with TestContainers).
+ * 
+ * <p>Run with: <code>mvn test-compile exec:java -Dexec.classpathScope=test 
+ * -Dexec.mainClass=dev.cassandraguide.repository.WriteCoalescingBenchmark</code>
+ *
+ * @author Jeff Carpenter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(64)
+public class WriteCoalescingBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean coalescing;
+    
+    /** Number of distinct hot partitions. */
+    @Param({"4"})
+    public int hotels;
+    
+    private CassandraContainer<?>  cassandraContainer;
+    private ReservationRepository  reservationRepo;
+    private final LocalDate        checkIn = LocalDate.now();
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        cassandraContainer = new CassandraContainer<>("cassandra:3.11.4");
+        cassandraContainer.start();
+        CassandraConfiguration cassandraConfig = new CassandraConfiguration();
+        cassandraConfig.setDropSchema(true);
+        cassandraConfig.setCassandraHost(cassandraContainer.getContainerIpAddress());
+        cassandraConfig.setCassandraPort(cassandraContainer.getMappedPort(9042));
+        ReservationProperties properties = new ReservationProperties();
+        properties.setLimiterEnabled(false);
+        properties.setCoalescerEnabled(coalescing);
+        reservationRepo = new ReservationRepository(cassandraConfig.cqlSession(), cassandraConfig.keyspace(), properties);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        reservationRepo.cleanup();
+        cassandraContainer.stop();
+    }
+    
+    @Benchmark
+    public String upsert() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Reservation reservation = new Reservation();
+        reservation.setHotelId("HOTEL-" + random.nextInt(hotels));
+        reservation.setStartDate(checkIn);
+        reservation.setEndDate(checkIn.plusDays(2));
+        reservation.setRoomNumber((short) random.nextInt(1000));
+        reservation.setGuestId(UUID.randomUUID());
+        return reservationRepo.upsert(reservation);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WriteCoalescingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}